@@ -0,0 +1,31 @@
+package com.config;
+
+import com.interceptor.AdaptiveConcurrencyLimiter;
+import com.interceptor.AdmissionControlInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 准入控制配置
+ * admission-control.enabled=true 时创建准入控制拦截器，由 InterceptorConfig 注册在最前面
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+@ConditionalOnProperty(prefix = "admission-control", name = "enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdmissionControlInterceptor admissionControlInterceptor(AdmissionControlProperties properties,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        AdaptiveConcurrencyLimiter globalLimiter = new AdaptiveConcurrencyLimiter("global",
+                properties.getGlobalInitialLimit(), properties.getGlobalMinLimit(), properties.getGlobalMaxLimit(),
+                0.9, properties.getCooldownMs());
+        return new AdmissionControlInterceptor(
+                properties.getClasses().isEmpty() ? AdmissionControlInterceptor.defaultRouteClasses() : properties.getClasses(),
+                globalLimiter, properties.getCooldownMs(), meterRegistry.getIfAvailable());
+    }
+}
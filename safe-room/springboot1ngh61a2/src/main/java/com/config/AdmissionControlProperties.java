@@ -0,0 +1,86 @@
+package com.config;
+
+import com.interceptor.RouteClass;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 准入控制配置（admission-control.*）
+ */
+@ConfigurationProperties(prefix = "admission-control")
+public class AdmissionControlProperties {
+
+    /**
+     * 是否启用准入控制
+     */
+    private boolean enabled = false;
+
+    /**
+     * 全局并发上限的初始值、下限和上限；上限不宜超过Tomcat工作线程数
+     */
+    private int globalInitialLimit = 100;
+
+    private int globalMinLimit = 10;
+
+    private int globalMaxLimit = 180;
+
+    /**
+     * 两次收缩之间的最小间隔（毫秒）
+     */
+    private long cooldownMs = 1000;
+
+    /**
+     * 路由分类，按顺序匹配，第一个匹配的生效；未配置时使用默认分类
+     */
+    private List<RouteClass> classes = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getGlobalInitialLimit() {
+        return globalInitialLimit;
+    }
+
+    public void setGlobalInitialLimit(int globalInitialLimit) {
+        this.globalInitialLimit = globalInitialLimit;
+    }
+
+    public int getGlobalMinLimit() {
+        return globalMinLimit;
+    }
+
+    public void setGlobalMinLimit(int globalMinLimit) {
+        this.globalMinLimit = globalMinLimit;
+    }
+
+    public int getGlobalMaxLimit() {
+        return globalMaxLimit;
+    }
+
+    public void setGlobalMaxLimit(int globalMaxLimit) {
+        this.globalMaxLimit = globalMaxLimit;
+    }
+
+    public long getCooldownMs() {
+        return cooldownMs;
+    }
+
+    public void setCooldownMs(long cooldownMs) {
+        this.cooldownMs = cooldownMs;
+    }
+
+    public List<RouteClass> getClasses() {
+        return classes;
+    }
+
+    public void setClasses(List<RouteClass> classes) {
+        this.classes = classes;
+    }
+}
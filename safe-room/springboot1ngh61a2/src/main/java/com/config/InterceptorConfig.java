@@ -4,13 +4,17 @@ import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
 
+import java.util.concurrent.TimeUnit;
+
+import com.interceptor.AdmissionControlInterceptor;
 import com.interceptor.AuthorizationInterceptor;
 import com.interceptor.MetricsInterceptor;
-// import com.interceptor.RateLimitInterceptor; // 已禁用限流功能
+import com.interceptor.RateLimitInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 
 @Configuration
@@ -22,30 +26,39 @@ public class InterceptorConfig extends WebMvcConfigurationSupport{
     }
 
 	@Bean
-    public MetricsInterceptor getMetricsInterceptor(MeterRegistry meterRegistry, MetricsConfig metricsConfig) {
-        return new MetricsInterceptor(meterRegistry, metricsConfig);
+    public MetricsInterceptor getMetricsInterceptor(MeterRegistry meterRegistry) {
+        return new MetricsInterceptor(meterRegistry);
     }
 	
-	// @Autowired(required = false)
-	// private RateLimitInterceptor rateLimitInterceptor; // 已禁用限流功能
+	// 仅在 admission-control.enabled=true 时存在，见 AdmissionControlConfig
+	@Autowired(required = false)
+	private AdmissionControlInterceptor admissionControlInterceptor;
+
+	// 仅在 rate-limit.enabled=true 时存在，见 RateLimitConfig
+	@Autowired(required = false)
+	private RateLimitInterceptor rateLimitInterceptor;
 	
 	@Autowired(required = false)
 	private Environment environment;
 
 	@Autowired
 	private MeterRegistry meterRegistry;
-
-	@Autowired
-	private MetricsConfig metricsConfig;
 	
 	@Override
     public void addInterceptors(InterceptorRegistry registry) {
-        // 速率限制拦截器（已禁用）
-        // if (rateLimitInterceptor != null && !isTestProfile()) {
-        //     registry.addInterceptor(rateLimitInterceptor)
-        //             .addPathPatterns("/**")
-        //             .excludePathPatterns("/static/**");
-        // }
+        // 准入控制拦截器，过载时最先拒绝低优先级请求，排在所有拦截器之前
+        if (admissionControlInterceptor != null) {
+            registry.addInterceptor(admissionControlInterceptor)
+                    .addPathPatterns("/**")
+                    .excludePathPatterns("/static/**", "/actuator/**");
+        }
+
+        // 速率限制拦截器，在认证之前拒绝超限请求
+        if (rateLimitInterceptor != null && !isTestProfile()) {
+            registry.addInterceptor(rateLimitInterceptor)
+                    .addPathPatterns("/**")
+                    .excludePathPatterns("/static/**");
+        }
 
         // 认证拦截器
         registry.addInterceptor(getAuthorizationInterceptor())
@@ -53,7 +66,7 @@ public class InterceptorConfig extends WebMvcConfigurationSupport{
                 .excludePathPatterns("/static/**");
 
         // 指标收集拦截器
-        registry.addInterceptor(getMetricsInterceptor(meterRegistry, metricsConfig))
+        registry.addInterceptor(getMetricsInterceptor(meterRegistry))
                 .addPathPatterns("/**")
                 .excludePathPatterns("/static/**", "/actuator/**", "/favicon.ico");
 
@@ -81,6 +94,10 @@ public class InterceptorConfig extends WebMvcConfigurationSupport{
 	 */
 	@Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+		// 内容寻址上传文件的文件名即内容摘要，内容不可变，可长期缓存
+		registry.addResourceHandler("/upload/sha256-*")
+        .addResourceLocations("classpath:/static/upload/")
+        .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
 		registry.addResourceHandler("/**")
         .addResourceLocations("classpath:/resources/")
         .addResourceLocations("classpath:/static/")
@@ -8,13 +8,29 @@ import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
 import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
 import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
 import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.interceptor.MetricsInterceptor;
+import com.service.impl.StorageUsageTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -28,6 +44,18 @@ public class MetricsConfig {
     private final AtomicInteger activeUsers = new AtomicInteger(0);
     private final AtomicInteger activeWorkouts = new AtomicInteger(0);
 
+    // Live sources for the pool, cache and storage gauges; all optional so the config loads standalone
+    @Autowired(required = false)
+    private DataSource dataSource;
+
+    @Autowired(required = false)
+    private Map<String, CacheManager> cacheManagers = Collections.emptyMap();
+
+    @Autowired(required = false)
+    private StorageUsageTracker storageUsageTracker;
+
+    private volatile MeterRegistry meterRegistry;
+
     @Bean
     MeterRegistryCustomizer<MeterRegistry> metricsCommonTags() {
         return registry -> registry.config().commonTags("application", "fitness-gym");
@@ -36,6 +64,7 @@ public class MetricsConfig {
     @EventListener(ApplicationReadyEvent.class)
     public void bindMetrics(ApplicationReadyEvent event) {
         MeterRegistry registry = event.getApplicationContext().getBean(MeterRegistry.class);
+        this.meterRegistry = registry;
         // JVM Metrics
         new JvmMemoryMetrics().bindTo(registry);
         new JvmGcMetrics().bindTo(registry);
@@ -70,6 +99,10 @@ public class MetricsConfig {
                 .description("Maximum database connections")
                 .register(registry);
 
+        Gauge.builder("fitness_gym_db_connections_pending", () -> getPendingDbConnections())
+                .description("Threads waiting for a database connection")
+                .register(registry);
+
         // Business Operation Counters
         Counter.builder("fitness_gym_workout_bookings_total")
                 .description("Total number of workout bookings")
@@ -96,6 +129,10 @@ public class MetricsConfig {
         Gauge.builder("fitness_gym_file_storage_total_bytes", () -> getFileStorageTotalBytes())
                 .description("File storage total capacity in bytes")
                 .register(registry);
+
+        Gauge.builder("fitness_gym_file_storage_objects", () -> getFileStorageObjectCount())
+                .description("Number of stored upload files")
+                .register(registry);
     }
 
     // Metric update methods - call these from your controllers/services
@@ -155,47 +192,155 @@ public class MetricsConfig {
                 .increment();
     }
 
+    // Snapshots used by the service-status endpoint
+
     /**
-     * Record API response time
+     * Connection pool usage, empty when the data source is not HikariCP
      */
-    public void recordApiResponseTime(MeterRegistry registry, String method, String endpoint, String status, long responseTimeMs) {
-        Timer.builder("fitness_gym_api_response_time")
-                .description("API response time in milliseconds")
-                .tags("method", method, "endpoint", endpoint, "status", status)
-                .register(registry)
-                .record(java.time.Duration.ofMillis(responseTimeMs));
+    public Map<String, Object> getDatabasePoolStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        HikariPoolMXBean pool = getHikariPool();
+        if (pool == null) {
+            return status;
+        }
+        status.put("activeConnections", pool.getActiveConnections());
+        status.put("idleConnections", pool.getIdleConnections());
+        status.put("pendingThreads", pool.getThreadsAwaitingConnection());
+        status.put("maxConnections", getMaxDbConnections());
+        return status;
     }
 
-    // Placeholder methods for metrics that require actual implementation
-    // These should be connected to your actual data sources
+    /**
+     * Aggregated Caffeine statistics across every CacheManager
+     */
+    public Map<String, Object> getCacheStatus() {
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        long entries = 0;
+        for (com.github.benmanes.caffeine.cache.Cache<Object, Object> cache : caffeineCaches()) {
+            CacheStats stats = cache.stats();
+            hits += stats.hitCount();
+            misses += stats.missCount();
+            evictions += stats.evictionCount();
+            entries += cache.estimatedSize();
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("hits", hits);
+        status.put("misses", misses);
+        status.put("evictions", evictions);
+        status.put("keys", entries);
+        status.put("hitRate", hits + misses == 0 ? 0.0 : Math.round(hits * 10000.0 / (hits + misses)) / 100.0);
+        return status;
+    }
+
+    /**
+     * Request totals and latency since startup, read from the MetricsInterceptor timers
+     */
+    public Map<String, Object> getApiStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        MeterRegistry registry = meterRegistry;
+        long requests = 0;
+        long serverErrors = 0;
+        double totalMillis = 0;
+        if (registry != null) {
+            for (Timer timer : registry.find(MetricsInterceptor.METRIC_NAME).timers()) {
+                long count = timer.count();
+                requests += count;
+                totalMillis += timer.totalTime(TimeUnit.MILLISECONDS);
+                if ("5xx".equals(timer.getId().getTag("status"))) {
+                    serverErrors += count;
+                }
+            }
+        }
+        double errorRate = requests == 0 ? 0.0 : Math.round(serverErrors * 10000.0 / requests) / 100.0;
+        status.put("totalRequests", requests);
+        status.put("avgResponseTime", requests == 0 ? 0.0 : Math.round(totalMillis * 100.0 / requests) / 100.0);
+        status.put("errorRate", errorRate);
+        status.put("availability", Math.round((100.0 - errorRate) * 100.0) / 100.0);
+        return status;
+    }
+
+    private HikariDataSource getHikariDataSource() {
+        if (dataSource == null) {
+            return null;
+        }
+        if (dataSource instanceof HikariDataSource) {
+            return (HikariDataSource) dataSource;
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            // not a Hikari pool
+        }
+        return null;
+    }
+
+    private HikariPoolMXBean getHikariPool() {
+        HikariDataSource hikari = getHikariDataSource();
+        // The MXBean is only available once the pool has started
+        return hikari != null ? hikari.getHikariPoolMXBean() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterable<com.github.benmanes.caffeine.cache.Cache<Object, Object>> caffeineCaches() {
+        List<com.github.benmanes.caffeine.cache.Cache<Object, Object>> caches = new ArrayList<>();
+        if (cacheManagers == null) {
+            return caches;
+        }
+        for (CacheManager cacheManager : cacheManagers.values()) {
+            for (String name : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache instanceof CaffeineCache) {
+                    caches.add(((CaffeineCache) cache).getNativeCache());
+                }
+            }
+        }
+        return caches;
+    }
 
     private int getActiveDbConnections() {
-        // TODO: Implement based on your connection pool (HikariCP, etc.)
-        return 0;
+        HikariPoolMXBean pool = getHikariPool();
+        return pool != null ? pool.getActiveConnections() : 0;
     }
 
     private int getIdleDbConnections() {
-        // TODO: Implement based on your connection pool
-        return 0;
+        HikariPoolMXBean pool = getHikariPool();
+        return pool != null ? pool.getIdleConnections() : 0;
+    }
+
+    private int getPendingDbConnections() {
+        HikariPoolMXBean pool = getHikariPool();
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
     }
 
     private int getMaxDbConnections() {
-        // TODO: Implement based on your connection pool configuration
-        return 50; // Default max connections
+        HikariDataSource hikari = getHikariDataSource();
+        return hikari != null ? hikari.getMaximumPoolSize() : 0;
     }
 
     private double getCacheHitRatio() {
-        // TODO: Implement based on your cache implementation (Redis, Caffeine, etc.)
-        return 0.0;
+        long hits = 0;
+        long requests = 0;
+        for (com.github.benmanes.caffeine.cache.Cache<Object, Object> cache : caffeineCaches()) {
+            CacheStats stats = cache.stats();
+            hits += stats.hitCount();
+            requests += stats.requestCount();
+        }
+        return requests == 0 ? 0.0 : (double) hits / requests;
     }
 
     private long getFileStorageUsedBytes() {
-        // TODO: Implement based on your file storage (MinIO, local filesystem, etc.)
-        return 0L;
+        return storageUsageTracker != null ? storageUsageTracker.getUsedBytes() : 0L;
     }
 
     private long getFileStorageTotalBytes() {
-        // TODO: Implement based on your file storage capacity
-        return 1073741824L; // 1GB default
+        return storageUsageTracker != null ? storageUsageTracker.getTotalBytes() : 0L;
+    }
+
+    private long getFileStorageObjectCount() {
+        return storageUsageTracker != null ? storageUsageTracker.getObjectCount() : 0L;
     }
 }
@@ -32,6 +32,21 @@ public class MinioConfig {
     @Value("${minio.presigned-url-expiry:3600}")
     private int presignedUrlExpiry;
 
+    @Value("${minio.stat-cache-ttl-seconds:30}")
+    private int statCacheTtlSeconds;
+
+    @Value("${minio.stat-cache-max-size:10000}")
+    private long statCacheMaxSize;
+
+    @Value("${minio.part-size:10485760}")
+    private long partSize;
+
+    @Value("${minio.presigned-cache-max-size:10000}")
+    private long presignedCacheMaxSize;
+
+    @Value("${minio.presigned-refresh-ratio:0.2}")
+    private double presignedRefreshRatio;
+
     /**
      * 创建MinIO客户端
      */
@@ -58,5 +73,28 @@ public class MinioConfig {
     public boolean isSecure() {
         return secure;
     }
+
+    public int getStatCacheTtlSeconds() {
+        return statCacheTtlSeconds;
+    }
+
+    public long getStatCacheMaxSize() {
+        return statCacheMaxSize;
+    }
+
+    /**
+     * 分片上传的分片大小（字节），MinIO要求不小于5MB
+     */
+    public long getPartSize() {
+        return Math.max(partSize, 5L * 1024 * 1024);
+    }
+
+    public long getPresignedCacheMaxSize() {
+        return presignedCacheMaxSize;
+    }
+
+    public double getPresignedRefreshRatio() {
+        return presignedRefreshRatio;
+    }
 }
 
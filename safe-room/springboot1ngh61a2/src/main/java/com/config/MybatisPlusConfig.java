@@ -1,12 +1,17 @@
 
 package com.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.interceptor.SqlMetricsInterceptor;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * mybatis-plus configuration
@@ -23,5 +28,15 @@ public class MybatisPlusConfig {
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.POSTGRE_SQL));
         return interceptor;
     }
+
+    /**
+     * Per-statement SQL timing, registered with the SqlSessionFactory next to the pagination plugin
+     */
+    @Bean
+    public SqlMetricsInterceptor sqlMetricsInterceptor(ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${sql-metrics.slow-threshold-ms:500}") long slowThresholdMs,
+            @Value("${sql-metrics.slow-log-interval-ms:60000}") long slowLogIntervalMs) {
+        return new SqlMetricsInterceptor(meterRegistry.getIfAvailable(), slowThresholdMs, slowLogIntervalMs);
+    }
     
 }
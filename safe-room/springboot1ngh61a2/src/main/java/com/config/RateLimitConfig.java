@@ -0,0 +1,46 @@
+package com.config;
+
+import com.interceptor.RateLimitInterceptor;
+import com.service.RateLimitBackend;
+import com.service.impl.LocalRateLimitBackend;
+import com.service.impl.PostgresRateLimitBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 限流配置
+ * rate-limit.enabled=true 时创建令牌桶存储和限流拦截器，由 InterceptorConfig 注册
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(prefix = "rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitConfig.class);
+
+    @Bean
+    @ConditionalOnProperty(prefix = "rate-limit", name = "backend", havingValue = "postgres")
+    public RateLimitBackend postgresRateLimitBackend(RateLimitProperties properties, JdbcTemplate jdbcTemplate) {
+        logger.info("限流令牌桶使用PostgreSQL共享存储");
+        return new PostgresRateLimitBackend(jdbcTemplate, properties.isFailOpen(), properties.getIdleTtlSeconds());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "rate-limit", name = "backend", havingValue = "local", matchIfMissing = true)
+    public RateLimitBackend localRateLimitBackend(RateLimitProperties properties) {
+        return new LocalRateLimitBackend(properties.getStripes(), properties.getMaxKeysPerStripe());
+    }
+
+    @Bean
+    public RateLimitInterceptor rateLimitInterceptor(RateLimitProperties properties, RateLimitBackend backend) {
+        if (properties.getPolicies().isEmpty()) {
+            return new RateLimitInterceptor(RateLimitInterceptor.defaultPolicies(), backend);
+        }
+        return new RateLimitInterceptor(properties.getPolicies(), backend);
+    }
+}
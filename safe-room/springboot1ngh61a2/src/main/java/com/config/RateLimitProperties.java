@@ -0,0 +1,106 @@
+package com.config;
+
+import com.interceptor.RateLimitPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 限流配置（rate-limit.*）
+ * 策略是列表结构，无法用@Value逐项注入，因此使用属性绑定
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = false;
+
+    /**
+     * 令牌桶存储：local（进程内）或 postgres（多实例共享）
+     */
+    private String backend = "local";
+
+    /**
+     * 进程内存储的分段数
+     */
+    private int stripes = 64;
+
+    /**
+     * 进程内存储每个分段最多保留的桶数，超出按最近最少使用淘汰
+     */
+    private int maxKeysPerStripe = 4096;
+
+    /**
+     * postgres存储不可用时是否放行
+     */
+    private boolean failOpen = true;
+
+    /**
+     * postgres存储中空闲桶的保留时长（秒）
+     */
+    private long idleTtlSeconds = 3600;
+
+    /**
+     * 限流策略，按顺序匹配，第一个匹配的生效；未配置时使用默认策略
+     */
+    private List<RateLimitPolicy> policies = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public int getMaxKeysPerStripe() {
+        return maxKeysPerStripe;
+    }
+
+    public void setMaxKeysPerStripe(int maxKeysPerStripe) {
+        this.maxKeysPerStripe = maxKeysPerStripe;
+    }
+
+    public boolean isFailOpen() {
+        return failOpen;
+    }
+
+    public void setFailOpen(boolean failOpen) {
+        this.failOpen = failOpen;
+    }
+
+    public long getIdleTtlSeconds() {
+        return idleTtlSeconds;
+    }
+
+    public void setIdleTtlSeconds(long idleTtlSeconds) {
+        this.idleTtlSeconds = idleTtlSeconds;
+    }
+
+    public List<RateLimitPolicy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(List<RateLimitPolicy> policies) {
+        this.policies = policies;
+    }
+}
@@ -0,0 +1,13 @@
+package com.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置
+ * 启用@Scheduled，用于日志分区维护等后台任务
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -32,6 +32,7 @@ import com.entity.ChatEntity;
 import com.entity.view.ChatView;
 
 import com.service.ChatService;
+import com.service.NotificationService;
 import com.service.TokenService;
 import com.utils.PageUtils;
 import com.utils.R;
@@ -53,6 +54,9 @@ public class ChatController {
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private NotificationService notificationService;
+
 
 
 
@@ -156,6 +160,7 @@ public class ChatController {
     		chat.setAdminid((Long)request.getSession().getAttribute("userId"));
     	}
         chatService.save(chat);
+        notifyChat(chat);
         return R.ok();
     }
     
@@ -180,11 +185,28 @@ public class ChatController {
     		chat.setAdminid((Long)request.getSession().getAttribute("userId"));
     	}
         chatService.save(chat);
+        notifyChat(chat);
         return R.ok();
     }
 
 
 
+    /**
+     * 推送新的提问给在线管理员、新的回复给提问会员
+     */
+    private void notifyChat(ChatEntity chat) {
+        Map<String, Object> event = new HashMap<String, Object>();
+        event.put("id", chat.getId());
+        event.put("userid", chat.getUserid());
+        if(StringUtils.isNotBlank(chat.getReply())) {
+            event.put("reply", chat.getReply());
+            notificationService.publish(NotificationService.TABLE_MEMBER, chat.getUserid(), NotificationService.EVENT_CHAT, event);
+        } else if(StringUtils.isNotBlank(chat.getAsk())) {
+            event.put("ask", chat.getAsk());
+            notificationService.publishToTable(NotificationService.TABLE_ADMIN, NotificationService.EVENT_CHAT, event);
+        }
+    }
+
      /**
      * 获取用户密保
      */
@@ -36,6 +36,8 @@ import java.lang.management.MemoryMXBean;
 import java.lang.management.RuntimeMXBean;
 import com.sun.management.OperatingSystemMXBean;
 import com.entity.EIException;
+import com.config.MetricsConfig;
+import java.io.File;
 
 /**
  * 通用接口（增强安全：表名和列名白名单）
@@ -65,6 +67,9 @@ public class CommonController{
 	@Autowired(required = false)
 	private DataSource dataSource;
 
+	@Autowired(required = false)
+	private MetricsConfig metricsConfig;
+
     public CommonController(CommonService commonService) {
         this.commonService = commonService;
     }
@@ -352,8 +357,11 @@ public class CommonController{
 			double memoryUsage = (usedMemory * 100.0) / maxMemory;
 			server.put("memory", Math.round(memoryUsage * 100.0) / 100.0);
 			
-			// 磁盘使用率（简化处理）
-			server.put("disk", 0);
+			// 磁盘使用率（应用工作目录所在磁盘）
+			File disk = new File("").getAbsoluteFile();
+			long totalSpace = disk.getTotalSpace();
+			double diskUsage = totalSpace > 0 ? (totalSpace - disk.getUsableSpace()) * 100.0 / totalSpace : 0;
+			server.put("disk", Math.round(diskUsage * 100.0) / 100.0);
 		} catch (Exception e) {
 			logger.error("获取服务器状态失败", e);
 			server.put("status", "error");
@@ -364,12 +372,17 @@ public class CommonController{
 		Map<String, Object> database = new HashMap<>();
 		try {
 			if (dataSource != null) {
+				long start = System.nanoTime();
 				try (Connection conn = dataSource.getConnection()) {
-					database.put("connected", !conn.isClosed());
+					// 获取连接并校验的耗时，包含连接池等待时间
+					boolean valid = conn.isValid(2);
+					database.put("responseTime", Math.round((System.nanoTime() - start) / 10000.0) / 100.0);
+					database.put("connected", valid);
 					DatabaseMetaData metaData = conn.getMetaData();
 					database.put("version", metaData.getDatabaseProductVersion());
-					database.put("responseTime", 0); // 简化处理
-					database.put("activeConnections", 0); // 简化处理
+				}
+				if (metricsConfig != null) {
+					database.putAll(metricsConfig.getDatabasePoolStatus());
 				}
 			} else {
 				database.put("connected", false);
@@ -380,20 +393,19 @@ public class CommonController{
 		}
 		result.put("database", database);
 		
-		// API状态（简化处理）
+		// API状态（进程启动以来，来自请求耗时指标）
 		Map<String, Object> api = new HashMap<>();
-		api.put("availability", 100);
-		api.put("avgResponseTime", 0);
-		api.put("todayRequests", 0);
-		api.put("errorRate", 0);
+		if (metricsConfig != null) {
+			api.putAll(metricsConfig.getApiStatus());
+		}
 		result.put("api", api);
 		
-		// 缓存状态（简化处理）
+		// 缓存状态（所有Caffeine缓存汇总）
 		Map<String, Object> cache = new HashMap<>();
 		cache.put("connected", true);
-		cache.put("hitRate", 0);
-		cache.put("size", "0MB");
-		cache.put("keys", 0);
+		if (metricsConfig != null) {
+			cache.putAll(metricsConfig.getCacheStatus());
+		}
 		result.put("cache", cache);
 		
 		// 错误列表（简化处理）
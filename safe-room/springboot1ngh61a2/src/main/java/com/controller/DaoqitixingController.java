@@ -235,8 +235,9 @@ public class DaoqitixingController {
             return null;
         }
         QueryWrapper<com.entity.YonghuEntity> qw = new QueryWrapper<>();
-        qw.eq("zhanghao", zhanghao);
-        return yonghuService.getOne(qw);
+        qw.eq("yonghuzhanghao", zhanghao);
+        qw.last("LIMIT 1");
+        return yonghuService.getOne(qw, false);
     }
 
 
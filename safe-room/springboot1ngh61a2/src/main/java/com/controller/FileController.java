@@ -1,25 +1,37 @@
 package com.controller;
 
-import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
-
-import javax.imageio.ImageIO;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
@@ -36,6 +48,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 import com.annotation.IgnoreAuth;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.entity.AssetsEntity;
@@ -43,7 +57,11 @@ import com.entity.ConfigEntity;
 import com.entity.EIException;
 import com.service.AssetsService;
 import com.service.ConfigService;
+import com.service.ImageDerivativeService;
 import com.service.MinioService;
+import com.service.impl.ChunkUploadSweeper;
+import com.service.impl.StorageUsageTracker;
+import com.utils.FileUtil;
 import com.utils.R;
 
 /**
@@ -58,16 +76,40 @@ public class FileController{
 	private AssetsService assetsService;
 	@Autowired(required = false)
 	private MinioService minioService;
+	@Autowired
+	private ImageDerivativeService imageDerivativeService;
+	@Autowired(required = false)
+	private StorageUsageTracker storageUsageTracker;
 
 	@Value("${minio.enabled:false}")
 	private boolean minioEnabled;
 
+	@Value("${upload.chunked-max-size:2147483648}")
+	private long chunkedMaxSize;
+
+	@Value("${upload.content-addressed:false}")
+	private boolean contentAddressed;
+
 	private static final List<String> IMAGE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "webp", "gif", "bmp");
 	private static final List<String> VIDEO_EXTENSIONS = Arrays.asList("mp4", "webm", "mov", "mkv", "avi", "flv");
 	private static final List<String> ICON_EXTENSIONS = Arrays.asList("svg");
 	private static final List<String> MODEL_EXTENSIONS = Arrays.asList("glb", "gltf");
 	private static final List<String> LOTTIE_EXTENSIONS = Arrays.asList("json");
 	private static final long DEFAULT_MAX_SIZE = 30L * 1024 * 1024;
+	private static final int MAX_BATCH_URLS = 200;
+	private static final int MAX_LIST_LIMIT = 1000;
+	// 无续传标记时最多按页跳过的页数，更深的页必须用nextToken续传
+	private static final int MAX_LIST_SKIP_PAGES = 10;
+	private static final int IMAGE_HEADER_PEEK_LIMIT = 256 * 1024;
+	private static final String CAS_PREFIX = "sha256-";
+	private static final Pattern CAS_NAME_PATTERN = Pattern.compile("sha256-[0-9a-f]{64}\\.[a-z0-9]+");
+	private static final String CHUNK_PREFIX = ChunkUploadSweeper.CHUNK_PREFIX;
+	private static final String CHUNK_MANIFEST = "manifest";
+	private static final Pattern UPLOAD_ID_PATTERN = Pattern.compile("[a-f0-9]{32}");
+	private static final int MAX_CHUNK_COUNT = 10000;
+	private static final long CHUNK_DEFAULT_SIZE = 8L * 1024 * 1024;
+	private static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+	private static final long MIN_COMPOSE_PART_SIZE = 5L * 1024 * 1024;
 
 	/**
 	 * 上传文件（增强安全）
@@ -108,6 +150,11 @@ public class FileController{
 			throw new EIException("文件大小超过限制: " + (maxSize / 1024 / 1024) + "MB");
 		}
 		
+		// 内容寻址模式：相同内容只存一份，文件名即内容摘要（模板和人脸文件需固定文件名，不参与）
+		if (contentAddressed && StringUtils.isBlank(type)) {
+			return R.ok().put("file", storeContentAddressed(file, fileExt, originalFilename));
+		}
+
 		File path = new File(ResourceUtils.getURL("classpath:static").getPath());
 		if(!path.exists()) {
 		    path = new File("");
@@ -122,6 +169,7 @@ public class FileController{
         if(StringUtils.isNotBlank(type) && type.contains("_template")) {
             fileName = type + "."+fileExt;
             new File(upload.getAbsolutePath()+"/"+fileName).deleteOnExit();
+            imageDerivativeService.evict(fileName);
         } else {
         	// 使用UUID + 时间戳确保唯一性
         	fileName = java.util.UUID.randomUUID().toString().replace("-", "") + "_" + System.currentTimeMillis() + "." + fileExt;
@@ -133,7 +181,9 @@ public class FileController{
 		}
 		
 		File dest = new File(upload.getAbsolutePath() + "/" + fileName);
+		long replaced = existingSize(dest);
 		file.transferTo(dest);
+		recordLocalStored(dest, replaced);
 		/**
   		 * 如果使用idea或者eclipse重启项目，发现之前上传的图片或者文件丢失，将下面一行代码注释打开
    		 * 请将以下�?D:\\springbootq33sd\\src\\main\\resources\\static\\upload"替换成你本地项目的upload路径�? 		 * 并且项目路径不能存在中文、空格等特殊字符
@@ -153,6 +203,280 @@ public class FileController{
 		return R.ok().put("file", fileName);
 	}
 	
+	/**
+	 * 按内容摘要存储上传文件并登记引用计数，返回规范文件名
+	 * 内容只读一遍：边计算摘要边写入临时文件（MinIO模式为分片目录下的临时对象，进程中断时由ChunkUploadSweeper清理），
+	 * 登记引用后若该内容尚未存储，再移动/服务端复制为规范文件名，最后删除临时文件
+	 */
+	private String storeContentAddressed(MultipartFile file, String fileExt, String originalFilename) throws Exception {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		boolean useMinio = minioEnabled && minioService != null;
+		String tempObject = null;
+		File temp = null;
+		try {
+			if (useMinio) {
+				tempObject = CHUNK_PREFIX + "cas-" + UUID.randomUUID().toString().replace("-", "") + "/content";
+				String contentType = StringUtils.defaultIfBlank(file.getContentType(), getContentTypeByExtension(fileExt));
+				try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+					minioService.uploadNewFile(tempObject, in, contentType, file.getSize());
+				}
+			} else {
+				temp = File.createTempFile("upload-", ".part", getUploadRoot());
+				try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+					Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			String hash = HexFormat.of().formatHex(digest.digest());
+			String fileName = CAS_PREFIX + hash + "." + fileExt;
+
+			Date now = new Date();
+			AssetsEntity candidate = new AssetsEntity<>();
+			candidate.setAssetName(originalFilename);
+			candidate.setAssetType(resolveAssetType(fileExt));
+			candidate.setFilePath("upload/" + fileName);
+			candidate.setFileSize(file.getSize());
+			candidate.setFileFormat(fileExt);
+			candidate.setCategory("upload");
+			candidate.setStatus("active");
+			candidate.setAddtime(now);
+			candidate.setUpdatetime(now);
+			assetsService.acquireContent(hash, candidate);
+			try {
+				if (useMinio) {
+					String objectName = "upload/" + fileName;
+					if (!minioService.fileExists(objectName)) {
+						minioService.copyObject(tempObject, objectName);
+					}
+				} else {
+					File dest = new File(getUploadRoot(), fileName);
+					if (!dest.exists()) {
+						Files.move(temp.toPath(), dest.toPath(), StandardCopyOption.ATOMIC_MOVE);
+						recordLocalStored(dest, -1);
+					}
+				}
+			} catch (Exception e) {
+				assetsService.releaseContent(hash, () -> deleteStoredQuietly(fileName));
+				throw e;
+			}
+			return fileName;
+		} finally {
+			if (tempObject != null) {
+				try {
+					minioService.deleteFile(tempObject);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (temp != null) {
+				Files.deleteIfExists(temp.toPath());
+			}
+		}
+	}
+
+	/**
+	 * 流式上传：请求体即文件内容（非multipart），直接写入MinIO/本地存储，不经过临时文件缓冲
+	 * 大小未知（chunked传输）时按配置的分片大小分片上传
+	 */
+	@PostMapping("/upload/stream")
+	public R uploadStream(HttpServletRequest request, @RequestParam("fileName") String originalFilename) throws Exception {
+		String fileExt = resolveExtension(originalFilename);
+		validateExtension(fileExt);
+		long declaredSize = request.getContentLengthLong();
+		if (declaredSize == 0) {
+			throw new EIException("上传文件不能为空");
+		}
+		validateSize(fileExt, declaredSize);
+		long limit = getSizeLimit(fileExt);
+
+		String fileName = UUID.randomUUID().toString().replace("-", "") + "_" + System.currentTimeMillis() + "." + fileExt;
+		BoundedInputStream body = boundedBody(request, limit);
+		if (minioEnabled && minioService != null) {
+			String objectName = "upload/" + fileName;
+			try {
+				minioService.uploadNewFile(objectName, body, resolveStreamContentType(request, fileExt), declaredSize);
+			} catch (Exception e) {
+				deleteStoredQuietly(fileName);
+				throw e;
+			}
+			if (body.getCount() > limit) {
+				minioService.deleteFile(objectName);
+				validateSize(fileExt, body.getCount());
+			}
+		} else {
+			File dest = new File(getUploadRoot(), fileName);
+			try {
+				Files.copy(body, dest.toPath());
+			} catch (Exception e) {
+				// 客户端中断等情况下不留下写了一半的文件
+				Files.deleteIfExists(dest.toPath());
+				throw e;
+			}
+			if (body.getCount() > limit) {
+				dest.delete();
+				validateSize(fileExt, body.getCount());
+			}
+			recordLocalStored(dest, -1);
+		}
+		return R.ok().put("file", fileName).put("size", body.getCount());
+	}
+
+	/**
+	 * 分片上传初始化（断点续传），返回uploadId及建议分片大小
+	 * 文件格式与声明的总大小（size，可选）记录在上传任务的清单中，接收分片时据此限制大小
+	 */
+	@PostMapping("/upload/chunk/init")
+	public R initChunkUpload(@RequestParam("fileName") String originalFilename,
+							 @RequestParam(value = "size", required = false) Long size) throws Exception {
+		String fileExt = resolveExtension(originalFilename);
+		validateExtension(fileExt);
+		long limit = getChunkedSizeLimit(fileExt);
+		if (size != null) {
+			if (size <= 0) {
+				throw new EIException("上传文件不能为空");
+			}
+			if (size > limit) {
+				throw new EIException("文件体积超过限制: " + (limit / 1024 / 1024) + "MB");
+			}
+		}
+		String uploadId = UUID.randomUUID().toString().replace("-", "");
+		byte[] manifest = (fileExt + "\n" + (size == null ? -1 : size)).getBytes(StandardCharsets.UTF_8);
+		if (minioEnabled && minioService != null) {
+			minioService.uploadNewFile(chunkManifestName(uploadId), new ByteArrayInputStream(manifest),
+					MediaType.TEXT_PLAIN_VALUE, manifest.length);
+		} else {
+			File chunkDir = localChunkDir(uploadId);
+			chunkDir.mkdirs();
+			Files.write(new File(chunkDir, CHUNK_MANIFEST).toPath(), manifest);
+		}
+		return R.ok().put("uploadId", uploadId).put("chunkSize", CHUNK_DEFAULT_SIZE);
+	}
+
+	/**
+	 * 上传单个分片，请求体即分片内容；同一index重复上传会覆盖
+	 * 使用MinIO时除最后一个分片外，每个分片不得小于5MB
+	 * 已接收的分片总大小不得超过该文件格式的大小限制（或初始化时声明的大小）
+	 */
+	@PostMapping("/upload/chunk")
+	public R uploadChunk(HttpServletRequest request,
+						 @RequestParam("uploadId") String uploadId,
+						 @RequestParam("index") int index) throws Exception {
+		validateUploadId(uploadId);
+		if (index < 0 || index >= MAX_CHUNK_COUNT) {
+			throw new EIException("分片序号超出范围");
+		}
+		long declaredSize = request.getContentLengthLong();
+		if (declaredSize == 0) {
+			throw new EIException("分片内容不能为空");
+		}
+		ChunkManifest manifest = readChunkManifest(uploadId);
+		long remaining = manifest.limit - uploadedChunkBytes(uploadId, index);
+		long chunkLimit = Math.min(MAX_CHUNK_SIZE, remaining);
+		if (chunkLimit <= 0 || declaredSize > chunkLimit) {
+			throw chunkTooLarge(manifest, chunkLimit);
+		}
+		BoundedInputStream body = boundedBody(request, chunkLimit);
+		if (minioEnabled && minioService != null) {
+			String objectName = chunkObjectName(uploadId, index);
+			minioService.uploadFile(objectName, body, MediaType.APPLICATION_OCTET_STREAM_VALUE, declaredSize);
+			if (body.getCount() > chunkLimit) {
+				minioService.deleteFile(objectName);
+				throw chunkTooLarge(manifest, chunkLimit);
+			}
+		} else {
+			File chunk = new File(localChunkDir(uploadId), String.format("%05d", index));
+			Files.copy(body, chunk.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			if (body.getCount() > chunkLimit) {
+				chunk.delete();
+				throw chunkTooLarge(manifest, chunkLimit);
+			}
+		}
+		return R.ok().put("uploadId", uploadId).put("index", index).put("size", body.getCount());
+	}
+
+	/**
+	 * 查询已上传的分片序号，用于断点续传
+	 */
+	@GetMapping("/upload/chunk/status")
+	public R chunkStatus(@RequestParam("uploadId") String uploadId) throws Exception {
+		validateUploadId(uploadId);
+		return R.ok().put("uploadId", uploadId).put("chunks", listUploadedChunks(uploadId));
+	}
+
+	/**
+	 * 合并分片，生成最终文件并清理分片；合并失败时删除写了一半的目标文件
+	 */
+	@PostMapping("/upload/chunk/complete")
+	public R completeChunkUpload(@RequestParam("uploadId") String uploadId,
+								 @RequestParam("fileName") String originalFilename,
+								 @RequestParam("total") int total) throws Exception {
+		validateUploadId(uploadId);
+		String fileExt = resolveExtension(originalFilename);
+		validateExtension(fileExt);
+		if (total <= 0 || total > MAX_CHUNK_COUNT) {
+			throw new EIException("分片数量超出范围");
+		}
+		ChunkManifest manifest = readChunkManifest(uploadId);
+		if (!manifest.ext.equals(fileExt)) {
+			throw new EIException("文件格式与初始化时不一致");
+		}
+		List<Integer> uploaded = listUploadedChunks(uploadId);
+		for (int i = 0; i < total; i++) {
+			if (!uploaded.contains(i)) {
+				return R.error("分片未上传完整").put("missing", i).put("chunks", uploaded);
+			}
+		}
+
+		String fileName = UUID.randomUUID().toString().replace("-", "") + "_" + System.currentTimeMillis() + "." + fileExt;
+		long totalSize = 0;
+		if (minioEnabled && minioService != null) {
+			List<String> sources = new ArrayList<>(total);
+			for (int i = 0; i < total; i++) {
+				String source = chunkObjectName(uploadId, i);
+				long size = minioService.getFileSize(source);
+				if (i < total - 1 && size < MIN_COMPOSE_PART_SIZE) {
+					return R.error("除最后一个分片外，每个分片不得小于5MB").put("index", i);
+				}
+				totalSize += size;
+				sources.add(source);
+			}
+			R invalid = checkChunkedTotal(manifest, totalSize);
+			if (invalid != null) {
+				return invalid;
+			}
+			try {
+				minioService.composeObject("upload/" + fileName, sources);
+			} catch (Exception e) {
+				deleteStoredQuietly(fileName);
+				throw e;
+			}
+			for (String name : minioService.listFiles(CHUNK_PREFIX + uploadId + "/")) {
+				minioService.deleteFile(name);
+			}
+		} else {
+			File chunkDir = localChunkDir(uploadId);
+			for (int i = 0; i < total; i++) {
+				totalSize += new File(chunkDir, String.format("%05d", i)).length();
+			}
+			R invalid = checkChunkedTotal(manifest, totalSize);
+			if (invalid != null) {
+				return invalid;
+			}
+			File dest = new File(getUploadRoot(), fileName);
+			long replaced = existingSize(dest);
+			try (OutputStream out = Files.newOutputStream(dest.toPath())) {
+				for (int i = 0; i < total; i++) {
+					Files.copy(new File(chunkDir, String.format("%05d", i)).toPath(), out);
+				}
+			} catch (Exception e) {
+				Files.deleteIfExists(dest.toPath());
+				throw e;
+			}
+			FileUtils.deleteQuietly(chunkDir);
+			recordLocalStored(dest, replaced);
+		}
+		return R.ok().put("file", fileName).put("size", totalSize);
+	}
+
 	/**
 	 * 下载文件
 	 */
@@ -246,23 +570,36 @@ public class FileController{
 			if (contentType == null) {
 				contentType = getContentTypeByExtension(fileExt);
 			}
-			minioService.uploadFile(objectName, file.getInputStream(), contentType, file.getSize());
-			filePath = objectName;
-
-			// 读取图片尺寸
-			if (IMAGE_EXTENSIONS.contains(fileExt)) {
+			// 上传前从同一输入流读取图片头部获取尺寸，避免上传后再从MinIO回读
+			try (InputStream uploadStream = new BufferedInputStream(file.getInputStream(), IMAGE_HEADER_PEEK_LIMIT)) {
+				InputStream source = uploadStream;
+				if (IMAGE_EXTENSIONS.contains(fileExt)) {
+					uploadStream.mark(IMAGE_HEADER_PEEK_LIMIT);
+					try {
+						int[] size = FileUtil.readImageDimensions(uploadStream);
+						if (size != null) {
+							width = size[0];
+							height = size[1];
+							dimensions = width + "x" + height;
+						}
+					} catch (IOException ignored) {
+					}
+					try {
+						uploadStream.reset();
+					} catch (IOException e) {
+						// 头部超出预读窗口时改用本地暂存的上传内容重新读取
+						source = file.getInputStream();
+					}
+				}
 				try {
-					InputStream imageStream = minioService.getFileInputStream(objectName);
-					BufferedImage image = ImageIO.read(imageStream);
-					if (image != null) {
-						width = image.getWidth();
-						height = image.getHeight();
-						dimensions = width + "x" + height;
+					minioService.uploadFile(objectName, source, contentType, file.getSize());
+				} finally {
+					if (source != uploadStream) {
+						source.close();
 					}
-					imageStream.close();
-				} catch (IOException ignored) {
 				}
 			}
+			filePath = objectName;
 		} else {
 			// 使用本地文件系统存储
 			File path = new File(ResourceUtils.getURL("classpath:static").getPath());
@@ -275,16 +612,18 @@ public class FileController{
 				uploadRoot.mkdirs();
 			}
 			File dest = new File(uploadRoot, finalName);
+			long replaced = existingSize(dest);
 			file.transferTo(dest);
+			recordLocalStored(dest, replaced);
 			filePath = "/upload/assets/" + resolvedModule + "/" + resolvedAssetType + "/" + finalName;
 
-			// 读取图片尺寸
+			// 读取图片尺寸（仅解析头部）
 			if (IMAGE_EXTENSIONS.contains(fileExt)) {
-				try {
-					BufferedImage image = ImageIO.read(dest);
-					if (image != null) {
-						width = image.getWidth();
-						height = image.getHeight();
+				try (InputStream imageStream = FileUtils.openInputStream(dest)) {
+					int[] size = FileUtil.readImageDimensions(imageStream);
+					if (size != null) {
+						width = size[0];
+						height = size[1];
 						dimensions = width + "x" + height;
 					}
 				} catch (IOException ignored) {
@@ -334,14 +673,203 @@ public class FileController{
 	}
 
 	private void validateSize(String ext, long size) {
-		long limit = DEFAULT_MAX_SIZE;
+		long limit = getSizeLimit(ext);
+		if (size > limit) {
+			throw new EIException("文件体积超过限制: " + (limit / 1024 / 1024) + "MB");
+		}
+	}
+
+	private long getSizeLimit(String ext) {
 		if (IMAGE_EXTENSIONS.contains(ext)) {
-			limit = 3L * 1024 * 1024;
+			return 3L * 1024 * 1024;
 		} else if (VIDEO_EXTENSIONS.contains(ext)) {
-			limit = 60L * 1024 * 1024;
+			return 60L * 1024 * 1024;
 		}
-		if (size > limit) {
-			throw new EIException("文件体积超过限制: " + (limit / 1024 / 1024) + "MB");
+		return DEFAULT_MAX_SIZE;
+	}
+
+	private String resolveExtension(String fileName) {
+		if (fileName == null || !fileName.contains(".")) {
+			throw new EIException("文件名格式不正确");
+		}
+		return fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
+	}
+
+	private String resolveStreamContentType(HttpServletRequest request, String ext) {
+		String contentType = request.getContentType();
+		if (StringUtils.isBlank(contentType) || contentType.startsWith(MediaType.APPLICATION_OCTET_STREAM_VALUE)) {
+			return getContentTypeByExtension(ext);
+		}
+		return contentType;
+	}
+
+	private BoundedInputStream boundedBody(HttpServletRequest request, long limit) throws IOException {
+		// 多读1字节用于判断是否超限
+		return BoundedInputStream.builder()
+				.setInputStream(request.getInputStream())
+				.setMaxCount(limit + 1)
+				.get();
+	}
+
+	/**
+	 * 本地模式下记录写入的文件大小，覆盖同名文件时只累计差值；MinIO模式由MinioService统计
+	 *
+	 * @param replaced 写入前同名文件的大小，原先不存在时为-1
+	 */
+	private void recordLocalStored(File dest, long replaced) {
+		if (storageUsageTracker != null) {
+			storageUsageTracker.recordStored(dest.length(), replaced);
+		}
+	}
+
+	private long existingSize(File file) {
+		return file.isFile() ? file.length() : -1;
+	}
+
+	private File getUploadRoot() throws FileNotFoundException {
+		File path = new File(ResourceUtils.getURL("classpath:static").getPath());
+		if (!path.exists()) {
+			path = new File("");
+		}
+		File upload = new File(path.getAbsolutePath(), "/upload/");
+		if (!upload.exists()) {
+			upload.mkdirs();
+		}
+		return upload;
+	}
+
+	private void validateUploadId(String uploadId) {
+		if (uploadId == null || !UPLOAD_ID_PATTERN.matcher(uploadId).matches()) {
+			throw new EIException("无效的uploadId");
+		}
+	}
+
+	private String chunkObjectName(String uploadId, int index) {
+		return CHUNK_PREFIX + uploadId + "/" + String.format("%05d", index);
+	}
+
+	private String chunkManifestName(String uploadId) {
+		return CHUNK_PREFIX + uploadId + "/" + CHUNK_MANIFEST;
+	}
+
+	private File localChunkDir(String uploadId) {
+		return new File(ChunkUploadSweeper.localChunkRoot(), uploadId);
+	}
+
+	/**
+	 * 分片上传合并后的大小上限：文件格式的大小限制，且不超过upload.chunked-max-size
+	 */
+	private long getChunkedSizeLimit(String ext) {
+		return Math.min(getSizeLimit(ext), chunkedMaxSize);
+	}
+
+	/**
+	 * 读取初始化时写入的清单；清单不存在说明uploadId无效或已被过期清理
+	 */
+	private ChunkManifest readChunkManifest(String uploadId) throws Exception {
+		String content;
+		if (minioEnabled && minioService != null) {
+			String objectName = chunkManifestName(uploadId);
+			if (!minioService.fileExists(objectName)) {
+				throw new EIException("上传任务不存在或已过期，请重新初始化");
+			}
+			try (InputStream in = minioService.getFileInputStream(objectName)) {
+				content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+		} else {
+			File manifest = new File(localChunkDir(uploadId), CHUNK_MANIFEST);
+			if (!manifest.isFile()) {
+				throw new EIException("上传任务不存在或已过期，请重新初始化");
+			}
+			content = Files.readString(manifest.toPath(), StandardCharsets.UTF_8);
+		}
+		String[] lines = content.split("\n");
+		String ext = lines[0].trim();
+		long declared = lines.length > 1 ? Long.parseLong(lines[1].trim()) : -1;
+		return new ChunkManifest(ext, declared, declared > 0 ? declared : getChunkedSizeLimit(ext));
+	}
+
+	/**
+	 * 已接收分片的总字节数，不含将被覆盖的同序号分片
+	 */
+	private long uploadedChunkBytes(String uploadId, int exceptIndex) throws Exception {
+		long bytes = 0;
+		if (minioEnabled && minioService != null) {
+			String prefix = CHUNK_PREFIX + uploadId + "/";
+			String except = chunkObjectName(uploadId, exceptIndex);
+			String manifest = chunkManifestName(uploadId);
+			for (String objectName : minioService.listFiles(prefix)) {
+				if (!objectName.equals(except) && !objectName.equals(manifest)) {
+					bytes += minioService.getFileSize(objectName);
+				}
+			}
+		} else {
+			File[] chunks = localChunkDir(uploadId).listFiles();
+			String except = String.format("%05d", exceptIndex);
+			if (chunks != null) {
+				for (File chunk : chunks) {
+					if (!chunk.getName().equals(except) && !chunk.getName().equals(CHUNK_MANIFEST)) {
+						bytes += chunk.length();
+					}
+				}
+			}
+		}
+		return bytes;
+	}
+
+	private EIException chunkTooLarge(ChunkManifest manifest, long chunkLimit) {
+		if (chunkLimit >= MAX_CHUNK_SIZE) {
+			return new EIException("分片大小超过限制: " + (MAX_CHUNK_SIZE / 1024 / 1024) + "MB");
+		}
+		return new EIException("文件体积超过限制: " + (manifest.limit / 1024 / 1024) + "MB");
+	}
+
+	private R checkChunkedTotal(ChunkManifest manifest, long totalSize) {
+		if (totalSize > manifest.limit) {
+			return R.error("文件体积超过限制: " + (manifest.limit / 1024 / 1024) + "MB");
+		}
+		if (manifest.declared > 0 && totalSize != manifest.declared) {
+			return R.error("文件大小与初始化时声明的不一致").put("size", totalSize);
+		}
+		return null;
+	}
+
+	private List<Integer> listUploadedChunks(String uploadId) throws Exception {
+		List<Integer> indexes = new ArrayList<>();
+		if (minioEnabled && minioService != null) {
+			String prefix = CHUNK_PREFIX + uploadId + "/";
+			for (String objectName : minioService.listFiles(prefix)) {
+				String name = objectName.substring(prefix.length());
+				if (!CHUNK_MANIFEST.equals(name)) {
+					indexes.add(Integer.parseInt(name));
+				}
+			}
+		} else {
+			String[] names = localChunkDir(uploadId).list();
+			if (names != null) {
+				for (String name : names) {
+					if (!CHUNK_MANIFEST.equals(name)) {
+						indexes.add(Integer.parseInt(name));
+					}
+				}
+			}
+		}
+		indexes.sort(null);
+		return indexes;
+	}
+
+	/**
+	 * 分片上传清单：文件格式、声明的总大小（未声明为-1）及生效的大小上限
+	 */
+	private static final class ChunkManifest {
+		private final String ext;
+		private final long declared;
+		private final long limit;
+
+		private ChunkManifest(String ext, long declared, long limit) {
+			this.ext = ext;
+			this.declared = declared;
+			this.limit = limit;
 		}
 	}
 
@@ -399,19 +927,22 @@ public class FileController{
 			@PathVariable String fileName,
 			@RequestHeader(value = "Range", required = false) String rangeHeader) {
 		try {
-			InputStream inputStream;
+			String objectName = null;
+			File localFile = null;
 			long fileSize;
 			String contentType;
+			String etag = null;
 
 			if (minioEnabled && minioService != null) {
-				// 从MinIO获取
-				String objectName = fileName.startsWith("upload/") ? fileName : "upload/" + fileName;
-				if (!minioService.fileExists(objectName)) {
+				// 从MinIO获取：一次stat拿到大小/类型，随后只做一次(Range)读取
+				objectName = fileName.startsWith("upload/") ? fileName : "upload/" + fileName;
+				MinioService.ObjectStat stat = minioService.statObject(objectName);
+				if (stat == null) {
 					return new ResponseEntity<byte[]>(HttpStatus.NOT_FOUND);
 				}
-				inputStream = minioService.getFileInputStream(objectName);
-				fileSize = minioService.getFileSize(objectName);
-				contentType = minioService.getFileContentType(objectName);
+				fileSize = stat.getSize();
+				contentType = stat.getContentType();
+				etag = stat.getEtag();
 			} else {
 				// 从本地文件系统获取
 				File path = new File(ResourceUtils.getURL("classpath:static").getPath());
@@ -419,12 +950,11 @@ public class FileController{
 					path = new File("");
 				}
 				File upload = new File(path.getAbsolutePath(), "/upload/");
-				File file = new File(upload.getAbsolutePath() + "/" + fileName);
-				if (!file.exists()) {
+				localFile = new File(upload.getAbsolutePath() + "/" + fileName);
+				if (!localFile.exists()) {
 					return new ResponseEntity<byte[]>(HttpStatus.NOT_FOUND);
 				}
-				inputStream = FileUtils.openInputStream(file);
-				fileSize = file.length();
+				fileSize = localFile.length();
 				String ext = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
 				contentType = getContentTypeByExtension(ext);
 			}
@@ -444,31 +974,49 @@ public class FileController{
 					start = Long.parseLong(ranges[0]);
 				}
 				if (ranges.length > 1 && !ranges[1].isEmpty()) {
-					end = Long.parseLong(ranges[1]);
+					end = Math.min(Long.parseLong(ranges[1]), fileSize - 1);
 				}
 
 				long contentLength = end - start + 1;
 				byte[] buffer = new byte[(int) contentLength];
-				inputStream.skip(start);
-				int bytesRead = inputStream.read(buffer, 0, (int) contentLength);
-				inputStream.close();
+				int bytesRead;
+				if (objectName != null) {
+					try (InputStream inputStream = minioService.getFileInputStream(objectName, start, contentLength)) {
+						bytesRead = IOUtils.read(inputStream, buffer);
+					}
+				} else {
+					try (InputStream inputStream = FileUtils.openInputStream(localFile)) {
+						IOUtils.skipFully(inputStream, start);
+						bytesRead = IOUtils.read(inputStream, buffer);
+					}
+				}
 
 				HttpHeaders headers = new HttpHeaders();
 				headers.setContentType(MediaType.parseMediaType(contentType));
 				headers.setContentLength(bytesRead);
 				headers.set("Content-Range", "bytes " + start + "-" + end + "/" + fileSize);
 				headers.set("Accept-Ranges", "bytes");
+				if (etag != null) {
+					headers.setETag("\"" + etag + "\"");
+				}
 
 				return new ResponseEntity<byte[]>(buffer, headers, HttpStatus.PARTIAL_CONTENT);
 			} else {
 				// 完整文件响应
-				byte[] fileData = IOUtils.toByteArray(inputStream);
-				inputStream.close();
+				byte[] fileData;
+				try (InputStream inputStream = objectName != null
+						? minioService.getFileInputStream(objectName)
+						: FileUtils.openInputStream(localFile)) {
+					fileData = IOUtils.toByteArray(inputStream);
+				}
 
 				HttpHeaders headers = new HttpHeaders();
 				headers.setContentType(MediaType.parseMediaType(contentType));
 				headers.setContentLength(fileSize);
 				headers.set("Accept-Ranges", "bytes");
+				if (etag != null) {
+					headers.setETag("\"" + etag + "\"");
+				}
 
 				return new ResponseEntity<byte[]>(fileData, headers, HttpStatus.OK);
 			}
@@ -478,6 +1026,41 @@ public class FileController{
 		}
 	}
 
+	/**
+	 * 图片缩略图（按宽度档位生成，首次请求时生成并存储，之后直接读取）
+	 */
+	@GetMapping("/thumb")
+	@IgnoreAuth
+	public ResponseEntity<byte[]> thumbnail(
+			@RequestParam String fileName,
+			@RequestParam(value = "w", defaultValue = "320") int width,
+			@RequestParam(value = "format", required = false) String format,
+			@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+		try {
+			ImageDerivativeService.ImageDerivative derivative = imageDerivativeService.getDerivative(fileName, width, format);
+			if (derivative == null) {
+				return new ResponseEntity<byte[]>(HttpStatus.NOT_FOUND);
+			}
+			HttpHeaders headers = new HttpHeaders();
+			headers.setETag("\"" + derivative.getEtag() + "\"");
+			// 模板文件会被同名覆盖，只做短期缓存；其余上传文件名唯一，可长期缓存
+			headers.setCacheControl(fileName.contains("_template")
+					? CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic()
+					: CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+			if (ifNoneMatch != null && ifNoneMatch.equals(headers.getETag())) {
+				return new ResponseEntity<byte[]>(headers, HttpStatus.NOT_MODIFIED);
+			}
+			headers.setContentType(MediaType.parseMediaType(derivative.getContentType()));
+			headers.setContentLength(derivative.getData().length);
+			return new ResponseEntity<byte[]>(derivative.getData(), headers, HttpStatus.OK);
+		} catch (EIException e) {
+			return new ResponseEntity<byte[]>(HttpStatus.BAD_REQUEST);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return new ResponseEntity<byte[]>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
 	/**
 	 * 获取视频元数据信息
 	 */
@@ -490,11 +1073,12 @@ public class FileController{
 
 			if (minioEnabled && minioService != null) {
 				String objectName = fileName.startsWith("upload/") ? fileName : "upload/" + fileName;
-				if (!minioService.fileExists(objectName)) {
+				MinioService.ObjectStat stat = minioService.statObject(objectName);
+				if (stat == null) {
 					return R.error(404, "文件不存在");
 				}
-				fileSize = minioService.getFileSize(objectName);
-				contentType = minioService.getFileContentType(objectName);
+				fileSize = stat.getSize();
+				contentType = stat.getContentType();
 			} else {
 				File path = new File(ResourceUtils.getURL("classpath:static").getPath());
 				if (!path.exists()) {
@@ -563,8 +1147,9 @@ public class FileController{
 			if (!minioService.fileExists(objectName)) {
 				return R.error(404, "文件不存在");
 			}
-			String url = minioService.getPresignedUrl(objectName, expirySeconds);
-			return R.ok().put("url", url).put("expiry", expirySeconds);
+			int expiry = MinioService.normalizeExpiry(expirySeconds);
+			String url = minioService.getPresignedUrl(objectName, expiry);
+			return R.ok().put("url", url).put("expiry", expiry);
 		} catch (Exception e) {
 			e.printStackTrace();
 			return R.error("生成预签名URL失败: " + e.getMessage());
@@ -572,30 +1157,99 @@ public class FileController{
 	}
 
 	/**
-	 * 列出文件（支持分页和过滤）
+	 * 批量获取文件访问URL（列表页一次请求获取全部图片地址，需登录）
+	 * 只为实际存在的文件返回URL，不存在的文件名不出现在结果中
+	 */
+	@PostMapping("/presigned/batch")
+	public R getPresignedUrls(
+			HttpServletRequest request,
+			@RequestBody List<String> fileNames,
+			@RequestParam(value = "expiry", defaultValue = "3600") int expirySeconds) {
+		int expiry = MinioService.normalizeExpiry(expirySeconds);
+		try {
+			if (fileNames == null || fileNames.isEmpty()) {
+				return R.ok().put("urls", new HashMap<String, String>());
+			}
+			if (fileNames.size() > MAX_BATCH_URLS) {
+				return R.error("单次最多获取" + MAX_BATCH_URLS + "个文件URL");
+			}
+			Map<String, String> urls = new LinkedHashMap<>();
+			if (minioEnabled && minioService != null) {
+				// 存在性检查走statObject缓存，重复刷新列表页不会反复请求MinIO
+				Map<String, String> existing = new LinkedHashMap<>();
+				for (String fileName : fileNames) {
+					String objectName = fileName.startsWith("upload/") ? fileName : "upload/" + fileName;
+					if (minioService.fileExists(objectName)) {
+						existing.put(fileName, objectName);
+					}
+				}
+				Map<String, String> signed = minioService.getPresignedUrls(new ArrayList<>(existing.values()), expiry);
+				for (Map.Entry<String, String> entry : existing.entrySet()) {
+					urls.put(entry.getKey(), signed.get(entry.getValue()));
+				}
+			} else {
+				// 本地文件系统，返回基于当前上下文路径的下载地址
+				String downloadPrefix = request.getContextPath() + "/file/download?fileName=";
+				File uploadRoot = getUploadRoot();
+				for (String fileName : fileNames) {
+					if (fileName.contains("..")) {
+						continue;
+					}
+					if (new File(uploadRoot, fileName).isFile()) {
+						urls.put(fileName, downloadPrefix + fileName);
+					}
+				}
+			}
+			return R.ok().put("urls", urls).put("expiry", expiry);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return R.error("批量生成预签名URL失败: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 列出文件（服务端分页，需登录）
+	 * 传入上一页返回的nextToken可直接续传；仅传page时从头跳过前面的页，只允许前几页的浅分页
 	 */
 	@GetMapping("/list")
-	@IgnoreAuth
 	public R listFiles(
 			@RequestParam(value = "prefix", required = false) String prefix,
+			@RequestParam(value = "token", required = false) String token,
 			@RequestParam(value = "page", defaultValue = "1") int page,
 			@RequestParam(value = "limit", defaultValue = "20") int limit) {
 		try {
 			if (!minioEnabled || minioService == null) {
 				return R.error("MinIO未启用");
 			}
+			if (limit <= 0 || limit > MAX_LIST_LIMIT) {
+				return R.error("limit取值范围为1-" + MAX_LIST_LIMIT);
+			}
+			page = Math.max(1, page);
+			if (StringUtils.isBlank(token) && page > MAX_LIST_SKIP_PAGES) {
+				return R.error("仅支持前" + MAX_LIST_SKIP_PAGES + "页按页码查询，更多请使用nextToken续传");
+			}
 			String searchPrefix = StringUtils.defaultIfBlank(prefix, "");
-			List<String> allFiles = minioService.listFiles(searchPrefix);
-			
-			// 分页处理
-			int total = allFiles.size();
-			int start = (page - 1) * limit;
-			int end = Math.min(start + limit, total);
-			List<String> pageFiles = allFiles.subList(start, end);
+			MinioService.FilePage filePage;
+			if (StringUtils.isNotBlank(token) || page <= 1) {
+				filePage = minioService.listFiles(searchPrefix, token, limit);
+			} else {
+				// 无续传标记时按页跳过，每次只拉取一页的key
+				String cursor = null;
+				filePage = null;
+				for (int i = 1; i <= page; i++) {
+					filePage = minioService.listFiles(searchPrefix, cursor, limit);
+					cursor = filePage.getNextToken();
+					if (cursor == null && i < page) {
+						filePage = new MinioService.FilePage(new ArrayList<>(), null);
+						break;
+					}
+				}
+			}
 
 			return R.ok()
-					.put("list", pageFiles)
-					.put("total", total)
+					.put("list", filePage.getObjectNames())
+					.put("nextToken", filePage.getNextToken())
+					.put("hasMore", filePage.getNextToken() != null)
 					.put("page", page)
 					.put("limit", limit);
 		} catch (Exception e) {
@@ -611,29 +1265,63 @@ public class FileController{
 	@IgnoreAuth
 	public R deleteFile(@RequestParam String fileName) {
 		try {
-			if (minioEnabled && minioService != null) {
-				String objectName = fileName.startsWith("upload/") ? fileName : "upload/" + fileName;
-				if (!minioService.fileExists(objectName)) {
-					return R.error(404, "文件不存在");
-				}
-				minioService.deleteFile(objectName);
-			} else {
-				// 本地文件系统删除
-				File path = new File(ResourceUtils.getURL("classpath:static").getPath());
-				if (!path.exists()) {
-					path = new File("");
+			// 内容寻址文件被多次上传共享，仅在最后一个引用释放时删除实际文件，删除与释放引用在同一事务内
+			if (contentAddressed && CAS_NAME_PATTERN.matcher(fileName).matches()) {
+				String hash = fileName.substring(CAS_PREFIX.length(), fileName.lastIndexOf("."));
+				int remaining = assetsService.releaseContent(hash, () -> {
+					try {
+						deleteStored(fileName);
+					} catch (Exception e) {
+						throw new EIException("删除文件失败: " + e.getMessage());
+					}
+				});
+				if (remaining > 0) {
+					return R.ok().put("msg", "删除成功").put("refCount", remaining);
 				}
-				File upload = new File(path.getAbsolutePath(), "/upload/");
-				File file = new File(upload.getAbsolutePath() + "/" + fileName);
-				if (!file.exists()) {
-					return R.error(404, "文件不存在");
+				if (remaining == 0) {
+					imageDerivativeService.evict(fileName);
+					return R.ok().put("msg", "删除成功");
 				}
-				file.delete();
 			}
+			if (!deleteStored(fileName)) {
+				return R.error(404, "文件不存在");
+			}
+			imageDerivativeService.evict(fileName);
 			return R.ok().put("msg", "删除成功");
 		} catch (Exception e) {
 			e.printStackTrace();
 			return R.error("删除文件失败: " + e.getMessage());
 		}
 	}
+
+	/**
+	 * 删除实际存储的文件，文件不存在时返回false
+	 */
+	private boolean deleteStored(String fileName) throws Exception {
+		if (minioEnabled && minioService != null) {
+			String objectName = fileName.startsWith("upload/") ? fileName : "upload/" + fileName;
+			if (!minioService.fileExists(objectName)) {
+				return false;
+			}
+			minioService.deleteFile(objectName);
+			return true;
+		}
+		File file = new File(getUploadRoot(), fileName);
+		if (!file.exists()) {
+			return false;
+		}
+		long size = file.length();
+		if (file.delete() && storageUsageTracker != null) {
+			storageUsageTracker.recordRemoved(size);
+		}
+		return true;
+	}
+
+	private void deleteStoredQuietly(String fileName) {
+		try {
+			deleteStored(fileName);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
 }
@@ -31,6 +31,7 @@ import com.entity.HuiyuankaEntity;
 import com.entity.view.HuiyuankaView;
 
 import com.service.HuiyuankaService;
+import com.service.MembershipActivationService;
 import com.service.TokenService;
 import com.utils.PageUtils;
 import com.utils.R;
@@ -52,6 +53,9 @@ public class HuiyuankaController {
     @Autowired
     private HuiyuankaService huiyuankaService;
 
+    @Autowired
+    private MembershipActivationService membershipActivationService;
+
 
 
 
@@ -137,6 +141,7 @@ public class HuiyuankaController {
     public R save(@RequestBody HuiyuankaEntity huiyuanka, HttpServletRequest request){
     	//ValidatorUtils.validateEntity(huiyuanka);
         huiyuankaService.save(huiyuanka);
+        membershipActivationService.refreshCatalog();
         return R.ok();
     }
     
@@ -147,6 +152,7 @@ public class HuiyuankaController {
     public R add(@RequestBody HuiyuankaEntity huiyuanka, HttpServletRequest request){
     	//ValidatorUtils.validateEntity(huiyuanka);
         huiyuankaService.save(huiyuanka);
+        membershipActivationService.refreshCatalog();
         return R.ok();
     }
 
@@ -161,6 +167,7 @@ public class HuiyuankaController {
     public R update(@RequestBody HuiyuankaEntity huiyuanka, HttpServletRequest request){
         //ValidatorUtils.validateEntity(huiyuanka);
         huiyuankaService.updateById(huiyuanka);//全部更新
+        membershipActivationService.refreshCatalog();
         return R.ok();
     }
 
@@ -174,6 +181,7 @@ public class HuiyuankaController {
     @RequestMapping("/delete")
     public R delete(@RequestBody Long[] ids){
         huiyuankaService.removeByIds(Arrays.asList(ids));
+        membershipActivationService.refreshCatalog();
         return R.ok();
     }
 	
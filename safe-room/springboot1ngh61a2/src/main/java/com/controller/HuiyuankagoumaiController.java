@@ -32,11 +32,8 @@ import com.entity.HuiyuankagoumaiEntity;
 import com.entity.view.HuiyuankagoumaiView;
 
 import com.service.HuiyuankagoumaiService;
-import com.service.HuiyuankaService;
-import com.service.YonghuService;
+import com.service.MembershipActivationService;
 import com.service.TokenService;
-import com.entity.HuiyuankaEntity;
-import com.entity.YonghuEntity;
 import com.utils.PageUtils;
 import com.utils.R;
 import com.utils.MPUtil;
@@ -58,10 +55,7 @@ public class HuiyuankagoumaiController {
     private HuiyuankagoumaiService huiyuankagoumaiService;
     
     @Autowired
-    private HuiyuankaService huiyuankaService;
-    
-    @Autowired
-    private YonghuService yonghuService;
+    private MembershipActivationService membershipActivationService;
 
 
 
@@ -164,56 +158,9 @@ public class HuiyuankagoumaiController {
     	//ValidatorUtils.validateEntity(huiyuankagoumai);
         huiyuankagoumaiService.save(huiyuankagoumai);
         
-        // 如果支付状态为已支付，自动更新会员信息
-        if("已支付".equals(huiyuankagoumai.getIspay()) && StringUtils.isNotBlank(huiyuankagoumai.getYonghuzhanghao())) {
-            // 查询会员卡信息
-            HuiyuankaEntity huiyuanka = huiyuankaService.getOne(
-                new QueryWrapper<HuiyuankaEntity>().eq("huiyuankamingcheng", huiyuankagoumai.getHuiyuankamingcheng())
-            );
-            
-            if(huiyuanka != null) {
-                // 查询会员信息
-                YonghuEntity yonghu = yonghuService.getOne(
-                    new QueryWrapper<YonghuEntity>().eq("yonghuzhanghao", huiyuankagoumai.getYonghuzhanghao())
-                );
-                
-                if(yonghu != null) {
-                    // 更新会员卡号和有效期
-                    yonghu.setHuiyuankahao(huiyuankagoumai.getHuiyuankahao());
-                    yonghu.setHuiyuankamingcheng(huiyuankagoumai.getHuiyuankamingcheng());
-                    
-                    // 计算有效期（根据会员卡的youxiaoqi字段）
-                    if(StringUtils.isNotBlank(huiyuanka.getYouxiaoqi())) {
-                        try {
-                            // 解析有效期（如"12个月"、"365天"等）
-                            String youxiaoqi = huiyuanka.getYouxiaoqi();
-                            Calendar cal = Calendar.getInstance();
-                            cal.setTime(new Date());
-                            
-                            if(youxiaoqi.contains("月")) {
-                                int months = Integer.parseInt(youxiaoqi.replaceAll("[^0-9]", ""));
-                                cal.add(Calendar.MONTH, months);
-                            } else if(youxiaoqi.contains("天")) {
-                                int days = Integer.parseInt(youxiaoqi.replaceAll("[^0-9]", ""));
-                                cal.add(Calendar.DAY_OF_MONTH, days);
-                            } else if(youxiaoqi.contains("年")) {
-                                int years = Integer.parseInt(youxiaoqi.replaceAll("[^0-9]", ""));
-                                cal.add(Calendar.YEAR, years);
-                            }
-                            
-                            yonghu.setYouxiaoqizhi(cal.getTime());
-                        } catch (Exception e) {
-                            // 如果解析失败，使用默认值（当前日期+1年）
-                            Calendar cal = Calendar.getInstance();
-                            cal.setTime(new Date());
-                            cal.add(Calendar.YEAR, 1);
-                            yonghu.setYouxiaoqizhi(cal.getTime());
-                        }
-                    }
-                    
-                    yonghuService.updateById(yonghu);
-                }
-            }
+        // 如果支付状态为已支付，自动开卡
+        if("已支付".equals(huiyuankagoumai.getIspay())) {
+            membershipActivationService.activate(huiyuankagoumai);
         }
         
         return R.ok();
@@ -236,55 +183,9 @@ public class HuiyuankagoumaiController {
         
         huiyuankagoumaiService.updateById(huiyuankagoumai);//全部更新
         
-        // 如果支付状态从未支付变为已支付，自动更新会员信息
-        if(!"已支付".equals(oldIspay) && "已支付".equals(huiyuankagoumai.getIspay()) 
-           && StringUtils.isNotBlank(huiyuankagoumai.getYonghuzhanghao())) {
-            // 查询会员卡信息
-            HuiyuankaEntity huiyuanka = huiyuankaService.getOne(
-                new QueryWrapper<HuiyuankaEntity>().eq("huiyuankamingcheng", huiyuankagoumai.getHuiyuankamingcheng())
-            );
-            
-            if(huiyuanka != null) {
-                // 查询会员信息
-                YonghuEntity yonghu = yonghuService.getOne(
-                    new QueryWrapper<YonghuEntity>().eq("yonghuzhanghao", huiyuankagoumai.getYonghuzhanghao())
-                );
-                
-                if(yonghu != null) {
-                    // 更新会员卡号和有效期
-                    yonghu.setHuiyuankahao(huiyuankagoumai.getHuiyuankahao());
-                    yonghu.setHuiyuankamingcheng(huiyuankagoumai.getHuiyuankamingcheng());
-                    
-                    // 计算有效期
-                    if(StringUtils.isNotBlank(huiyuanka.getYouxiaoqi())) {
-                        try {
-                            String youxiaoqi = huiyuanka.getYouxiaoqi();
-                            Calendar cal = Calendar.getInstance();
-                            cal.setTime(new Date());
-                            
-                            if(youxiaoqi.contains("月")) {
-                                int months = Integer.parseInt(youxiaoqi.replaceAll("[^0-9]", ""));
-                                cal.add(Calendar.MONTH, months);
-                            } else if(youxiaoqi.contains("天")) {
-                                int days = Integer.parseInt(youxiaoqi.replaceAll("[^0-9]", ""));
-                                cal.add(Calendar.DAY_OF_MONTH, days);
-                            } else if(youxiaoqi.contains("年")) {
-                                int years = Integer.parseInt(youxiaoqi.replaceAll("[^0-9]", ""));
-                                cal.add(Calendar.YEAR, years);
-                            }
-                            
-                            yonghu.setYouxiaoqizhi(cal.getTime());
-                        } catch (Exception e) {
-                            Calendar cal = Calendar.getInstance();
-                            cal.setTime(new Date());
-                            cal.add(Calendar.YEAR, 1);
-                            yonghu.setYouxiaoqizhi(cal.getTime());
-                        }
-                    }
-                    
-                    yonghuService.updateById(yonghu);
-                }
-            }
+        // 如果支付状态从未支付变为已支付，自动开卡
+        if(!"已支付".equals(oldIspay) && "已支付".equals(huiyuankagoumai.getIspay())) {
+            membershipActivationService.activate(huiyuankagoumai);
         }
         
         return R.ok();
@@ -31,6 +31,7 @@ import com.entity.HuiyuanxufeiEntity;
 import com.entity.view.HuiyuanxufeiView;
 
 import com.service.HuiyuanxufeiService;
+import com.service.MembershipActivationService;
 import com.service.TokenService;
 import com.utils.PageUtils;
 import com.utils.R;
@@ -52,6 +53,9 @@ public class HuiyuanxufeiController {
     @Autowired
     private HuiyuanxufeiService huiyuanxufeiService;
 
+    @Autowired
+    private MembershipActivationService membershipActivationService;
+
 
 
 
@@ -148,9 +152,14 @@ public class HuiyuanxufeiController {
      * 前台保存
      */
     @RequestMapping("/add")
+    @Transactional
     public R add(@RequestBody HuiyuanxufeiEntity huiyuanxufei, HttpServletRequest request){
     	//ValidatorUtils.validateEntity(huiyuanxufei);
         huiyuanxufeiService.save(huiyuanxufei);
+        // 已支付的续费在当前到期日上叠加有效期
+        if("已支付".equals(huiyuanxufei.getIspay())) {
+            membershipActivationService.renew(huiyuanxufei);
+        }
         return R.ok();
     }
 
@@ -165,7 +174,22 @@ public class HuiyuanxufeiController {
     @Transactional
     public R update(@RequestBody HuiyuanxufeiEntity huiyuanxufei, HttpServletRequest request){
         //ValidatorUtils.validateEntity(huiyuanxufei);
+        HuiyuanxufeiEntity oldEntity = huiyuanxufeiService.getById(huiyuanxufei.getId());
+        String oldIspay = oldEntity != null ? oldEntity.getIspay() : null;
         huiyuanxufeiService.updateById(huiyuanxufei);//全部更新
+        // 支付状态从未支付变为已支付时续费
+        if(oldEntity != null && !"已支付".equals(oldIspay) && "已支付".equals(huiyuanxufei.getIspay())) {
+            if(huiyuanxufei.getYonghuzhanghao() == null) {
+                huiyuanxufei.setYonghuzhanghao(oldEntity.getYonghuzhanghao());
+            }
+            if(huiyuanxufei.getHuiyuankamingcheng() == null) {
+                huiyuanxufei.setHuiyuankamingcheng(oldEntity.getHuiyuankamingcheng());
+            }
+            if(huiyuanxufei.getYouxiaoqi() == null) {
+                huiyuanxufei.setYouxiaoqi(oldEntity.getYouxiaoqi());
+            }
+            membershipActivationService.renew(huiyuanxufei);
+        }
         return R.ok();
     }
 
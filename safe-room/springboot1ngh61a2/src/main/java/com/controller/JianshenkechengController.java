@@ -29,6 +29,7 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.annotation.IgnoreAuth;
 import com.utils.UserBasedCollaborativeFiltering;
 import com.service.KechengyuyueService;
+import com.service.ReservationCancelService;
 import com.entity.KechengyuyueEntity;
 
 import com.entity.JianshenkechengEntity;
@@ -68,6 +69,9 @@ public class JianshenkechengController {
     @Autowired
     private KechengyuyueService kechengyuyueService;
 
+    @Autowired
+    private ReservationCancelService reservationCancelService;
+
     @Autowired
     private DiscussjianshenkechengService discussjianshenkechengService;
     
@@ -652,21 +656,20 @@ public class JianshenkechengController {
             return R.error(400, "课程ID不能为空");
         }
         
-        QueryWrapper<KechengyuyueEntity> ew = new QueryWrapper<>();
-        ew.eq("crossuserid", userid);
-        ew.eq("crossrefid", kechengid);
-        ew.eq("ispay", "已支付");
-        
-        KechengyuyueEntity reservation = kechengyuyueService.getOne(ew);
-        if (reservation == null) {
+        String requestKey = request.getHeader("Idempotency-Key");
+        if (StringUtils.isBlank(requestKey) && data.get("requestKey") != null) {
+            requestKey = data.get("requestKey").toString();
+        }
+        if (requestKey != null && requestKey.length() > 100) {
+            return R.error(400, "请求键过长");
+        }
+        String reason = data.get("reason") == null ? null : data.get("reason").toString();
+
+        ReservationCancelService.CancelResult result = reservationCancelService.cancel(userid, kechengid, requestKey, reason);
+        if (!result.isCancelled()) {
             return R.error(404, "未找到预约记录");
         }
-        
-        // 更新预约状态为已取消
-        reservation.setIspay("已取消");
-        kechengyuyueService.updateById(reservation);
-        
-        return R.ok("取消预约成功");
+        return R.ok("取消预约成功").put("refundId", result.getRefundId());
     }
 
 }
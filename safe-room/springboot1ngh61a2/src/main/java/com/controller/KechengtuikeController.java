@@ -30,6 +30,7 @@ import com.annotation.IgnoreAuth;
 import com.entity.KechengtuikeEntity;
 import com.entity.view.KechengtuikeView;
 
+import com.service.BatchReviewService;
 import com.service.KechengtuikeService;
 import com.service.TokenService;
 import com.utils.PageUtils;
@@ -52,6 +53,9 @@ public class KechengtuikeController {
     @Autowired
     private KechengtuikeService kechengtuikeService;
 
+    @Autowired
+    private BatchReviewService batchReviewService;
+
 
 
 
@@ -177,15 +181,8 @@ public class KechengtuikeController {
     @RequestMapping("/shBatch")
     @Transactional
     public R update(@RequestBody Long[] ids, @RequestParam String sfsh, @RequestParam String shhf){
-        List<KechengtuikeEntity> list = new ArrayList<KechengtuikeEntity>();
-        for(Long id : ids) {
-            KechengtuikeEntity kechengtuike = kechengtuikeService.getById(id);
-            kechengtuike.setSfsh(sfsh);
-            kechengtuike.setShhf(shhf);
-            list.add(kechengtuike);
-        }
-        kechengtuikeService.updateBatchById(list);
-        return R.ok();
+        BatchReviewService.ReviewResult result = batchReviewService.review(BatchReviewService.Target.KECHENGTUIKE, ids, sfsh, shhf);
+        return R.ok().put("updated", result.getUpdatedCount()).put("notFound", result.getNotFound());
     }
 
 
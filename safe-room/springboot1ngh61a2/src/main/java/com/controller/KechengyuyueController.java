@@ -30,6 +30,8 @@ import com.annotation.IgnoreAuth;
 import com.entity.KechengyuyueEntity;
 import com.entity.view.KechengyuyueView;
 
+import com.service.CourseBookingService;
+import com.service.BatchReviewService;
 import com.service.KechengyuyueService;
 import com.service.TokenService;
 import com.utils.PageUtils;
@@ -52,6 +54,12 @@ public class KechengyuyueController {
     @Autowired
     private KechengyuyueService kechengyuyueService;
 
+    @Autowired
+    private BatchReviewService batchReviewService;
+
+    @Autowired
+    private CourseBookingService courseBookingService;
+
 
 
 
@@ -148,8 +156,12 @@ public class KechengyuyueController {
     @RequestMapping("/save")
     public R save(@RequestBody KechengyuyueEntity kechengyuyue, HttpServletRequest request){
     	//ValidatorUtils.validateEntity(kechengyuyue);
-        kechengyuyueService.save(kechengyuyue);
-        return R.ok();
+        // 与前台预约一样扣减课程名额
+        CourseBookingService.BookingResult result = courseBookingService.book(kechengyuyue);
+        if (!result.isBooked()) {
+            return R.error("该课程名额已满");
+        }
+        return R.ok().put("remaining", result.getRemaining());
     }
     
     /**
@@ -158,8 +170,36 @@ public class KechengyuyueController {
     @RequestMapping("/add")
     public R add(@RequestBody KechengyuyueEntity kechengyuyue, HttpServletRequest request){
     	//ValidatorUtils.validateEntity(kechengyuyue);
-        kechengyuyueService.save(kechengyuyue);
-        return R.ok();
+        CourseBookingService.BookingResult result = courseBookingService.book(kechengyuyue);
+        if (!result.isBooked()) {
+            return R.error("该课程名额已满");
+        }
+        return R.ok().put("remaining", result.getRemaining());
+    }
+
+    /**
+     * 课程名额情况
+     */
+    @IgnoreAuth
+    @RequestMapping("/seats/{kechengId}")
+    public R seats(@PathVariable("kechengId") Long kechengId){
+        return R.ok().put("data", courseBookingService.getSeatStatus(kechengId));
+    }
+
+    /**
+     * 设置课程名额
+     */
+    @RequestMapping("/seats/{kechengId}/capacity")
+    public R capacity(@PathVariable("kechengId") Long kechengId, @RequestParam Integer capacity, HttpServletRequest request){
+        Object role = request.getSession().getAttribute("role");
+        if (role == null || !"管理员".equals(role.toString())) {
+            return R.error(403, "只有管理员可以设置课程名额");
+        }
+        if (capacity == null || capacity < 0) {
+            return R.error("名额不能小于0");
+        }
+        courseBookingService.setCapacity(kechengId, capacity);
+        return R.ok().put("data", courseBookingService.getSeatStatus(kechengId));
     }
 
 
@@ -183,15 +223,12 @@ public class KechengyuyueController {
     @RequestMapping("/shBatch")
     @Transactional
     public R update(@RequestBody Long[] ids, @RequestParam String sfsh, @RequestParam String shhf){
-        List<KechengyuyueEntity> list = new ArrayList<KechengyuyueEntity>();
-        for(Long id : ids) {
-            KechengyuyueEntity kechengyuyue = kechengyuyueService.getById(id);
-            kechengyuyue.setSfsh(sfsh);
-            kechengyuyue.setShhf(shhf);
-            list.add(kechengyuyue);
+        if (ids != null && CourseBookingService.REJECTED_STATUSES.contains(sfsh)) {
+            // 审核拒绝的预约归还名额，须在修改状态之前锁定这些预约
+            courseBookingService.releaseSeats(Arrays.asList(ids));
         }
-        kechengyuyueService.updateBatchById(list);
-        return R.ok();
+        BatchReviewService.ReviewResult result = batchReviewService.review(BatchReviewService.Target.KECHENGYUYUE, ids, sfsh, shhf);
+        return R.ok().put("updated", result.getUpdatedCount()).put("notFound", result.getNotFound());
     }
 
 
@@ -201,7 +238,9 @@ public class KechengyuyueController {
      * 删除
      */
     @RequestMapping("/delete")
+    @Transactional
     public R delete(@RequestBody Long[] ids){
+        courseBookingService.releaseSeats(Arrays.asList(ids));
         kechengyuyueService.removeByIds(Arrays.asList(ids));
         return R.ok();
     }
@@ -11,6 +11,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import jakarta.servlet.http.HttpServletRequest;
 
 import com.utils.ValidatorUtils;
@@ -30,6 +31,7 @@ import com.annotation.IgnoreAuth;
 import com.entity.MessageEntity;
 import com.entity.view.MessageView;
 
+import com.service.BulkMessageService;
 import com.service.MessageService;
 import com.service.TokenService;
 import com.utils.PageUtils;
@@ -52,6 +54,9 @@ public class MessageController {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private BulkMessageService bulkMessageService;
+
     /**
      * 后台列表
      */
@@ -178,12 +183,7 @@ public class MessageController {
             return R.error("请先登录");
         }
 
-        QueryWrapper<MessageEntity> ew = new QueryWrapper<MessageEntity>();
-        ew.eq("userid", userId);
-        ew.eq("isread", 0);
-
-        long count = messageService.count(ew);
-        return R.ok().put("count", count);
+        return R.ok().put("count", messageService.countUnread(userId));
     }
 
     /**
@@ -196,14 +196,7 @@ public class MessageController {
         }
 
         Long userId = (Long) request.getSession().getAttribute("userId");
-        QueryWrapper<MessageEntity> ew = new QueryWrapper<MessageEntity>();
-        ew.in("id", Arrays.asList(ids));
-        ew.eq("userid", userId);
-
-        MessageEntity updateEntity = new MessageEntity();
-        updateEntity.setIsread(1);
-
-        messageService.update(updateEntity, ew);
+        messageService.markRead(userId, Arrays.asList(ids));
         return R.ok();
     }
 
@@ -236,6 +229,59 @@ public class MessageController {
         return R.ok();
     }
 
+    /**
+     * 群发公告（管理员），后台执行，返回任务id用于查询进度
+     * audience: all / card（target为会员卡名称）/ course（target为课程id）/ coach（target为教练工号）
+     */
+    @RequestMapping("/broadcast")
+    public R broadcast(@RequestBody Map<String, Object> params, HttpServletRequest request){
+        Object role = request.getSession().getAttribute("role");
+        if(role == null || !role.toString().equals("管理员")) {
+            return R.error(403, "仅管理员可以群发消息");
+        }
+        BulkMessageService.Audience audience = BulkMessageService.Audience.parse(
+                params.get("audience") != null ? params.get("audience").toString() : null);
+        if(audience == null) {
+            return R.error("不支持的受众类型");
+        }
+        String target = params.get("target") != null ? params.get("target").toString() : null;
+        Object title = params.get("title");
+        Object content = params.get("content");
+        if(!isText(title) || !isText(content)) {
+            return R.error("消息标题和内容格式错误");
+        }
+        String titleText = Objects.toString(title, null);
+        String contentText = Objects.toString(content, null);
+        if(StringUtils.isBlank(titleText) || StringUtils.isBlank(contentText)) {
+            return R.error("消息标题和内容不能为空");
+        }
+        String jobId = bulkMessageService.submit(audience, target, titleText, contentText);
+        return R.ok().put("jobId", jobId);
+    }
+
+    /**
+     * JSON中的标题、内容只接受字符串或数字，对象和数组视为格式错误
+     */
+    private static boolean isText(Object value) {
+        return value == null || value instanceof CharSequence || value instanceof Number;
+    }
+
+    /**
+     * 群发任务进度
+     */
+    @RequestMapping("/broadcast/{jobId}")
+    public R broadcastProgress(@PathVariable("jobId") String jobId, HttpServletRequest request){
+        Object role = request.getSession().getAttribute("role");
+        if(role == null || !role.toString().equals("管理员")) {
+            return R.error(403, "仅管理员可以查看群发进度");
+        }
+        Map<String, Object> progress = bulkMessageService.getProgress(jobId);
+        if(progress == null) {
+            return R.error(404, "群发任务不存在或已过期");
+        }
+        return R.ok().put("data", progress);
+    }
+
     /**
      * 前台智能排序
      */
@@ -0,0 +1,44 @@
+package com.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.service.MessageService;
+import com.service.NotificationService;
+
+/**
+ * 服务端推送接口
+ * 前端以 EventSource 连接 /notifications/stream，接收 message、chat、reminder 事件，
+ * 连接建立时先收到一条 ready 事件（会员附带当前未读数），之后不再需要轮询未读数和聊天列表
+ */
+@RestController
+@RequestMapping("/notifications")
+public class NotificationController {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private MessageService messageService;
+
+    /**
+     * 建立推送连接
+     */
+    @RequestMapping("/stream")
+    public SseEmitter stream(HttpServletRequest request) {
+        Object tableName = request.getSession().getAttribute("tableName");
+        Long userId = (Long) request.getSession().getAttribute("userId");
+        Map<String, Object> initial = new HashMap<>();
+        if (NotificationService.TABLE_MEMBER.equals(tableName) && userId != null) {
+            initial.put("unread", messageService.countUnread(userId));
+        }
+        return notificationService.subscribe(tableName == null ? null : tableName.toString(), userId, initial);
+    }
+}
@@ -8,9 +8,15 @@ import com.utils.PageUtils;
 import com.utils.R;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 操作日志控制器
@@ -22,12 +28,50 @@ public class OperationLogController {
     @Autowired
     private OperationLogService operationLogService;
     
+    /**
+     * 未指定时间范围时默认查询最近的天数
+     */
+    @Value("${audit-log.query.default-window-days:30}")
+    private int defaultWindowDays;
+    
+    /**
+     * 单次查询允许的最大时间跨度（天）
+     */
+    @Value("${audit-log.query.max-window-days:366}")
+    private int maxWindowDays;
+    
     /**
      * 列表查询
+     * 始终按addtime时间窗口查询，使分区表只扫描相关月份的分区
+     * 参数 addtimeStart / addtimeEnd 支持 yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss
      */
     @RequestMapping("/page")
     public R page(@RequestParam Map<String, Object> params, OperationLogEntity operationLog) {
+        Map<String, Object> queryParams = new HashMap<>(params);
+        Date end;
+        Date start;
+        try {
+            end = parseTime(queryParams.remove("addtimeEnd"), true);
+            start = parseTime(queryParams.remove("addtimeStart"), false);
+        } catch (ParseException e) {
+            return R.error(400, "时间格式错误，应为yyyy-MM-dd或yyyy-MM-dd HH:mm:ss");
+        }
+        if (end == null) {
+            end = new Date();
+        }
+        if (start == null) {
+            start = new Date(end.getTime() - TimeUnit.DAYS.toMillis(defaultWindowDays));
+        }
+        if (start.after(end)) {
+            return R.error(400, "开始时间不能晚于结束时间");
+        }
+        if (end.getTime() - start.getTime() > TimeUnit.DAYS.toMillis(maxWindowDays)) {
+            return R.error(400, "查询时间范围不能超过" + maxWindowDays + "天");
+        }
+        
         QueryWrapper<OperationLogEntity> ew = new QueryWrapper<>();
+        ew.ge("addtime", start);
+        ew.le("addtime", end);
         
         // 按用户名筛选
         if (StringUtils.isNotBlank(operationLog.getUsername())) {
@@ -49,10 +93,29 @@ public class OperationLogController {
             ew.eq("userid", operationLog.getUserid());
         }
         
-        PageUtils page = operationLogService.queryPage(params, MPUtil.sort(MPUtil.between(MPUtil.likeOrEq(ew, operationLog), params), params));
+        if (StringUtils.isBlank((String) queryParams.get("sort"))) {
+            ew.orderByDesc("addtime");
+        }
+        
+        PageUtils page = operationLogService.queryPage(queryParams, MPUtil.sort(MPUtil.between(MPUtil.likeOrEq(ew, operationLog), queryParams), queryParams));
         return R.ok().put("data", page);
     }
     
+    /**
+     * 解析时间参数，仅有日期的结束时间取当天末尾
+     */
+    private Date parseTime(Object value, boolean endOfDay) throws ParseException {
+        if (value == null || StringUtils.isBlank(value.toString())) {
+            return null;
+        }
+        String text = value.toString().trim();
+        if (text.length() <= 10) {
+            Date day = new SimpleDateFormat("yyyy-MM-dd").parse(text);
+            return endOfDay ? new Date(day.getTime() + TimeUnit.DAYS.toMillis(1) - 1) : day;
+        }
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(text);
+    }
+    
     /**
      * 详情
      */
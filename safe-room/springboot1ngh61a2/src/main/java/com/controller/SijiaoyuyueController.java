@@ -3,6 +3,8 @@ package com.controller;
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -16,6 +18,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import com.utils.ValidatorUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -30,6 +33,8 @@ import com.annotation.IgnoreAuth;
 import com.entity.SijiaoyuyueEntity;
 import com.entity.view.SijiaoyuyueView;
 
+import com.service.CoachScheduleService;
+import com.service.BatchReviewService;
 import com.service.SijiaoyuyueService;
 import com.service.TokenService;
 import com.utils.PageUtils;
@@ -52,6 +57,18 @@ public class SijiaoyuyueController {
     @Autowired
     private SijiaoyuyueService sijiaoyuyueService;
 
+    @Autowired
+    private BatchReviewService batchReviewService;
+
+    @Autowired
+    private CoachScheduleService coachScheduleService;
+
+    @Value("${private-training.availability-max-days:31}")
+    private int availabilityMaxDays;
+
+    @Value("${private-training.availability-max-coaches:20}")
+    private int availabilityMaxCoaches;
+
 
 
 
@@ -144,13 +161,50 @@ public class SijiaoyuyueController {
 
 
 
+    /**
+     * 教练空闲时段日历
+     * 按天返回每位教练可开始一节私教的时间点，由内存中的时段位图计算，不查询预约表
+     */
+	@IgnoreAuth
+    @RequestMapping("/availability")
+    public R availability(@RequestParam(required = false) String jiaoliangonghao,
+                          @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate start,
+                          @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        List<String> coaches = new ArrayList<String>();
+        if (StringUtils.isNotBlank(jiaoliangonghao)) {
+            for (String coach : jiaoliangonghao.split(",")) {
+                if (StringUtils.isNotBlank(coach) && !coaches.contains(coach.trim())) {
+                    coaches.add(coach.trim());
+                }
+            }
+        }
+        if (coaches.isEmpty()) {
+            return R.error("请指定教练工号");
+        }
+        if (coaches.size() > availabilityMaxCoaches) {
+            return R.error("一次最多查询" + availabilityMaxCoaches + "位教练");
+        }
+        LocalDate from = start != null ? start : LocalDate.now();
+        LocalDate to = end != null ? end : from.plusDays(6);
+        if (to.isBefore(from)) {
+            return R.error("结束日期不能早于开始日期");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > availabilityMaxDays) {
+            return R.error("查询范围不能超过" + availabilityMaxDays + "天");
+        }
+        return R.ok().put("data", coachScheduleService.availability(coaches, from, to))
+                .put("sessionMinutes", coachScheduleService.getSessionMinutes());
+    }
+
     /**
      * 后台保存
      */
     @RequestMapping("/save")
     public R save(@RequestBody SijiaoyuyueEntity sijiaoyuyue, HttpServletRequest request){
     	//ValidatorUtils.validateEntity(sijiaoyuyue);
-        sijiaoyuyueService.save(sijiaoyuyue);
+        if (!coachScheduleService.book(sijiaoyuyue).isSuccess()) {
+            return R.error("该教练在此时间段已有预约");
+        }
         return R.ok();
     }
     
@@ -160,7 +214,9 @@ public class SijiaoyuyueController {
     @RequestMapping("/add")
     public R add(@RequestBody SijiaoyuyueEntity sijiaoyuyue, HttpServletRequest request){
     	//ValidatorUtils.validateEntity(sijiaoyuyue);
-        sijiaoyuyueService.save(sijiaoyuyue);
+        if (!coachScheduleService.book(sijiaoyuyue).isSuccess()) {
+            return R.error("该教练在此时间段已有预约");
+        }
         return R.ok();
     }
 
@@ -174,7 +230,9 @@ public class SijiaoyuyueController {
     @Transactional
     public R update(@RequestBody SijiaoyuyueEntity sijiaoyuyue, HttpServletRequest request){
         //ValidatorUtils.validateEntity(sijiaoyuyue);
-        sijiaoyuyueService.updateById(sijiaoyuyue);//全部更新
+        if (!coachScheduleService.update(sijiaoyuyue).isSuccess()) {
+            return R.error("该教练在此时间段已有预约");
+        }
         return R.ok();
     }
 
@@ -184,15 +242,10 @@ public class SijiaoyuyueController {
     @RequestMapping("/shBatch")
     @Transactional
     public R update(@RequestBody Long[] ids, @RequestParam String sfsh, @RequestParam String shhf){
-        List<SijiaoyuyueEntity> list = new ArrayList<SijiaoyuyueEntity>();
-        for(Long id : ids) {
-            SijiaoyuyueEntity sijiaoyuyue = sijiaoyuyueService.getById(id);
-            sijiaoyuyue.setSfsh(sfsh);
-            sijiaoyuyue.setShhf(shhf);
-            list.add(sijiaoyuyue);
-        }
-        sijiaoyuyueService.updateBatchById(list);
-        return R.ok();
+        BatchReviewService.ReviewResult result = batchReviewService.review(BatchReviewService.Target.SIJIAOYUYUE, ids, sfsh, shhf);
+        // 审核结果决定预约是否占用教练时段
+        coachScheduleService.refresh(result.getUpdated());
+        return R.ok().put("updated", result.getUpdatedCount()).put("notFound", result.getNotFound());
     }
 
 
@@ -203,7 +256,7 @@ public class SijiaoyuyueController {
      */
     @RequestMapping("/delete")
     public R delete(@RequestBody Long[] ids){
-        sijiaoyuyueService.removeByIds(Arrays.asList(ids));
+        coachScheduleService.delete(Arrays.asList(ids));
         return R.ok();
     }
 	
@@ -2,6 +2,7 @@ package com.dao;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.entity.AssetsEntity;
+import org.apache.ibatis.annotations.Param;
 
 /**
  * Assets
@@ -9,6 +10,35 @@ import com.entity.AssetsEntity;
  * Provides CRUD access for the assets table.
  */
 public interface AssetsDao extends BaseMapper<AssetsEntity> {
+
+    /**
+     * Atomically add one reference to a content-addressed file.
+     *
+     * @return affected rows, 0 when no row exists for the hash
+     */
+    int incrementRefCount(@Param("contentHash") String contentHash);
+
+    /**
+     * Atomically drop one reference from a content-addressed file.
+     *
+     * @return affected rows, 0 when no row exists or the count is already 0
+     */
+    int decrementRefCount(@Param("contentHash") String contentHash);
+
+    /**
+     * Insert a content-addressed row unless one already exists for its hash.
+     * Waits for a concurrent uncommitted insert of the same hash instead of failing.
+     *
+     * @return affected rows, 0 when a row for the hash already exists
+     */
+    int insertIfAbsent(AssetsEntity entity);
+
+    /**
+     * Remove the row of a content-addressed file once no reference is left.
+     *
+     * @return affected rows, 1 only for the caller that actually removed it
+     */
+    int deleteUnreferenced(@Param("contentHash") String contentHash);
 }
 
 
@@ -99,6 +99,14 @@ public class AssetsEntity<T> implements Serializable {
      * Upload user
      */
     private String uploadUser;
+    /**
+     * Content hash (SHA-256 hex) for content-addressed uploads
+     */
+    private String contentHash;
+    /**
+     * Number of uploads referencing the content-addressed file
+     */
+    private Integer refCount;
 
     @JsonFormat(locale = "zh", timezone = "GMT+8", pattern = "yyyy-MM-dd HH:mm:ss")
     @DateTimeFormat
@@ -259,12 +267,20 @@ public class AssetsEntity<T> implements Serializable {
     public void setUpdatetime(Date updatetime) {
         this.updatetime = updatetime;
     }
-}
-
-
-
-
 
+    public String getContentHash() {
+        return contentHash;
+    }
 
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
 
+    public Integer getRefCount() {
+        return refCount;
+    }
 
+    public void setRefCount(Integer refCount) {
+        this.refCount = refCount;
+    }
+}
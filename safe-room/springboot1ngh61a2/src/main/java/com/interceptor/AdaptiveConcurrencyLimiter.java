@@ -0,0 +1,115 @@
+package com.interceptor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * AIMD自适应并发限制
+ * 请求在延迟目标内完成且并发接近上限时，上限缓慢增加（约每轮+1）；
+ * 出现超出延迟目标的请求时按比例收缩，收缩之间至少间隔一个冷却期，
+ * 避免同一批已在排队的慢请求把上限连续压到底
+ * 上限以double的位模式存放在AtomicLong中，每个请求结束时用CAS更新，不加锁
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long cooldownNanos;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong limitBits = new AtomicLong();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong();
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, long cooldownMillis) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio > 0 && backoffRatio < 1 ? backoffRatio : 0.9;
+        this.cooldownNanos = Math.max(0, cooldownMillis) * 1_000_000L;
+        this.limitBits.set(Double.doubleToLongBits(Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit))));
+        this.lastDecreaseNanos.set(System.nanoTime() - this.cooldownNanos);
+    }
+
+    /**
+     * 在完整上限内获取一个并发许可
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1.0);
+    }
+
+    /**
+     * 只允许使用上限的一部分，低优先级流量用较小的份额，压力上来时先被拒绝
+     *
+     * @param share 可使用的上限比例，(0, 1]
+     */
+    public boolean tryAcquire(double share) {
+        int cap = Math.max(1, (int) (limit() * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= cap) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 请求完成，归还许可并根据结果调整上限
+     *
+     * @param overloaded 请求是否超出延迟目标
+     */
+    public void release(boolean overloaded) {
+        int before = inflight.getAndDecrement();
+        if (overloaded) {
+            long now = System.nanoTime();
+            long last = lastDecreaseNanos.get();
+            // 冷却期内只有抢到时间戳的一个请求执行收缩
+            if (now - last >= cooldownNanos && lastDecreaseNanos.compareAndSet(last, now)) {
+                updateLimit(current -> Math.max(minLimit, current * backoffRatio));
+            }
+        } else {
+            // 并发未用到一半时不增加，防止空闲期上限无限膨胀
+            updateLimit(current -> before * 2 >= current ? Math.min(maxLimit, current + 1.0 / current) : current);
+        }
+    }
+
+    private void updateLimit(DoubleUnaryOperator update) {
+        while (true) {
+            long bits = limitBits.get();
+            double current = Double.longBitsToDouble(bits);
+            double next = update.applyAsDouble(current);
+            if (next == current || limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    /**
+     * 归还许可但不作为延迟样本（请求转入异步处理，或下游许可获取失败）
+     */
+    public void releaseWithoutSample() {
+        inflight.decrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
@@ -0,0 +1,262 @@
+package com.interceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utils.R;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 准入控制拦截器
+ * 过载时按路由分类拒绝请求（快速返回503），而不是让所有接口一起排队等待Tomcat线程和数据库连接：
+ * 每个分类有自己的自适应并发上限，所有分类再共享一个全局上限，
+ * 低优先级分类只能使用全局上限的一部分，延迟上升导致上限收缩时最先被拒绝
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String SHED_METRIC_NAME = "fitness_gym_admission_shed_total";
+    public static final String LIMIT_METRIC_NAME = "fitness_gym_admission_limit";
+    public static final String INFLIGHT_METRIC_NAME = "fitness_gym_admission_inflight";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    // 路由模板未归入任何分类时的占位
+    private static final ClassState UNCLASSIFIED = new ClassState(null, null, null, 0L);
+
+    private final AdaptiveConcurrencyLimiter globalLimiter;
+    private final List<ClassState> classes = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    // 路由模板 -> 分类，模板数量受处理器映射约束
+    private final ConcurrentMap<String, ClassState> classCache = new ConcurrentHashMap<>();
+
+    public AdmissionControlInterceptor(List<RouteClass> routeClasses, AdaptiveConcurrencyLimiter globalLimiter,
+                                       long cooldownMillis, MeterRegistry meterRegistry) {
+        this.globalLimiter = globalLimiter;
+        for (RouteClass routeClass : routeClasses) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(routeClass.getName(),
+                    routeClass.getInitialLimit(), routeClass.getMinLimit(), routeClass.getMaxLimit(),
+                    0.9, cooldownMillis);
+            Counter shed = meterRegistry == null ? null : Counter.builder(SHED_METRIC_NAME)
+                    .description("Requests rejected by admission control")
+                    .tag("route_class", routeClass.getName())
+                    .register(meterRegistry);
+            classes.add(new ClassState(routeClass, limiter, shed,
+                    TimeUnit.MILLISECONDS.toNanos(routeClass.getLatencyThresholdMs())));
+            if (meterRegistry != null) {
+                registerGauges(meterRegistry, routeClass.getName(), limiter);
+            }
+        }
+        if (meterRegistry != null) {
+            registerGauges(meterRegistry, "global", globalLimiter);
+        }
+    }
+
+    /**
+     * 默认分类，按顺序匹配：统计和推荐先于业务路径匹配，兜底为浏览
+     */
+    public static List<RouteClass> defaultRouteClasses() {
+        return Arrays.asList(
+                new RouteClass("stats", RouteClass.PRIORITY_LOW, 2000, 10, 40, Arrays.asList(
+                        "/**/value/**", "/**/valueMul/**", "/**/group/**", "/**/count",
+                        "/**/remind/**", "/**/autoSort", "/**/autoSort2", "/operationLog/**")),
+                new RouteClass("auth", RouteClass.PRIORITY_CRITICAL, 1000, 30, 100, Arrays.asList(
+                        "/**/login", "/**/register", "/**/resetPass", "/**/logout", "/**/session")),
+                new RouteClass("booking", RouteClass.PRIORITY_CRITICAL, 500, 40, 150, Arrays.asList(
+                        "/kechengyuyue/**", "/sijiaoyuyue/**", "/kechengtuike/**",
+                        "/huiyuankagoumai/**", "/huiyuanxufei/**")),
+                new RouteClass("file", RouteClass.PRIORITY_LOW, 5000, 10, 40, Arrays.asList(
+                        "/file/**", "/assets/**")),
+                new RouteClass("browse", RouteClass.PRIORITY_NORMAL, 1000, 40, 150, Arrays.asList("/**")));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        // 同一请求（如异步分派、错误转发）只准入一次
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        ClassState state = resolveClass(request);
+        if (state == null) {
+            return true;
+        }
+
+        if (!globalLimiter.tryAcquire(state.routeClass.getShare())) {
+            reject(response, state);
+            return false;
+        }
+        if (!state.limiter.tryAcquire()) {
+            globalLimiter.releaseWithoutSample();
+            reject(response, state);
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(state, System.nanoTime()));
+        return true;
+    }
+
+    /**
+     * 异步请求（如推送连接）只计同步部分，避免长连接一直占用并发许可
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit instanceof Permit && ((Permit) permit).release()) {
+            ((Permit) permit).state.limiter.releaseWithoutSample();
+            globalLimiter.releaseWithoutSample();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object attribute = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (!(attribute instanceof Permit)) {
+            return;
+        }
+        Permit permit = (Permit) attribute;
+        if (!permit.release()) {
+            return;
+        }
+        long elapsed = System.nanoTime() - permit.startNanos;
+        boolean overloaded = elapsed > permit.state.latencyThresholdNanos;
+        permit.state.limiter.release(overloaded);
+        globalLimiter.release(overloaded);
+    }
+
+    /**
+     * 各分类当前上限与并发数，用于运维排查
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("global", limiterStatus(globalLimiter));
+        for (ClassState state : classes) {
+            status.put(state.routeClass.getName(), limiterStatus(state.limiter));
+        }
+        return status;
+    }
+
+    /**
+     * 查找请求所属分类，没有则返回null
+     */
+    ClassState resolveClass(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (!(pattern instanceof String)) {
+            return null;
+        }
+        String route = (String) pattern;
+        ClassState state = classCache.get(route);
+        if (state == null) {
+            state = classCache.computeIfAbsent(route, this::match);
+        }
+        return state == UNCLASSIFIED ? null : state;
+    }
+
+    private ClassState match(String route) {
+        for (ClassState state : classes) {
+            for (String pattern : state.routeClass.getPatterns()) {
+                if (pathMatcher.match(pattern, route)) {
+                    return state;
+                }
+            }
+        }
+        return UNCLASSIFIED;
+    }
+
+    private void reject(HttpServletResponse response, ClassState state) throws Exception {
+        if (state.shed != null) {
+            state.shed.increment();
+        }
+        response.setCharacterEncoding("UTF-8");
+        response.setContentType("application/json; charset=utf-8");
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+
+        PrintWriter writer = null;
+        try {
+            writer = response.getWriter();
+            writer.print(OBJECT_MAPPER.writeValueAsString(R.error(503, "服务繁忙，请稍后再试")));
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    private static Map<String, Object> limiterStatus(AdaptiveConcurrencyLimiter limiter) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("limit", limiter.getLimit());
+        status.put("inflight", limiter.getInflight());
+        return status;
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, String name, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder(LIMIT_METRIC_NAME, limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("route_class", name)
+                .register(meterRegistry);
+        Gauge.builder(INFLIGHT_METRIC_NAME, limiter, AdaptiveConcurrencyLimiter::getInflight)
+                .description("Requests currently admitted")
+                .tag("route_class", name)
+                .register(meterRegistry);
+    }
+
+    static final class ClassState {
+        private final RouteClass routeClass;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final Counter shed;
+        private final long latencyThresholdNanos;
+
+        private ClassState(RouteClass routeClass, AdaptiveConcurrencyLimiter limiter, Counter shed, long latencyThresholdNanos) {
+            this.routeClass = routeClass;
+            this.limiter = limiter;
+            this.shed = shed;
+            this.latencyThresholdNanos = latencyThresholdNanos;
+        }
+
+        String getName() {
+            return routeClass.getName();
+        }
+    }
+
+    private static final class Permit {
+        private final ClassState state;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(ClassState state, long startNanos) {
+            this.state = state;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 首次调用返回true，保证许可只归还一次
+         */
+        private synchronized boolean release() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            return true;
+        }
+    }
+}
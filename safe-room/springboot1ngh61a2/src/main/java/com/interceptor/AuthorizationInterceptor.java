@@ -34,6 +34,7 @@ public class AuthorizationInterceptor implements HandlerInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthorizationInterceptor.class);
     public static final String LOGIN_TOKEN_KEY = "Token";
+    private static final String NOTIFICATION_STREAM_PATH = "/notifications/stream";
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     @Autowired
@@ -79,6 +80,11 @@ public class AuthorizationInterceptor implements HandlerInterceptor {
                 token = token.substring(7);
             }
         }
+        if (StringUtils.isBlank(token) && isNotificationStream(request)) {
+            // 浏览器原生EventSource无法设置请求头，仅推送连接允许在查询参数中携带token，
+            // 其他接口的URL可能进入访问日志、Referer，不接受查询参数中的token
+            token = request.getParameter("token");
+        }
         
         /**
          * 不需要验证权限的方法直接放过
@@ -123,4 +129,17 @@ public class AuthorizationInterceptor implements HandlerInterceptor {
 //				throw new EIException("请先登录", 401);
 		return false;
     }
+
+    private static boolean isNotificationStream(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path == null) {
+            return false;
+        }
+        String contextPath = request.getContextPath();
+        if (StringUtils.isNotEmpty(contextPath) && path.startsWith(contextPath)) {
+            path = path.substring(contextPath.length());
+        }
+        String accept = request.getHeader("Accept");
+        return NOTIFICATION_STREAM_PATH.equals(path) && accept != null && accept.contains("text/event-stream");
+    }
 }
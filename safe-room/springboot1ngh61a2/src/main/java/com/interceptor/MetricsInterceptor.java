@@ -1,56 +1,102 @@
 package com.interceptor;
 
-import com.config.MetricsConfig;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Metrics Interceptor for collecting API performance metrics
- * Records response times and request counts for all API endpoints
+ * Records response times per route template (e.g. /jianshenkecheng/detail/{id}) rather than
+ * the raw URI, so the number of timers stays bounded by the number of handler mappings
  */
 public class MetricsInterceptor implements HandlerInterceptor {
 
+    public static final String METRIC_NAME = "fitness_gym_http_request_duration";
+    static final String UNMATCHED_URI = "UNMATCHED";
+
+    private static final String START_ATTRIBUTE = MetricsInterceptor.class.getName() + ".start";
+
+    // SLO buckets exported alongside the percentile histogram
+    private static final Duration[] SLO_BUCKETS = {
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5)
+    };
+
     private final MeterRegistry meterRegistry;
-    private final MetricsConfig metricsConfig;
 
-    public MetricsInterceptor(MeterRegistry meterRegistry, MetricsConfig metricsConfig) {
+    // One timer per (method, route template, status class), built once and reused
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MetricsInterceptor(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
-        this.metricsConfig = metricsConfig;
     }
 
-    private final ThreadLocal<Long> startTime = new ThreadLocal<>();
-
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        startTime.set(System.currentTimeMillis());
+        // Stored on the request rather than a ThreadLocal so async dispatches cannot leak or mismatch it
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
         return true;
     }
 
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
-        Long start = startTime.get();
-        if (start != null) {
-            long duration = System.currentTimeMillis() - start;
-
-            String method = request.getMethod();
-            String uri = request.getRequestURI();
-            String status = String.valueOf(response.getStatus());
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        long duration = System.nanoTime() - (Long) start;
+        request.removeAttribute(START_ATTRIBUTE);
 
-            // Record API response time using the metrics config
-            metricsConfig.recordApiResponseTime(meterRegistry, method, uri, status, duration);
+        int statusCode = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+        timer(request.getMethod(), routePattern(request), statusClass(statusCode))
+                .record(duration, TimeUnit.NANOSECONDS);
+    }
 
-            // Record general HTTP request metrics
-            Timer.builder("fitness_gym_http_request_duration")
-                    .description("HTTP request duration")
+    /**
+     * Timer for the given tag combination, registered on first use
+     */
+    Timer timer(String method, String uri, String status) {
+        String key = method + ' ' + uri + ' ' + status;
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(METRIC_NAME)
+                    .description("HTTP request duration by route template")
                     .tags("method", method, "uri", uri, "status", status)
-                    .register(meterRegistry)
-                    .record(java.time.Duration.ofMillis(duration));
+                    .publishPercentileHistogram()
+                    .serviceLevelObjectives(SLO_BUCKETS)
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+
+    /**
+     * Matched handler pattern; requests that never reached a handler (404, static misses)
+     * share a single tag value instead of contributing their raw paths
+     */
+    static String routePattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        return UNMATCHED_URI;
+    }
 
-            // Clean up thread local
-            startTime.remove();
+    static String statusClass(int status) {
+        if (status < 100 || status > 599) {
+            return "UNKNOWN";
         }
+        return (status / 100) + "xx";
     }
 }
@@ -1,153 +1,178 @@
 package com.interceptor;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.util.concurrent.RateLimiter;
+import com.service.RateLimitBackend;
+import com.service.impl.LocalRateLimitBackend;
 import com.utils.R;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.PrintWriter;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * 速率限制拦截器（已禁用）
- * 基于IP的速率限制，防止暴力破解和DDoS攻击
- * 
- * 注意：此功能已被禁用，如需重新启用，请：
- * 1. 取消注释 @Component 注解
- * 2. 在 InterceptorConfig 中重新注册此拦截器
+ * 速率限制拦截器
+ * 按路由模式匹配限流策略，令牌桶存放在可替换的存储中（进程内或PostgreSQL共享），
+ * 由 RateLimitConfig 在 rate-limit.enabled=true 时创建并注册
  */
-// @Component // 已禁用限流功能
 public class RateLimitInterceptor implements HandlerInterceptor {
-    
+
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
-    
-    // 登录接口限流：5次/分钟
-    private static final double LOGIN_RATE = 5.0;
-    private static final long LOGIN_WINDOW_MINUTES = 1;
-    
-    // 注册接口限流：3次/分钟
-    private static final double REGISTER_RATE = 3.0;
-    private static final long REGISTER_WINDOW_MINUTES = 1;
-    
-    // 密码重置接口限流：2次/分钟
-    private static final double RESET_PASSWORD_RATE = 2.0;
-    private static final long RESET_PASSWORD_WINDOW_MINUTES = 1;
-    
-    // 使用Guava Cache存储每个IP的RateLimiter
-    private final Cache<String, RateLimiter> loginLimiters = CacheBuilder.newBuilder()
-            .expireAfterAccess(LOGIN_WINDOW_MINUTES + 1, TimeUnit.MINUTES)
-            .build();
-    
-    private final Cache<String, RateLimiter> registerLimiters = CacheBuilder.newBuilder()
-            .expireAfterAccess(REGISTER_WINDOW_MINUTES + 1, TimeUnit.MINUTES)
-            .build();
-    
-    private final Cache<String, RateLimiter> resetPasswordLimiters = CacheBuilder.newBuilder()
-            .expireAfterAccess(RESET_PASSWORD_WINDOW_MINUTES + 1, TimeUnit.MINUTES)
-            .build();
-    
+
+    // 路由模板未匹配任何策略时的占位，缓存后不再重复匹配
+    private static final RateLimitPolicy NO_POLICY = new RateLimitPolicy();
+
+    private static final String GLOBAL_CLIENT = "*";
+
+    private final List<RateLimitPolicy> policies;
+    private final RateLimitBackend backend;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    // 路由模板 -> 策略，模板数量受处理器映射约束
+    private final ConcurrentMap<String, RateLimitPolicy> policyCache = new ConcurrentHashMap<>();
+
+    /**
+     * 默认策略（登录5次/分钟、注册3次/分钟、密码重置2次/分钟），进程内存储
+     */
+    public RateLimitInterceptor() {
+        this(defaultPolicies(), new LocalRateLimitBackend(64, 4096));
+    }
+
+    public RateLimitInterceptor(List<RateLimitPolicy> policies, RateLimitBackend backend) {
+        this.policies = new ArrayList<>(policies);
+        this.backend = backend;
+    }
+
+    public static List<RateLimitPolicy> defaultPolicies() {
+        return Arrays.asList(
+                new RateLimitPolicy("login", "/**/login", 5, 5, "登录请求过于频繁，请稍后再试"),
+                new RateLimitPolicy("register", "/**/register", 3, 3, "注册请求过于频繁，请稍后再试"),
+                new RateLimitPolicy("resetPass", "/**/resetPass", 2, 2, "密码重置请求过于频繁，请稍后再试"));
+    }
+
     /**
      * 获取客户端IP地址
+     * 不直接读取X-Forwarded-For/X-Real-IP，客户端可任意伪造以绕过限流；
+     * 部署在反向代理后时由server.forward-headers-strategy=native交给Tomcat RemoteIpValve处理，
+     * 只有来自server.tomcat.remoteip.internal-proxies（受信任代理）的请求才会按转发头改写remoteAddr
      */
     private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (StringUtils.isBlank(ip) || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("X-Real-IP");
-        }
-        if (StringUtils.isBlank(ip) || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-        // 处理多个IP的情况，取第一个
-        if (ip != null && ip.contains(",")) {
-            ip = ip.split(",")[0].trim();
-        }
-        return ip;
+        return request.getRemoteAddr();
     }
-    
+
     /**
      * 清除指定IP的登录限流记录
      * @param ip IP地址
      */
     public void clearLoginRateLimit(String ip) {
         if (StringUtils.isNotBlank(ip)) {
-            loginLimiters.invalidate(ip);
+            backend.reset(bucketKey("login", ip));
         }
     }
-    
+
     /**
      * 清除指定IP的所有限流记录
      * @param ip IP地址
      */
     public void clearAllRateLimit(String ip) {
         if (StringUtils.isNotBlank(ip)) {
-            loginLimiters.invalidate(ip);
-            registerLimiters.invalidate(ip);
-            resetPasswordLimiters.invalidate(ip);
+            for (RateLimitPolicy policy : policies) {
+                if (!policy.isGlobal()) {
+                    backend.reset(bucketKey(policy.getName(), ip));
+                }
+            }
         }
     }
-    
+
     /**
      * 清除所有限流记录（谨慎使用）
      */
     public void clearAllRateLimits() {
-        loginLimiters.invalidateAll();
-        registerLimiters.invalidateAll();
-        resetPasswordLimiters.invalidateAll();
+        backend.resetAll();
     }
-    
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         if (!(handler instanceof HandlerMethod)) {
             return true;
         }
-        
-        HandlerMethod handlerMethod = (HandlerMethod) handler;
-        String methodName = handlerMethod.getMethod().getName();
-        String requestURI = request.getRequestURI();
-        
-        String clientIp = getClientIp(request);
-        RateLimiter limiter = null;
-        String errorMessage = null;
-        
-        // 根据接口类型选择对应的限流器
-        // RateLimiter.create()参数是每秒的速率，所以需要将每分钟的速率除以60
-        if (requestURI.contains("/login")) {
-            limiter = loginLimiters.get(clientIp, () -> RateLimiter.create(LOGIN_RATE / 60.0));
-            errorMessage = "登录请求过于频繁，请稍后再试";
-        } else if (requestURI.contains("/register")) {
-            limiter = registerLimiters.get(clientIp, () -> RateLimiter.create(REGISTER_RATE / 60.0));
-            errorMessage = "注册请求过于频繁，请稍后再试";
-        } else if (requestURI.contains("/resetPass")) {
-            limiter = resetPasswordLimiters.get(clientIp, () -> RateLimiter.create(RESET_PASSWORD_RATE / 60.0));
-            errorMessage = "密码重置请求过于频繁，请稍后再试";
+
+        RateLimitPolicy policy = resolvePolicy(request);
+        if (policy == null) {
+            return true;
         }
-        
-        // 如果有限流器且无法获取许可，则拒绝请求
-        if (limiter != null && !limiter.tryAcquire()) {
-            response.setCharacterEncoding("UTF-8");
-            response.setContentType("application/json; charset=utf-8");
-            response.setStatus(429); // SC_TOO_MANY_REQUESTS
-            
-            PrintWriter writer = null;
-            try {
-                writer = response.getWriter();
-                writer.print(OBJECT_MAPPER.writeValueAsString(R.error(429, errorMessage)));
-            } finally {
-                if (writer != null) {
-                    writer.close();
-                }
+
+        String client = policy.isGlobal() ? GLOBAL_CLIENT : getClientIp(request);
+        if (backend.tryAcquire(bucketKey(policy.getName(), client), policy.getCapacity(), policy.getPermitsPerSecond())) {
+            return true;
+        }
+
+        response.setCharacterEncoding("UTF-8");
+        response.setContentType("application/json; charset=utf-8");
+        response.setStatus(429); // SC_TOO_MANY_REQUESTS
+        if (policy.getPermitsPerMinute() > 0) {
+            // 补充一个令牌所需的秒数
+            response.setHeader("Retry-After", String.valueOf((long) Math.ceil(60.0 / policy.getPermitsPerMinute())));
+        }
+
+        PrintWriter writer = null;
+        try {
+            writer = response.getWriter();
+            writer.print(OBJECT_MAPPER.writeValueAsString(R.error(429, policy.getMessage())));
+        } finally {
+            if (writer != null) {
+                writer.close();
             }
-            return false;
         }
-        
-        return true;
+        return false;
     }
-}
 
+    /**
+     * 查找请求对应的策略，没有则返回null
+     * 正常请求按路由模板查缓存，不限流的接口只有一次属性读取和一次哈希查找
+     */
+    RateLimitPolicy resolvePolicy(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern instanceof String) {
+            String route = (String) pattern;
+            RateLimitPolicy policy = policyCache.get(route);
+            if (policy == null) {
+                policy = policyCache.computeIfAbsent(route, this::match);
+            }
+            return policy == NO_POLICY ? null : policy;
+        }
+        // 没有路由模板时按实际路径匹配，路径不可枚举，不进缓存
+        String path = request.getRequestURI();
+        if (path == null) {
+            return null;
+        }
+        String contextPath = request.getContextPath();
+        if (StringUtils.isNotEmpty(contextPath) && path.startsWith(contextPath)) {
+            path = path.substring(contextPath.length());
+        }
+        RateLimitPolicy policy = match(path);
+        return policy == NO_POLICY ? null : policy;
+    }
+
+    private RateLimitPolicy match(String path) {
+        for (RateLimitPolicy policy : policies) {
+            if (policy.getPattern() != null && pathMatcher.match(policy.getPattern(), path)) {
+                return policy;
+            }
+        }
+        return NO_POLICY;
+    }
+
+    private static String bucketKey(String policyName, String client) {
+        return policyName + ":" + client;
+    }
+}
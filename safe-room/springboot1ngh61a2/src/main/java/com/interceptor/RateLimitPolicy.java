@@ -0,0 +1,125 @@
+package com.interceptor;
+
+/**
+ * 限流策略
+ * 按路由模式（Ant风格，如 /yonghu/login）匹配接口，同一策略下每个客户端一个令牌桶
+ */
+public class RateLimitPolicy {
+
+    /**
+     * 按客户端IP分桶
+     */
+    public static final String KEY_IP = "ip";
+
+    /**
+     * 所有客户端共用一个桶，用于保护整体容量有限的接口
+     */
+    public static final String KEY_GLOBAL = "global";
+
+    /**
+     * 策略名，同时作为桶标识前缀
+     */
+    private String name;
+
+    /**
+     * 路由模式，与处理器映射的路由模板匹配
+     */
+    private String pattern;
+
+    /**
+     * 每分钟补充的令牌数
+     */
+    private double permitsPerMinute;
+
+    /**
+     * 桶容量（允许的突发请求数），未配置时取每分钟令牌数
+     */
+    private int burst;
+
+    /**
+     * 分桶方式：ip 或 global
+     */
+    private String key = KEY_IP;
+
+    /**
+     * 被限流时返回的提示
+     */
+    private String message = "请求过于频繁，请稍后再试";
+
+    public RateLimitPolicy() {
+    }
+
+    public RateLimitPolicy(String name, String pattern, double permitsPerMinute, int burst, String message) {
+        this.name = name;
+        this.pattern = pattern;
+        this.permitsPerMinute = permitsPerMinute;
+        this.burst = burst;
+        this.message = message;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerMinute / 60.0;
+    }
+
+    /**
+     * 实际桶容量，至少为1
+     */
+    public int getCapacity() {
+        if (burst > 0) {
+            return burst;
+        }
+        return Math.max(1, (int) Math.ceil(permitsPerMinute));
+    }
+
+    public boolean isGlobal() {
+        return KEY_GLOBAL.equalsIgnoreCase(key);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public double getPermitsPerMinute() {
+        return permitsPerMinute;
+    }
+
+    public void setPermitsPerMinute(double permitsPerMinute) {
+        this.permitsPerMinute = permitsPerMinute;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,124 @@
+package com.interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 准入控制的路由分类
+ * 每类一个自适应并发上限和延迟目标，优先级决定该类能使用全局上限的多大份额
+ */
+public class RouteClass {
+
+    /**
+     * 登录、预约、支付等核心路径，可使用全部全局上限
+     */
+    public static final String PRIORITY_CRITICAL = "critical";
+
+    public static final String PRIORITY_NORMAL = "normal";
+
+    /**
+     * 统计、推荐等可延后的流量，过载时最先被拒绝
+     */
+    public static final String PRIORITY_LOW = "low";
+
+    private String name;
+
+    private String priority = PRIORITY_NORMAL;
+
+    /**
+     * 路由模式（Ant风格），与处理器映射的路由模板匹配
+     */
+    private List<String> patterns = new ArrayList<>();
+
+    /**
+     * 超过该耗时的请求视为过载信号（毫秒）
+     */
+    private long latencyThresholdMs = 1000;
+
+    private int initialLimit = 20;
+
+    private int minLimit = 2;
+
+    private int maxLimit = 200;
+
+    public RouteClass() {
+    }
+
+    public RouteClass(String name, String priority, long latencyThresholdMs, int initialLimit, int maxLimit, List<String> patterns) {
+        this.name = name;
+        this.priority = priority;
+        this.latencyThresholdMs = latencyThresholdMs;
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.patterns = new ArrayList<>(patterns);
+    }
+
+    /**
+     * 可使用的全局上限比例
+     */
+    public double getShare() {
+        if (PRIORITY_CRITICAL.equalsIgnoreCase(priority)) {
+            return 1.0;
+        }
+        if (PRIORITY_LOW.equalsIgnoreCase(priority)) {
+            return 0.5;
+        }
+        return 0.8;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    public void setPatterns(List<String> patterns) {
+        this.patterns = patterns;
+    }
+
+    public long getLatencyThresholdMs() {
+        return latencyThresholdMs;
+    }
+
+    public void setLatencyThresholdMs(long latencyThresholdMs) {
+        this.latencyThresholdMs = latencyThresholdMs;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+}
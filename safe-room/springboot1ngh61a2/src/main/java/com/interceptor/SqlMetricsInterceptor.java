@@ -0,0 +1,159 @@
+package com.interceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MyBatis statement metrics
+ * Times every mapper statement by its id (e.g. com.dao.YonghuDao.selectListView), records returned
+ * or affected rows, and logs the SQL of slow statements at most once per interval per statement
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlMetricsInterceptor.class);
+
+    public static final String TIMER_NAME = "fitness_gym_sql_duration";
+    public static final String ROWS_NAME = "fitness_gym_sql_rows";
+    public static final String SLOW_NAME = "fitness_gym_sql_slow_total";
+
+    private static final int MAX_LOGGED_SQL_LENGTH = 2000;
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final long slowLogIntervalMillis;
+
+    // Meters keyed by statement id (+ outcome); statement ids are bounded by the mapper definitions
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> lastSlowLog = new ConcurrentHashMap<>();
+
+    public SqlMetricsInterceptor(MeterRegistry meterRegistry, long slowThresholdMs, long slowLogIntervalMs) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, slowThresholdMs));
+        this.slowLogIntervalMillis = Math.max(0, slowLogIntervalMs);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement statement = (MappedStatement) args[0];
+        long start = System.nanoTime();
+        String outcome = "success";
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable t) {
+            outcome = "error";
+            throw t;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            String statementId = statement.getId();
+            String command = statement.getSqlCommandType().name();
+            if (meterRegistry != null) {
+                timer(statementId, command, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+                long rows = rowCount(result);
+                if (rows >= 0) {
+                    rows(statementId, command).record(rows);
+                }
+            }
+            if (elapsed >= slowThresholdNanos) {
+                onSlowStatement(statement, args, elapsed);
+            }
+        }
+    }
+
+    Timer timer(String statementId, String command, String outcome) {
+        String key = statementId + '|' + outcome;
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(TIMER_NAME)
+                    .description("MyBatis statement execution time")
+                    .tags("statement", statementId, "command", command, "outcome", outcome)
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+
+    private DistributionSummary rows(String statementId, String command) {
+        DistributionSummary summary = rowSummaries.get(statementId);
+        if (summary == null) {
+            summary = rowSummaries.computeIfAbsent(statementId, k -> DistributionSummary.builder(ROWS_NAME)
+                    .description("Rows returned by queries or affected by updates")
+                    .tags("statement", statementId, "command", command)
+                    .register(meterRegistry));
+        }
+        return summary;
+    }
+
+    private void onSlowStatement(MappedStatement statement, Object[] args, long elapsedNanos) {
+        String statementId = statement.getId();
+        if (meterRegistry != null) {
+            meterRegistry.counter(SLOW_NAME, "statement", statementId).increment();
+        }
+        // Sample: at most one log line per statement per interval, so a slow hot query cannot flood the log
+        long now = System.currentTimeMillis();
+        AtomicLong last = lastSlowLog.computeIfAbsent(statementId, k -> new AtomicLong());
+        long previous = last.get();
+        if (previous != 0 && now - previous < slowLogIntervalMillis) {
+            return;
+        }
+        if (!last.compareAndSet(previous, now)) {
+            return;
+        }
+        logger.warn("Slow SQL: statement={}, elapsedMs={}, sql={}",
+                statementId, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), boundSql(statement, args));
+    }
+
+    /**
+     * SQL with placeholders; parameter values are not logged because they may contain credentials
+     */
+    static String boundSql(MappedStatement statement, Object[] args) {
+        try {
+            BoundSql boundSql = args.length == 6 && args[5] instanceof BoundSql
+                    ? (BoundSql) args[5]
+                    : statement.getBoundSql(args.length > 1 ? args[1] : null);
+            String sql = boundSql.getSql().replaceAll("\\s+", " ").trim();
+            return sql.length() > MAX_LOGGED_SQL_LENGTH ? sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "..." : sql;
+        } catch (Exception e) {
+            return "<unavailable: " + e.getMessage() + ">";
+        }
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        return -1;
+    }
+}
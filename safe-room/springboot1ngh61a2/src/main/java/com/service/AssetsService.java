@@ -21,6 +21,37 @@ public interface AssetsService extends IService<AssetsEntity> {
      * Query paginated assets with custom wrapper for advanced filtering.
      */
     PageUtils queryPage(Map<String, Object> params, Wrapper<AssetsEntity> wrapper);
+
+    /**
+     * Register one more reference to a content-addressed file, inserting the
+     * candidate row (ref_count = 1) when the hash is seen for the first time.
+     *
+     * @return the row that owns the hash
+     */
+    AssetsEntity acquireContent(String contentHash, AssetsEntity candidate);
+
+    /**
+     * Release one reference to a content-addressed file; the row is removed
+     * when the last reference goes away.
+     *
+     * @return remaining references, 0 when the row was removed,
+     *         -1 when the hash is not tracked
+     */
+    int releaseContent(String contentHash);
+
+    /**
+     * Release one reference and, when it was the last one, run
+     * {@code deleteStored} after the row removal has committed, unless an
+     * upload of the same content registered again in the meantime. A
+     * concurrent first upload waits on the unique key until the stored file
+     * is gone, so it never reuses a file that is being deleted. An exception
+     * from {@code deleteStored} reaches the caller but the release stays
+     * committed; the file is then only orphaned.
+     *
+     * @return remaining references, 0 when the row was removed,
+     *         -1 when the hash is not tracked
+     */
+    int releaseContent(String contentHash, Runnable deleteStored);
 }
 
 
@@ -0,0 +1,74 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量审核服务
+ * 按id集合一次性更新审核状态（sfsh）和审核回复（shhf），不逐条查询实体；
+ * id过多时分块执行，每块一条UPDATE
+ */
+public interface BatchReviewService {
+
+    /**
+     * 批量审核
+     *
+     * @param target 审核的业务表
+     * @param ids 记录id，重复和空值会被忽略
+     * @param sfsh 审核状态
+     * @param shhf 审核回复
+     * @return 审核结果
+     */
+    ReviewResult review(Target target, Long[] ids, String sfsh, String shhf);
+
+    /**
+     * 支持批量审核的业务表，表名不来自请求参数
+     */
+    enum Target {
+        KECHENGYUYUE("kechengyuyue"),
+        SIJIAOYUYUE("sijiaoyuyue"),
+        KECHENGTUIKE("kechengtuike");
+
+        private final String table;
+
+        Target(String table) {
+            this.table = table;
+        }
+
+        public String getTable() {
+            return table;
+        }
+    }
+
+    /**
+     * 审核结果
+     */
+    class ReviewResult {
+        private final List<Long> updated;
+        private final List<Long> notFound;
+
+        public ReviewResult(List<Long> updated, List<Long> notFound) {
+            this.updated = Collections.unmodifiableList(new ArrayList<>(updated));
+            this.notFound = Collections.unmodifiableList(new ArrayList<>(notFound));
+        }
+
+        /**
+         * 已更新的id
+         */
+        public List<Long> getUpdated() {
+            return updated;
+        }
+
+        /**
+         * 不存在的id
+         */
+        public List<Long> getNotFound() {
+            return notFound;
+        }
+
+        public int getUpdatedCount() {
+            return updated.size();
+        }
+    }
+}
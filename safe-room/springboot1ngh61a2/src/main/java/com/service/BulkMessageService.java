@@ -0,0 +1,66 @@
+package com.service;
+
+import java.util.Map;
+
+/**
+ * 站内消息群发服务
+ * 按受众条件在后台流式查询收件人并分批写入消息，调用方通过任务id查询进度
+ */
+public interface BulkMessageService {
+
+    /**
+     * 群发受众
+     */
+    enum Audience {
+        /**
+         * 全部会员
+         */
+        ALL,
+        /**
+         * 持有某种会员卡的会员，目标值为会员卡名称
+         */
+        CARD,
+        /**
+         * 预约了某门课程的会员，目标值为课程id
+         */
+        COURSE,
+        /**
+         * 某教练的学员（私教预约或课程预约），目标值为教练工号
+         */
+        COACH;
+
+        /**
+         * 按名称解析（不区分大小写），无法识别时返回null
+         */
+        public static Audience parse(String name) {
+            if (name == null) {
+                return null;
+            }
+            for (Audience audience : values()) {
+                if (audience.name().equalsIgnoreCase(name.trim())) {
+                    return audience;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 提交群发任务，立即返回
+     *
+     * @param audience 受众
+     * @param target 受众的目标值，ALL时忽略
+     * @param title 消息标题
+     * @param content 消息内容
+     * @return 任务id
+     */
+    String submit(Audience audience, String target, String title, String content);
+
+    /**
+     * 任务进度：状态、已解析收件人数、已写入条数、耗时与每秒写入条数
+     *
+     * @param jobId 任务id
+     * @return 进度，任务不存在或已过期返回null
+     */
+    Map<String, Object> getProgress(String jobId);
+}
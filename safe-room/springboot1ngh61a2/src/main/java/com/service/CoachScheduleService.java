@@ -0,0 +1,107 @@
+package com.service;
+
+import com.entity.SijiaoyuyueEntity;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 私教时段排期服务
+ * 同一教练的有效预约（未被审核拒绝）时段不允许重叠，每个时段从预约时间开始、持续固定时长；
+ * 进程内按教练维护时段索引，PostgreSQL上另有排他约束兜底多实例并发
+ */
+public interface CoachScheduleService {
+
+    /**
+     * 新增预约，与教练已有时段冲突时不写入
+     *
+     * @param sijiaoyuyue 预约信息
+     * @return 结果
+     */
+    ScheduleResult book(SijiaoyuyueEntity sijiaoyuyue);
+
+    /**
+     * 修改预约，修改后的教练或时间与其他预约冲突时不写入
+     *
+     * @param sijiaoyuyue 预约信息，未提供的字段保持原值
+     * @return 结果
+     */
+    ScheduleResult update(SijiaoyuyueEntity sijiaoyuyue);
+
+    /**
+     * 删除预约并释放时段
+     *
+     * @param ids 预约id
+     */
+    void delete(Collection<Long> ids);
+
+    /**
+     * 预约在其他路径被修改（如审核）后，按数据库当前状态刷新时段
+     *
+     * @param ids 预约id
+     */
+    void refresh(Collection<Long> ids);
+
+    /**
+     * 教练在 [from, to) 内已被占用的时段，按开始时间排序，每项为 {开始, 结束}
+     */
+    List<Date[]> busySlots(String jiaoliangonghao, Date from, Date to);
+
+    /**
+     * 从指定时间开始的一个时段是否空闲
+     */
+    boolean isAvailable(String jiaoliangonghao, Date start);
+
+    /**
+     * 教练在日期范围内可开始一节私教的时间点
+     * 只返回营业时间内、晚于当前时间、且整节时长都未被占用的起始时间（按15分钟对齐）
+     *
+     * @param coaches 教练工号
+     * @param from 开始日期（含）
+     * @param to 结束日期（含）
+     * @return 教练工号 -> 日期(yyyy-MM-dd) -> 起始时间(HH:mm)列表，按输入顺序
+     */
+    Map<String, Map<String, List<String>>> availability(Collection<String> coaches, LocalDate from, LocalDate to);
+
+    /**
+     * 单次私教时长（分钟）
+     */
+    int getSessionMinutes();
+
+    /**
+     * 预约结果
+     */
+    class ScheduleResult {
+        private static final ScheduleResult OK = new ScheduleResult(true, null);
+
+        private final boolean success;
+        private final Long conflictId;
+
+        private ScheduleResult(boolean success, Long conflictId) {
+            this.success = success;
+            this.conflictId = conflictId;
+        }
+
+        public static ScheduleResult ok() {
+            return OK;
+        }
+
+        /**
+         * @param conflictId 冲突的预约id，由数据库约束发现冲突时为null
+         */
+        public static ScheduleResult conflict(Long conflictId) {
+            return new ScheduleResult(false, conflictId);
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public Long getConflictId() {
+            return conflictId;
+        }
+    }
+}
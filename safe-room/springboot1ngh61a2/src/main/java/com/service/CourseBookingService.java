@@ -0,0 +1,93 @@
+package com.service;
+
+import com.entity.KechengyuyueEntity;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 课程预约服务
+ * 按课程名额表（kecheng_seat_inventory）控制预约人数，未配置名额的课程不限制
+ */
+public interface CourseBookingService {
+
+    /**
+     * 审核未通过的状态，这些预约不占用名额
+     */
+    List<String> REJECTED_STATUSES = Arrays.asList("否", "未通过", "已拒绝");
+
+    /**
+     * 预约课程：扣减名额与写入预约记录在同一事务内完成，名额不足时不写入
+     *
+     * @param kechengyuyue 预约信息，crossrefid为课程id；未提供时按课程名称+教练工号查找
+     * @return 预约结果
+     */
+    BookingResult book(KechengyuyueEntity kechengyuyue);
+
+    /**
+     * 设置课程名额，已预约人数保持不变，剩余名额随之调整（不小于0）
+     *
+     * @param kechengId 课程id
+     * @param capacity 总名额
+     */
+    void setCapacity(Long kechengId, int capacity);
+
+    /**
+     * 归还一个名额（取消预约时调用），不会超过总名额
+     *
+     * @param kechengId 课程id
+     */
+    void releaseSeat(Long kechengId);
+
+    /**
+     * 归还一批预约占用的名额（审核拒绝、删除预约时调用）
+     * 只计入仍占用名额的预约（未取消、未被拒绝），并对这些预约加行锁，
+     * 须在拒绝/删除它们的同一事务中、修改之前调用，并发的重复操作不会重复归还
+     *
+     * @param reservationIds 预约id
+     * @return 归还的名额数
+     */
+    int releaseSeats(Collection<Long> reservationIds);
+
+    /**
+     * 课程名额情况
+     *
+     * @param kechengId 课程id
+     * @return capacity、remaining；未配置名额时两者为null
+     */
+    Map<String, Object> getSeatStatus(Long kechengId);
+
+    /**
+     * 预约结果
+     */
+    class BookingResult {
+        private final boolean booked;
+        private final Integer remaining;
+
+        private BookingResult(boolean booked, Integer remaining) {
+            this.booked = booked;
+            this.remaining = remaining;
+        }
+
+        public static BookingResult booked(Integer remaining) {
+            return new BookingResult(true, remaining);
+        }
+
+        public static BookingResult soldOut() {
+            return new BookingResult(false, 0);
+        }
+
+        public boolean isBooked() {
+            return booked;
+        }
+
+        /**
+         * 预约后的剩余名额估计，课程不限名额时为null
+         */
+        public Integer getRemaining() {
+            return remaining;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.service;
+
+import java.util.Map;
+
+/**
+ * 前端错误上报处理服务
+ * 按指纹（类型+消息+URL+栈顶帧）在时间窗口内聚合计数，只对部分报告记录完整内容，日志异步写出
+ */
+public interface ErrorReportService {
+
+    /**
+     * 接收一条错误报告，不阻塞调用线程写日志
+     *
+     * @param errorInfo 前端上报的错误信息
+     * @return 错误指纹
+     */
+    String report(Map<String, Object> errorInfo);
+
+    /**
+     * 计算错误指纹，相同指纹视为同一个错误
+     *
+     * @param errorInfo 前端上报的错误信息
+     * @return 指纹（16位十六进制）
+     */
+    String fingerprint(Map<String, Object> errorInfo);
+
+    /**
+     * 输出当前窗口的聚合结果并开始新窗口
+     */
+    void flushWindow();
+
+    /**
+     * 当前窗口内某指纹的报告次数
+     *
+     * @param fingerprint 错误指纹
+     * @return 次数，未出现过返回0
+     */
+    long getWindowCount(String fingerprint);
+}
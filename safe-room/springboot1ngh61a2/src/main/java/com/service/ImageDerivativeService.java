@@ -0,0 +1,67 @@
+package com.service;
+
+/**
+ * 图片衍生图（缩略图）服务
+ * 按宽度档位生成缩略图并与原图存放在同一存储中（本地upload目录或MinIO），首次请求时生成
+ */
+public interface ImageDerivativeService {
+
+    /**
+     * 支持的宽度档位（像素），请求宽度向上取整到最近档位，避免任意宽度产生大量衍生图
+     */
+    int[] WIDTH_BUCKETS = {160, 320, 640, 960, 1280};
+
+    /**
+     * 将请求宽度归档到最近的档位
+     *
+     * @param requestedWidth 请求宽度
+     * @return 档位宽度
+     */
+    int resolveWidthBucket(int requestedWidth);
+
+    /**
+     * 获取衍生图，不存在时生成并写入存储
+     *
+     * @param fileName 原图路径（如 upload/xxx.jpg、/upload/assets/... 或 xxx.jpg）
+     * @param width 目标宽度（会归档到档位）
+     * @param format 目标格式（jpg/png/webp），为空时按原图格式选择
+     * @return 衍生图，原图不存在或不是可识别的图片时返回null
+     * @throws Exception 读取或生成异常
+     */
+    ImageDerivative getDerivative(String fileName, int width, String format) throws Exception;
+
+    /**
+     * 删除原图对应的全部衍生图（原图删除或覆盖时调用）
+     *
+     * @param fileName 原图路径
+     */
+    void evict(String fileName);
+
+    /**
+     * 衍生图内容
+     */
+    final class ImageDerivative {
+
+        private final byte[] data;
+        private final String contentType;
+        private final String etag;
+
+        public ImageDerivative(byte[] data, String contentType, String etag) {
+            this.data = data;
+            this.contentType = contentType;
+            this.etag = etag;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
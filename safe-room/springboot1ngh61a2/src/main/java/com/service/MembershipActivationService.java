@@ -0,0 +1,69 @@
+package com.service;
+
+import com.entity.HuiyuankagoumaiEntity;
+import com.entity.HuiyuanxufeiEntity;
+
+import java.time.LocalDate;
+
+/**
+ * 会员开卡与续费服务
+ * 会员卡有效期来自进程内的会员卡目录，会员信息以按账号的单条UPDATE写入，
+ * 调用方的事务包含购买/续费记录与会员信息的写入
+ */
+public interface MembershipActivationService {
+
+    /**
+     * 购买会员卡后开卡：写入会员卡号、卡名称，到期日为今天加上卡的有效期
+     *
+     * @param huiyuankagoumai 已支付的购买记录
+     * @return 结果；会员卡或会员不存在时未生效
+     */
+    ActivationResult activate(HuiyuankagoumaiEntity huiyuankagoumai);
+
+    /**
+     * 续费：在当前到期日（已过期则为今天）上叠加有效期
+     *
+     * @param huiyuanxufei 已支付的续费记录，有效期优先取会员卡目录，其次取续费记录的youxiaoqi
+     * @return 结果；会员不存在或无法确定有效期时未生效
+     */
+    ActivationResult renew(HuiyuanxufeiEntity huiyuanxufei);
+
+    /**
+     * 重新加载会员卡目录（会员卡新增、修改、删除后调用）
+     */
+    void refreshCatalog();
+
+    /**
+     * 开卡/续费结果
+     */
+    class ActivationResult {
+        private static final ActivationResult NOT_APPLIED = new ActivationResult(false, null);
+
+        private final boolean applied;
+        private final LocalDate expiry;
+
+        private ActivationResult(boolean applied, LocalDate expiry) {
+            this.applied = applied;
+            this.expiry = expiry;
+        }
+
+        /**
+         * @param expiry 新的到期日，会员卡未设置有效期时为null（到期日不变）
+         */
+        public static ActivationResult applied(LocalDate expiry) {
+            return new ActivationResult(true, expiry);
+        }
+
+        public static ActivationResult notApplied() {
+            return NOT_APPLIED;
+        }
+
+        public boolean isApplied() {
+            return applied;
+        }
+
+        public LocalDate getExpiry() {
+            return expiry;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.utils.PageUtils;
 import com.entity.MessageEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import com.entity.vo.MessageVO;
@@ -30,4 +31,16 @@ public interface MessageService extends IService<MessageEntity> {
    	MessageView selectView(@Param("ew") Wrapper<MessageEntity> wrapper);
 
    	PageUtils queryPage(Map<String, Object> params,Wrapper<MessageEntity> wrapper);
+
+    /**
+     * 用户的未读消息数（读取未读计数，不对消息表计数）
+     */
+    int countUnread(Long userId);
+
+    /**
+     * 将用户的指定消息标记为已读并同步未读计数
+     *
+     * @return 由未读变为已读的条数
+     */
+    int markRead(Long userId, Collection<Long> ids);
 }
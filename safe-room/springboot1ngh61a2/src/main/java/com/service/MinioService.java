@@ -2,24 +2,81 @@ package com.service;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 /**
  * MinIO服务接口
  */
 public interface MinioService {
 
+    /**
+     * 预签名URL允许的有效期（秒），MinIO上限为7天；请求的有效期向下取整到其中之一，
+     * 使不同参数的请求落在少数几个缓存键上
+     */
+    int[] PRESIGNED_EXPIRY_BUCKETS = {60, 300, 900, 1800, 3600, 7200, 21600, 43200, 86400, 604800};
+
+    /**
+     * 将请求的有效期归整为不超过它的最大允许值，小于最小值时取最小值
+     *
+     * @param expirySeconds 请求的过期时间（秒）
+     * @return 实际使用的过期时间（秒）
+     */
+    static int normalizeExpiry(int expirySeconds) {
+        int normalized = PRESIGNED_EXPIRY_BUCKETS[0];
+        for (int bucket : PRESIGNED_EXPIRY_BUCKETS) {
+            if (bucket <= expirySeconds) {
+                normalized = bucket;
+            }
+        }
+        return normalized;
+    }
+
     /**
      * 上传文件到MinIO
      *
      * @param objectName 对象名称（文件路径）
      * @param inputStream 文件输入流
      * @param contentType 文件类型
-     * @param size 文件大小
+     * @param size 文件大小，未知时传-1（按配置的分片大小流式分片上传）
      * @return 文件路径
      * @throws Exception 上传异常
      */
     String uploadFile(String objectName, InputStream inputStream, String contentType, long size) throws Exception;
 
+    /**
+     * 上传文件到新生成的对象名（UUID、内容摘要、分片临时键等不可能已存在的键）
+     * 与uploadFile相同，但跳过写入前查询同名对象大小的statObject
+     *
+     * @param objectName 新生成的对象名称
+     * @param inputStream 文件输入流
+     * @param contentType 文件类型
+     * @param size 文件大小，未知时传-1
+     * @return 文件路径
+     * @throws Exception 上传异常
+     */
+    String uploadNewFile(String objectName, InputStream inputStream, String contentType, long size) throws Exception;
+
+    /**
+     * 将多个已上传的对象在服务端按顺序合并为一个对象（用于断点续传的分片合并）
+     * 除最后一个外，每个源对象不得小于5MB；目标对象名应为新生成的键，不统计覆盖
+     *
+     * @param objectName 目标对象名称
+     * @param sourceObjectNames 源对象名称（按合并顺序）
+     * @return 目标对象名称
+     * @throws Exception 合并异常
+     */
+    String composeObject(String objectName, List<String> sourceObjectNames) throws Exception;
+
+    /**
+     * 在服务端将对象复制为另一个对象名，不经过应用传输内容；调用方应已确认目标对象不存在，不统计覆盖
+     *
+     * @param sourceObjectName 源对象名称
+     * @param objectName 目标对象名称
+     * @return 目标对象名称
+     * @throws Exception 复制异常
+     */
+    String copyObject(String sourceObjectName, String objectName) throws Exception;
+
     /**
      * 获取文件访问URL（预签名URL）
      *
@@ -33,12 +90,22 @@ public interface MinioService {
      * 获取预签名URL（带过期时间）
      *
      * @param objectName 对象名称
-     * @param expirySeconds 过期时间（秒）
+     * @param expirySeconds 过期时间（秒），按{@link #normalizeExpiry(int)}归整
      * @return 预签名URL
      * @throws Exception 生成URL异常
      */
     String getPresignedUrl(String objectName, int expirySeconds) throws Exception;
 
+    /**
+     * 批量获取预签名URL（复用缓存中的签名，不检查对象是否存在）
+     *
+     * @param objectNames 对象名称列表
+     * @param expirySeconds 过期时间（秒）
+     * @return 对象名称到预签名URL的映射（保持入参顺序）
+     * @throws Exception 生成URL异常
+     */
+    Map<String, String> getPresignedUrls(List<String> objectNames, int expirySeconds) throws Exception;
+
     /**
      * 删除文件
      *
@@ -74,6 +141,35 @@ public interface MinioService {
      */
     List<String> listFiles(String prefix) throws Exception;
 
+    /**
+     * 分页列出指定前缀的文件（服务端分页，只拉取所需的一页）
+     *
+     * @param prefix 前缀
+     * @param startAfter 从该对象名之后开始列出（上一页返回的nextToken），首页传null
+     * @param maxKeys 本页最大条目数
+     * @return 当前页文件及下一页的续传标记
+     * @throws Exception 列出异常
+     */
+    FilePage listFiles(String prefix, String startAfter, int maxKeys) throws Exception;
+
+    /**
+     * 统计指定前缀下的对象数量与总字节数（遍历列表，不读取对象内容）
+     *
+     * @param prefix 前缀，为空时统计整个bucket
+     * @return 使用量
+     * @throws Exception 列出异常
+     */
+    BucketUsage getBucketUsage(String prefix) throws Exception;
+
+    /**
+     * 列出指定前缀的对象及其最后修改时间，用于清理过期的临时对象
+     *
+     * @param prefix 前缀
+     * @return 对象名 -> 最后修改时间（毫秒时间戳）
+     * @throws Exception 列出异常
+     */
+    Map<String, Long> listLastModified(String prefix) throws Exception;
+
     /**
      * 获取文件大小
      *
@@ -91,5 +187,109 @@ public interface MinioService {
      * @throws Exception 获取异常
      */
     String getFileContentType(String objectName) throws Exception;
+
+    /**
+     * 获取对象元数据（一次statObject调用，结果短时缓存，上传/删除时失效）
+     *
+     * @param objectName 对象名称
+     * @return 对象元数据，对象不存在时返回null
+     * @throws Exception 获取异常
+     */
+    ObjectStat statObject(String objectName) throws Exception;
+
+    /**
+     * 获取文件指定字节范围的输入流（Range读取）
+     *
+     * @param objectName 对象名称
+     * @param offset 起始偏移量
+     * @param length 读取长度
+     * @return 文件输入流
+     * @throws Exception 获取异常
+     */
+    InputStream getFileInputStream(String objectName, long offset, long length) throws Exception;
+
+    /**
+     * 文件分页结果
+     */
+    final class FilePage {
+
+        private final List<String> objectNames;
+        private final String nextToken;
+
+        public FilePage(List<String> objectNames, String nextToken) {
+            this.objectNames = objectNames;
+            this.nextToken = nextToken;
+        }
+
+        public List<String> getObjectNames() {
+            return objectNames;
+        }
+
+        /**
+         * @return 下一页的续传标记，没有更多数据时为null
+         */
+        public String getNextToken() {
+            return nextToken;
+        }
+    }
+
+    /**
+     * 存储使用量
+     */
+    final class BucketUsage {
+
+        private final long objectCount;
+        private final long totalBytes;
+
+        public BucketUsage(long objectCount, long totalBytes) {
+            this.objectCount = objectCount;
+            this.totalBytes = totalBytes;
+        }
+
+        public long getObjectCount() {
+            return objectCount;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * 对象元数据
+     */
+    final class ObjectStat {
+
+        private final long size;
+        private final String contentType;
+        private final String etag;
+        private final long lastModified;
+
+        public ObjectStat(long size, String contentType, String etag, long lastModified) {
+            this.size = size;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return 最后修改时间（毫秒时间戳）
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
 }
 
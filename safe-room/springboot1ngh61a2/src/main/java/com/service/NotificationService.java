@@ -0,0 +1,67 @@
+package com.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * 服务端推送（SSE）
+ * 进程内按登录身份（表名 + 用户id）维护推送连接，新消息、客服回复和到期提醒产生时直接推给在线的客户端，
+ * 空闲的页面不再轮询未读数和聊天列表
+ */
+public interface NotificationService {
+
+    /**
+     * 新站内消息（含群发公告）
+     */
+    String EVENT_MESSAGE = "message";
+
+    /**
+     * 客服会话：会员收到回复，管理员收到提问
+     */
+    String EVENT_CHAT = "chat";
+
+    /**
+     * 会员到期提醒
+     */
+    String EVENT_REMINDER = "reminder";
+
+    /**
+     * 会员登录所用的表名，站内消息和客服回复推给会员
+     */
+    String TABLE_MEMBER = "yonghu";
+
+    /**
+     * 管理员登录所用的表名，会员提问推给管理员
+     */
+    String TABLE_ADMIN = "users";
+
+    /**
+     * 建立推送连接
+     *
+     * @param tableName 登录所用的表名
+     * @param userId 用户id
+     * @param initial 连接建立后首先推送的ready事件内容，可为null
+     */
+    SseEmitter subscribe(String tableName, Long userId, Map<String, Object> initial);
+
+    /**
+     * 推送给某个用户的所有连接；在事务中调用时于提交后推送，用户不在线时不做任何事
+     */
+    void publish(String tableName, Long userId, String event, Object data);
+
+    /**
+     * 推送给某个表下的所有在线用户
+     */
+    void publishToTable(String tableName, String event, Object data);
+
+    /**
+     * 用户是否有在线连接，推送内容需要额外查询时先判断
+     */
+    boolean hasSubscriber(String tableName, Long userId);
+
+    /**
+     * 当前连接数
+     */
+    int getSubscriberCount();
+}
@@ -0,0 +1,30 @@
+package com.service;
+
+/**
+ * 限流令牌桶存储
+ * 单实例部署使用进程内实现，多实例部署使用PostgreSQL共享实现，使各节点共用同一个桶
+ */
+public interface RateLimitBackend {
+
+    /**
+     * 尝试从桶中取一个令牌
+     *
+     * @param key 桶标识（策略名:客户端标识）
+     * @param capacity 桶容量，即允许的突发请求数
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @return 是否取得令牌
+     */
+    boolean tryAcquire(String key, int capacity, double permitsPerSecond);
+
+    /**
+     * 清除指定桶，下次请求时按满桶重新开始
+     *
+     * @param key 桶标识
+     */
+    void reset(String key);
+
+    /**
+     * 清除所有桶
+     */
+    void resetAll();
+}
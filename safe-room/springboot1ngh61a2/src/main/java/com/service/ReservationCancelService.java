@@ -0,0 +1,80 @@
+package com.service;
+
+/**
+ * 课程预约取消服务
+ * 取消预约、归还课程名额、生成退课记录在同一事务内完成；
+ * 携带请求键时同一请求重复提交只执行一次，重复提交返回首次的结果
+ */
+public interface ReservationCancelService {
+
+    /**
+     * 取消用户对课程的已支付预约
+     *
+     * @param userid 用户id（crossuserid）
+     * @param kechengId 课程id（crossrefid）
+     * @param requestKey 请求键，可为空；同一用户的相同请求键视为同一次取消
+     * @param reason 退课原因，为空时使用默认原因
+     * @return 取消结果
+     */
+    CancelResult cancel(Long userid, Long kechengId, String requestKey, String reason);
+
+    /**
+     * 取消结果
+     */
+    class CancelResult {
+        public enum Status {
+            /**
+             * 本次请求完成取消
+             */
+            CANCELLED,
+            /**
+             * 重复请求，返回首次取消的结果
+             */
+            REPLAYED,
+            /**
+             * 没有可取消的已支付预约
+             */
+            NOT_FOUND
+        }
+
+        private static final CancelResult NOT_FOUND = new CancelResult(Status.NOT_FOUND, null, null);
+
+        private final Status status;
+        private final Long reservationId;
+        private final Long refundId;
+
+        private CancelResult(Status status, Long reservationId, Long refundId) {
+            this.status = status;
+            this.reservationId = reservationId;
+            this.refundId = refundId;
+        }
+
+        public static CancelResult cancelled(Long reservationId, Long refundId) {
+            return new CancelResult(Status.CANCELLED, reservationId, refundId);
+        }
+
+        public static CancelResult replayed(Long reservationId, Long refundId) {
+            return new CancelResult(Status.REPLAYED, reservationId, refundId);
+        }
+
+        public static CancelResult notFound() {
+            return NOT_FOUND;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isCancelled() {
+            return status != Status.NOT_FOUND;
+        }
+
+        public Long getReservationId() {
+            return reservationId;
+        }
+
+        public Long getRefundId() {
+            return refundId;
+        }
+    }
+}
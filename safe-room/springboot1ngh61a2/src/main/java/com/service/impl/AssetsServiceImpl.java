@@ -10,13 +10,25 @@ import com.service.AssetsService;
 import com.utils.PageUtils;
 import com.utils.Query;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Map;
 
 @Service("assetsService")
 public class AssetsServiceImpl extends ServiceImpl<AssetsDao, AssetsEntity> implements AssetsService {
 
+    private static final int MAX_ACQUIRE_ATTEMPTS = 3;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Override
     public PageUtils queryPage(Map<String, Object> params) {
         Page<AssetsEntity> page = this.page(
@@ -35,6 +47,91 @@ public class AssetsServiceImpl extends ServiceImpl<AssetsDao, AssetsEntity> impl
         return new PageUtils(page);
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public AssetsEntity acquireContent(String contentHash, AssetsEntity candidate) {
+        candidate.setContentHash(contentHash);
+        candidate.setRefCount(1);
+        // Neither statement fails on a concurrent first upload: the insert waits for
+        // the other transaction and does nothing if it committed, and the next
+        // increment then sees that row. The row may also vanish between the two
+        // steps when its last reference is released, hence the loop.
+        for (int attempt = 0; attempt < MAX_ACQUIRE_ATTEMPTS; attempt++) {
+            if (baseMapper.incrementRefCount(contentHash) > 0) {
+                return findByContentHash(contentHash);
+            }
+            candidate.setId(null);
+            if (baseMapper.insertIfAbsent(candidate) == 1) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Could not register content " + contentHash);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int releaseContent(String contentHash) {
+        return releaseContent(contentHash, null);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int releaseContent(String contentHash, Runnable deleteStored) {
+        // The decrement holds the row lock until commit, so the count read and
+        // the conditional DELETE below see no concurrent increment.
+        if (baseMapper.decrementRefCount(contentHash) == 0 && findByContentHash(contentHash) == null) {
+            return -1;
+        }
+        if (baseMapper.deleteUnreferenced(contentHash) == 1) {
+            if (deleteStored != null) {
+                afterCommit(() -> deleteIfUnclaimed(contentHash, deleteStored));
+            }
+            return 0;
+        }
+        AssetsEntity entity = findByContentHash(contentHash);
+        return entity == null || entity.getRefCount() == null ? 0 : entity.getRefCount();
+    }
+
+    /**
+     * Delete the stored file outside the release transaction. A placeholder row is
+     * inserted and rolled back around the delete: an upload of the same content
+     * that registered in the meantime makes the insert a no-op and keeps the file,
+     * and one arriving during the delete waits on the placeholder, then re-uploads.
+     */
+    private void deleteIfUnclaimed(String contentHash, Runnable deleteStored) {
+        TransactionTemplate claim = new TransactionTemplate(transactionManager);
+        claim.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        claim.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            AssetsEntity placeholder = new AssetsEntity();
+            placeholder.setAssetName(contentHash);
+            placeholder.setAssetType("file");
+            placeholder.setFilePath("");
+            placeholder.setContentHash(contentHash);
+            placeholder.setRefCount(0);
+            if (baseMapper.insertIfAbsent(placeholder) == 1) {
+                deleteStored.run();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private AssetsEntity findByContentHash(String contentHash) {
+        return this.getOne(new QueryWrapper<AssetsEntity>().eq("content_hash", contentHash), false);
+    }
+
     /**
      * Build default filtering wrapper that supports common query params.
      */
@@ -0,0 +1,73 @@
+package com.service.impl;
+
+import com.service.BatchReviewService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service("batchReviewService")
+public class BatchReviewServiceImpl implements BatchReviewService {
+
+    private static final String UPDATE_SQL = "UPDATE %s SET sfsh = ?, shhf = ? WHERE id = ANY(?)";
+
+    private static final String EXISTING_SQL = "SELECT id FROM %s WHERE id = ANY(?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 每条UPDATE携带的最大id数，避免超大数组导致单条语句过长、锁持有时间过久
+     */
+    @Value("${review.batch-chunk-size:1000}")
+    private int chunkSize;
+
+    @Override
+    public ReviewResult review(Target target, Long[] ids, String sfsh, String shhf) {
+        List<Long> updated = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        if (ids == null) {
+            return new ReviewResult(updated, notFound);
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(ids)));
+        distinct.remove(null);
+        int size = Math.max(1, chunkSize);
+        for (int from = 0; from < distinct.size(); from += size) {
+            List<Long> chunk = distinct.subList(from, Math.min(distinct.size(), from + size));
+            Long[] values = chunk.toArray(new Long[0]);
+            int affected = jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(String.format(UPDATE_SQL, target.getTable()));
+                ps.setString(1, sfsh);
+                ps.setString(2, shhf);
+                ps.setArray(3, con.createArrayOf("BIGINT", values));
+                return ps;
+            });
+            if (affected == chunk.size()) {
+                updated.addAll(chunk);
+                continue;
+            }
+            // 部分id不存在时才回查，正常情况下每块只有一条语句
+            Set<Long> existing = new HashSet<>(jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(String.format(EXISTING_SQL, target.getTable()));
+                ps.setArray(1, con.createArrayOf("BIGINT", values));
+                return ps;
+            }, (rs, rowNum) -> rs.getLong(1)));
+            for (Long id : chunk) {
+                if (existing.contains(id)) {
+                    updated.add(id);
+                } else {
+                    notFound.add(id);
+                }
+            }
+        }
+        return new ReviewResult(updated, notFound);
+    }
+}
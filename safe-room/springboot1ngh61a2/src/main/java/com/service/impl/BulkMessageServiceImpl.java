@@ -0,0 +1,308 @@
+package com.service.impl;
+
+import com.entity.EIException;
+import com.service.BulkMessageService;
+import com.service.NotificationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 站内消息群发实现
+ * 收件人在单独的连接上以游标流式读取（关闭自动提交并设置fetchSize，PostgreSQL才会分批取行），
+ * 攒够一批后在另一个连接上用JDBC批量插入并提交，内存中只保留当前一批收件人id。
+ * 任务由单个后台线程依次执行，排队数有上限，进度保存在内存中
+ */
+@Service("bulkMessageService")
+public class BulkMessageServiceImpl implements BulkMessageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkMessageServiceImpl.class);
+
+    static final String MESSAGE_TYPE = "announcement";
+    static final String RELATED_TYPE = "broadcast";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO messages (userid, title, content, type, isread, related_type, addtime) "
+            + "VALUES (?, ?, ?, '" + MESSAGE_TYPE + "', 0, '" + RELATED_TYPE + "', ?)";
+
+    private static final String ALL_SQL = "SELECT id FROM yonghu";
+
+    private static final String CARD_SQL = "SELECT id FROM yonghu WHERE huiyuankamingcheng = ?";
+
+    // 已取消的预约不算学员
+    private static final String COURSE_SQL =
+            "SELECT DISTINCT crossuserid FROM kechengyuyue "
+            + "WHERE crossrefid = ? AND crossuserid IS NOT NULL AND COALESCE(ispay, '') <> ?";
+
+    private static final String COACH_SQL =
+            "SELECT id FROM yonghu WHERE yonghuzhanghao IN ("
+            + "SELECT yonghuzhanghao FROM sijiaoyuyue WHERE jiaoliangonghao = ? "
+            + "UNION SELECT yonghuzhanghao FROM kechengyuyue WHERE jiaoliangonghao = ? AND COALESCE(ispay, '') <> ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MessageUnreadCounter unreadCounter;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    /**
+     * 每批插入的消息条数，每批一个事务
+     */
+    @Value("${bulk-message.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${bulk-message.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * 等待执行的任务数上限，超出时拒绝提交
+     */
+    @Value("${bulk-message.queue-capacity:20}")
+    private int queueCapacity;
+
+    /**
+     * 已结束任务的进度保留时长（毫秒）
+     */
+    @Value("${bulk-message.job-retention-ms:86400000}")
+    private long jobRetentionMs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bulk-message-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String submit(Audience audience, String target, String title, String content) {
+        if (audience == null) {
+            throw new EIException("不支持的受众类型");
+        }
+        if (audience != Audience.ALL && StringUtils.isBlank(target)) {
+            throw new EIException("请指定受众目标");
+        }
+        if (audience == Audience.COURSE && !StringUtils.isNumeric(target.trim())) {
+            throw new EIException("课程id格式错误");
+        }
+        if (StringUtils.isBlank(title) || StringUtils.isBlank(content)) {
+            throw new EIException("消息标题和内容不能为空");
+        }
+        evictFinished();
+
+        Job job = new Job(UUID.randomUUID().toString().replace("-", ""), audience,
+                audience == Audience.ALL ? null : target.trim(), title, content);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new EIException("群发任务排队过多，请稍后再试");
+        }
+        return job.id;
+    }
+
+    @Override
+    public Map<String, Object> getProgress(String jobId) {
+        Job job = jobId == null ? null : jobs.get(jobId);
+        return job == null ? null : job.snapshot();
+    }
+
+    private void run(Job job) {
+        job.startedAt = System.currentTimeMillis();
+        job.status = "running";
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                stream(connection, job);
+                return null;
+            });
+            job.status = "completed";
+            logger.info("群发任务 {} 完成：{} 条，耗时 {} ms", job.id, job.sent.get(),
+                    System.currentTimeMillis() - job.startedAt);
+        } catch (Exception e) {
+            job.status = "failed";
+            job.error = e.getMessage();
+            logger.warn("群发任务 {} 失败，已写入 {} 条: {}", job.id, job.sent.get(), e.getMessage(), e);
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    private void stream(Connection connection, Job job) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        int limit = Math.max(1, batchSize);
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = prepare(connection, job)) {
+                statement.setFetchSize(Math.max(1, fetchSize));
+                try (ResultSet rs = statement.executeQuery()) {
+                    List<Long> batch = new ArrayList<>(limit);
+                    while (rs.next()) {
+                        batch.add(rs.getLong(1));
+                        job.resolved.incrementAndGet();
+                        if (batch.size() >= limit) {
+                            insert(job, batch);
+                            batch.clear();
+                        }
+                    }
+                    if (!batch.isEmpty()) {
+                        insert(job, batch);
+                    }
+                }
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private PreparedStatement prepare(Connection connection, Job job) throws SQLException {
+        PreparedStatement statement;
+        switch (job.audience) {
+            case CARD:
+                statement = connection.prepareStatement(CARD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setString(1, job.target);
+                return statement;
+            case COURSE:
+                statement = connection.prepareStatement(COURSE_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setLong(1, Long.parseLong(job.target));
+                statement.setString(2, ReservationCancelServiceImpl.CANCELLED);
+                return statement;
+            case COACH:
+                statement = connection.prepareStatement(COACH_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setString(1, job.target);
+                statement.setString(2, job.target);
+                statement.setString(3, ReservationCancelServiceImpl.CANCELLED);
+                return statement;
+            default:
+                return connection.prepareStatement(ALL_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        }
+    }
+
+    /**
+     * 在独立事务中写入一批消息、累加未读计数，提交后推送给在线会员：读游标所在连接的事务要保持到读完，不能用来提交
+     */
+    private void insert(Job job, List<Long> userIds) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Map<Long, Integer> unread = new HashMap<>();
+        for (Long userId : userIds) {
+            unread.merge(userId, 1, Integer::sum);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, userIds.get(i));
+                    ps.setString(2, job.title);
+                    ps.setString(3, job.content);
+                    ps.setTimestamp(4, now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return userIds.size();
+                }
+            });
+            unreadCounter.addAll(unread);
+            Map<String, Object> event = new HashMap<>();
+            event.put("title", job.title);
+            event.put("type", MESSAGE_TYPE);
+            for (Long userId : unread.keySet()) {
+                notificationService.publish(NotificationService.TABLE_MEMBER, userId, NotificationService.EVENT_MESSAGE, event);
+            }
+        });
+        job.sent.addAndGet(userIds.size());
+    }
+
+    private void evictFinished() {
+        long cutoff = System.currentTimeMillis() - Math.max(0, jobRetentionMs);
+        jobs.values().removeIf(job -> job.finishedAt > 0 && job.finishedAt < cutoff);
+    }
+
+    private static final class Job {
+        private final String id;
+        private final Audience audience;
+        private final String target;
+        private final String title;
+        private final String content;
+        private final long createdAt = System.currentTimeMillis();
+        private final AtomicLong resolved = new AtomicLong();
+        private final AtomicLong sent = new AtomicLong();
+        private volatile String status = "queued";
+        private volatile String error;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+
+        private Job(String id, Audience audience, String target, String title, String content) {
+            this.id = id;
+            this.audience = audience;
+            this.target = target;
+            this.title = title;
+            this.content = content;
+        }
+
+        private Map<String, Object> snapshot() {
+            long sentCount = sent.get();
+            long start = startedAt;
+            long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            long elapsed = start > 0 ? Math.max(0, end - start) : 0;
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("jobId", id);
+            progress.put("audience", audience.name().toLowerCase());
+            progress.put("target", target);
+            progress.put("status", status);
+            progress.put("resolved", resolved.get());
+            progress.put("sent", sentCount);
+            progress.put("elapsedMs", elapsed);
+            progress.put("perSecond", elapsed > 0 ? sentCount * 1000 / elapsed : sentCount);
+            progress.put("createdAt", createdAt);
+            progress.put("finishedAt", finishedAt > 0 ? finishedAt : null);
+            progress.put("error", error);
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.service.impl;
+
+import com.service.MinioService;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 清理放弃的分片上传
+ * 客户端初始化后未调用complete（中断、放弃续传）时，MinIO中的chunks/{uploadId}/下的对象
+ * 或本地临时目录下的分片会一直残留；按上传任务最后一次写入时间判断过期，整体删除
+ */
+@Component
+public class ChunkUploadSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkUploadSweeper.class);
+
+    /**
+     * MinIO中分片对象的前缀
+     */
+    public static final String CHUNK_PREFIX = "chunks/";
+
+    // 按bean获取，未启用MinIO时为空
+    @Autowired
+    private ObjectProvider<MinioService> minioServiceProvider;
+
+    @Value("${minio.enabled:false}")
+    private boolean minioEnabled;
+
+    /**
+     * 上传任务最后一次写入后保留的时长（毫秒），超过后视为已放弃
+     */
+    @Value("${upload.chunk-ttl-ms:86400000}")
+    private long ttlMs;
+
+    /**
+     * 本地模式下分片的暂存目录
+     */
+    public static File localChunkRoot() {
+        return new File(System.getProperty("java.io.tmpdir"), "fitness-gym-chunks");
+    }
+
+    @Scheduled(fixedDelayString = "${upload.chunk-sweep-interval-ms:3600000}",
+            initialDelayString = "${upload.chunk-sweep-interval-ms:3600000}")
+    public void scheduledSweep() {
+        try {
+            int removed = sweep(System.currentTimeMillis() - Math.max(0, ttlMs));
+            if (removed > 0) {
+                logger.info("已清理 {} 个过期的分片上传", removed);
+            }
+        } catch (Exception e) {
+            logger.warn("清理过期分片上传失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 删除最后写入时间早于cutoff的上传任务
+     *
+     * @return 删除的上传任务数
+     */
+    public int sweep(long cutoff) throws Exception {
+        MinioService minioService = minioEnabled ? minioServiceProvider.getIfAvailable() : null;
+        if (minioService != null) {
+            return sweepMinio(minioService, cutoff);
+        }
+        return sweepLocal(cutoff);
+    }
+
+    private int sweepMinio(MinioService minioService, long cutoff) throws Exception {
+        // 上传任务 -> 其中最新对象的修改时间，仍在续传的任务不会被删除
+        Map<String, Long> newest = new HashMap<>();
+        Map<String, Long> objects = minioService.listLastModified(CHUNK_PREFIX);
+        for (Map.Entry<String, Long> entry : objects.entrySet()) {
+            newest.merge(uploadIdOf(entry.getKey()), entry.getValue(), Math::max);
+        }
+        int removed = 0;
+        for (Map.Entry<String, Long> upload : newest.entrySet()) {
+            if (upload.getValue() >= cutoff) {
+                continue;
+            }
+            String prefix = CHUNK_PREFIX + upload.getKey() + "/";
+            List<String> names = minioService.listFiles(prefix);
+            for (String name : names) {
+                minioService.deleteFile(name);
+            }
+            removed++;
+        }
+        return removed;
+    }
+
+    private int sweepLocal(long cutoff) {
+        File[] uploads = localChunkRoot().listFiles(File::isDirectory);
+        if (uploads == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (File upload : uploads) {
+            long lastModified = upload.lastModified();
+            File[] chunks = upload.listFiles();
+            if (chunks != null) {
+                for (File chunk : chunks) {
+                    lastModified = Math.max(lastModified, chunk.lastModified());
+                }
+            }
+            if (lastModified < cutoff && FileUtils.deleteQuietly(upload)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static String uploadIdOf(String objectName) {
+        String rest = objectName.substring(CHUNK_PREFIX.length());
+        int slash = rest.indexOf('/');
+        return slash < 0 ? rest : rest.substring(0, slash);
+    }
+}
@@ -0,0 +1,322 @@
+package com.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.SijiaoyuyueEntity;
+import com.service.CoachScheduleService;
+import com.service.SijiaoyuyueService;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Service("coachScheduleService")
+public class CoachScheduleServiceImpl implements CoachScheduleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoachScheduleServiceImpl.class);
+
+    // 审核未通过的预约不占用时段，与 migration-add-sijiaoyuyue-slot-exclusion.sql 中约束的条件一致
+    static final List<String> REJECTED_STATUSES = Arrays.asList("否", "未通过");
+
+    // PostgreSQL排他约束冲突
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    // 启动时只加载近期及以后的预约，更早的时段不会再参与冲突检查
+    private static final long REBUILD_LOOKBACK_MS = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private SijiaoyuyueService sijiaoyuyueService;
+
+    @Value("${private-training.session-minutes:60}")
+    private int sessionMinutes;
+
+    /**
+     * 营业时间，空闲时段只在此范围内计算
+     */
+    @Value("${private-training.open-time:08:00}")
+    private String openTime;
+
+    @Value("${private-training.close-time:22:00}")
+    private String closeTime;
+
+    private final CoachSlotIndex index = new CoachSlotIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定期重建，纳入其他实例或绕过本服务写入的预约
+     */
+    @Scheduled(fixedDelayString = "${private-training.rebuild-interval-ms:600000}",
+            initialDelayString = "${private-training.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * 从数据库重建时段索引
+     */
+    public void rebuild() {
+        try {
+            List<SijiaoyuyueEntity> rows = sijiaoyuyueService.list(new QueryWrapper<SijiaoyuyueEntity>()
+                    .select("id", "jiaoliangonghao", "yuyueshijian", "sfsh")
+                    .ge("yuyueshijian", new Date(System.currentTimeMillis() - REBUILD_LOOKBACK_MS)));
+            index.clear();
+            for (SijiaoyuyueEntity row : rows) {
+                index(row);
+            }
+            logger.info("私教时段索引已加载 {} 条预约", index.size());
+        } catch (Exception e) {
+            logger.warn("加载私教时段索引失败: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${private-training.prune-interval-ms:3600000}",
+            initialDelayString = "${private-training.prune-interval-ms:3600000}")
+    public void pruneExpired() {
+        index.pruneBefore(System.currentTimeMillis() - REBUILD_LOOKBACK_MS);
+    }
+
+    @Override
+    public ScheduleResult book(SijiaoyuyueEntity sijiaoyuyue) {
+        if (!occupiesSlot(sijiaoyuyue)) {
+            sijiaoyuyueService.save(sijiaoyuyue);
+            return ScheduleResult.ok();
+        }
+        String coach = sijiaoyuyue.getJiaoliangonghao();
+        long start = sijiaoyuyue.getYuyueshijian().getTime();
+        long end = start + sessionMillis();
+        return index.atomically(coach, () -> {
+            Long conflictId = index.findConflict(coach, start, end, null);
+            if (conflictId == null) {
+                conflictId = findStoredConflict(coach, start, end, null);
+            }
+            if (conflictId != null) {
+                return ScheduleResult.conflict(conflictId);
+            }
+            try {
+                sijiaoyuyueService.save(sijiaoyuyue);
+            } catch (DataIntegrityViolationException e) {
+                // 其他实例已占用该时段
+                if (isExclusionViolation(e)) {
+                    return ScheduleResult.conflict(null);
+                }
+                throw e;
+            }
+            index.add(coach, sijiaoyuyue.getId(), start, end);
+            return ScheduleResult.ok();
+        });
+    }
+
+    @Override
+    public ScheduleResult update(SijiaoyuyueEntity sijiaoyuyue) {
+        SijiaoyuyueEntity existing = sijiaoyuyue.getId() == null ? null : sijiaoyuyueService.getById(sijiaoyuyue.getId());
+        if (existing == null) {
+            sijiaoyuyueService.updateById(sijiaoyuyue);
+            return ScheduleResult.ok();
+        }
+        SijiaoyuyueEntity merged = new SijiaoyuyueEntity();
+        merged.setId(existing.getId());
+        merged.setJiaoliangonghao(sijiaoyuyue.getJiaoliangonghao() != null ? sijiaoyuyue.getJiaoliangonghao() : existing.getJiaoliangonghao());
+        merged.setYuyueshijian(sijiaoyuyue.getYuyueshijian() != null ? sijiaoyuyue.getYuyueshijian() : existing.getYuyueshijian());
+        merged.setSfsh(sijiaoyuyue.getSfsh() != null ? sijiaoyuyue.getSfsh() : existing.getSfsh());
+
+        if (!occupiesSlot(merged)) {
+            sijiaoyuyueService.updateById(sijiaoyuyue);
+            index.remove(existing.getId());
+            return ScheduleResult.ok();
+        }
+        String coach = merged.getJiaoliangonghao();
+        if (!coach.equals(existing.getJiaoliangonghao())) {
+            // 换教练时先在锁外释放原教练的时段，避免同时持有两个教练的锁
+            index.remove(existing.getId());
+        }
+        long start = merged.getYuyueshijian().getTime();
+        long end = start + sessionMillis();
+        ScheduleResult result = index.atomically(coach, () -> {
+            Long conflictId = index.findConflict(coach, start, end, existing.getId());
+            if (conflictId == null) {
+                conflictId = findStoredConflict(coach, start, end, existing.getId());
+            }
+            if (conflictId != null) {
+                return ScheduleResult.conflict(conflictId);
+            }
+            try {
+                sijiaoyuyueService.updateById(sijiaoyuyue);
+            } catch (DataIntegrityViolationException e) {
+                if (isExclusionViolation(e)) {
+                    return ScheduleResult.conflict(null);
+                }
+                throw e;
+            }
+            index.add(coach, existing.getId(), start, end);
+            return ScheduleResult.ok();
+        });
+        if (!result.isSuccess()) {
+            // 未修改，恢复原时段
+            index(existing);
+        }
+        return result;
+    }
+
+    @Override
+    public void delete(Collection<Long> ids) {
+        sijiaoyuyueService.removeByIds(ids);
+        for (Long id : ids) {
+            if (id != null) {
+                index.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public void refresh(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<SijiaoyuyueEntity> rows = sijiaoyuyueService.list(new QueryWrapper<SijiaoyuyueEntity>()
+                .select("id", "jiaoliangonghao", "yuyueshijian", "sfsh")
+                .in("id", ids));
+        List<Long> missing = new ArrayList<>(ids);
+        for (SijiaoyuyueEntity row : rows) {
+            missing.remove(row.getId());
+            index.remove(row.getId());
+            index(row);
+        }
+        for (Long id : missing) {
+            if (id != null) {
+                index.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public List<Date[]> busySlots(String jiaoliangonghao, Date from, Date to) {
+        List<Date[]> slots = new ArrayList<>();
+        if (StringUtils.isBlank(jiaoliangonghao) || from == null || to == null) {
+            return slots;
+        }
+        for (long[] slot : index.busy(jiaoliangonghao, from.getTime(), to.getTime())) {
+            slots.add(new Date[]{new Date(slot[0]), new Date(slot[1])});
+        }
+        return slots;
+    }
+
+    @Override
+    public boolean isAvailable(String jiaoliangonghao, Date start) {
+        long begin = start.getTime();
+        return index.findConflict(jiaoliangonghao, begin, begin + sessionMillis(), null) == null;
+    }
+
+    @Override
+    public Map<String, Map<String, List<String>>> availability(Collection<String> coaches, LocalDate from, LocalDate to) {
+        Map<String, Map<String, List<String>>> result = new LinkedHashMap<>();
+        int cellMinutes = (int) TimeUnit.MILLISECONDS.toMinutes(CoachSlotIndex.GRID_SLOT_MILLIS);
+        int cellsPerSession = (int) ((sessionMillis() + CoachSlotIndex.GRID_SLOT_MILLIS - 1) / CoachSlotIndex.GRID_SLOT_MILLIS);
+        int openCell = (LocalTime.parse(openTime).toSecondOfDay() / 60 + cellMinutes - 1) / cellMinutes;
+        int closeCell = Math.min(CoachSlotIndex.GRID_SLOTS_PER_DAY,
+                LocalTime.parse(closeTime).toSecondOfDay() / 60 / cellMinutes);
+        // 当前时间所在的格子已开始，不再可约
+        long nowCell = index.gridSlot(System.currentTimeMillis());
+
+        for (String coach : coaches) {
+            Map<String, List<String>> days = new LinkedHashMap<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                long[] busy = index.busyMask(coach, day);
+                long dayCell = day.toEpochDay() * CoachSlotIndex.GRID_SLOTS_PER_DAY;
+                List<String> starts = new ArrayList<>();
+                for (int cell = openCell; cell + cellsPerSession <= closeCell; cell++) {
+                    if (dayCell + cell > nowCell && isFree(busy, cell, cellsPerSession)) {
+                        int minutes = cell * cellMinutes;
+                        starts.add(String.format("%02d:%02d", minutes / 60, minutes % 60));
+                    }
+                }
+                days.put(day.toString(), starts);
+            }
+            result.put(coach, days);
+        }
+        return result;
+    }
+
+    @Override
+    public int getSessionMinutes() {
+        return sessionMinutes;
+    }
+
+    /**
+     * 索引未命中时再查一次数据库：索引只在启动和定期重建时全量加载，
+     * 其他实例或直接写库的预约在下次重建前不在索引中。查到的冲突补入索引
+     */
+    private Long findStoredConflict(String coach, long start, long end, Long excludeId) {
+        QueryWrapper<SijiaoyuyueEntity> wrapper = new QueryWrapper<SijiaoyuyueEntity>()
+                .select("id", "jiaoliangonghao", "yuyueshijian", "sfsh")
+                .eq("jiaoliangonghao", coach)
+                .gt("yuyueshijian", new Date(start - sessionMillis()))
+                .lt("yuyueshijian", new Date(end))
+                .and(w -> w.isNull("sfsh").or().notIn("sfsh", REJECTED_STATUSES));
+        if (excludeId != null) {
+            wrapper.ne("id", excludeId);
+        }
+        List<SijiaoyuyueEntity> rows = sijiaoyuyueService.list(wrapper.last("LIMIT 1"));
+        if (rows.isEmpty()) {
+            return null;
+        }
+        SijiaoyuyueEntity row = rows.get(0);
+        index(row);
+        return row.getId();
+    }
+
+    private void index(SijiaoyuyueEntity row) {
+        if (occupiesSlot(row)) {
+            long start = row.getYuyueshijian().getTime();
+            index.add(row.getJiaoliangonghao(), row.getId(), start, start + sessionMillis());
+        }
+    }
+
+    private long sessionMillis() {
+        return TimeUnit.MINUTES.toMillis(Math.max(1, sessionMinutes));
+    }
+
+    private static boolean isFree(long[] busy, int from, int count) {
+        for (int bit = from; bit < from + count; bit++) {
+            if ((busy[bit >>> 6] & (1L << (bit & 63))) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean occupiesSlot(SijiaoyuyueEntity row) {
+        return StringUtils.isNotBlank(row.getJiaoliangonghao())
+                && row.getYuyueshijian() != null
+                && !REJECTED_STATUSES.contains(row.getSfsh());
+    }
+
+    private static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,274 @@
+package com.service.impl;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 教练时段索引
+ * 每个教练一棵按开始时间排序的树，冲突检查和区间查询只看 [查询开始 - 最长时段, 查询结束) 内的节点，
+ * 复杂度为 O(log n + k)，不随教练的历史预约数增长。
+ * 另按天维护15分钟粒度的占用位图（每天96位），随预约增删同步更新，供空闲时段日历直接读取
+ */
+public class CoachSlotIndex {
+
+    public static final long GRID_SLOT_MILLIS = 15 * 60 * 1000L;
+    public static final int GRID_SLOTS_PER_DAY = 96;
+
+    private final ZoneId zone;
+    private final ConcurrentMap<String, Schedule> schedules = new ConcurrentHashMap<>();
+    // 预约id -> 所在教练，删除时定位
+    private final ConcurrentMap<Long, String> coachById = new ConcurrentHashMap<>();
+
+    public CoachSlotIndex() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * @param zone 划分日期和15分钟格子所用的时区，与预约时间的存储时区一致
+     */
+    public CoachSlotIndex(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * 在教练的锁内执行，保证"检查冲突 + 写入"对同一教练是原子的
+     */
+    public <T> T atomically(String coach, Supplier<T> action) {
+        Schedule schedule = schedule(coach);
+        synchronized (schedule) {
+            return action.get();
+        }
+    }
+
+    /**
+     * 查找与 [start, end) 重叠的预约
+     *
+     * @param excludeId 忽略的预约id（修改自身时间时），可为null
+     * @return 冲突的预约id，无冲突返回null
+     */
+    public Long findConflict(String coach, long start, long end, Long excludeId) {
+        Schedule schedule = schedules.get(coach);
+        if (schedule == null) {
+            return null;
+        }
+        synchronized (schedule) {
+            for (Slot slot : schedule.overlapping(start, end)) {
+                if (excludeId == null || slot.id != excludeId) {
+                    return slot.id;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 与 [from, to) 重叠的已占用时段，按开始时间排序，每项为 {开始, 结束, 预约id}
+     */
+    public List<long[]> busy(String coach, long from, long to) {
+        Schedule schedule = schedules.get(coach);
+        if (schedule == null) {
+            return Collections.emptyList();
+        }
+        synchronized (schedule) {
+            List<long[]> result = new ArrayList<>();
+            for (Slot slot : schedule.overlapping(from, to)) {
+                result.add(new long[]{slot.start, slot.end, slot.id});
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 教练某天的占用位图，第i位表示当天第i个15分钟格子有预约
+     *
+     * @return 两个long共96位的副本，无预约时全为0
+     */
+    public long[] busyMask(String coach, LocalDate day) {
+        Schedule schedule = schedules.get(coach);
+        if (schedule == null) {
+            return new long[2];
+        }
+        synchronized (schedule) {
+            long[] bits = schedule.grid.get(day.toEpochDay());
+            return bits == null ? new long[2] : bits.clone();
+        }
+    }
+
+    /**
+     * 时间点所在的格子序号（从1970-01-01当地零点起算）
+     */
+    public long gridSlot(long millis) {
+        long offset = zone.getRules().getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(millis + offset, GRID_SLOT_MILLIS);
+    }
+
+    public long startOfDay(LocalDate day) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    public void add(String coach, long id, long start, long end) {
+        remove(id);
+        Schedule schedule = schedule(coach);
+        synchronized (schedule) {
+            Slot slot = new Slot(id, start, end);
+            schedule.add(slot);
+            mark(schedule, slot);
+        }
+        coachById.put(id, coach);
+    }
+
+    public void remove(long id) {
+        String coach = coachById.remove(id);
+        if (coach == null) {
+            return;
+        }
+        Schedule schedule = schedules.get(coach);
+        if (schedule != null) {
+            synchronized (schedule) {
+                Slot slot = schedule.remove(id);
+                if (slot != null) {
+                    redrawGrid(schedule, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除结束时间早于 before 的时段
+     */
+    public void pruneBefore(long before) {
+        for (Schedule schedule : schedules.values()) {
+            List<Long> removed;
+            synchronized (schedule) {
+                removed = schedule.pruneBefore(before);
+                long firstDay = Math.floorDiv(gridSlot(before), GRID_SLOTS_PER_DAY);
+                schedule.grid.headMap(firstDay, false).clear();
+            }
+            removed.forEach(coachById::remove);
+        }
+    }
+
+    public void clear() {
+        schedules.clear();
+        coachById.clear();
+    }
+
+    public int size() {
+        return coachById.size();
+    }
+
+    private Schedule schedule(String coach) {
+        return schedules.computeIfAbsent(coach, key -> new Schedule());
+    }
+
+    private void mark(Schedule schedule, Slot slot) {
+        if (slot.end <= slot.start) {
+            return;
+        }
+        long last = gridSlot(slot.end - 1);
+        for (long cell = gridSlot(slot.start); cell <= last; cell++) {
+            long day = Math.floorDiv(cell, GRID_SLOTS_PER_DAY);
+            int bit = (int) Math.floorMod(cell, (long) GRID_SLOTS_PER_DAY);
+            schedule.grid.computeIfAbsent(day, key -> new long[2])[bit >>> 6] |= 1L << (bit & 63);
+        }
+    }
+
+    /**
+     * 删除时段后重画其覆盖的那几天：格子可能同时被其他预约占用，不能直接清位
+     */
+    private void redrawGrid(Schedule schedule, Slot removed) {
+        long firstDay = Math.floorDiv(gridSlot(removed.start), GRID_SLOTS_PER_DAY);
+        long lastDay = Math.floorDiv(gridSlot(Math.max(removed.start, removed.end - 1)), GRID_SLOTS_PER_DAY);
+        for (long day = firstDay; day <= lastDay; day++) {
+            schedule.grid.remove(day);
+        }
+        long from = startOfDay(LocalDate.ofEpochDay(firstDay));
+        long to = startOfDay(LocalDate.ofEpochDay(lastDay + 1));
+        for (Slot slot : schedule.overlapping(from, to)) {
+            mark(schedule, slot);
+        }
+    }
+
+    private static final class Schedule {
+        // 开始时间 -> 该时刻开始的时段（历史数据可能存在同一时刻的多条预约）
+        private final NavigableMap<Long, List<Slot>> byStart = new TreeMap<>();
+        private final Map<Long, Slot> byId = new HashMap<>();
+        // 当地日期（epochDay）-> 96位占用位图
+        private final NavigableMap<Long, long[]> grid = new TreeMap<>();
+        private long maxDuration;
+
+        private List<Slot> overlapping(long start, long end) {
+            List<Slot> result = new ArrayList<>();
+            // 开始时间早于 start - maxDuration 的时段必然在 start 之前结束
+            for (List<Slot> slots : byStart.subMap(start - maxDuration, true, end, false).values()) {
+                for (Slot slot : slots) {
+                    if (slot.end > start) {
+                        result.add(slot);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private void add(Slot slot) {
+            byStart.computeIfAbsent(slot.start, key -> new ArrayList<>(1)).add(slot);
+            byId.put(slot.id, slot);
+            maxDuration = Math.max(maxDuration, slot.end - slot.start);
+        }
+
+        private Slot remove(long id) {
+            Slot slot = byId.remove(id);
+            if (slot == null) {
+                return null;
+            }
+            List<Slot> slots = byStart.get(slot.start);
+            if (slots != null) {
+                slots.remove(slot);
+                if (slots.isEmpty()) {
+                    byStart.remove(slot.start);
+                }
+            }
+            return slot;
+        }
+
+        private List<Long> pruneBefore(long before) {
+            List<Long> removed = new ArrayList<>();
+            NavigableMap<Long, List<Slot>> head = byStart.headMap(before, false);
+            for (List<Slot> slots : head.values()) {
+                slots.removeIf(slot -> {
+                    if (slot.end <= before) {
+                        byId.remove(slot.id);
+                        removed.add(slot.id);
+                        return true;
+                    }
+                    return false;
+                });
+            }
+            head.values().removeIf(List::isEmpty);
+            return removed;
+        }
+    }
+
+    private static final class Slot {
+        private final long id;
+        private final long start;
+        private final long end;
+
+        private Slot(long id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.JianshenkechengEntity;
+import com.entity.KechengyuyueEntity;
+import com.service.CourseBookingService;
+import com.service.JianshenkechengService;
+import com.service.KechengyuyueService;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service("courseBookingService")
+public class CourseBookingServiceImpl implements CourseBookingService {
+
+    // 单条语句完成"有余量才扣减"，并发预约只在这一行上短暂持有行锁，不会超卖
+    static final String DECREMENT_SQL =
+            "UPDATE kecheng_seat_inventory SET remaining = remaining - 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE kecheng_id = ? AND remaining > 0";
+
+    static final String RELEASE_SQL =
+            "UPDATE kecheng_seat_inventory SET remaining = remaining + 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE kecheng_id = ? AND remaining < capacity";
+
+    private static final String RESIZE_SQL =
+            "UPDATE kecheng_seat_inventory SET remaining = GREATEST(0, remaining + (? - capacity)), capacity = ?, "
+            + "updated_at = CURRENT_TIMESTAMP WHERE kecheng_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO kecheng_seat_inventory (kecheng_id, capacity, remaining, updated_at) "
+            + "VALUES (?, ?, ?, CURRENT_TIMESTAMP)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private KechengyuyueService kechengyuyueService;
+
+    @Autowired
+    private JianshenkechengService jianshenkechengService;
+
+    /**
+     * 名额台账为0后重新读取数据库的间隔（毫秒）
+     */
+    @Value("${booking.ledger-refresh-ms:1000}")
+    private long ledgerRefreshMs;
+
+    private SeatLedger ledger;
+
+    @PostConstruct
+    public void init() {
+        ledger = new SeatLedger(ledgerRefreshMs);
+    }
+
+    @Override
+    public BookingResult book(KechengyuyueEntity kechengyuyue) {
+        Long kechengId = resolveCourseId(kechengyuyue);
+        if (kechengId == null) {
+            kechengyuyueService.save(kechengyuyue);
+            return BookingResult.booked(null);
+        }
+        kechengyuyue.setCrossrefid(kechengId);
+
+        SeatLedger.Claim claim = ledger.tryClaim(kechengId, this::loadRemaining);
+        if (claim == SeatLedger.Claim.SOLD_OUT) {
+            return BookingResult.soldOut();
+        }
+        if (claim == SeatLedger.Claim.UNLIMITED) {
+            kechengyuyueService.save(kechengyuyue);
+            return BookingResult.booked(null);
+        }
+
+        Boolean booked;
+        try {
+            booked = transactionTemplate.execute(status -> {
+                if (jdbcTemplate.update(DECREMENT_SQL, kechengId) == 0) {
+                    return false;
+                }
+                kechengyuyueService.save(kechengyuyue);
+                return true;
+            });
+        } catch (RuntimeException e) {
+            // 事务已回滚，名额未扣
+            ledger.restore(kechengId);
+            throw e;
+        }
+        if (!Boolean.TRUE.equals(booked)) {
+            ledger.markSoldOut(kechengId);
+            return BookingResult.soldOut();
+        }
+        return BookingResult.booked(ledger.getAvailable(kechengId));
+    }
+
+    @Override
+    public void setCapacity(Long kechengId, int capacity) {
+        int normalized = Math.max(0, capacity);
+        if (jdbcTemplate.update(RESIZE_SQL, normalized, normalized, kechengId) == 0) {
+            // 首次配置：已有的预约占用名额
+            long booked = kechengyuyueService.count(new QueryWrapper<KechengyuyueEntity>().eq("crossrefid", kechengId));
+            try {
+                jdbcTemplate.update(INSERT_SQL, kechengId, normalized, (int) Math.max(0, normalized - booked));
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(RESIZE_SQL, normalized, normalized, kechengId);
+            }
+        }
+        ledger.invalidate(kechengId);
+    }
+
+    @Override
+    public void releaseSeat(Long kechengId) {
+        if (kechengId == null) {
+            return;
+        }
+        if (jdbcTemplate.update(RELEASE_SQL, kechengId) > 0) {
+            ledger.restore(kechengId);
+        }
+    }
+
+    @Override
+    public int releaseSeats(Collection<Long> reservationIds) {
+        if (reservationIds == null || reservationIds.isEmpty()) {
+            return 0;
+        }
+        List<KechengyuyueEntity> holders = kechengyuyueService.list(new QueryWrapper<KechengyuyueEntity>()
+                .select("id", "crossrefid")
+                .in("id", reservationIds)
+                .isNotNull("crossrefid")
+                .and(w -> w.isNull("ispay").or().ne("ispay", ReservationCancelServiceImpl.CANCELLED))
+                .and(w -> w.isNull("sfsh").or().notIn("sfsh", REJECTED_STATUSES))
+                .last("FOR UPDATE"));
+        for (KechengyuyueEntity holder : holders) {
+            releaseSeat(holder.getCrossrefid());
+        }
+        return holders.size();
+    }
+
+    @Override
+    public Map<String, Object> getSeatStatus(Long kechengId) {
+        Map<String, Object> status = new HashMap<>();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT capacity, remaining FROM kecheng_seat_inventory WHERE kecheng_id = ?", kechengId);
+        status.put("kechengId", kechengId);
+        status.put("capacity", rows.isEmpty() ? null : rows.get(0).get("capacity"));
+        status.put("remaining", rows.isEmpty() ? null : rows.get(0).get("remaining"));
+        return status;
+    }
+
+    /**
+     * 课程id：优先使用crossrefid，否则按课程名称+教练工号唯一匹配
+     */
+    private Long resolveCourseId(KechengyuyueEntity kechengyuyue) {
+        if (kechengyuyue.getCrossrefid() != null) {
+            return kechengyuyue.getCrossrefid();
+        }
+        if (StringUtils.isBlank(kechengyuyue.getKechengmingcheng()) || StringUtils.isBlank(kechengyuyue.getJiaoliangonghao())) {
+            return null;
+        }
+        List<JianshenkechengEntity> courses = jianshenkechengService.list(new QueryWrapper<JianshenkechengEntity>()
+                .select("id")
+                .eq("kechengmingcheng", kechengyuyue.getKechengmingcheng())
+                .eq("jiaoliangonghao", kechengyuyue.getJiaoliangonghao())
+                .last("LIMIT 2"));
+        return courses.size() == 1 ? courses.get(0).getId() : null;
+    }
+
+    private Integer loadRemaining(long kechengId) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT remaining FROM kecheng_seat_inventory WHERE kecheng_id = ?", Integer.class, kechengId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
@@ -0,0 +1,289 @@
+package com.service.impl;
+
+import com.service.ErrorReportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 前端错误上报处理实现
+ * 请求线程只做指纹计算和计数，样本与窗口汇总由单独的日志线程写出
+ */
+@Service("errorReportService")
+public class ErrorReportServiceImpl implements ErrorReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ErrorReportServiceImpl.class);
+    private static final Logger errorLogger = LoggerFactory.getLogger("errorReport");
+
+    /** 指纹数量超过上限后新指纹归入该桶，避免内存和指标基数失控 */
+    static final String OVERFLOW_FINGERPRINT = "overflow";
+
+    private static final int MAX_FIELD_LENGTH = 500;
+    private static final int MAX_STACK_LENGTH = 4000;
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${error-report.window-ms:60000}")
+    private long windowMs;
+
+    @Value("${error-report.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${error-report.max-samples-per-window:5}")
+    private int maxSamplesPerWindow;
+
+    @Value("${error-report.max-fingerprints:1000}")
+    private int maxFingerprints;
+
+    @Value("${error-report.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private final ConcurrentHashMap<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor writeExecutor;
+    private Counter sampledCounter;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    public void init() {
+        writeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "error-report-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    // 日志线程跟不上时直接丢弃，计数由窗口汇总保留
+                    if (droppedCounter != null) {
+                        droppedCounter.increment();
+                    }
+                });
+        if (meterRegistry != null) {
+            sampledCounter = Counter.builder("fitness_gym_frontend_error_samples_total")
+                    .description("Frontend error reports logged with full payload")
+                    .register(meterRegistry);
+            droppedCounter = Counter.builder("fitness_gym_frontend_error_log_dropped_total")
+                    .description("Frontend error log lines dropped because the writer queue was full")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushWindow();
+        writeExecutor.shutdown();
+        try {
+            writeExecutor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String report(Map<String, Object> errorInfo) {
+        String fingerprint = fingerprint(errorInfo);
+        Aggregate aggregate = aggregates.get(fingerprint);
+        if (aggregate == null) {
+            if (aggregates.size() >= maxFingerprints) {
+                fingerprint = OVERFLOW_FINGERPRINT;
+            }
+            String key = fingerprint;
+            aggregate = aggregates.computeIfAbsent(key, k -> newAggregate(k, errorInfo));
+        }
+        aggregate.windowCount.increment();
+        aggregate.lastSeen = System.currentTimeMillis();
+        if (aggregate.counter != null) {
+            aggregate.counter.increment();
+        }
+
+        // 每个窗口内首次出现必采样，之后按比例采样并限制条数
+        boolean sample = aggregate.windowSamples.get() == 0
+                || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (sample && aggregate.windowSamples.incrementAndGet() <= maxSamplesPerWindow) {
+            writeSample(fingerprint, errorInfo);
+        }
+        return fingerprint;
+    }
+
+    @Override
+    public String fingerprint(Map<String, Object> errorInfo) {
+        String source = field(errorInfo, "type", "unknown") + '\n'
+                + normalizeMessage(field(errorInfo, "message", "")) + '\n'
+                + normalizeUrl(field(errorInfo, "url", "")) + '\n'
+                + topFrame(field(errorInfo, "stack", ""));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(source.hashCode());
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${error-report.window-ms:60000}", initialDelayString = "${error-report.window-ms:60000}")
+    public void flushWindow() {
+        long now = System.currentTimeMillis();
+        // 连续多个窗口没有出现的指纹移除，同时注销对应指标
+        long idleEvictMs = Math.max(windowMs, 1000L) * 10;
+        for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            long count = aggregate.windowCount.sumThenReset();
+            aggregate.windowSamples.set(0);
+            if (count > 0) {
+                String fingerprint = entry.getKey();
+                submit(() -> errorLogger.warn(
+                        "Frontend error summary: fingerprint={}, count={}, windowSeconds={}, type={}, message={}, url={}, frame={}",
+                        fingerprint, count, windowMs / 1000, aggregate.type, aggregate.message,
+                        aggregate.url, aggregate.topFrame));
+            } else if (now - aggregate.lastSeen > idleEvictMs) {
+                if (aggregates.remove(entry.getKey(), aggregate) && aggregate.counter != null && meterRegistry != null) {
+                    meterRegistry.remove(aggregate.counter);
+                }
+            }
+        }
+    }
+
+    @Override
+    public long getWindowCount(String fingerprint) {
+        Aggregate aggregate = aggregates.get(fingerprint);
+        return aggregate != null ? aggregate.windowCount.sum() : 0L;
+    }
+
+    private Aggregate newAggregate(String fingerprint, Map<String, Object> errorInfo) {
+        Aggregate aggregate = new Aggregate();
+        if (OVERFLOW_FINGERPRINT.equals(fingerprint)) {
+            aggregate.type = OVERFLOW_FINGERPRINT;
+            aggregate.message = "";
+            aggregate.url = "";
+            aggregate.topFrame = "";
+        } else {
+            aggregate.type = truncate(field(errorInfo, "type", "unknown"), 64);
+            aggregate.message = truncate(field(errorInfo, "message", ""), MAX_FIELD_LENGTH);
+            aggregate.url = normalizeUrl(field(errorInfo, "url", ""));
+            aggregate.topFrame = topFrame(field(errorInfo, "stack", ""));
+        }
+        if (meterRegistry != null) {
+            aggregate.counter = Counter.builder("fitness_gym_frontend_errors_total")
+                    .description("Frontend error reports by fingerprint")
+                    .tag("fingerprint", fingerprint)
+                    .tag("type", aggregate.type)
+                    .register(meterRegistry);
+        }
+        return aggregate;
+    }
+
+    private void writeSample(String fingerprint, Map<String, Object> errorInfo) {
+        if (sampledCounter != null) {
+            sampledCounter.increment();
+        }
+        String type = truncate(field(errorInfo, "type", "unknown"), 64);
+        String message = truncate(field(errorInfo, "message", "No message"), MAX_FIELD_LENGTH);
+        String url = truncate(field(errorInfo, "url", "Unknown URL"), MAX_FIELD_LENGTH);
+        String timestamp = truncate(field(errorInfo, "timestamp", ""), 64);
+        String userAgent = truncate(field(errorInfo, "userAgent", ""), MAX_FIELD_LENGTH);
+        String stack = truncate(field(errorInfo, "stack", ""), MAX_STACK_LENGTH);
+        submit(() -> errorLogger.error(
+                "Frontend error sample: fingerprint={}, type={}, message={}, url={}, timestamp={}, userAgent={}, stack={}",
+                fingerprint, type, message, url, timestamp, userAgent, stack));
+    }
+
+    private void submit(Runnable task) {
+        try {
+            writeExecutor.execute(task);
+        } catch (Exception e) {
+            logger.debug("写出前端错误日志失败: {}", e.getMessage());
+        }
+    }
+
+    private static String field(Map<String, Object> errorInfo, String key, String defaultValue) {
+        if (errorInfo == null) {
+            return defaultValue;
+        }
+        Object value = errorInfo.get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    /**
+     * 消息中的数字（ID、行号、时间戳等）替换为#，让同类错误落入同一指纹
+     */
+    static String normalizeMessage(String message) {
+        return DIGITS.matcher(truncate(message, MAX_FIELD_LENGTH)).replaceAll("#");
+    }
+
+    /**
+     * 去掉查询参数和锚点，路径中的纯数字段替换为#
+     */
+    static String normalizeUrl(String url) {
+        int cut = url.length();
+        int query = url.indexOf('?');
+        int hash = url.indexOf('#');
+        if (query >= 0) {
+            cut = Math.min(cut, query);
+        }
+        if (hash >= 0) {
+            cut = Math.min(cut, hash);
+        }
+        String path = url.substring(0, cut);
+        return truncate(path.replaceAll("/\\d+(?=/|$)", "/#"), MAX_FIELD_LENGTH);
+    }
+
+    /**
+     * 取栈中第一帧（兼容Chrome的"at ..."和Firefox/Safari的"fn@url"格式），去掉资源URL上的查询参数
+     */
+    static String topFrame(String stack) {
+        if (stack == null || stack.isEmpty()) {
+            return "";
+        }
+        for (String line : stack.split("\n")) {
+            String frame = line.trim();
+            if (frame.startsWith("at ") || frame.contains("@")) {
+                return truncate(frame.replaceAll("\\?[^:)\\s]*", ""), MAX_FIELD_LENGTH);
+            }
+        }
+        return "";
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null) {
+            return "";
+        }
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static final class Aggregate {
+        private final LongAdder windowCount = new LongAdder();
+        private final AtomicInteger windowSamples = new AtomicInteger();
+        private volatile long lastSeen = System.currentTimeMillis();
+        private String type;
+        private String message;
+        private String url;
+        private String topFrame;
+        private Counter counter;
+    }
+}
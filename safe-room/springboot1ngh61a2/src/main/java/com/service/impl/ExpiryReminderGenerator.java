@@ -0,0 +1,330 @@
+package com.service.impl;
+
+import com.service.NotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 会员到期提醒生成
+ * 定时按 (youxiaoqizhi, id) 键集分批扫描进入提醒窗口的会员，批量写入到期提醒（daoqitixing）和站内消息（messages）。
+ * 同一会员同一到期日只提醒一次，重启或重复执行不会重复生成；PostgreSQL上以咨询锁保证多实例只有一个在执行
+ */
+@Component
+public class ExpiryReminderGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryReminderGenerator.class);
+
+    // 多实例部署时只允许一个实例生成提醒
+    private static final long ADVISORY_LOCK_KEY = 0x7469786e67L;
+
+    static final String REMINDER_TITLE = "会员到期提醒";
+    static final String REMINDER_NOTE = "系统自动生成";
+
+    private static final String SCAN_SQL =
+            "SELECT id, yonghuzhanghao, yonghuxingming, touxiang, huiyuankahao, youxiaoqizhi FROM yonghu "
+            + "WHERE (youxiaoqizhi, id) > (?, ?) AND youxiaoqizhi <= ? "
+            + "ORDER BY youxiaoqizhi, id LIMIT ?";
+
+    private static final String INSERT_REMINDER_SQL =
+            "INSERT INTO daoqitixing (yonghuzhanghao, yonghuxingming, touxiang, huiyuankahao, youxiaoqizhi, tixingshijian, beizhu) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_MESSAGE_SQL =
+            "INSERT INTO messages (userid, title, content, type, isread, related_type, related_id) "
+            + "VALUES (?, ?, ?, 'reminder', 0, 'daoqitixing', ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MessageUnreadCounter unreadCounter;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${expiry-reminder.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 到期前多少天开始提醒
+     */
+    @Value("${expiry-reminder.window-days:7}")
+    private int windowDays;
+
+    @Value("${expiry-reminder.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${expiry-reminder.cron:0 0 8 * * *}")
+    public void scheduledGenerate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int created = generate();
+            if (created > 0) {
+                logger.info("已生成会员到期提醒 {} 条", created);
+            }
+        } catch (Exception e) {
+            logger.warn("生成会员到期提醒失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 执行一次提醒生成
+     *
+     * @return 新生成的提醒数；其他实例正在执行时返回0
+     */
+    public int generate() {
+        LocalDate today = LocalDate.now();
+        LocalDate until = today.plusDays(Math.max(0, windowDays));
+        Integer created = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            boolean postgres = isPostgreSql(connection);
+            if (postgres && !tryLock(connection)) {
+                return 0;
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            try {
+                connection.setAutoCommit(false);
+                return scan(connection, today, until);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+                if (postgres) {
+                    unlock(connection);
+                }
+            }
+        });
+        return created == null ? 0 : created;
+    }
+
+    private int scan(Connection connection, LocalDate from, LocalDate until) throws SQLException {
+        int created = 0;
+        // 键集起点：到期日为from的第一条之前
+        Date lastExpiry = Date.valueOf(from);
+        long lastId = Long.MIN_VALUE;
+        int limit = Math.max(1, batchSize);
+        while (true) {
+            List<Member> batch = new ArrayList<>(limit);
+            try (PreparedStatement statement = connection.prepareStatement(SCAN_SQL)) {
+                statement.setDate(1, lastExpiry);
+                statement.setLong(2, lastId);
+                statement.setDate(3, Date.valueOf(until));
+                statement.setInt(4, limit);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        batch.add(new Member(rs.getLong(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getDate(6)));
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                return created;
+            }
+            List<Member> reminded;
+            Map<Long, Integer> unread = new HashMap<>();
+            try {
+                reminded = remind(connection, batch);
+                for (Member member : reminded) {
+                    unread.merge(member.id, 1, Integer::sum);
+                }
+                // 未读计数与提醒消息在同一事务中提交
+                unreadCounter.addAll(connection, unread);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            unreadCounter.committed(unread);
+            created += reminded.size();
+            for (Member member : reminded) {
+                Map<String, Object> event = new HashMap<>();
+                event.put("title", REMINDER_TITLE);
+                event.put("huiyuankahao", member.cardNo);
+                event.put("youxiaoqizhi", member.expiry.toString());
+                notificationService.publish(NotificationService.TABLE_MEMBER, member.id,
+                        NotificationService.EVENT_REMINDER, event);
+            }
+            Member last = batch.get(batch.size() - 1);
+            lastExpiry = last.expiry;
+            lastId = last.id;
+            if (batch.size() < limit) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * 为一批会员写入尚未生成的提醒及对应站内消息
+     *
+     * @return 本批新提醒的会员
+     */
+    private List<Member> remind(Connection connection, List<Member> batch) throws SQLException {
+        List<Member> pending = new ArrayList<>();
+        Set<String> existing = existingReminders(connection, batch, batch.get(0).expiry);
+        for (Member member : batch) {
+            if (member.account != null && !existing.contains(key(member.account, member.expiry))) {
+                pending.add(member);
+            }
+        }
+        if (pending.isEmpty()) {
+            return pending;
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_REMINDER_SQL)) {
+            for (Member member : pending) {
+                statement.setString(1, member.account);
+                statement.setString(2, member.name);
+                statement.setString(3, member.avatar);
+                statement.setString(4, member.cardNo);
+                statement.setDate(5, member.expiry);
+                statement.setTimestamp(6, now);
+                statement.setString(7, REMINDER_NOTE);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        Map<String, Long> reminderIds = reminderIds(connection, pending, now);
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_MESSAGE_SQL)) {
+            for (Member member : pending) {
+                statement.setLong(1, member.id);
+                statement.setString(2, REMINDER_TITLE);
+                statement.setString(3, String.format("您的会员卡（%s）即将到期，有效期至：%s。请及时续费以享受持续服务。",
+                        member.cardNo, member.expiry));
+                Long reminderId = reminderIds.get(key(member.account, member.expiry));
+                if (reminderId == null) {
+                    statement.setNull(4, Types.BIGINT);
+                } else {
+                    statement.setLong(4, reminderId);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return pending;
+    }
+
+    private Set<String> existingReminders(Connection connection, List<Member> batch, Date from) throws SQLException {
+        List<String> accounts = accounts(batch);
+        if (accounts.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> existing = new HashSet<>();
+        String sql = "SELECT yonghuzhanghao, youxiaoqizhi FROM daoqitixing WHERE yonghuzhanghao IN ("
+                + placeholders(accounts.size()) + ") AND youxiaoqizhi >= ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < accounts.size(); i++) {
+                statement.setString(i + 1, accounts.get(i));
+            }
+            statement.setDate(accounts.size() + 1, from);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(key(rs.getString(1), rs.getDate(2)));
+                }
+            }
+        }
+        return existing;
+    }
+
+    private Map<String, Long> reminderIds(Connection connection, List<Member> pending, Timestamp createdAt) throws SQLException {
+        List<String> accounts = accounts(pending);
+        Map<String, Long> ids = new HashMap<>();
+        String sql = "SELECT id, yonghuzhanghao, youxiaoqizhi FROM daoqitixing WHERE yonghuzhanghao IN ("
+                + placeholders(accounts.size()) + ") AND tixingshijian = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < accounts.size(); i++) {
+                statement.setString(i + 1, accounts.get(i));
+            }
+            statement.setTimestamp(accounts.size() + 1, createdAt);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.put(key(rs.getString(2), rs.getDate(3)), rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static List<String> accounts(List<Member> members) {
+        Set<String> accounts = new HashSet<>();
+        for (Member member : members) {
+            if (member.account != null) {
+                accounts.add(member.account);
+            }
+        }
+        return new ArrayList<>(accounts);
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.toString();
+    }
+
+    private static String key(String account, Date expiry) {
+        return account + "|" + expiry;
+    }
+
+    private boolean isPostgreSql(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase().contains("postgresql");
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    private static final class Member {
+        private final long id;
+        private final String account;
+        private final String name;
+        private final String avatar;
+        private final String cardNo;
+        private final Date expiry;
+
+        private Member(long id, String account, String name, String avatar, String cardNo, Date expiry) {
+            this.id = id;
+            this.account = account;
+            this.name = name;
+            this.avatar = avatar;
+            this.cardNo = cardNo;
+            this.expiry = expiry;
+        }
+    }
+}
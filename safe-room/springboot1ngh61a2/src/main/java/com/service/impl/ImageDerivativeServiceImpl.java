@@ -0,0 +1,372 @@
+package com.service.impl;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import jakarta.annotation.PostConstruct;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ResourceUtils;
+
+import com.entity.EIException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.service.ImageDerivativeService;
+import com.service.MinioService;
+
+/**
+ * 图片衍生图服务实现
+ * 衍生图存放在 upload/thumbs/w{宽度}/ 下，与原图同一存储；热点衍生图额外保存在按字节数限额的内存缓存中
+ */
+@Service("imageDerivativeService")
+public class ImageDerivativeServiceImpl implements ImageDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeServiceImpl.class);
+
+    private static final String DERIVATIVE_DIR = "thumbs";
+    private static final List<String> SOURCE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif", "bmp");
+    private static final List<String> TARGET_FORMATS = Arrays.asList("jpg", "png", "webp");
+
+    @Autowired(required = false)
+    private MinioService minioService;
+
+    @Value("${minio.enabled:false}")
+    private boolean minioEnabled;
+
+    @Value("${image.derivative.cache-max-bytes:67108864}")
+    private long cacheMaxBytes;
+
+    @Value("${image.derivative.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    private Cache<String, ImageDerivative> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((String key, ImageDerivative value) -> value.getData().length)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public int resolveWidthBucket(int requestedWidth) {
+        for (int bucket : WIDTH_BUCKETS) {
+            if (requestedWidth <= bucket) {
+                return bucket;
+            }
+        }
+        return WIDTH_BUCKETS[WIDTH_BUCKETS.length - 1];
+    }
+
+    @Override
+    public ImageDerivative getDerivative(String fileName, int width, String format) throws Exception {
+        String relative = normalize(fileName);
+        String sourceExt = extension(relative);
+        if (!SOURCE_EXTENSIONS.contains(sourceExt)) {
+            return null;
+        }
+        int bucket = resolveWidthBucket(width);
+        String targetFormat = resolveFormat(format, sourceExt);
+        String derivativePath = derivativePath(relative, bucket, targetFormat);
+        try {
+            // 同一衍生图并发请求只会生成一次
+            return cache.get(derivativePath, key -> {
+                try {
+                    return load(relative, derivativePath, bucket, targetFormat);
+                } catch (Exception e) {
+                    throw new DerivativeLoadException(e);
+                }
+            });
+        } catch (DerivativeLoadException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    @Override
+    public void evict(String fileName) {
+        String relative;
+        try {
+            relative = normalize(fileName);
+        } catch (EIException e) {
+            return;
+        }
+        if (!SOURCE_EXTENSIONS.contains(extension(relative))) {
+            return;
+        }
+        for (int bucket : WIDTH_BUCKETS) {
+            for (String format : TARGET_FORMATS) {
+                String derivativePath = derivativePath(relative, bucket, format);
+                cache.invalidate(derivativePath);
+                try {
+                    if (useMinio()) {
+                        String objectName = "upload/" + derivativePath;
+                        if (minioService.fileExists(objectName)) {
+                            minioService.deleteFile(objectName);
+                        }
+                    } else {
+                        FileUtils.deleteQuietly(new File(getUploadRoot(), derivativePath));
+                    }
+                } catch (Exception e) {
+                    log.warn("删除衍生图失败: {}", derivativePath, e);
+                }
+            }
+        }
+    }
+
+    private ImageDerivative load(String relative, String derivativePath, int bucket, String format) throws Exception {
+        String contentType = contentType(format);
+        if (useMinio()) {
+            String originalObject = "upload/" + relative;
+            String derivativeObject = "upload/" + derivativePath;
+            MinioService.ObjectStat original = minioService.statObject(originalObject);
+            if (original == null) {
+                return null;
+            }
+            // 对象的ETag即内容摘要，重新生成衍生图或多实例各自生成时ETag保持不变
+            String etag = etag(original.getEtag() != null ? original.getEtag()
+                    : original.getSize() + "-" + original.getLastModified(), bucket, format);
+            MinioService.ObjectStat existing = minioService.statObject(derivativeObject);
+            if (existing != null && existing.getLastModified() >= original.getLastModified()) {
+                try (InputStream in = minioService.getFileInputStream(derivativeObject)) {
+                    return new ImageDerivative(IOUtils.toByteArray(in), contentType, etag);
+                }
+            }
+            byte[] data;
+            try (InputStream in = minioService.getFileInputStream(originalObject)) {
+                data = generate(in, bucket, format);
+            }
+            if (data == null) {
+                return null;
+            }
+            minioService.uploadFile(derivativeObject, new ByteArrayInputStream(data), contentType, data.length);
+            return new ImageDerivative(data, contentType, etag);
+        }
+
+        File uploadRoot = getUploadRoot();
+        File original = new File(uploadRoot, relative);
+        if (!original.exists()) {
+            return null;
+        }
+        String etag = etag(contentHash(original), bucket, format);
+        File derivative = new File(uploadRoot, derivativePath);
+        if (derivative.exists() && derivative.lastModified() >= original.lastModified()) {
+            return new ImageDerivative(FileUtils.readFileToByteArray(derivative), contentType, etag);
+        }
+        byte[] data;
+        try (InputStream in = FileUtils.openInputStream(original)) {
+            data = generate(in, bucket, format);
+        }
+        if (data == null) {
+            return null;
+        }
+        FileUtils.writeByteArrayToFile(derivative, data);
+        return new ImageDerivative(data, contentType, etag);
+    }
+
+    /**
+     * 按目标宽度缩放并编码；大幅缩小时先在解码阶段做子采样，避免完整解码大图
+     */
+    private byte[] generate(InputStream in, int bucket, String format) throws IOException {
+        BufferedImage source;
+        int sourceWidth;
+        int sourceHeight;
+        try (ImageInputStream imageStream = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                sourceWidth = reader.getWidth(0);
+                sourceHeight = reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, sourceWidth / (bucket * 2));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        int targetWidth = Math.min(bucket, sourceWidth);
+        int targetHeight = Math.max(1, (int) Math.round((double) sourceHeight * targetWidth / sourceWidth));
+        boolean opaque = "jpg".equals(format);
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (opaque) {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, targetWidth, targetHeight);
+            }
+            g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg".equals(format) ? "jpeg" : format).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream imageOut = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format) && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.write(null, new IIOImage(target, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 目标格式：显式请求优先；WebP仅在运行环境注册了WebP编码器时可用，否则回退到原图对应格式
+     */
+    private String resolveFormat(String requested, String sourceExt) {
+        String fallback = "png".equals(sourceExt) || "gif".equals(sourceExt) ? "png" : "jpg";
+        if (requested == null || requested.isEmpty()) {
+            return fallback;
+        }
+        String format = requested.toLowerCase();
+        if ("jpeg".equals(format)) {
+            format = "jpg";
+        }
+        if (!TARGET_FORMATS.contains(format)) {
+            return fallback;
+        }
+        if ("webp".equals(format) && !ImageIO.getImageWritersByFormatName("webp").hasNext()) {
+            return fallback;
+        }
+        return format;
+    }
+
+    private String normalize(String fileName) {
+        if (fileName == null || fileName.isEmpty() || fileName.contains("..") || fileName.contains("\\")) {
+            throw new EIException("文件名包含非法字符");
+        }
+        String relative = fileName.startsWith("/") ? fileName.substring(1) : fileName;
+        if (relative.startsWith("upload/")) {
+            relative = relative.substring("upload/".length());
+        }
+        if (relative.isEmpty() || relative.startsWith(DERIVATIVE_DIR + "/")) {
+            throw new EIException("文件名包含非法字符");
+        }
+        return relative;
+    }
+
+    private String derivativePath(String relative, int bucket, String format) {
+        int dot = relative.lastIndexOf('.');
+        String base = dot > 0 ? relative.substring(0, dot) : relative;
+        return DERIVATIVE_DIR + "/w" + bucket + "/" + base + "." + format;
+    }
+
+    private String extension(String relative) {
+        int dot = relative.lastIndexOf('.');
+        return dot >= 0 ? relative.substring(dot + 1).toLowerCase() : "";
+    }
+
+    private String contentType(String format) {
+        if ("jpg".equals(format)) {
+            return "image/jpeg";
+        }
+        return "image/" + format;
+    }
+
+    /**
+     * ETag由原图内容摘要和衍生参数决定，与衍生图的生成时间无关
+     */
+    private String etag(String sourceHash, int bucket, String format) {
+        String source = sourceHash + '\n' + bucket + '\n' + format + '\n' + jpegQuality;
+        return "w" + bucket + "-" + format + "-" + hex(sha256().digest(source.getBytes(StandardCharsets.UTF_8)), 16);
+    }
+
+    private String contentHash(File file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = FileUtils.openInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return hex(digest.digest(), 32);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] digest, int bytes) {
+        StringBuilder hex = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i++) {
+            hex.append(String.format("%02x", digest[i]));
+        }
+        return hex.toString();
+    }
+
+    private boolean useMinio() {
+        return minioEnabled && minioService != null;
+    }
+
+    private File getUploadRoot() throws FileNotFoundException {
+        File path = new File(ResourceUtils.getURL("classpath:static").getPath());
+        if (!path.exists()) {
+            path = new File("");
+        }
+        return new File(path.getAbsolutePath(), "/upload/");
+    }
+
+    /**
+     * 在缓存加载函数中传递受检异常
+     */
+    private static final class DerivativeLoadException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private DerivativeLoadException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.service.impl;
+
+import com.service.RateLimitBackend;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内令牌桶
+ * 桶按key的哈希分到若干分段，每个分段一把锁，不同客户端的请求基本不会互相竞争；
+ * 每个分段按LRU保留有限数量的桶，内存占用有上限
+ */
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripeCount 分段数，向上取整为2的幂
+     * @param maxKeysPerStripe 每个分段最多保留的桶数
+     */
+    public LocalRateLimitBackend(int stripeCount, int maxKeysPerStripe) {
+        int size = 1;
+        while (size < stripeCount && size < (1 << 16)) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxKeysPerStripe));
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int capacity, double permitsPerSecond) {
+        Stripe stripe = stripeFor(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                double refill = (now - bucket.lastRefillNanos) / 1_000_000_000.0 * permitsPerSecond;
+                bucket.tokens = Math.min(capacity, bucket.tokens + refill);
+                bucket.lastRefillNanos = now;
+            }
+            if (bucket.tokens >= 1.0) {
+                bucket.tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public void reset(String key) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.buckets.remove(key);
+        }
+    }
+
+    @Override
+    public void resetAll() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.buckets.clear();
+            }
+        }
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        // 打散高位，避免相近IP落到同一分段
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets;
+
+        private Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<String, Bucket>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+        }
+    }
+}
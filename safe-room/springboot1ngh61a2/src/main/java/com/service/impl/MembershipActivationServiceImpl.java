@@ -0,0 +1,134 @@
+package com.service.impl;
+
+import com.entity.EIException;
+import com.entity.HuiyuankagoumaiEntity;
+import com.entity.HuiyuanxufeiEntity;
+import com.service.MembershipActivationService;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service("membershipActivationService")
+public class MembershipActivationServiceImpl implements MembershipActivationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MembershipActivationServiceImpl.class);
+
+    static final String ACTIVATE_SQL =
+            "UPDATE yonghu SET huiyuankahao = ?, huiyuankamingcheng = ?, youxiaoqizhi = COALESCE(CAST(? AS DATE), youxiaoqizhi) "
+            + "WHERE yonghuzhanghao = ?";
+
+    // 以读到的到期日为条件更新，并发续费时后到的请求重读后再叠加，不会丢失任何一次续费
+    private static final String RENEW_SQL =
+            "UPDATE yonghu SET youxiaoqizhi = ? WHERE yonghuzhanghao = ? AND youxiaoqizhi = ?";
+
+    private static final String RENEW_FIRST_SQL =
+            "UPDATE yonghu SET youxiaoqizhi = ? WHERE yonghuzhanghao = ? AND youxiaoqizhi IS NULL";
+
+    private static final int RENEW_ATTEMPTS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MembershipCatalog catalog = new MembershipCatalog();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshCatalog();
+    }
+
+    /**
+     * 定时重新加载，感知其他实例对会员卡的修改
+     */
+    @Scheduled(fixedDelayString = "${membership.catalog-refresh-ms:300000}",
+            initialDelayString = "${membership.catalog-refresh-ms:300000}")
+    public void scheduledRefresh() {
+        refreshCatalog();
+    }
+
+    @Override
+    public void refreshCatalog() {
+        try {
+            Map<String, String> rows = new LinkedHashMap<>();
+            jdbcTemplate.query("SELECT huiyuankamingcheng, youxiaoqi FROM huiyuanka ORDER BY id",
+                    rs -> {
+                        // 同名会员卡以最早的一张为准
+                        rows.putIfAbsent(rs.getString(1), rs.getString(2));
+                    });
+            catalog.replace(rows);
+        } catch (Exception e) {
+            logger.warn("加载会员卡目录失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public ActivationResult activate(HuiyuankagoumaiEntity huiyuankagoumai) {
+        if (StringUtils.isBlank(huiyuankagoumai.getYonghuzhanghao())) {
+            return ActivationResult.notApplied();
+        }
+        MembershipCatalog.Card card = card(huiyuankagoumai.getHuiyuankamingcheng());
+        if (card == null) {
+            return ActivationResult.notApplied();
+        }
+        LocalDate expiry = card.getValidity() == null ? null : LocalDate.now().plus(card.getValidity());
+        int updated = jdbcTemplate.update(ACTIVATE_SQL, huiyuankagoumai.getHuiyuankahao(), card.getName(),
+                expiry == null ? null : Date.valueOf(expiry), huiyuankagoumai.getYonghuzhanghao());
+        return updated > 0 ? ActivationResult.applied(expiry) : ActivationResult.notApplied();
+    }
+
+    @Override
+    public ActivationResult renew(HuiyuanxufeiEntity huiyuanxufei) {
+        String account = huiyuanxufei.getYonghuzhanghao();
+        if (StringUtils.isBlank(account)) {
+            return ActivationResult.notApplied();
+        }
+        MembershipCatalog.Card card = card(huiyuanxufei.getHuiyuankamingcheng());
+        Period validity = card != null ? card.getValidity() : MembershipCatalog.parseValidity(huiyuanxufei.getYouxiaoqi());
+        if (validity == null) {
+            return ActivationResult.notApplied();
+        }
+        for (int attempt = 0; attempt < RENEW_ATTEMPTS; attempt++) {
+            List<LocalDate> current = jdbcTemplate.query("SELECT youxiaoqizhi FROM yonghu WHERE yonghuzhanghao = ?",
+                    (rs, rowNum) -> {
+                        Date date = rs.getDate(1);
+                        return date == null ? null : date.toLocalDate();
+                    }, account);
+            if (current.isEmpty()) {
+                return ActivationResult.notApplied();
+            }
+            LocalDate expiry = current.get(0);
+            LocalDate today = LocalDate.now();
+            LocalDate next = (expiry == null || expiry.isBefore(today) ? today : expiry).plus(validity);
+            int updated = expiry == null
+                    ? jdbcTemplate.update(RENEW_FIRST_SQL, Date.valueOf(next), account)
+                    : jdbcTemplate.update(RENEW_SQL, Date.valueOf(next), account, Date.valueOf(expiry));
+            if (updated > 0) {
+                return ActivationResult.applied(next);
+            }
+        }
+        throw new EIException("会员续费冲突，请稍后重试");
+    }
+
+    private MembershipCatalog.Card card(String name) {
+        MembershipCatalog.Card card = catalog.get(name);
+        if (card != null || StringUtils.isBlank(name)) {
+            return card;
+        }
+        // 新建的会员卡可能尚未进入目录（如其他实例新增），未命中时按名称查询这一张
+        List<String> rows = jdbcTemplate.queryForList(
+                "SELECT youxiaoqi FROM huiyuanka WHERE huiyuankamingcheng = ? ORDER BY id LIMIT 1", String.class, name);
+        return rows.isEmpty() ? null : catalog.put(name, rows.get(0));
+    }
+}
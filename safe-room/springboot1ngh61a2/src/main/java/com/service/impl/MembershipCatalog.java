@@ -0,0 +1,115 @@
+package com.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.Period;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 会员卡目录
+ * 按卡名称缓存会员卡及预先解析好的有效期，开卡、续费时不再查询会员卡表和解析有效期文本。
+ * 目录整体替换，读取无锁
+ */
+public class MembershipCatalog {
+
+    // 无法解析的有效期按一年处理，与原开卡逻辑一致
+    static final Period DEFAULT_VALIDITY = Period.ofYears(1);
+
+    private static final Pattern VALIDITY_PATTERN = Pattern.compile("(\\d+)\\s*(个月|月|天|日|年|周)");
+
+    private volatile Map<String, Card> cards = Collections.emptyMap();
+
+    /**
+     * 用会员卡表的全部数据替换目录
+     *
+     * @param rows 卡名称 -> 有效期文本
+     */
+    public synchronized void replace(Map<String, String> rows) {
+        Map<String, Card> next = new HashMap<>();
+        for (Map.Entry<String, String> row : rows.entrySet()) {
+            if (StringUtils.isNotBlank(row.getKey())) {
+                next.put(row.getKey(), new Card(row.getKey(), parseValidity(row.getValue())));
+            }
+        }
+        cards = Collections.unmodifiableMap(next);
+    }
+
+    /**
+     * 加入或替换单张会员卡
+     */
+    public synchronized Card put(String name, String youxiaoqi) {
+        Card card = new Card(name, parseValidity(youxiaoqi));
+        Map<String, Card> next = new HashMap<>(cards);
+        next.put(name, card);
+        cards = Collections.unmodifiableMap(next);
+        return card;
+    }
+
+    /**
+     * @return 会员卡，不存在时返回null
+     */
+    public Card get(String name) {
+        return name == null ? null : cards.get(name);
+    }
+
+    public int size() {
+        return cards.size();
+    }
+
+    /**
+     * 解析有效期文本，如"12个月"、"365天"、"1年"
+     *
+     * @return 有效期；文本为空返回null（不修改到期日），无法解析时返回一年
+     */
+    public static Period parseValidity(String youxiaoqi) {
+        if (StringUtils.isBlank(youxiaoqi)) {
+            return null;
+        }
+        Matcher matcher = VALIDITY_PATTERN.matcher(youxiaoqi);
+        if (!matcher.find()) {
+            return DEFAULT_VALIDITY;
+        }
+        int amount;
+        try {
+            amount = Integer.parseInt(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return DEFAULT_VALIDITY;
+        }
+        switch (matcher.group(2)) {
+            case "年":
+                return Period.ofYears(amount);
+            case "周":
+                return Period.ofWeeks(amount);
+            case "天":
+            case "日":
+                return Period.ofDays(amount);
+            default:
+                return Period.ofMonths(amount);
+        }
+    }
+
+    public static final class Card {
+        private final String name;
+        private final Period validity;
+
+        private Card(String name, Period validity) {
+            this.name = name;
+            this.validity = validity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 有效期，会员卡未设置有效期时为null
+         */
+        public Period getValidity() {
+            return validity;
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package com.service.impl;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.List;
+import java.util.Set;
 
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -14,12 +23,22 @@ import com.utils.Query;
 import com.dao.MessageDao;
 import com.entity.MessageEntity;
 import com.service.MessageService;
+import com.service.NotificationService;
 import com.entity.vo.MessageVO;
 import com.entity.view.MessageView;
 
 @Service("messageService")
 public class MessageServiceImpl extends ServiceImpl<MessageDao, MessageEntity> implements MessageService {
 
+    @Autowired
+    private MessageUnreadCounter unreadCounter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NotificationService notificationService;
+
     @Override
     public PageUtils queryPage(Map<String, Object> params) {
         Page<MessageEntity> page = this.page(
@@ -59,4 +78,123 @@ public class MessageServiceImpl extends ServiceImpl<MessageDao, MessageEntity> i
 		}
 		return baseMapper.selectView(wrapper);
 	}
+
+    @Override
+    public int countUnread(Long userId) {
+        return unreadCounter.get(userId);
+    }
+
+    @Override
+    public int markRead(Long userId, Collection<Long> ids) {
+        if (userId == null || ids.isEmpty()) {
+            return 0;
+        }
+        MessageEntity read = new MessageEntity();
+        read.setIsread(1);
+        Integer updated = transactionTemplate.execute(status -> {
+            // 只更新仍未读的消息，影响行数即未读数的减少量
+            int count = baseMapper.update(read, new QueryWrapper<MessageEntity>()
+                    .eq("userid", userId)
+                    .eq("isread", 0)
+                    .in("id", ids));
+            unreadCounter.add(userId, -count);
+            return count;
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    @Override
+    public boolean save(MessageEntity entity) {
+        // 消息写入与未读计数在同一事务中提交
+        Boolean saved = transactionTemplate.execute(status -> {
+            boolean inserted = super.save(entity);
+            // isread为空时取列默认值0
+            if (inserted && (entity.getIsread() == null || entity.getIsread() == 0)) {
+                unreadCounter.add(entity.getUserid(), 1);
+                if (notificationService.hasSubscriber(NotificationService.TABLE_MEMBER, entity.getUserid())) {
+                    Map<String, Object> event = new HashMap<>();
+                    event.put("id", entity.getId());
+                    event.put("title", entity.getTitle());
+                    event.put("type", entity.getType());
+                    event.put("relatedType", entity.getRelatedType());
+                    event.put("relatedId", entity.getRelatedId());
+                    event.put("unread", unreadCounter.get(entity.getUserid()));
+                    notificationService.publish(NotificationService.TABLE_MEMBER, entity.getUserid(),
+                            NotificationService.EVENT_MESSAGE, event);
+                }
+            }
+            return inserted;
+        });
+        return Boolean.TRUE.equals(saved);
+    }
+
+    @Override
+    public boolean updateById(MessageEntity entity) {
+        if (entity.getIsread() == null && entity.getUserid() == null) {
+            return super.updateById(entity);
+        }
+        Set<Long> affected = new HashSet<>();
+        MessageEntity existing = entity.getId() == null ? null : getById(entity.getId());
+        if (existing != null) {
+            affected.add(existing.getUserid());
+        }
+        affected.add(entity.getUserid());
+        boolean updated = super.updateById(entity);
+        unreadCounter.invalidate(affected);
+        return updated;
+    }
+
+    @Override
+    public boolean update(MessageEntity entity, Wrapper<MessageEntity> updateWrapper) {
+        if (entity != null && entity.getIsread() == null && entity.getUserid() == null) {
+            return super.update(entity, updateWrapper);
+        }
+        Set<Long> affected = userIds(updateWrapper);
+        if (entity != null) {
+            affected.add(entity.getUserid());
+        }
+        boolean updated = super.update(entity, updateWrapper);
+        unreadCounter.invalidate(affected);
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        MessageEntity existing = getById(id);
+        boolean removed = super.removeById(id);
+        if (existing != null && removed) {
+            unreadCounter.invalidate(Collections.singleton(existing.getUserid()));
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeByIds(Collection<?> list) {
+        if (list == null || list.isEmpty()) {
+            return super.removeByIds(list);
+        }
+        Set<Long> affected = userIds(new QueryWrapper<MessageEntity>().in("id", list));
+        boolean removed = super.removeByIds(list);
+        unreadCounter.invalidate(affected);
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Wrapper<MessageEntity> queryWrapper) {
+        Set<Long> affected = userIds(queryWrapper);
+        boolean removed = super.remove(queryWrapper);
+        unreadCounter.invalidate(affected);
+        return removed;
+    }
+
+    /**
+     * 条件命中的消息所属用户，这些用户的未读数无法逐条跟踪，变更后重新计数
+     */
+    private Set<Long> userIds(Wrapper<MessageEntity> wrapper) {
+        Set<Long> userIds = new HashSet<>();
+        for (MessageEntity message : list(wrapper)) {
+            userIds.add(message.getUserid());
+        }
+        return userIds;
+    }
 }
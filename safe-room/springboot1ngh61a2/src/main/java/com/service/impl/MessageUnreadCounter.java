@@ -0,0 +1,285 @@
+package com.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 站内消息未读计数
+ * 计数持久化在 message_unread_counter，每个用户一行，消息写入时加、标记已读时减；
+ * 进程内再缓存一份，未读角标轮询在有效期内直接读内存。
+ * 计数行只在首次查询时按 (userid, isread) 回源计数创建，行不存在时的增减直接跳过（回源时会计入）；
+ * 无法逐条跟踪的变更（后台修改、删除消息）删除计数行，下次查询重新计数。
+ * 增减必须与消息写入在同一事务中执行；PostgreSQL下回源计数与增减按用户持有事务级咨询锁串行执行，
+ * 回源计数要么看到已提交的消息、要么在其提交前建好计数行使增量生效，不会漏计或重复计数。
+ * 内存计数只在事务提交后调整，回滚的变更不会留在缓存中
+ */
+@Component
+public class MessageUnreadCounter {
+
+    // 咨询锁的命名空间（两参数形式的第一个参数），与其他模块的锁区分
+    private static final int LOCK_NAMESPACE = 0x4D55;
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(?, ?)";
+
+    // 按键排序加锁，多个用户的批量增减之间不会死锁
+    private static final String LOCK_ALL_SQL =
+            "SELECT pg_advisory_xact_lock(?, k) FROM (SELECT DISTINCT unnest(?::int[]) AS k ORDER BY 1) s";
+
+    private static final String SELECT_SQL = "SELECT unread FROM message_unread_counter WHERE userid = ?";
+
+    private static final String INIT_SQL =
+            "INSERT INTO message_unread_counter (userid, unread, updated_at) "
+            + "SELECT ?, COUNT(*), CURRENT_TIMESTAMP FROM messages WHERE userid = ? AND isread = 0";
+
+    private static final String ADD_SQL =
+            "UPDATE message_unread_counter SET unread = GREATEST(0, unread + ?), updated_at = CURRENT_TIMESTAMP "
+            + "WHERE userid = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM message_unread_counter WHERE userid = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 内存计数的有效期（毫秒），过期后重新读取计数行，以感知其他实例的变更
+     */
+    @Value("${message.unread-cache-ttl-ms:5000}")
+    private long cacheTtlMs;
+
+    @Value("${message.unread-cache-max-entries:100000}")
+    private int cacheMaxEntries;
+
+    private final ConcurrentMap<Long, Entry> cache = new ConcurrentHashMap<>();
+
+    private volatile Boolean postgres;
+
+    /**
+     * 用户的未读消息数
+     * 在事务中读取时可能包含尚未提交的增减，结果不写入缓存
+     */
+    public int get(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(userId);
+        if (entry != null && now - entry.loadedAt < cacheTtlMs) {
+            return entry.unread;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return load(userId);
+        }
+        Integer unread = transactionTemplate.execute(status -> load(userId));
+        int value = unread == null ? 0 : unread;
+        if (cache.size() >= cacheMaxEntries) {
+            cache.clear();
+        }
+        cache.put(userId, new Entry(value, now));
+        return value;
+    }
+
+    /**
+     * 调整用户的未读数，与消息写入或标记已读在同一事务中调用（没有事务时自行开启）
+     */
+    public void add(Long userId, int delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (isPostgreSql()) {
+                jdbcTemplate.query(LOCK_SQL, rs -> null, LOCK_NAMESPACE, lockKey(userId));
+            }
+            boolean tracked = jdbcTemplate.update(ADD_SQL, delta, userId) > 0;
+            afterCommit(() -> {
+                if (tracked) {
+                    adjustCached(userId, delta);
+                } else {
+                    cache.remove(userId);
+                }
+            });
+        });
+    }
+
+    /**
+     * 批量调整未读数（群发），与消息写入在同一事务中调用
+     *
+     * @param deltas 用户id -> 增量
+     */
+    public void addAll(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> userIds = new ArrayList<>(deltas.keySet());
+            if (isPostgreSql()) {
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    lockAll(connection, userIds);
+                    return null;
+                });
+            }
+            List<Object[]> args = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                args.add(new Object[]{deltas.get(userId), userId});
+            }
+            int[] updated = jdbcTemplate.batchUpdate(ADD_SQL, args);
+            afterCommit(() -> adjustAllCached(userIds, deltas, updated));
+        });
+    }
+
+    /**
+     * 在调用方自行管理事务的连接上批量调整未读数（定时提醒），调用方提交后再调用 {@link #committed(Map)}
+     */
+    public void addAll(Connection connection, Map<Long, Integer> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Long> userIds = new ArrayList<>(deltas.keySet());
+        if (isPostgreSql(connection)) {
+            lockAll(connection, userIds);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(ADD_SQL)) {
+            for (Long userId : userIds) {
+                statement.setInt(1, deltas.get(userId));
+                statement.setLong(2, userId);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * {@link #addAll(Connection, Map)} 所在事务提交后丢弃相关用户的内存计数
+     */
+    public void committed(Map<Long, Integer> deltas) {
+        for (Long userId : deltas.keySet()) {
+            cache.remove(userId);
+        }
+    }
+
+    /**
+     * 丢弃用户的计数，下次查询时重新计数
+     */
+    public void invalidate(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            if (userId != null) {
+                jdbcTemplate.update(DELETE_SQL, userId);
+                cache.remove(userId);
+                afterCommit(() -> cache.remove(userId));
+            }
+        }
+    }
+
+    /**
+     * 读取计数行，不存在时在同一事务中持锁回源计数并创建
+     */
+    private int load(Long userId) {
+        List<Integer> rows = jdbcTemplate.queryForList(SELECT_SQL, Integer.class, userId);
+        if (!rows.isEmpty()) {
+            return rows.get(0);
+        }
+        if (isPostgreSql()) {
+            jdbcTemplate.query(LOCK_SQL, rs -> null, LOCK_NAMESPACE, lockKey(userId));
+            // 等锁期间可能已由其他事务创建
+            rows = jdbcTemplate.queryForList(SELECT_SQL, Integer.class, userId);
+            if (!rows.isEmpty()) {
+                return rows.get(0);
+            }
+        }
+        try {
+            jdbcTemplate.update(INIT_SQL, userId, userId);
+        } catch (DuplicateKeyException e) {
+            // H2下没有咨询锁，并发查询已创建；PostgreSQL下持锁后不会出现
+        }
+        rows = jdbcTemplate.queryForList(SELECT_SQL, Integer.class, userId);
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+
+    private void lockAll(Connection connection, List<Long> userIds) throws SQLException {
+        Integer[] keys = new Integer[userIds.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = lockKey(userIds.get(i));
+        }
+        try (PreparedStatement statement = connection.prepareStatement(LOCK_ALL_SQL)) {
+            statement.setInt(1, LOCK_NAMESPACE);
+            statement.setArray(2, connection.createArrayOf("integer", keys));
+            statement.execute();
+        }
+    }
+
+    private void adjustCached(Long userId, int delta) {
+        cache.computeIfPresent(userId, (id, entry) -> new Entry(Math.max(0, entry.unread + delta), entry.loadedAt));
+    }
+
+    private void adjustAllCached(List<Long> userIds, Map<Long, Integer> deltas, int[] updated) {
+        for (int i = 0; i < userIds.size(); i++) {
+            Long userId = userIds.get(i);
+            // 部分驱动批量执行时返回SUCCESS_NO_INFO(-2)，按已更新处理
+            if (i < updated.length && updated[i] == 0) {
+                cache.remove(userId);
+            } else {
+                adjustCached(userId, deltas.get(userId));
+            }
+        }
+    }
+
+    private boolean isPostgreSql() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) this::isPostgreSql);
+            postgres = result;
+        }
+        return Boolean.TRUE.equals(result);
+    }
+
+    private boolean isPostgreSql(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase().contains("postgresql");
+    }
+
+    private static int lockKey(Long userId) {
+        return Long.hashCode(userId);
+    }
+
+    /**
+     * 事务提交后执行，没有事务时立即执行
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Entry {
+        private final int unread;
+        private final long loadedAt;
+
+        private Entry(int unread, long loadedAt) {
+            this.unread = unread;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package com.service.impl;
 
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import com.config.MinioConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.service.MinioService;
 
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
 import io.minio.GetObjectArgs;
 import io.minio.GetObjectResponse;
 import io.minio.ListObjectsArgs;
@@ -35,27 +49,102 @@ import io.minio.http.Method;
 @ConditionalOnProperty(name = "minio.enabled", havingValue = "true", matchIfMissing = false)
 public class MinioServiceImpl implements MinioService {
 
+    private static final Logger log = LoggerFactory.getLogger(MinioServiceImpl.class);
+
     @Autowired
     private MinioClient minioClient;
 
     @Autowired
     private MinioConfig minioConfig;
 
+    @Autowired(required = false)
+    private StorageUsageTracker storageUsageTracker;
+
+    /**
+     * 对象元数据缓存，避免同一请求链路上重复的statObject调用
+     */
+    private Cache<String, ObjectStat> statCache;
+
+    /**
+     * 预签名URL缓存，键为"对象名|归整后的过期秒数"，每条只保留到剩余有效期低于refreshRatio为止
+     */
+    private Cache<String, PresignedUrl> presignedCache;
+
+    /**
+     * bucket是否已确认存在，避免每次上传都调用bucketExists
+     */
+    private volatile boolean bucketReady;
+
+    /**
+     * 初始化缓存，并在启动时确认bucket存在；检查失败时不阻止启动，首次上传时重试
+     */
+    @PostConstruct
+    public void init() {
+        initCaches();
+        try {
+            ensureBucketExists();
+        } catch (Exception e) {
+            log.warn("启动时检查MinIO bucket失败，将在首次上传时重试: {}", e.getMessage());
+        }
+    }
+
+    public void initCaches() {
+        statCache = Caffeine.newBuilder()
+                .maximumSize(minioConfig.getStatCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(minioConfig.getStatCacheTtlSeconds()))
+                .recordStats()
+                .build();
+        presignedCache = Caffeine.newBuilder()
+                .maximumSize(minioConfig.getPresignedCacheMaxSize())
+                .expireAfter(new Expiry<String, PresignedUrl>() {
+                    @Override
+                    public long expireAfterCreate(String key, PresignedUrl value, long currentTime) {
+                        return value.remainingNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, PresignedUrl value, long currentTime, long currentDuration) {
+                        return value.remainingNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, PresignedUrl value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
     @Override
     public String uploadFile(String objectName, InputStream inputStream, String contentType, long size)
             throws Exception {
+        return putObject(objectName, inputStream, contentType, size, true);
+    }
+
+    @Override
+    public String uploadNewFile(String objectName, InputStream inputStream, String contentType, long size)
+            throws Exception {
+        return putObject(objectName, inputStream, contentType, size, false);
+    }
+
+    private String putObject(String objectName, InputStream inputStream, String contentType, long size,
+                             boolean mayReplace) throws Exception {
         try {
             // 确保bucket存在
             ensureBucketExists();
+            long replaced = mayReplace ? replacedSize(objectName) : -1;
 
             // 上传文件
             minioClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(minioConfig.getBucketName())
                             .object(objectName)
-                            .stream(inputStream, size, -1)
+                            .stream(inputStream, size, minioConfig.getPartSize())
                             .contentType(contentType)
                             .build());
+            statCache.invalidate(objectName);
+            recordStored(objectName, size, replaced);
 
             return objectName;
         } catch (Exception e) {
@@ -63,6 +152,51 @@ public class MinioServiceImpl implements MinioService {
         }
     }
 
+    @Override
+    public String composeObject(String objectName, List<String> sourceObjectNames) throws Exception {
+        try {
+            ensureBucketExists();
+            List<ComposeSource> sources = new ArrayList<>(sourceObjectNames.size());
+            for (String source : sourceObjectNames) {
+                sources.add(ComposeSource.builder()
+                        .bucket(minioConfig.getBucketName())
+                        .object(source)
+                        .build());
+            }
+            minioClient.composeObject(
+                    ComposeObjectArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .object(objectName)
+                            .sources(sources)
+                            .build());
+            statCache.invalidate(objectName);
+            recordStored(objectName, -1, -1);
+            return objectName;
+        } catch (Exception e) {
+            throw new Exception("合并文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String copyObject(String sourceObjectName, String objectName) throws Exception {
+        try {
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .object(objectName)
+                            .source(CopySource.builder()
+                                    .bucket(minioConfig.getBucketName())
+                                    .object(sourceObjectName)
+                                    .build())
+                            .build());
+            statCache.invalidate(objectName);
+            recordStored(objectName, -1, -1);
+            return objectName;
+        } catch (Exception e) {
+            throw new Exception("复制文件失败: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public String getFileUrl(String objectName) throws Exception {
         return getPresignedUrl(objectName, minioConfig.getPresignedUrlExpiry());
@@ -70,28 +204,57 @@ public class MinioServiceImpl implements MinioService {
 
     @Override
     public String getPresignedUrl(String objectName, int expirySeconds) throws Exception {
+        int expiry = MinioService.normalizeExpiry(expirySeconds);
+        String cacheKey = objectName + "|" + expiry;
+        long now = System.currentTimeMillis();
+        PresignedUrl cached = presignedCache.getIfPresent(cacheKey);
+        if (cached != null && cached.isReusable(now)) {
+            return cached.url;
+        }
         try {
             String url = minioClient.getPresignedObjectUrl(
                     io.minio.GetPresignedObjectUrlArgs.builder()
                             .method(Method.GET)
                             .bucket(minioConfig.getBucketName())
                             .object(objectName)
-                            .expiry(expirySeconds, TimeUnit.SECONDS)
+                            .expiry(expiry, TimeUnit.SECONDS)
                             .build());
+            // 剩余有效期低于refreshRatio后不再复用，客户端拿到的URL至少还有这么长的可用时间
+            double refreshRatio = Math.min(Math.max(minioConfig.getPresignedRefreshRatio(), 0), 1);
+            presignedCache.put(cacheKey, new PresignedUrl(url, now + (long) (expiry * 1000L * (1 - refreshRatio))));
             return url;
         } catch (Exception e) {
             throw new Exception("生成预签名URL失败: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    public Map<String, String> getPresignedUrls(List<String> objectNames, int expirySeconds) throws Exception {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String objectName : objectNames) {
+            if (!urls.containsKey(objectName)) {
+                urls.put(objectName, getPresignedUrl(objectName, expirySeconds));
+            }
+        }
+        return urls;
+    }
+
     @Override
     public void deleteFile(String objectName) throws Exception {
         try {
+            // 删除前取大小用于存储使用量统计，stat多数情况下命中缓存
+            ObjectStat removed = storageUsageTracker != null ? statObject(objectName) : null;
             minioClient.removeObject(
                     RemoveObjectArgs.builder()
                             .bucket(minioConfig.getBucketName())
                             .object(objectName)
                             .build());
+            statCache.invalidate(objectName);
+            String keyPrefix = objectName + "|";
+            presignedCache.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+            if (removed != null) {
+                storageUsageTracker.recordRemoved(removed.getSize());
+            }
         } catch (Exception e) {
             throw new Exception("删除文件失败: " + e.getMessage(), e);
         }
@@ -99,30 +262,32 @@ public class MinioServiceImpl implements MinioService {
 
     @Override
     public boolean fileExists(String objectName) throws Exception {
+        return statObject(objectName) != null;
+    }
+
+    @Override
+    public InputStream getFileInputStream(String objectName) throws Exception {
         try {
-            minioClient.statObject(
-                    StatObjectArgs.builder()
+            GetObjectResponse response = minioClient.getObject(
+                    GetObjectArgs.builder()
                             .bucket(minioConfig.getBucketName())
                             .object(objectName)
                             .build());
-            return true;
-        } catch (ErrorResponseException e) {
-            if (e.errorResponse().code().equals("NoSuchKey")) {
-                return false;
-            }
-            throw new Exception("检查文件是否存在失败: " + e.getMessage(), e);
+            return response;
         } catch (Exception e) {
-            throw new Exception("检查文件是否存在失败: " + e.getMessage(), e);
+            throw new Exception("获取文件输入流失败: " + e.getMessage(), e);
         }
     }
 
     @Override
-    public InputStream getFileInputStream(String objectName) throws Exception {
+    public InputStream getFileInputStream(String objectName, long offset, long length) throws Exception {
         try {
             GetObjectResponse response = minioClient.getObject(
                     GetObjectArgs.builder()
                             .bucket(minioConfig.getBucketName())
                             .object(objectName)
+                            .offset(offset)
+                            .length(length)
                             .build());
             return response;
         } catch (Exception e) {
@@ -157,30 +322,129 @@ public class MinioServiceImpl implements MinioService {
     }
 
     @Override
-    public long getFileSize(String objectName) throws Exception {
+    public FilePage listFiles(String prefix, String startAfter, int maxKeys) throws Exception {
         try {
-            StatObjectResponse stat = minioClient.statObject(
-                    StatObjectArgs.builder()
+            ListObjectsArgs.Builder builder = ListObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .prefix(prefix)
+                    .recursive(true)
+                    // 多取一条用于判断是否还有下一页，单次请求即可完成
+                    .maxKeys(maxKeys + 1);
+            if (startAfter != null && !startAfter.isEmpty()) {
+                builder.startAfter(startAfter);
+            }
+            List<String> fileList = new ArrayList<>(maxKeys);
+            boolean hasMore = false;
+            for (io.minio.Result<io.minio.messages.Item> result : minioClient.listObjects(builder.build())) {
+                io.minio.messages.Item item = result.get();
+                if (item == null || item.isDir()) {
+                    continue;
+                }
+                if (fileList.size() == maxKeys) {
+                    hasMore = true;
+                    break;
+                }
+                fileList.add(item.objectName());
+            }
+            String nextToken = hasMore ? fileList.get(fileList.size() - 1) : null;
+            return new FilePage(fileList, nextToken);
+        } catch (Exception e) {
+            throw new Exception("列出文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public BucketUsage getBucketUsage(String prefix) throws Exception {
+        try {
+            long count = 0;
+            long bytes = 0;
+            Iterable<io.minio.Result<io.minio.messages.Item>> results = minioClient.listObjects(
+                    ListObjectsArgs.builder()
                             .bucket(minioConfig.getBucketName())
-                            .object(objectName)
+                            .prefix(prefix)
+                            .recursive(true)
+                            .build());
+            for (io.minio.Result<io.minio.messages.Item> result : results) {
+                io.minio.messages.Item item = result.get();
+                if (item == null || item.isDir()) {
+                    continue;
+                }
+                count++;
+                bytes += item.size();
+            }
+            return new BucketUsage(count, bytes);
+        } catch (Exception e) {
+            throw new Exception("统计存储使用量失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> listLastModified(String prefix) throws Exception {
+        try {
+            Map<String, Long> objects = new LinkedHashMap<>();
+            Iterable<io.minio.Result<io.minio.messages.Item>> results = minioClient.listObjects(
+                    ListObjectsArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .prefix(prefix)
+                            .recursive(true)
                             .build());
-            return stat.size();
+            for (io.minio.Result<io.minio.messages.Item> result : results) {
+                io.minio.messages.Item item = result.get();
+                if (item == null || item.isDir()) {
+                    continue;
+                }
+                objects.put(item.objectName(), item.lastModified() == null ? 0L : item.lastModified().toInstant().toEpochMilli());
+            }
+            return objects;
         } catch (Exception e) {
-            throw new Exception("获取文件大小失败: " + e.getMessage(), e);
+            throw new Exception("列出文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long getFileSize(String objectName) throws Exception {
+        ObjectStat stat = statObject(objectName);
+        if (stat == null) {
+            throw new Exception("获取文件大小失败: 文件不存在 " + objectName);
         }
+        return stat.getSize();
     }
 
     @Override
     public String getFileContentType(String objectName) throws Exception {
+        ObjectStat stat = statObject(objectName);
+        if (stat == null) {
+            throw new Exception("获取文件类型失败: 文件不存在 " + objectName);
+        }
+        return stat.getContentType();
+    }
+
+    @Override
+    public ObjectStat statObject(String objectName) throws Exception {
+        ObjectStat cached = statCache.getIfPresent(objectName);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            StatObjectResponse stat = minioClient.statObject(
+            StatObjectResponse response = minioClient.statObject(
                     StatObjectArgs.builder()
                             .bucket(minioConfig.getBucketName())
                             .object(objectName)
                             .build());
-            return stat.contentType();
+            ObjectStat stat = new ObjectStat(
+                    response.size(),
+                    response.contentType(),
+                    response.etag(),
+                    response.lastModified() != null ? response.lastModified().toInstant().toEpochMilli() : 0L);
+            statCache.put(objectName, stat);
+            return stat;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return null;
+            }
+            throw new Exception("获取文件元数据失败: " + e.getMessage(), e);
         } catch (Exception e) {
-            throw new Exception("获取文件类型失败: " + e.getMessage(), e);
+            throw new Exception("获取文件元数据失败: " + e.getMessage(), e);
         }
     }
 
@@ -188,6 +452,9 @@ public class MinioServiceImpl implements MinioService {
      * 确保bucket存在，如果不存在则创建
      */
     private void ensureBucketExists() throws Exception {
+        if (bucketReady) {
+            return;
+        }
         try {
             boolean found = minioClient.bucketExists(
                     io.minio.BucketExistsArgs.builder()
@@ -199,9 +466,66 @@ public class MinioServiceImpl implements MinioService {
                                 .bucket(minioConfig.getBucketName())
                                 .build());
             }
+            bucketReady = true;
         } catch (Exception e) {
             throw new Exception("检查或创建bucket失败: " + e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * 写入前同名对象的大小，不存在或未启用统计时返回-1；绕过缓存，避免用过期的元数据计算差值
+     */
+    private long replacedSize(String objectName) {
+        if (storageUsageTracker == null) {
+            return -1;
+        }
+        try {
+            statCache.invalidate(objectName);
+            ObjectStat existing = statObject(objectName);
+            return existing != null ? existing.getSize() : -1;
+        } catch (Exception e) {
+            log.debug("获取被覆盖对象大小失败: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 记录写入对象的大小，覆盖同名对象时只累计差值；流式上传时大小未知则写入后再stat一次
+     */
+    private void recordStored(String objectName, long size, long replaced) {
+        if (storageUsageTracker == null) {
+            return;
+        }
+        try {
+            if (size < 0) {
+                ObjectStat stat = statObject(objectName);
+                size = stat != null ? stat.getSize() : 0;
+            }
+            storageUsageTracker.recordStored(size, replaced);
+        } catch (Exception e) {
+            log.debug("统计上传对象大小失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 已签发的预签名URL及其失效时间
+     */
+    private static final class PresignedUrl {
+
+        private final String url;
+        private final long reuseUntil;
+
+        private PresignedUrl(String url, long reuseUntil) {
+            this.url = url;
+            this.reuseUntil = reuseUntil;
+        }
+
+        private boolean isReusable(long now) {
+            return now < reuseUntil;
+        }
+
+        private long remainingNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, reuseUntil - System.currentTimeMillis()));
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.service.impl;
+
+import com.entity.EIException;
+import com.service.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务端推送实现
+ * 连接建立后请求线程立即归还（异步Servlet），每个连接只占一个SseEmitter；
+ * 推送由少量后台线程发送，业务线程只负责入队，队列满时丢弃（客户端重连后会重新拉取一次未读数）。
+ * 定时发送注释行作为心跳，及时发现已断开的连接
+ */
+@Service("notificationService")
+public class NotificationServiceImpl implements NotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationServiceImpl.class);
+
+    static final String EVENT_READY = "ready";
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 连接的最长保持时间（毫秒），到期后由客户端自动重连
+     */
+    @Value("${notification.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notification.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    /**
+     * 同一用户的连接数上限（多个标签页），超出时关闭最早的连接
+     */
+    @Value("${notification.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${notification.dispatch-threads:2}")
+    private int dispatchThreads;
+
+    @Value("${notification.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // 表名:用户id -> 该用户的连接
+    private final ConcurrentMap<String, List<Subscription>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private ThreadPoolExecutor dispatchExecutor;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, dispatchThreads);
+        AtomicInteger threadIndex = new AtomicInteger();
+        dispatchExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-dispatcher-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    if (droppedCounter != null) {
+                        droppedCounter.increment();
+                    }
+                });
+        if (meterRegistry != null) {
+            Gauge.builder("fitness_gym_notification_subscribers", subscriberCount, AtomicInteger::get)
+                    .description("Open server-sent event connections")
+                    .register(meterRegistry);
+            droppedCounter = Counter.builder("fitness_gym_notification_dropped_total")
+                    .description("Notifications dropped because the dispatch queue was full")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchExecutor.shutdownNow();
+        for (Map.Entry<String, List<Subscription>> entry : subscribers.entrySet()) {
+            for (Subscription subscription : entry.getValue()) {
+                close(entry.getKey(), subscription);
+                subscription.emitter.complete();
+            }
+        }
+    }
+
+    @Override
+    public SseEmitter subscribe(String tableName, Long userId, Map<String, Object> initial) {
+        if (tableName == null || userId == null) {
+            throw new EIException("请先登录");
+        }
+        if (subscriberCount.get() >= maxSubscribers) {
+            throw new EIException("推送连接数已满，请稍后再试", 503);
+        }
+        String key = key(tableName, userId);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscription subscription = new Subscription(emitter);
+        emitter.onCompletion(() -> close(key, subscription));
+        emitter.onTimeout(() -> close(key, subscription));
+        emitter.onError(e -> close(key, subscription));
+
+        List<Subscription> connections = subscribers.compute(key, (k, list) -> {
+            List<Subscription> result = list == null ? new CopyOnWriteArrayList<>() : list;
+            result.add(subscription);
+            return result;
+        });
+        subscriberCount.incrementAndGet();
+        while (connections.size() > Math.max(1, maxConnectionsPerUser)) {
+            Subscription oldest = connections.get(0);
+            close(key, oldest);
+            oldest.emitter.complete();
+        }
+
+        if (initial != null) {
+            // 连接尚未交给容器前发送的事件会先缓存，连接建立后立即写出
+            send(key, subscription, SseEmitter.event().name(EVENT_READY).data(initial, MediaType.APPLICATION_JSON));
+        }
+        return emitter;
+    }
+
+    @Override
+    public void publish(String tableName, Long userId, String event, Object data) {
+        if (tableName == null || userId == null) {
+            return;
+        }
+        String key = key(tableName, userId);
+        if (!subscribers.containsKey(key)) {
+            return;
+        }
+        afterCommit(() -> dispatch(() -> {
+            List<Subscription> connections = subscribers.get(key);
+            if (connections != null) {
+                for (Subscription subscription : connections) {
+                    send(key, subscription, SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+                }
+            }
+        }));
+    }
+
+    @Override
+    public void publishToTable(String tableName, String event, Object data) {
+        String prefix = tableName + ':';
+        afterCommit(() -> dispatch(() -> {
+            for (Map.Entry<String, List<Subscription>> entry : subscribers.entrySet()) {
+                if (entry.getKey().startsWith(prefix)) {
+                    for (Subscription subscription : entry.getValue()) {
+                        send(entry.getKey(), subscription, SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+                    }
+                }
+            }
+        }));
+    }
+
+    @Override
+    public boolean hasSubscriber(String tableName, Long userId) {
+        return tableName != null && userId != null && subscribers.containsKey(key(tableName, userId));
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * 心跳：代理和负载均衡通常会断开长时间无数据的连接，写失败的连接在此清理
+     */
+    @Scheduled(fixedDelayString = "${notification.heartbeat-ms:25000}",
+            initialDelayString = "${notification.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dispatch(() -> {
+            for (Map.Entry<String, List<Subscription>> entry : subscribers.entrySet()) {
+                for (Subscription subscription : entry.getValue()) {
+                    send(entry.getKey(), subscription, SseEmitter.event().comment("ping"));
+                }
+            }
+        });
+    }
+
+    private void send(String key, Subscription subscription, SseEmitter.SseEventBuilder event) {
+        if (subscription.closed.get()) {
+            return;
+        }
+        try {
+            subscription.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            close(key, subscription);
+            subscription.emitter.completeWithError(e);
+        }
+    }
+
+    private void close(String key, Subscription subscription) {
+        if (!subscription.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.computeIfPresent(key, (k, list) -> {
+            list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+        subscriberCount.decrementAndGet();
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            dispatchExecutor.execute(task);
+        } catch (RuntimeException e) {
+            logger.debug("推送任务未能入队: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 事务中产生的事件在提交后才推送，避免客户端收到通知后读不到数据或事务回滚
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String key(String tableName, Long userId) {
+        return tableName + ':' + userId;
+    }
+
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 操作日志分区维护
+ * 提前创建后续月份的分区，并按保留期整表删除过期分区（替代DELETE）
+ * 仅在PostgreSQL且operation_log已执行migration-partition-operation-log.sql时生效
+ */
+@Component
+public class OperationLogPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationLogPartitionManager.class);
+
+    static final String PARENT_TABLE = "operation_log";
+    static final String PARTITION_PREFIX = "operation_log_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^operation_log_p(\\d{6})$");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    // 多实例部署时只允许一个实例执行维护
+    private static final long ADVISORY_LOCK_KEY = 0x6f706c6f67L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${audit-log.partition.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit-log.partition.months-ahead:2}")
+    private int monthsAhead;
+
+    @Value("${audit-log.partition.retention-months:12}")
+    private int retentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${audit-log.partition.cron:0 30 3 * * *}")
+    public void scheduledMaintain() {
+        maintain();
+    }
+
+    /**
+     * 执行一次分区维护，失败只记录日志
+     */
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!isPostgreSql(connection) || !isPartitioned(connection)) {
+                    return null;
+                }
+                if (!tryLock(connection)) {
+                    return null;
+                }
+                try {
+                    YearMonth current = YearMonth.now();
+                    createPartitions(connection, current);
+                    dropExpiredPartitions(connection, current);
+                } finally {
+                    unlock(connection);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("操作日志分区维护失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 分区表名，例如 operation_log_p202410
+     */
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(MONTH_SUFFIX);
+    }
+
+    /**
+     * 早于当前月份retentionMonths个月的分区视为过期，retentionMonths<=0时不删除
+     */
+    public static List<String> expiredPartitions(List<String> partitions, YearMonth current, int retentionMonths) {
+        List<String> expired = new ArrayList<>();
+        if (retentionMonths <= 0) {
+            return expired;
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths - 1L);
+        for (String name : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(matcher.group(1), MONTH_SUFFIX);
+            if (month.isBefore(oldestKept)) {
+                expired.add(name);
+            }
+        }
+        return expired;
+    }
+
+    private void createPartitions(Connection connection, YearMonth current) throws SQLException {
+        for (int i = 0; i <= Math.max(0, monthsAhead); i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            String sql = "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + PARENT_TABLE
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            } catch (SQLException e) {
+                // 默认分区中已有该月数据时无法直接建分区，需人工迁移
+                logger.warn("创建操作日志分区{}失败: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private void dropExpiredPartitions(Connection connection, YearMonth current) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        String sql = "SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid "
+                + "JOIN pg_class p ON p.oid = i.inhparent "
+                + "JOIN pg_namespace n ON n.oid = p.relnamespace "
+                + "WHERE p.relname = ? AND n.nspname = current_schema()";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, PARENT_TABLE);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+        for (String name : expiredPartitions(partitions, current, retentionMonths)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + name);
+                logger.info("已删除过期操作日志分区: {}", name);
+            }
+        }
+    }
+
+    private boolean isPostgreSql(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase().contains("postgresql");
+    }
+
+    private boolean isPartitioned(Connection connection) throws SQLException {
+        String sql = "SELECT 1 FROM pg_partitioned_table pt "
+                + "JOIN pg_class c ON c.oid = pt.partrelid "
+                + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                + "WHERE c.relname = ? AND n.nspname = current_schema()";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, PARENT_TABLE);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            statement.execute();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.utils.PageUtils;
 import com.utils.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
@@ -23,6 +24,9 @@ public class OperationLogServiceImpl extends ServiceImpl<OperationLogDao, Operat
     
     private static final Logger logger = LoggerFactory.getLogger(OperationLogServiceImpl.class);
     
+    @Autowired(required = false)
+    private OperationLogWriter operationLogWriter;
+    
     @Override
     public void logOperation(Long userId, String username, String tableName, String operationType, 
                             String content, String ip, String userAgent) {
@@ -36,7 +40,12 @@ public class OperationLogServiceImpl extends ServiceImpl<OperationLogDao, Operat
             log.setIp(ip);
             log.setUserAgent(userAgent);
             log.setAddtime(new Date());
-            this.save(log);
+            if (operationLogWriter != null && operationLogWriter.isRunning()) {
+                // 异步批量写入，不占用请求线程
+                operationLogWriter.submit(log);
+            } else {
+                this.save(log);
+            }
         } catch (Exception e) {
             // 日志记录失败不应影响业务逻辑
             // 记录错误日志以便排查问题
@@ -0,0 +1,312 @@
+package com.service.impl;
+
+import com.entity.OperationLogEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志异步批量写入器
+ * 请求线程只负责入队，后台线程按批量大小或时间间隔以JDBC批处理写入operation_log
+ */
+@Component
+public class OperationLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationLogWriter.class);
+
+    static final String INSERT_SQL = "INSERT INTO operation_log "
+            + "(userid, username, table_name, operation_type, content, ip, user_agent, addtime) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** 队列满时丢弃新日志 */
+    public static final String POLICY_DROP = "drop";
+    /** 队列满时由调用线程直接写入 */
+    public static final String POLICY_CALLER_RUNS = "caller-runs";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${audit-log.async.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit-log.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${audit-log.async.batch-size:200}")
+    private int batchSize;
+
+    @Value("${audit-log.async.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${audit-log.async.overflow-policy:caller-runs}")
+    private String overflowPolicy;
+
+    @Value("${audit-log.async.shutdown-timeout-ms:5000}")
+    private long shutdownTimeoutMs;
+
+    private final ConcurrentLinkedQueue<PendingLog> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue的size()是O(n)，容量通过CAS计数控制
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queueCapacity = Math.max(1, queueCapacity);
+        batchSize = Math.max(1, batchSize);
+        flushIntervalMs = Math.max(10, flushIntervalMs);
+        registerMetrics();
+        running = true;
+        Thread thread = new Thread(this::runLoop, "audit-log-writer");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+        logger.info("操作日志异步写入已启动: capacity={}, batchSize={}, flushIntervalMs={}, overflowPolicy={}",
+                queueCapacity, batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    /**
+     * 关闭时停止接收并在超时时间内写完队列中剩余日志
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = worker;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(Math.max(0, shutdownTimeoutMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            thread.interrupt();
+        }
+        int remaining = queued.get();
+        if (remaining > 0) {
+            logger.warn("操作日志写入器关闭超时，{}条日志未写入", remaining);
+        }
+    }
+
+    /**
+     * 是否处于异步模式，未启动或已关闭时调用方应同步写入
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 提交一条日志，不阻塞调用线程（caller-runs策略在队列满时除外）
+     * 入队后若发现已开始关闭，后台线程的最后一次写出可能已经结束，由调用线程自行写出队列
+     */
+    public void submit(OperationLogEntity log) {
+        if (log == null) {
+            return;
+        }
+        if (!running) {
+            write(Collections.singletonList(log));
+            return;
+        }
+        int size;
+        do {
+            size = queued.get();
+            if (size >= queueCapacity) {
+                overflow(log);
+                return;
+            }
+        } while (!queued.compareAndSet(size, size + 1));
+        queue.offer(new PendingLog(log, System.nanoTime()));
+        if (!running) {
+            flush();
+            return;
+        }
+        if (size + 1 >= batchSize) {
+            Thread thread = worker;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * 立即写出当前队列中的全部日志
+     */
+    public void flush() {
+        List<OperationLogEntity> batch = new ArrayList<>(batchSize);
+        PendingLog pending;
+        while ((pending = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(pending.log);
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    public int getQueueSize() {
+        return queued.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * 队首日志已等待的时间（毫秒），队列为空时为0
+     */
+    public long getLagMillis() {
+        PendingLog head = queue.peek();
+        if (head == null) {
+            return 0L;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - head.enqueuedAt);
+    }
+
+    private void runLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (running) {
+            if (queued.get() < batchSize) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                flush();
+            } catch (Exception e) {
+                logger.warn("操作日志批量写入异常: {}", e.getMessage(), e);
+            }
+        }
+        // 关闭阶段写完剩余日志
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("操作日志关闭时写入失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private void overflow(OperationLogEntity log) {
+        if (POLICY_DROP.equalsIgnoreCase(overflowPolicy)) {
+            long dropped = droppedCount.incrementAndGet();
+            if (droppedCounter != null) {
+                droppedCounter.increment();
+            }
+            // 避免日志风暴，每1000条提示一次
+            if (dropped % 1000 == 1) {
+                logger.warn("操作日志队列已满，已丢弃{}条日志", dropped);
+            }
+            return;
+        }
+        write(Collections.singletonList(log));
+    }
+
+    private void write(List<OperationLogEntity> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, log) -> {
+                ps.setObject(1, log.getUserid(), Types.BIGINT);
+                ps.setString(2, log.getUsername());
+                ps.setString(3, log.getTableName());
+                ps.setString(4, log.getOperationType());
+                ps.setString(5, log.getContent());
+                ps.setString(6, log.getIp());
+                ps.setString(7, log.getUserAgent());
+                Date addtime = log.getAddtime() != null ? log.getAddtime() : new Date();
+                ps.setTimestamp(8, new Timestamp(addtime.getTime()));
+            });
+            writtenCount.addAndGet(batch.size());
+        } catch (DataAccessException e) {
+            if (batch.size() > 1) {
+                // 单条脏数据不应拖垮整批，逐条重试以隔离失败记录
+                for (OperationLogEntity log : batch) {
+                    write(Collections.singletonList(log));
+                }
+                return;
+            }
+            failedCount.incrementAndGet();
+            OperationLogEntity log = batch.get(0);
+            logger.warn("记录操作日志失败，不影响业务: userId={}, username={}, operationType={}, error={}",
+                    log.getUserid(), log.getUsername(), log.getOperationType(), e.getMessage());
+        }
+    }
+
+    private void registerMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        Gauge.builder("fitness_gym_audit_log_queue_size", queued, AtomicInteger::get)
+                .description("Number of operation log events waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("fitness_gym_audit_log_lag_seconds", this, writer -> writer.getLagMillis() / 1000.0)
+                .description("Age of the oldest queued operation log event")
+                .register(meterRegistry);
+        FunctionCounter.builder("fitness_gym_audit_log_written_total", writtenCount, AtomicLong::get)
+                .description("Operation log events written to the database")
+                .register(meterRegistry);
+        FunctionCounter.builder("fitness_gym_audit_log_failed_total", failedCount, AtomicLong::get)
+                .description("Operation log events that failed to be written")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("fitness_gym_audit_log_dropped_total")
+                .description("Operation log events dropped because the queue was full")
+                .register(meterRegistry);
+    }
+
+    private static final class PendingLog {
+        private final OperationLogEntity log;
+        private final long enqueuedAt;
+
+        private PendingLog(OperationLogEntity log, long enqueuedAt) {
+            this.log = log;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
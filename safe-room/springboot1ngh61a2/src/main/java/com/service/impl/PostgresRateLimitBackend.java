@@ -0,0 +1,106 @@
+package com.service.impl;
+
+import com.service.RateLimitBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.ResultSet;
+
+/**
+ * PostgreSQL共享令牌桶
+ * 补充令牌、判断余量、扣减令牌在一条INSERT ... ON CONFLICT DO UPDATE中完成，
+ * 由行锁保证多实例并发时的原子性，每次判断只有一次数据库往返
+ * 表结构见 migration-create-rate-limit-bucket.sql
+ */
+public class PostgresRateLimitBackend implements RateLimitBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresRateLimitBackend.class);
+
+    // 新桶按满桶减一插入；已有桶按距上次更新的秒数补充令牌（不超过容量），
+    // 余量不足1时WHERE不成立、不更新也不返回行，即拒绝
+    static final String ACQUIRE_SQL =
+            "INSERT INTO rate_limit_bucket AS b (bucket_key, tokens, updated_at) "
+            + "VALUES (?, ?::double precision - 1, now()) "
+            + "ON CONFLICT (bucket_key) DO UPDATE "
+            + "SET tokens = LEAST(?::double precision, b.tokens + EXTRACT(EPOCH FROM (now() - b.updated_at)) * ?::double precision) - 1, "
+            + "updated_at = now() "
+            + "WHERE LEAST(?::double precision, b.tokens + EXTRACT(EPOCH FROM (now() - b.updated_at)) * ?::double precision) >= 1 "
+            + "RETURNING b.tokens";
+
+    private static final long FAILURE_LOG_INTERVAL_MS = 60_000L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean failOpen;
+    private final long idleTtlSeconds;
+
+    private volatile long lastFailureLogAt;
+
+    /**
+     * @param failOpen 数据库不可用时是否放行；限流只是保护措施，默认不因它让登录整体不可用
+     * @param idleTtlSeconds 空闲超过该时长的桶会被清理，应不小于最慢策略回满所需时间
+     */
+    public PostgresRateLimitBackend(JdbcTemplate jdbcTemplate, boolean failOpen, long idleTtlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.failOpen = failOpen;
+        this.idleTtlSeconds = idleTtlSeconds;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int capacity, double permitsPerSecond) {
+        try {
+            Boolean acquired = jdbcTemplate.query(ACQUIRE_SQL, (ResultSetExtractor<Boolean>) ResultSet::next,
+                    key, capacity, capacity, permitsPerSecond, capacity, permitsPerSecond);
+            return Boolean.TRUE.equals(acquired);
+        } catch (DataAccessException e) {
+            long now = System.currentTimeMillis();
+            if (now - lastFailureLogAt >= FAILURE_LOG_INTERVAL_MS) {
+                lastFailureLogAt = now;
+                logger.warn("限流令牌桶读写失败，按{}处理: {}", failOpen ? "放行" : "拒绝", e.getMessage());
+            }
+            return failOpen;
+        }
+    }
+
+    /**
+     * 与tryAcquire一致，数据库不可用时不向调用方抛出异常，只记录日志
+     */
+    @Override
+    public void reset(String key) {
+        try {
+            jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE bucket_key = ?", key);
+        } catch (DataAccessException e) {
+            logger.warn("清除限流桶 {} 失败: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void resetAll() {
+        try {
+            jdbcTemplate.update("DELETE FROM rate_limit_bucket");
+        } catch (DataAccessException e) {
+            logger.warn("清除全部限流桶失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 删除长期空闲的桶；空闲足够久的桶必然已回满，删除后重建结果相同
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.postgres.cleanup-interval-ms:600000}",
+            initialDelayString = "${rate-limit.postgres.cleanup-interval-ms:600000}")
+    public void cleanupIdleBuckets() {
+        try {
+            int removed = jdbcTemplate.update(
+                    "DELETE FROM rate_limit_bucket WHERE updated_at < now() - make_interval(secs => ?)",
+                    (double) idleTtlSeconds);
+            if (removed > 0) {
+                logger.debug("清理空闲限流桶 {} 个", removed);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("清理空闲限流桶失败: {}", e.getMessage());
+        }
+    }
+}
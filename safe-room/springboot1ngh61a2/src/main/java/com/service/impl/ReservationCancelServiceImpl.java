@@ -0,0 +1,154 @@
+package com.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.KechengtuikeEntity;
+import com.entity.KechengyuyueEntity;
+import com.service.CourseBookingService;
+import com.service.KechengtuikeService;
+import com.service.KechengyuyueService;
+import com.service.ReservationCancelService;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Service("reservationCancelService")
+public class ReservationCancelServiceImpl implements ReservationCancelService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationCancelServiceImpl.class);
+
+    static final String PAID = "已支付";
+    static final String CANCELLED = "已取消";
+
+    private static final String DEFAULT_REASON = "会员取消预约";
+
+    // 只有仍为已支付的预约才会被取消，并发取消同一预约时只有一个请求影响到行
+    static final String CANCEL_SQL =
+            "UPDATE kechengyuyue SET ispay = ? WHERE id = ? AND crossuserid = ? AND crossrefid = ? AND ispay = ?";
+
+    private static final String CLAIM_KEY_SQL =
+            "INSERT INTO kechengyuyue_cancel_request (request_key, crossuserid, created_at) VALUES (?, ?, CURRENT_TIMESTAMP)";
+
+    private static final String COMPLETE_KEY_SQL =
+            "UPDATE kechengyuyue_cancel_request SET yuyue_id = ?, tuike_id = ? WHERE request_key = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private KechengyuyueService kechengyuyueService;
+
+    @Autowired
+    private KechengtuikeService kechengtuikeService;
+
+    @Autowired
+    private CourseBookingService courseBookingService;
+
+    /**
+     * 请求键保留时长（小时），超过后同一请求键可再次使用
+     */
+    @Value("${booking.cancel-key-ttl-hours:72}")
+    private long cancelKeyTtlHours;
+
+    @Override
+    public CancelResult cancel(Long userid, Long kechengId, String requestKey, String reason) {
+        String key = StringUtils.isBlank(requestKey) ? null : userid + ":" + requestKey.trim();
+        try {
+            return transactionTemplate.execute(status -> {
+                // 先占用请求键：并发的重复请求在主键上等待，首个请求提交后以唯一冲突失败
+                if (key != null) {
+                    jdbcTemplate.update(CLAIM_KEY_SQL, key, userid);
+                }
+                CancelResult result = doCancel(userid, kechengId, reason);
+                if (key != null && result.isCancelled()) {
+                    jdbcTemplate.update(COMPLETE_KEY_SQL, result.getReservationId(), result.getRefundId(), key);
+                }
+                return result;
+            });
+        } catch (DuplicateKeyException e) {
+            return replay(key);
+        }
+    }
+
+    /**
+     * 清理过期的请求键
+     */
+    @Scheduled(fixedDelayString = "${booking.cancel-key-cleanup-interval-ms:3600000}",
+            initialDelayString = "${booking.cancel-key-cleanup-interval-ms:3600000}")
+    public void cleanupExpiredKeys() {
+        try {
+            Timestamp before = new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(cancelKeyTtlHours));
+            int removed = jdbcTemplate.update("DELETE FROM kechengyuyue_cancel_request WHERE created_at < ?", before);
+            if (removed > 0) {
+                logger.debug("清理过期取消请求键 {} 条", removed);
+            }
+        } catch (Exception e) {
+            logger.warn("清理取消请求键失败: {}", e.getMessage());
+        }
+    }
+
+    private CancelResult doCancel(Long userid, Long kechengId, String reason) {
+        // 走 (crossuserid, crossrefid, ispay) 索引；历史数据可能有重复预约，每次取消最早的一条
+        List<KechengyuyueEntity> rows = kechengyuyueService.list(new QueryWrapper<KechengyuyueEntity>()
+                .eq("crossuserid", userid)
+                .eq("crossrefid", kechengId)
+                .eq("ispay", PAID)
+                .orderByAsc("id")
+                .last("LIMIT 1"));
+        if (rows.isEmpty()) {
+            return CancelResult.notFound();
+        }
+        KechengyuyueEntity reservation = rows.get(0);
+        if (jdbcTemplate.update(CANCEL_SQL, CANCELLED, reservation.getId(), userid, kechengId, PAID) == 0) {
+            // 已被并发请求取消
+            return CancelResult.notFound();
+        }
+        courseBookingService.releaseSeat(kechengId);
+
+        KechengtuikeEntity refund = new KechengtuikeEntity();
+        refund.setKechengmingcheng(reservation.getKechengmingcheng());
+        refund.setTupian(reservation.getTupian());
+        refund.setKechengleixing(reservation.getKechengleixing());
+        refund.setShangkedidian(reservation.getShangkedidian());
+        refund.setKechengjiage(reservation.getKechengjiage());
+        refund.setHuiyuankahao(StringUtils.defaultString(reservation.getHuiyuankahao()));
+        refund.setYonghuzhanghao(reservation.getYonghuzhanghao());
+        refund.setYonghuxingming(reservation.getYonghuxingming());
+        refund.setShoujihaoma(reservation.getShoujihaoma());
+        refund.setTuikeyuanyin(StringUtils.defaultIfBlank(reason, DEFAULT_REASON));
+        refund.setCrossuserid(userid);
+        refund.setCrossrefid(kechengId);
+        refund.setSfsh("待审核");
+        refund.setIspay("未支付");
+        kechengtuikeService.save(refund);
+        return CancelResult.cancelled(reservation.getId(), refund.getId());
+    }
+
+    private CancelResult replay(String key) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT yuyue_id, tuike_id FROM kechengyuyue_cancel_request WHERE request_key = ?", key);
+        if (rows.isEmpty() || rows.get(0).get("yuyue_id") == null) {
+            return CancelResult.notFound();
+        }
+        Map<String, Object> row = rows.get(0);
+        return CancelResult.replayed(toLong(row.get("yuyue_id")), toLong(row.get("tuike_id")));
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+}
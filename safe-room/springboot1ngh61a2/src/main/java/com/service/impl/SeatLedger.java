@@ -0,0 +1,145 @@
+package com.service.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * 课程名额的进程内台账
+ * 每门课程一个计数，预约先在台账上占位，占到位的请求才去执行数据库的条件扣减；
+ * 热门课程满员后，后续请求在内存中直接拒绝，不再争抢同一行的行锁。
+ * 数据库是唯一准确来源：台账只是可能偏多的估计，扣减失败时校正为0，
+ * 为0的台账超过刷新间隔后重新从数据库加载，以感知其他实例释放的名额
+ */
+public class SeatLedger {
+
+    public enum Claim {
+        /**
+         * 已占位，需继续执行数据库扣减
+         */
+        CLAIMED,
+        /**
+         * 名额已满
+         */
+        SOLD_OUT,
+        /**
+         * 课程未配置名额，不限制
+         */
+        UNLIMITED
+    }
+
+    private static final int LOAD_STRIPES = 32;
+
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    // 按课程分段的加载锁，同一课程同时只有一个线程回源
+    private final Object[] loadLocks = new Object[LOAD_STRIPES];
+    private final long refreshNanos;
+
+    public SeatLedger(long refreshMillis) {
+        this.refreshNanos = Math.max(0, refreshMillis) * 1_000_000L;
+        for (int i = 0; i < LOAD_STRIPES; i++) {
+            loadLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 尝试占一个名额
+     *
+     * @param courseId 课程id
+     * @param loader 从数据库读取剩余名额，未配置名额时返回null
+     */
+    public Claim tryClaim(long courseId, LongFunction<Integer> loader) {
+        Entry entry = entries.get(courseId);
+        if (entry == null || isStale(entry)) {
+            entry = load(courseId, loader, entry);
+        }
+        if (!entry.limited) {
+            return Claim.UNLIMITED;
+        }
+        while (true) {
+            int available = entry.available.get();
+            if (available <= 0) {
+                if (!isStale(entry)) {
+                    return Claim.SOLD_OUT;
+                }
+                entry = load(courseId, loader, entry);
+                if (!entry.limited) {
+                    return Claim.UNLIMITED;
+                }
+                if (entry.available.get() <= 0) {
+                    return Claim.SOLD_OUT;
+                }
+                continue;
+            }
+            if (entry.available.compareAndSet(available, available - 1)) {
+                return Claim.CLAIMED;
+            }
+        }
+    }
+
+    /**
+     * 归还占位（数据库扣减未执行成功、预约回滚或取消）
+     */
+    public void restore(long courseId) {
+        Entry entry = entries.get(courseId);
+        if (entry != null && entry.limited) {
+            entry.available.incrementAndGet();
+        }
+    }
+
+    /**
+     * 数据库条件扣减失败，说明已满
+     */
+    public void markSoldOut(long courseId) {
+        // 换成新的台账，刷新间隔从此刻重新计算
+        entries.computeIfPresent(courseId, (id, entry) -> new Entry(true, 0, System.nanoTime()));
+    }
+
+    /**
+     * 丢弃课程台账，下次预约时重新加载（名额配置变更后调用）
+     */
+    public void invalidate(long courseId) {
+        entries.remove(courseId);
+    }
+
+    /**
+     * 台账中的剩余名额估计，未加载或不限制时返回null
+     */
+    public Integer getAvailable(long courseId) {
+        Entry entry = entries.get(courseId);
+        return entry == null || !entry.limited ? null : Math.max(0, entry.available.get());
+    }
+
+    private Entry load(long courseId, LongFunction<Integer> loader, Entry previous) {
+        synchronized (loadLocks[(int) (courseId & (LOAD_STRIPES - 1))]) {
+            Entry current = entries.get(courseId);
+            // 等锁期间已被其他线程刷新
+            if (current != null && current != previous && !isStale(current)) {
+                return current;
+            }
+            Integer remaining = loader.apply(courseId);
+            Entry fresh = new Entry(remaining != null, remaining == null ? 0 : remaining, System.nanoTime());
+            entries.put(courseId, fresh);
+            return fresh;
+        }
+    }
+
+    private boolean isStale(Entry entry) {
+        // 有余量的台账不需要回源：偏多由数据库扣减失败校正；不限制的台账也按间隔刷新，以感知新配置的名额
+        return (!entry.limited || entry.available.get() <= 0)
+                && System.nanoTime() - entry.loadedAt >= refreshNanos;
+    }
+
+    private static final class Entry {
+        private final boolean limited;
+        private final AtomicInteger available;
+        private final long loadedAt;
+
+        private Entry(boolean limited, int available, long loadedAt) {
+            this.limited = limited;
+            this.available = new AtomicInteger(available);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.service.impl;
+
+import com.service.MinioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 上传文件存储使用量统计
+ * 启动后全量扫描一次作为基线，之后由上传/删除路径增量更新，定期重新扫描校正偏差
+ * 本地模式统计upload目录，MinIO模式统计bucket
+ */
+@Component
+public class StorageUsageTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageUsageTracker.class);
+
+    // 按bean获取，避免与MinioServiceImpl循环依赖；未启用MinIO时为空
+    @Autowired
+    private ObjectProvider<MinioService> minioServiceProvider;
+
+    @Value("${minio.enabled:false}")
+    private boolean minioEnabled;
+
+    /**
+     * 存储容量（字节），0表示本地模式取磁盘容量、MinIO模式未知
+     */
+    @Value("${storage.capacity-bytes:0}")
+    private long capacityBytes;
+
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong objectCount = new AtomicLong();
+    private volatile long lastScanAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        // 大目录/大bucket扫描耗时，不阻塞启动
+        Thread thread = new Thread(this::rescan, "storage-usage-scan");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(fixedDelayString = "${storage.rescan-interval-ms:21600000}",
+            initialDelayString = "${storage.rescan-interval-ms:21600000}")
+    public void scheduledRescan() {
+        rescan();
+    }
+
+    /**
+     * 全量扫描并重置基线，扫描期间的增量可能被覆盖，由下次扫描校正
+     */
+    public synchronized void rescan() {
+        try {
+            long count = 0;
+            long bytes = 0;
+            MinioService minioService = minioEnabled ? minioServiceProvider.getIfAvailable() : null;
+            if (minioService != null) {
+                MinioService.BucketUsage usage = minioService.getBucketUsage("");
+                count = usage.getObjectCount();
+                bytes = usage.getTotalBytes();
+            } else {
+                File root = getUploadRoot();
+                if (root.isDirectory()) {
+                    try (Stream<Path> files = Files.walk(root.toPath())) {
+                        long[] totals = files.filter(Files::isRegularFile)
+                                .mapToLong(this::sizeOf)
+                                .collect(() -> new long[2], (acc, size) -> {
+                                    acc[0]++;
+                                    acc[1] += size;
+                                }, (a, b) -> {
+                                    a[0] += b[0];
+                                    a[1] += b[1];
+                                });
+                        count = totals[0];
+                        bytes = totals[1];
+                    }
+                }
+            }
+            objectCount.set(count);
+            usedBytes.set(bytes);
+            lastScanAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            logger.warn("扫描存储使用量失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 新写入一个文件
+     */
+    public void recordStored(long bytes) {
+        recordStored(bytes, -1);
+    }
+
+    /**
+     * 写入一个文件，覆盖已有文件时只累计大小差值
+     *
+     * @param replacedBytes 被覆盖文件的大小，原先不存在时传-1
+     */
+    public void recordStored(long bytes, long replacedBytes) {
+        if (bytes < 0) {
+            return;
+        }
+        if (replacedBytes < 0) {
+            objectCount.incrementAndGet();
+            usedBytes.addAndGet(bytes);
+        } else {
+            usedBytes.updateAndGet(value -> Math.max(0, value + bytes - replacedBytes));
+        }
+    }
+
+    /**
+     * 删除一个文件
+     */
+    public void recordRemoved(long bytes) {
+        if (bytes < 0) {
+            return;
+        }
+        objectCount.updateAndGet(value -> Math.max(0, value - 1));
+        usedBytes.updateAndGet(value -> Math.max(0, value - bytes));
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long getObjectCount() {
+        return objectCount.get();
+    }
+
+    /**
+     * 存储总容量（字节），未知时返回0
+     */
+    public long getTotalBytes() {
+        if (capacityBytes > 0) {
+            return capacityBytes;
+        }
+        if (minioEnabled) {
+            return 0L;
+        }
+        try {
+            return getUploadRoot().getTotalSpace();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 最近一次全量扫描时间（毫秒时间戳），尚未扫描时为0
+     */
+    public long getLastScanAt() {
+        return lastScanAt;
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 与FileController保存文件的目录一致
+     */
+    private File getUploadRoot() throws IOException {
+        File path = new File(ResourceUtils.getURL("classpath:static").getPath());
+        if (!path.exists()) {
+            path = new File("");
+        }
+        return new File(path.getAbsolutePath(), "/upload/");
+    }
+}
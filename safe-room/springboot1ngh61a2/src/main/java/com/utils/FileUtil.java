@@ -2,9 +2,16 @@ package com.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 
 /**
  * 文件工具类
@@ -81,5 +88,29 @@ public class FileUtil {
         }
         return "";
     }
-}
 
+    /**
+     * 只解析图片头部读取宽高，不解码像素
+     * 不会关闭传入的输入流
+     * @param inputStream 图片输入流
+     * @return [宽, 高]，无法识别的格式返回null
+     */
+    public static int[] readImageDimensions(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return null;
+        }
+        try (ImageInputStream imageStream = new MemoryCacheImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+-- 为 assets 表添加内容寻址存储所需的 content_hash / ref_count 列（如果不存在）
+-- 适用于 PostgreSQL 数据库
+
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM information_schema.columns
+        WHERE table_name = 'assets'
+        AND column_name = 'content_hash'
+    ) THEN
+        ALTER TABLE assets ADD COLUMN content_hash VARCHAR(64);
+    END IF;
+
+    IF NOT EXISTS (
+        SELECT 1
+        FROM information_schema.columns
+        WHERE table_name = 'assets'
+        AND column_name = 'ref_count'
+    ) THEN
+        ALTER TABLE assets ADD COLUMN ref_count INT DEFAULT 1;
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_assets_content_hash ON assets(content_hash);
@@ -0,0 +1,6 @@
+-- 会员到期提醒生成
+-- 按 (youxiaoqizhi, id) 键集分批扫描提醒窗口内的会员，只读取索引范围内的行
+CREATE INDEX IF NOT EXISTS idx_yonghu_youxiaoqizhi_id ON yonghu(youxiaoqizhi, id);
+
+-- 检查会员在该到期日是否已有提醒
+CREATE INDEX IF NOT EXISTS idx_daoqitixing_account_expiry ON daoqitixing(yonghuzhanghao, youxiaoqizhi);
@@ -0,0 +1,38 @@
+-- 私教预约时段排他约束：同一教练的有效预约时段不允许重叠
+-- 时段为 [yuyueshijian, yuyueshijian + 60分钟)，时长须与 private-training.session-minutes 一致
+-- 审核未通过（'否'、'未通过'）的预约不占用时段，与 CoachScheduleServiceImpl.REJECTED_STATUSES 一致
+-- 多实例并发预约同一时段时，由数据库拒绝后到的写入（SQLSTATE 23P01）
+
+-- 教练工号使用 = 比较需要 btree_gist
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO $$
+DECLARE
+    conflicts INTEGER;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'ex_sijiaoyuyue_coach_slot') THEN
+        RAISE NOTICE 'ex_sijiaoyuyue_coach_slot 已存在，跳过';
+        RETURN;
+    END IF;
+
+    -- 已有重叠数据时无法创建约束，列出冲突后中止，由人工处理
+    SELECT COUNT(*) INTO conflicts
+    FROM sijiaoyuyue a
+    JOIN sijiaoyuyue b
+      ON a.jiaoliangonghao = b.jiaoliangonghao
+     AND a.id < b.id
+     AND tsrange(a.yuyueshijian, a.yuyueshijian + INTERVAL '60 minutes')
+         && tsrange(b.yuyueshijian, b.yuyueshijian + INTERVAL '60 minutes')
+    WHERE COALESCE(a.sfsh, '') NOT IN ('否', '未通过')
+      AND COALESCE(b.sfsh, '') NOT IN ('否', '未通过');
+    IF conflicts > 0 THEN
+        RAISE EXCEPTION '存在 % 对时段重叠的私教预约，请先处理后再执行本脚本', conflicts;
+    END IF;
+
+    ALTER TABLE sijiaoyuyue
+        ADD CONSTRAINT ex_sijiaoyuyue_coach_slot
+        EXCLUDE USING gist (
+            jiaoliangonghao WITH =,
+            tsrange(yuyueshijian, yuyueshijian + INTERVAL '60 minutes') WITH &&
+        ) WHERE (COALESCE(sfsh, '') NOT IN ('否', '未通过'));
+END $$;
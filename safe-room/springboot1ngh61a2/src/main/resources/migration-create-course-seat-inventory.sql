@@ -0,0 +1,14 @@
+-- 创建课程名额表
+-- 与课程表分开存放：预约高峰时频繁更新的只有这一行，不影响课程表的点击数等更新
+-- 预约时执行 UPDATE ... SET remaining = remaining - 1 WHERE kecheng_id = ? AND remaining > 0，
+-- 影响行数为0即名额已满；CHECK约束兜底，任何路径都不会把名额扣成负数
+CREATE TABLE IF NOT EXISTS kecheng_seat_inventory (
+    kecheng_id BIGINT PRIMARY KEY REFERENCES jianshenkecheng(id) ON DELETE CASCADE,
+    capacity INT NOT NULL,
+    remaining INT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT ck_kecheng_seat_remaining CHECK (remaining >= 0 AND remaining <= capacity)
+) WITH (fillfactor = 70);
+
+-- 按课程统计预约人数、初始化名额时使用
+CREATE INDEX IF NOT EXISTS idx_kechengyuyue_crossrefid ON kechengyuyue(crossrefid);
@@ -0,0 +1,10 @@
+-- 站内消息未读计数
+-- 每个用户一行，消息写入时加、标记已读时减，未读角标接口不再对 messages 计数
+CREATE TABLE IF NOT EXISTS message_unread_counter (
+    userid BIGINT PRIMARY KEY,
+    unread INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 计数行不存在（首次查询或失效后）时按 (userid, isread) 回源计数
+CREATE INDEX IF NOT EXISTS idx_messages_userid_isread ON messages(userid, isread);
@@ -0,0 +1,11 @@
+-- 创建限流令牌桶表（rate-limit.backend=postgres 时使用，多实例共享同一组桶）
+-- UNLOGGED：桶状态可随时重建，不写WAL，崩溃后清空即等同于所有桶回满
+-- fillfactor 70：每次取令牌都是同一行的原地更新，预留页内空间以走HOT更新
+CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_bucket (
+    bucket_key VARCHAR(255) PRIMARY KEY,
+    tokens DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) WITH (fillfactor = 70);
+
+-- 定期清理长期空闲的桶
+CREATE INDEX IF NOT EXISTS idx_rate_limit_bucket_updated_at ON rate_limit_bucket(updated_at);
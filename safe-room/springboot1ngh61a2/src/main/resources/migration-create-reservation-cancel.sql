@@ -0,0 +1,16 @@
+-- 课程预约取消
+-- 取消按 (crossuserid, crossrefid, ispay) 查找已支付预约，再以 UPDATE ... WHERE id = ? AND ispay = '已支付' 条件更新
+CREATE INDEX IF NOT EXISTS idx_kechengyuyue_user_course ON kechengyuyue(crossuserid, crossrefid, ispay);
+
+-- 取消请求键：同一请求重复提交时返回首次结果，不重复生成退课记录
+-- 请求键在事务开始时插入，并发的重复请求在主键上等待首个请求提交
+CREATE TABLE IF NOT EXISTS kechengyuyue_cancel_request (
+    request_key VARCHAR(200) PRIMARY KEY,
+    crossuserid BIGINT NOT NULL,
+    yuyue_id BIGINT,
+    tuike_id BIGINT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 定时清理过期请求键
+CREATE INDEX IF NOT EXISTS idx_kechengyuyue_cancel_request_created ON kechengyuyue_cancel_request(created_at);
@@ -0,0 +1,76 @@
+-- 将 operation_log 改造为按 addtime 的月度分区表（PostgreSQL 声明式分区）
+-- 仅在 operation_log 仍为普通表时执行，历史数据迁入分区后删除旧表
+-- 之后的分区由应用定时任务（OperationLogPartitionManager）提前创建，过期分区整表删除
+-- 适用于 PostgreSQL 11+ 数据库
+
+DO $$
+DECLARE
+    start_month DATE;
+    end_month DATE;
+    month_start DATE;
+BEGIN
+    IF EXISTS (
+        SELECT 1
+        FROM pg_class c
+        JOIN pg_namespace n ON n.oid = c.relnamespace
+        WHERE c.relname = 'operation_log'
+        AND n.nspname = current_schema()
+        AND c.relkind = 'r'
+    ) THEN
+        ALTER TABLE operation_log RENAME TO operation_log_legacy;
+        ALTER TABLE operation_log_legacy RENAME CONSTRAINT operation_log_pkey TO operation_log_legacy_pkey;
+        DROP INDEX IF EXISTS idx_operation_log_userid;
+        DROP INDEX IF EXISTS idx_operation_log_operation_type;
+        DROP INDEX IF EXISTS idx_operation_log_table_name;
+        DROP INDEX IF EXISTS idx_operation_log_addtime;
+        -- 保留原序列，避免删除旧表时一并删除
+        ALTER SEQUENCE operation_log_id_seq OWNED BY NONE;
+
+        -- 分区表的主键必须包含分区键
+        CREATE TABLE operation_log (
+            id BIGINT NOT NULL DEFAULT nextval('operation_log_id_seq'),
+            userid BIGINT,
+            username VARCHAR(255),
+            table_name VARCHAR(255),
+            operation_type VARCHAR(50),
+            content TEXT,
+            ip VARCHAR(50),
+            user_agent TEXT,
+            addtime TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            PRIMARY KEY (id, addtime)
+        ) PARTITION BY RANGE (addtime);
+        ALTER SEQUENCE operation_log_id_seq OWNED BY operation_log.id;
+
+        SELECT date_trunc('month', COALESCE(MIN(addtime), CURRENT_TIMESTAMP))::DATE
+        INTO start_month
+        FROM operation_log_legacy;
+        end_month := (date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 month')::DATE;
+
+        month_start := start_month;
+        WHILE month_start < end_month LOOP
+            EXECUTE format(
+                'CREATE TABLE IF NOT EXISTS %I PARTITION OF operation_log FOR VALUES FROM (%L) TO (%L)',
+                'operation_log_p' || to_char(month_start, 'YYYYMM'),
+                month_start,
+                (month_start + INTERVAL '1 month')::DATE
+            );
+            month_start := (month_start + INTERVAL '1 month')::DATE;
+        END LOOP;
+
+        -- 兜底分区：定时任务未及时建分区时接收数据，避免写入失败
+        CREATE TABLE IF NOT EXISTS operation_log_default PARTITION OF operation_log DEFAULT;
+
+        INSERT INTO operation_log (id, userid, username, table_name, operation_type, content, ip, user_agent, addtime)
+        SELECT id, userid, username, table_name, operation_type, content, ip, user_agent,
+               COALESCE(addtime, CURRENT_TIMESTAMP)
+        FROM operation_log_legacy;
+
+        DROP TABLE operation_log_legacy;
+    END IF;
+END $$;
+
+-- 在分区父表上建索引会自动下发到每个分区
+CREATE INDEX IF NOT EXISTS idx_operation_log_addtime ON operation_log(addtime);
+CREATE INDEX IF NOT EXISTS idx_operation_log_userid ON operation_log(userid, addtime);
+CREATE INDEX IF NOT EXISTS idx_operation_log_operation_type ON operation_log(operation_type, addtime);
+CREATE INDEX IF NOT EXISTS idx_operation_log_table_name ON operation_log(table_name, addtime);
@@ -332,9 +332,12 @@ CREATE TABLE assets (
   tags TEXT,
   category VARCHAR(50) DEFAULT 'static',
   status VARCHAR(50) DEFAULT 'active',
-  upload_user VARCHAR(100)
+  upload_user VARCHAR(100),
+  content_hash VARCHAR(64),
+  ref_count INT DEFAULT 1
 );
 
 CREATE INDEX idx_assets_type ON assets(asset_type);
 CREATE INDEX idx_assets_module ON assets(module);
 CREATE INDEX idx_assets_usage ON assets(usage);
+CREATE UNIQUE INDEX uk_assets_content_hash ON assets(content_hash);
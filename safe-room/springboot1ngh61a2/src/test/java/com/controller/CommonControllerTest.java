@@ -24,7 +24,10 @@ class CommonControllerTest extends AbstractControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value(0))
                 .andExpect(jsonPath("$.data.server").exists())
-                .andExpect(jsonPath("$.data.database").exists());
+                .andExpect(jsonPath("$.data.database").exists())
+                .andExpect(jsonPath("$.data.database.maxConnections").value(5))
+                .andExpect(jsonPath("$.data.api.totalRequests").isNumber())
+                .andExpect(jsonPath("$.data.cache.hitRate").isNumber());
     }
 
     @Test
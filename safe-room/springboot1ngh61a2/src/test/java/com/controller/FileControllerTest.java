@@ -1,7 +1,10 @@
 package com.controller;
 
 import com.controller.support.AbstractControllerIntegrationTest;
+import com.service.impl.ChunkUploadSweeper;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.ResourceUtils;
@@ -12,15 +15,21 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class FileControllerTest extends AbstractControllerIntegrationTest {
 
+    @Autowired
+    private ChunkUploadSweeper chunkSweeper;
+
     @AfterEach
     void cleanupTestFiles() {
         // 清理可能遗漏的测试文件
@@ -162,6 +171,142 @@ class FileControllerTest extends AbstractControllerIntegrationTest {
                 .andExpect(jsonPath("$.msg").value("文件体积超过限制: 3MB"));
     }
 
+    @Test
+    void shouldReturnBatchUrlsOnlyForExistingLocalFiles() throws Exception {
+        File existing = new File(getUploadDirectory(), "batch-a.png");
+        Files.write(existing.toPath(), new byte[]{1, 2, 3});
+        try {
+            mockMvc.perform(post("/springboot1ngh61a2/file/presigned/batch")
+                            .contextPath("/springboot1ngh61a2")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[\"batch-a.png\",\"batch-missing.png\"]"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(0))
+                    .andExpect(jsonPath("$.urls['batch-a.png']").value("/springboot1ngh61a2/file/download?fileName=batch-a.png"))
+                    .andExpect(jsonPath("$.urls['batch-missing.png']").doesNotExist());
+        } finally {
+            Files.deleteIfExists(existing.toPath());
+        }
+    }
+
+    @Test
+    void shouldStreamRawBodyUploadToLocalStorage() throws Exception {
+        MvcResult result = performAdmin(post("/file/upload/stream")
+                        .param("fileName", "clip.mp4")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[]{1, 2, 3, 4}))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath("$.size").value(4))
+                .andReturn();
+
+        String fileName = objectMapper.readTree(result.getResponse().getContentAsString()).path("file").asText();
+        assertThat(new File(getUploadDirectory(), fileName)).hasSize(4);
+        deleteUploadedFile(fileName);
+    }
+
+    @Test
+    void shouldAssembleChunkedUploadInOrder() throws Exception {
+        MvcResult init = performAdmin(post("/file/upload/chunk/init").param("fileName", "course.mp4"))
+                .andExpect(jsonPath("$.code").value(0))
+                .andReturn();
+        String uploadId = objectMapper.readTree(init.getResponse().getContentAsString()).path("uploadId").asText();
+
+        performAdmin(post("/file/upload/chunk").param("uploadId", uploadId).param("index", "1")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{3, 4}))
+                .andExpect(jsonPath("$.code").value(0));
+        performAdmin(post("/file/upload/chunk/complete").param("uploadId", uploadId)
+                        .param("fileName", "course.mp4").param("total", "2"))
+                .andExpect(jsonPath("$.code").value(500))
+                .andExpect(jsonPath("$.missing").value(0));
+
+        performAdmin(post("/file/upload/chunk").param("uploadId", uploadId).param("index", "0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1, 2}))
+                .andExpect(jsonPath("$.code").value(0));
+        performAdmin(get("/file/upload/chunk/status").param("uploadId", uploadId))
+                .andExpect(jsonPath("$.chunks.length()").value(2));
+
+        MvcResult complete = performAdmin(post("/file/upload/chunk/complete").param("uploadId", uploadId)
+                        .param("fileName", "course.mp4").param("total", "2"))
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath("$.size").value(4))
+                .andReturn();
+
+        String fileName = objectMapper.readTree(complete.getResponse().getContentAsString()).path("file").asText();
+        assertThat(java.nio.file.Files.readAllBytes(new File(getUploadDirectory(), fileName).toPath()))
+                .containsExactly(1, 2, 3, 4);
+        deleteUploadedFile(fileName);
+    }
+
+    @Test
+    void shouldApplyExtensionLimitToChunkedUploads() throws Exception {
+        performAdmin(post("/file/upload/chunk/init").param("fileName", "poster.png")
+                        .param("size", String.valueOf(4L * 1024 * 1024)))
+                .andExpect(jsonPath("$.code").value(500))
+                .andExpect(jsonPath("$.msg").value("文件体积超过限制: 3MB"));
+
+        MvcResult init = performAdmin(post("/file/upload/chunk/init").param("fileName", "poster.png"))
+                .andExpect(jsonPath("$.code").value(0))
+                .andReturn();
+        String uploadId = objectMapper.readTree(init.getResponse().getContentAsString()).path("uploadId").asText();
+
+        performAdmin(post("/file/upload/chunk").param("uploadId", uploadId).param("index", "0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[2 * 1024 * 1024]))
+                .andExpect(jsonPath("$.code").value(0));
+        performAdmin(post("/file/upload/chunk").param("uploadId", uploadId).param("index", "1")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[2 * 1024 * 1024]))
+                .andExpect(jsonPath("$.code").value(500))
+                .andExpect(jsonPath("$.msg").value("文件体积超过限制: 3MB"));
+        performAdmin(get("/file/upload/chunk/status").param("uploadId", uploadId))
+                .andExpect(jsonPath("$.chunks.length()").value(1));
+
+        File chunkDir = new File(ChunkUploadSweeper.localChunkRoot(), uploadId);
+        assertThat(chunkDir).isDirectory();
+        chunkSweeper.sweep(System.currentTimeMillis() - 60_000);
+        assertThat(chunkDir).isDirectory();
+        chunkSweeper.sweep(System.currentTimeMillis() + 60_000);
+        assertThat(chunkDir).doesNotExist();
+    }
+
+    @Test
+    void shouldServeWidthBucketedThumbnailWithLongCacheHeaders() throws Exception {
+        BufferedImage image = new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", baos);
+        MockMultipartFile payload = new MockMultipartFile("file", "thumb-source.png", "image/png", baos.toByteArray());
+
+        var uploadResult = mockMvc.perform(multipart("/file/upload").file(payload))
+                .andExpect(status().isOk())
+                .andReturn();
+        String fileName = objectMapper.readTree(uploadResult.getResponse().getContentAsString()).path("file").asText();
+
+        MvcResult thumb = mockMvc.perform(get("/file/thumb").param("fileName", "upload/" + fileName).param("w", "300"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"))
+                .andExpect(header().string("Cache-Control", org.hamcrest.Matchers.containsString("immutable")))
+                .andReturn();
+
+        BufferedImage resized = ImageIO.read(new java.io.ByteArrayInputStream(thumb.getResponse().getContentAsByteArray()));
+        assertThat(resized.getWidth()).isEqualTo(320);
+        assertThat(resized.getHeight()).isEqualTo(160);
+        // 格式由参数决定，不按Accept区分缓存
+        assertThat(thumb.getResponse().getHeaders("Vary")).doesNotContain("Accept");
+
+        mockMvc.perform(get("/file/thumb").param("fileName", "upload/" + fileName).param("w", "300")
+                        .header("If-None-Match", thumb.getResponse().getHeader("ETag")))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/file/delete").param("fileName", fileName))
+                .andExpect(jsonPath("$.code").value(0));
+        assertThat(new File(getUploadDirectory(), "thumbs/w320/" + fileName)).doesNotExist();
+    }
+
+    @Test
+    void shouldReturnNotFoundThumbnailForMissingImage() throws Exception {
+        mockMvc.perform(get("/file/thumb").param("fileName", "missing-image.png"))
+                .andExpect(status().isNotFound());
+    }
+
     private void deleteUploadedFile(String fileName) throws Exception {
         File path = new File(ResourceUtils.getURL("classpath:static").getPath());
         if (!path.exists()) {
@@ -1,5 +1,6 @@
 package com.controller;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.controller.support.AbstractControllerIntegrationTest;
 import com.entity.KechengyuyueEntity;
 import com.service.KechengyuyueService;
@@ -42,6 +43,83 @@ class KechengyuyueControllerTest extends AbstractControllerIntegrationTest {
                 .anyMatch(entity -> entity.getYuyuebianhao().equals(payload.getYuyuebianhao()));
     }
 
+    @Test
+    void shouldRejectReservationWhenCourseIsFull() throws Exception {
+        // test-data.sql 中的课程3
+        performAdmin(post("/kechengyuyue/seats/3/capacity").param("capacity", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath("$.data.remaining").value(1));
+        try {
+            KechengyuyueEntity first = TestUtils.createReservationTemplate("AUTO-YY-SEAT-" + System.nanoTime(), "member001");
+            first.setCrossrefid(3L);
+            postJson("/kechengyuyue/add", first)
+                    .andExpect(jsonPath("$.code").value(0))
+                    .andExpect(jsonPath("$.remaining").value(0));
+
+            KechengyuyueEntity second = TestUtils.createReservationTemplate("AUTO-YY-SEAT-" + System.nanoTime(), "member001");
+            second.setCrossrefid(3L);
+            postJson("/kechengyuyue/add", second)
+                    .andExpect(jsonPath("$.code").value(500))
+                    .andExpect(jsonPath("$.msg").value("该课程名额已满"));
+
+            mockMvc.perform(get("/kechengyuyue/seats/3"))
+                    .andExpect(jsonPath("$.code").value(0))
+                    .andExpect(jsonPath("$.data.capacity").value(1))
+                    .andExpect(jsonPath("$.data.remaining").value(0));
+        } finally {
+            // 放开名额，不影响其他测试
+            performAdmin(post("/kechengyuyue/seats/3/capacity").param("capacity", "1000"));
+        }
+    }
+
+    @Test
+    void shouldReleaseSeatWhenReservationRejectedOrDeleted() throws Exception {
+        performAdmin(post("/kechengyuyue/seats/3/capacity").param("capacity", "1"))
+                .andExpect(jsonPath("$.data.remaining").value(1));
+        try {
+            KechengyuyueEntity booked = TestUtils.createReservationTemplate("AUTO-YY-SEAT-" + System.nanoTime(), "member001");
+            booked.setCrossrefid(3L);
+            postJson("/kechengyuyue/save", booked)
+                    .andExpect(jsonPath("$.code").value(0))
+                    .andExpect(jsonPath("$.remaining").value(0));
+            Long bookedId = kechengyuyueService.getOne(new QueryWrapper<KechengyuyueEntity>()
+                    .eq("yuyuebianhao", booked.getYuyuebianhao())).getId();
+
+            // 重复拒绝只归还一次
+            for (int i = 0; i < 2; i++) {
+                performAdmin(post("/kechengyuyue/shBatch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new Long[]{bookedId}))
+                                .param("sfsh", "否")
+                                .param("shhf", "名额调整"))
+                        .andExpect(jsonPath("$.code").value(0));
+            }
+            mockMvc.perform(get("/kechengyuyue/seats/3"))
+                    .andExpect(jsonPath("$.data.remaining").value(1));
+
+            KechengyuyueEntity second = TestUtils.createReservationTemplate("AUTO-YY-SEAT-" + System.nanoTime(), "member001");
+            second.setCrossrefid(3L);
+            postJson("/kechengyuyue/add", second)
+                    .andExpect(jsonPath("$.remaining").value(0));
+            Long secondId = kechengyuyueService.getOne(new QueryWrapper<KechengyuyueEntity>()
+                    .eq("yuyuebianhao", second.getYuyuebianhao())).getId();
+
+            deleteJson("/kechengyuyue/delete", new Long[]{bookedId, secondId})
+                    .andExpect(jsonPath("$.code").value(0));
+            mockMvc.perform(get("/kechengyuyue/seats/3"))
+                    .andExpect(jsonPath("$.data.remaining").value(1));
+        } finally {
+            performAdmin(post("/kechengyuyue/seats/3/capacity").param("capacity", "1000"));
+        }
+    }
+
+    @Test
+    void shouldRejectCapacityChangeFromNonAdmin() throws Exception {
+        performMember(post("/kechengyuyue/seats/3/capacity").param("capacity", "0"))
+                .andExpect(jsonPath("$.code").value(403));
+    }
+
     @Test
     void shouldUpdateReservationStatus() throws Exception {
         KechengyuyueEntity entity = TestUtils.createReservationTemplate("AUTO-YY-UPDATE", "member001");
@@ -218,7 +296,9 @@ class KechengyuyueControllerTest extends AbstractControllerIntegrationTest {
                         .param("sfsh", "已审核")
                         .param("shhf", "审核通过"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.code").value(0));
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.notFound").isEmpty());
 
         KechengyuyueEntity updated1 = kechengyuyueService.getById(reservation1.getId());
         KechengyuyueEntity updated2 = kechengyuyueService.getById(reservation2.getId());
@@ -14,6 +14,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -50,6 +52,30 @@ class MessageControllerTest extends AbstractControllerIntegrationTest {
                 .forEach(message -> messageService.removeById(message.getId()));
     }
 
+    @Test
+    void shouldRejectBroadcastWithMissingOrMalformedText() throws Exception {
+        Map<String, Object> missing = new HashMap<>();
+        missing.put("audience", "all");
+        missing.put("title", "测试消息-broadcast");
+        postJson("/messages/broadcast", missing)
+                .andExpect(jsonPath("$.code").value(500))
+                .andExpect(jsonPath("$.msg").value("消息标题和内容不能为空"));
+
+        Map<String, Object> malformed = new HashMap<>(missing);
+        malformed.put("content", Map.of("text", "正文"));
+        postJson("/messages/broadcast", malformed)
+                .andExpect(jsonPath("$.code").value(500))
+                .andExpect(jsonPath("$.msg").value("消息标题和内容格式错误"));
+    }
+
+    @Test
+    void shouldRejectBroadcastProgressFromNonAdmin() throws Exception {
+        performMember(get("/messages/broadcast/any-job"))
+                .andExpect(jsonPath("$.code").value(403));
+        performAdmin(get("/messages/broadcast/any-job"))
+                .andExpect(jsonPath("$.code").value(404));
+    }
+
     @Test
     void shouldReturnPagedMessages() throws Exception {
         performAdmin(get("/messages/page"))
@@ -0,0 +1,110 @@
+package com.controller;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.controller.support.AbstractControllerIntegrationTest;
+import com.entity.ChatEntity;
+import com.entity.MessageEntity;
+import com.service.ChatService;
+import com.service.MessageService;
+import com.service.NotificationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class NotificationControllerTest extends AbstractControllerIntegrationTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatService chatService;
+
+    private final List<MvcResult> streams = new ArrayList<>();
+
+    @AfterEach
+    void cleanupTestData() {
+        for (MvcResult stream : streams) {
+            if (stream.getRequest().isAsyncStarted()) {
+                stream.getRequest().getAsyncContext().complete();
+            }
+        }
+        messageService.remove(new QueryWrapper<MessageEntity>().likeRight("title", "sse-test"));
+        chatService.remove(new QueryWrapper<ChatEntity>().likeRight("ask", "sse-test"));
+    }
+
+    @Test
+    void shouldPushNewMessageToSubscribedMember() throws Exception {
+        MvcResult stream = subscribeAsMember();
+        awaitContent(stream, "event:ready");
+
+        MessageEntity message = new MessageEntity();
+        message.setUserid(1L);
+        message.setTitle("sse-test-message");
+        message.setContent("推送测试");
+        message.setType("system");
+        messageService.save(message);
+
+        String content = awaitContent(stream, "event:message");
+        assertThat(content).contains("sse-test-message").contains("\"unread\"");
+    }
+
+    @Test
+    void shouldPushMemberQuestionToAdmins() throws Exception {
+        MvcResult adminStream = performAdmin(get("/notifications/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streams.add(adminStream);
+
+        Map<String, Object> chat = new HashMap<>();
+        chat.put("ask", "sse-test-question");
+        postJsonAsMember("/chat/add", chat);
+
+        String content = awaitContent(adminStream, "event:chat");
+        assertThat(content).contains("sse-test-question");
+    }
+
+    @Test
+    void shouldReleaseSubscriptionWhenConnectionCloses() throws Exception {
+        int before = notificationService.getSubscriberCount();
+        MvcResult stream = subscribeAsMember();
+        assertThat(notificationService.getSubscriberCount()).isEqualTo(before + 1);
+        assertThat(notificationService.hasSubscriber(NotificationService.TABLE_MEMBER, 1L)).isTrue();
+
+        stream.getRequest().getAsyncContext().complete();
+
+        assertThat(notificationService.getSubscriberCount()).isEqualTo(before);
+    }
+
+    private MvcResult subscribeAsMember() throws Exception {
+        MvcResult stream = performMember(get("/notifications/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streams.add(stream);
+        return stream;
+    }
+
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+}
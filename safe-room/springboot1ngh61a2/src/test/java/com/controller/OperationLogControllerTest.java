@@ -135,6 +135,42 @@ class OperationLogControllerTest extends AbstractControllerIntegrationTest {
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    void shouldOnlyReturnLogsInsideTimeWindow() throws Exception {
+        OperationLogEntity recent = createOperationLog("window-user", "CREATE", "news", 7L);
+        operationLogService.save(recent);
+        OperationLogEntity old = createOperationLog("window-user", "DELETE", "news", 7L);
+        old.setAddtime(new Date(System.currentTimeMillis() - 90L * 24 * 3600 * 1000));
+        operationLogService.save(old);
+
+        // 默认只查询最近30天
+        performAdmin(get("/operationLog/page")
+                        .param("page", "1")
+                        .param("limit", "10")
+                        .param("username", "window-user"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath("$.data.total").value(1))
+                .andExpect(jsonPath("$.data.list[0].operationType").value("CREATE"));
+    }
+
+    @Test
+    void shouldRejectTooWideTimeWindow() throws Exception {
+        performAdmin(get("/operationLog/page")
+                        .param("addtimeStart", "2000-01-01")
+                        .param("addtimeEnd", "2024-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(400));
+    }
+
+    @Test
+    void shouldRejectInvalidTimeFormat() throws Exception {
+        performAdmin(get("/operationLog/page")
+                        .param("addtimeStart", "yesterday"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(400));
+    }
+
     private OperationLogEntity createOperationLog(String username, String operationType, 
                                                    String tableName, Long userId) {
         OperationLogEntity log = new OperationLogEntity();
@@ -7,11 +7,18 @@ import com.utils.TestUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.Date;
 
 import org.springframework.http.MediaType;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -41,6 +48,51 @@ class SijiaoyuyueControllerTest extends AbstractControllerIntegrationTest {
                 .anyMatch(record -> record.getYuyuebianhao().equals(payload.getYuyuebianhao()));
     }
 
+    @Test
+    void shouldRejectOverlappingReservationForSameCoach() throws Exception {
+        SijiaoyuyueEntity first = TestUtils.createPrivateReservation("member001");
+        postJson("/sijiaoyuyue/add", first)
+                .andExpect(jsonPath("$.code").value(0));
+
+        // 同一教练，开始时间落在已有时段内
+        SijiaoyuyueEntity overlapping = TestUtils.createPrivateReservation("member002");
+        overlapping.setJiaoliangonghao(first.getJiaoliangonghao());
+        overlapping.setYuyueshijian(new Date(first.getYuyueshijian().getTime() + 30 * 60 * 1000L));
+        postJson("/sijiaoyuyue/add", overlapping)
+                .andExpect(jsonPath("$.code").value(500))
+                .andExpect(jsonPath("$.msg").value("该教练在此时间段已有预约"));
+
+        // 紧接着的下一个时段可以预约
+        SijiaoyuyueEntity adjacent = TestUtils.createPrivateReservation("member002");
+        adjacent.setJiaoliangonghao(first.getJiaoliangonghao());
+        adjacent.setYuyueshijian(new Date(first.getYuyueshijian().getTime() + 60 * 60 * 1000L));
+        postJson("/sijiaoyuyue/add", adjacent)
+                .andExpect(jsonPath("$.code").value(0));
+
+        // 原预约被删除后时段释放
+        deleteJson("/sijiaoyuyue/delete", new Long[]{first.getId()})
+                .andExpect(jsonPath("$.code").value(0));
+        SijiaoyuyueEntity replacement = TestUtils.createPrivateReservation("member003");
+        replacement.setJiaoliangonghao(first.getJiaoliangonghao());
+        replacement.setYuyueshijian(first.getYuyueshijian());
+        postJson("/sijiaoyuyue/add", replacement)
+                .andExpect(jsonPath("$.code").value(0));
+    }
+
+    @Test
+    void shouldRejectReservationConflictingWithRowWrittenOutsideIndex() throws Exception {
+        // 直接写库，模拟其他实例写入、本实例索引尚未重建
+        SijiaoyuyueEntity stored = TestUtils.createPrivateReservation("member001");
+        sijiaoyuyueService.save(stored);
+
+        SijiaoyuyueEntity overlapping = TestUtils.createPrivateReservation("member002");
+        overlapping.setJiaoliangonghao(stored.getJiaoliangonghao());
+        overlapping.setYuyueshijian(new Date(stored.getYuyueshijian().getTime() + 15 * 60 * 1000L));
+        postJson("/sijiaoyuyue/add", overlapping)
+                .andExpect(jsonPath("$.code").value(500))
+                .andExpect(jsonPath("$.msg").value("该教练在此时间段已有预约"));
+    }
+
     @Test
     void shouldUpdateReservationStatus() throws Exception {
         SijiaoyuyueEntity existing = TestUtils.createPrivateReservation("member002");
@@ -118,6 +170,56 @@ class SijiaoyuyueControllerTest extends AbstractControllerIntegrationTest {
         assertThat(updated.getSfsh()).isEqualTo("已拒绝");
         assertThat(updated.getShhf()).isEqualTo("时间冲突");
     }
-}
 
+    @Test
+    void shouldReturnCoachAvailabilityExcludingBookedSlots() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(2);
+        SijiaoyuyueEntity booking = TestUtils.createPrivateReservation("member001");
+        booking.setYuyueshijian(Date.from(day.atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant()));
+        postJson("/sijiaoyuyue/add", booking)
+                .andExpect(jsonPath("$.code").value(0));
+        String coach = booking.getJiaoliangonghao();
+        String otherCoach = "coach-free-" + booking.getId();
+
+        String slots = "$.data['" + coach + "']['" + day + "']";
+        mockMvc.perform(get("/sijiaoyuyue/availability")
+                        .param("jiaoliangonghao", coach + "," + otherCoach)
+                        .param("start", day.toString())
+                        .param("end", day.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath(slots).value(hasItems("08:00", "09:00", "11:00", "21:00")))
+                // 10:00-11:00 已被占用，与之重叠的起始时间都不可约
+                .andExpect(jsonPath(slots).value(not(hasItem("09:15"))))
+                .andExpect(jsonPath(slots).value(not(hasItem("10:00"))))
+                .andExpect(jsonPath(slots).value(not(hasItem("10:45"))))
+                .andExpect(jsonPath(slots).value(not(hasItem("21:15"))))
+                .andExpect(jsonPath("$.data['" + otherCoach + "']['" + day + "']").value(hasItems("10:00", "10:45")));
+
+        // 取消后时段重新可约
+        deleteJson("/sijiaoyuyue/delete", new Long[]{booking.getId()})
+                .andExpect(jsonPath("$.code").value(0));
+        mockMvc.perform(get("/sijiaoyuyue/availability")
+                        .param("jiaoliangonghao", coach)
+                        .param("start", day.toString()))
+                .andExpect(jsonPath(slots).value(hasItems("09:15", "10:00", "10:45")));
+    }
 
+    @Test
+    void shouldValidateAvailabilityQuery() throws Exception {
+        mockMvc.perform(get("/sijiaoyuyue/availability"))
+                .andExpect(jsonPath("$.code").value(500));
+
+        LocalDate today = LocalDate.now();
+        mockMvc.perform(get("/sijiaoyuyue/availability")
+                        .param("jiaoliangonghao", "coach001")
+                        .param("start", today.toString())
+                        .param("end", today.plusDays(60).toString()))
+                .andExpect(jsonPath("$.code").value(500));
+        mockMvc.perform(get("/sijiaoyuyue/availability")
+                        .param("jiaoliangonghao", "coach001")
+                        .param("start", today.toString())
+                        .param("end", today.minusDays(1).toString()))
+                .andExpect(jsonPath("$.code").value(500));
+    }
+}
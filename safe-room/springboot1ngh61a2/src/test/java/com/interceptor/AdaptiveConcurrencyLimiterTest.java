@@ -0,0 +1,113 @@
+package com.interceptor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void shouldRejectWhenLimitReached() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, 0.5, 0);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.releaseWithoutSample();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldLimitLowPriorityShare() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 10, 1, 10, 0.5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(0.5)).isTrue();
+        }
+        // 低优先级份额用尽后，完整份额仍可获取
+        assertThat(limiter.tryAcquire(0.5)).isFalse();
+        assertThat(limiter.tryAcquire(1.0)).isTrue();
+    }
+
+    @Test
+    void shouldBackOffOnOverloadAndRespectMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 2, 10, 0.5, 0);
+
+        limiter.tryAcquire();
+        limiter.release(true);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.release(true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInflight()).isZero();
+    }
+
+    @Test
+    void shouldDecreaseAtMostOncePerCooldown() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 10, 0.5, 60_000);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+        }
+        limiter.release(true);
+        limiter.release(true);
+        limiter.release(true);
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldGrowOnlyWhenSaturated() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4, 1, 5, 0.5, 0);
+
+        // 并发远低于上限时，成功样本不提升上限
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        // 并发达到上限的一半以上时逐步提升，且不超过最大值
+        for (int round = 0; round < 50; round++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release(false);
+            limiter.release(false);
+            limiter.release(false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldKeepInflightAndLimitConsistentUnderConcurrentRelease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 50, 5, 100, 0.9, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int t = 0; t < 8; t++) {
+                int worker = t;
+                pool.execute(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        if (limiter.tryAcquire()) {
+                            limiter.release((i + worker) % 50 == 0);
+                        }
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(limiter.getInflight()).isZero();
+        assertThat(limiter.getLimit()).isBetween(5, 100);
+    }
+}
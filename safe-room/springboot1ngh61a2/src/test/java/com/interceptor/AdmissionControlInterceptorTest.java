@@ -0,0 +1,130 @@
+package com.interceptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControlInterceptor interceptor;
+    private HandlerMethod handlerMethod;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        // 全局上限4：low 类可用2个，critical 类可用4个
+        AdaptiveConcurrencyLimiter global = new AdaptiveConcurrencyLimiter("global", 4, 1, 4, 0.5, 0);
+        interceptor = new AdmissionControlInterceptor(Arrays.asList(
+                new RouteClass("stats", RouteClass.PRIORITY_LOW, 1000, 10, 10, Collections.singletonList("/**/count")),
+                new RouteClass("booking", RouteClass.PRIORITY_CRITICAL, 1000, 10, 10, Collections.singletonList("/kechengyuyue/**"))),
+                global, 0, meterRegistry);
+        Method method = TestController.class.getMethod("testMethod");
+        handlerMethod = new HandlerMethod(new TestController(), method);
+    }
+
+    @Test
+    void shouldShedLowPriorityBeforeCritical() throws Exception {
+        assertThat(admit("/yonghu/count")).isTrue();
+        assertThat(admit("/yonghu/count")).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("/yonghu/count"), rejected, handlerMethod)).isFalse();
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("503");
+
+        // 核心路径仍可使用剩余的全局上限
+        assertThat(admit("/kechengyuyue/add")).isTrue();
+        assertThat(admit("/kechengyuyue/add")).isTrue();
+        assertThat(admit("/kechengyuyue/add")).isFalse();
+
+        assertThat(meterRegistry.get(AdmissionControlInterceptor.SHED_METRIC_NAME)
+                .tag("route_class", "stats").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(AdmissionControlInterceptor.SHED_METRIC_NAME)
+                .tag("route_class", "booking").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldReleasePermitOnceOnCompletion() throws Exception {
+        MockHttpServletRequest request = request("/kechengyuyue/add");
+        HttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request, response, handlerMethod)).isTrue();
+
+        interceptor.afterCompletion(request, response, handlerMethod, null);
+        interceptor.afterCompletion(request, response, handlerMethod, null);
+
+        assertThat(inflight("global")).isZero();
+        assertThat(inflight("booking")).isZero();
+    }
+
+    @Test
+    void shouldReleasePermitWhenAsyncHandlingStarts() throws Exception {
+        MockHttpServletRequest request = request("/kechengyuyue/add");
+        HttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, handlerMethod);
+
+        interceptor.afterConcurrentHandlingStarted(request, response, handlerMethod);
+        assertThat(inflight("booking")).isZero();
+
+        // 异步分派再次经过拦截器时不重复准入
+        assertThat(interceptor.preHandle(request, response, handlerMethod)).isTrue();
+        interceptor.afterCompletion(request, response, handlerMethod, null);
+        assertThat(inflight("global")).isZero();
+    }
+
+    @Test
+    void shouldPassUnclassifiedAndNonHandlerRequests() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertThat(admit("/news/list")).isTrue();
+        }
+        assertThat(interceptor.preHandle(request("/yonghu/count"), new MockHttpServletResponse(), new Object())).isTrue();
+        assertThat(inflight("global")).isZero();
+    }
+
+    @Test
+    void shouldUseRouteTemplateForDefaultClasses() {
+        AdmissionControlInterceptor defaults = new AdmissionControlInterceptor(
+                AdmissionControlInterceptor.defaultRouteClasses(),
+                new AdaptiveConcurrencyLimiter("global", 100, 10, 180, 0.9, 1000), 1000, null);
+
+        assertThat(defaults.resolveClass(request("/kechengyuyue/value/{xColumnName}/{yColumnName}")).getName()).isEqualTo("stats");
+        assertThat(defaults.resolveClass(request("/yonghu/login")).getName()).isEqualTo("auth");
+        assertThat(defaults.resolveClass(request("/sijiaoyuyue/add")).getName()).isEqualTo("booking");
+        assertThat(defaults.resolveClass(request("/file/upload")).getName()).isEqualTo("file");
+        assertThat(defaults.resolveClass(request("/jianshenkecheng/detail/{id}")).getName()).isEqualTo("browse");
+    }
+
+    private boolean admit(String route) throws Exception {
+        return interceptor.preHandle(request(route), new MockHttpServletResponse(), handlerMethod);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int inflight(String name) {
+        Map<String, Object> status = (Map<String, Object>) interceptor.getStatus().get(name);
+        return (Integer) status.get("inflight");
+    }
+
+    private static MockHttpServletRequest request(String route) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", route);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, route);
+        return request;
+    }
+
+    static class TestController {
+        public void testMethod() {
+        }
+    }
+}
@@ -113,6 +113,47 @@ class AuthorizationInterceptorTest {
         assertThat(buffer.toString()).contains("请先登录");
     }
 
+    @Test
+    void shouldAcceptQueryTokenOnlyOnNotificationStream() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getContextPath()).thenReturn("/springboot1ngh61a2");
+        when(request.getRequestURI()).thenReturn("/springboot1ngh61a2/notifications/stream");
+        when(request.getHeader("Accept")).thenReturn("text/event-stream");
+        when(request.getParameter("token")).thenReturn("valid");
+        when(request.getSession()).thenReturn(session);
+        TokenEntity tokenEntity = new TokenEntity();
+        tokenEntity.setUserid(10L);
+        tokenEntity.setTablename("yonghu");
+        when(tokenService.getTokenEntity("valid")).thenReturn(tokenEntity);
+
+        HandlerMethod handlerMethod = new HandlerMethod(new TestController(), TestController.class.getMethod("secured"));
+
+        assertThat(interceptor.preHandle(request, response, handlerMethod)).isTrue();
+        verify(session).setAttribute("userId", 10L);
+    }
+
+    @Test
+    void shouldRejectQueryTokenOnOtherEndpoints() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getContextPath()).thenReturn("/springboot1ngh61a2");
+        when(request.getRequestURI()).thenReturn("/springboot1ngh61a2/yonghu/session");
+        when(request.getHeader("Accept")).thenReturn("text/event-stream");
+        when(request.getParameter("token")).thenReturn("valid");
+        StringWriter buffer = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(buffer));
+
+        HandlerMethod handlerMethod = new HandlerMethod(new TestController(), TestController.class.getMethod("secured"));
+
+        assertThat(interceptor.preHandle(request, response, handlerMethod)).isFalse();
+        assertThat(buffer.toString()).contains("请先登录");
+        verifyNoInteractions(tokenService);
+    }
+
     @Test
     void shouldSkipAuthenticationWhenConfigured() throws Exception {
         HttpServletRequest request = mock(HttpServletRequest.class);
@@ -0,0 +1,81 @@
+package com.interceptor;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MetricsInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new MetricsInterceptor(meterRegistry);
+    }
+
+    @Test
+    void shouldTagByRoutePatternInsteadOfRawUri() throws Exception {
+        handle("GET", "/jianshenkecheng/detail/123", "/jianshenkecheng/detail/{id}", 200);
+        handle("GET", "/jianshenkecheng/detail/124", "/jianshenkecheng/detail/{id}", 200);
+
+        assertThat(meterRegistry.find(MetricsInterceptor.METRIC_NAME).timers()).hasSize(1);
+        Timer timer = meterRegistry.get(MetricsInterceptor.METRIC_NAME)
+                .tags("method", "GET", "uri", "/jianshenkecheng/detail/{id}", "status", "2xx")
+                .timer();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGroupStatusCodesByClass() throws Exception {
+        handle("POST", "/yonghu/save", "/yonghu/save", 400);
+        handle("POST", "/yonghu/save", "/yonghu/save", 404);
+
+        assertThat(meterRegistry.get(MetricsInterceptor.METRIC_NAME)
+                .tags("uri", "/yonghu/save", "status", "4xx").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void unmatchedRequestsShouldShareOneTag() throws Exception {
+        handle("GET", "/no/such/path/1", null, 404);
+        handle("GET", "/no/such/path/2", null, 404);
+
+        assertThat(meterRegistry.get(MetricsInterceptor.METRIC_NAME)
+                .tags("uri", MetricsInterceptor.UNMATCHED_URI).timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReuseCachedTimer() {
+        Timer first = interceptor.timer("GET", "/news/list", "2xx");
+        Timer second = interceptor.timer("GET", "/news/list", "2xx");
+
+        assertThat(first).isSameAs(second);
+    }
+
+    @Test
+    void shouldSkipRecordingWithoutPreHandle() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/news/list");
+
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), new Object(), null);
+
+        assertThat(meterRegistry.find(MetricsInterceptor.METRIC_NAME).timers()).isEmpty();
+    }
+
+    private void handle(String method, String uri, String pattern, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, new Object());
+        if (pattern != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        }
+        response.setStatus(status);
+        interceptor.afterCompletion(request, response, new Object(), null);
+    }
+}
@@ -1,5 +1,6 @@
 package com.interceptor;
 
+import com.service.impl.LocalRateLimitBackend;
 import com.utils.R;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -10,6 +11,7 @@ import org.springframework.web.method.HandlerMethod;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -149,37 +151,38 @@ class RateLimitInterceptorTest {
     }
 
     @Test
-    void shouldExtractIpFromXForwardedFor() throws Exception {
+    void shouldIgnoreSpoofedForwardedHeaders() throws Exception {
+        RateLimitInterceptor limited = new RateLimitInterceptor(
+                List.of(new RateLimitPolicy("login", "/**/login", 1, 1, "登录请求过于频繁，请稍后再试")),
+                new LocalRateLimitBackend(8, 100));
         when(request.getRequestURI()).thenReturn("/api/users/login");
-        when(request.getHeader("X-Forwarded-For")).thenReturn("192.168.1.100");
-        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
-        
-        boolean result = interceptor.preHandle(request, response, handlerMethod);
-        
-        assertThat(result).isTrue();
-    }
+        when(request.getRemoteAddr()).thenReturn("203.0.113.10");
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
 
-    @Test
-    void shouldExtractIpFromXRealIP() throws Exception {
-        when(request.getRequestURI()).thenReturn("/api/users/login");
-        when(request.getHeader("X-Forwarded-For")).thenReturn(null);
+        when(request.getHeader("X-Forwarded-For")).thenReturn("192.168.1.100");
+        assertThat(limited.preHandle(request, response, handlerMethod)).isTrue();
+        // 更换转发头不能换到新的令牌桶
+        when(request.getHeader("X-Forwarded-For")).thenReturn("192.168.1.101");
         when(request.getHeader("X-Real-IP")).thenReturn("10.0.0.100");
-        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
-        
-        boolean result = interceptor.preHandle(request, response, handlerMethod);
-        
-        assertThat(result).isTrue();
+        assertThat(limited.preHandle(request, response, handlerMethod)).isFalse();
     }
 
     @Test
-    void shouldHandleMultipleIpsInXForwardedFor() throws Exception {
+    void shouldRespondTooManyRequestsWithRetryAfter() throws Exception {
+        RateLimitInterceptor limited = new RateLimitInterceptor(
+                List.of(new RateLimitPolicy("login", "/**/login", 5, 1, "登录请求过于频繁，请稍后再试")),
+                new LocalRateLimitBackend(8, 100));
         when(request.getRequestURI()).thenReturn("/api/users/login");
-        when(request.getHeader("X-Forwarded-For")).thenReturn("192.168.1.100, 10.0.0.1, 172.16.0.1");
-        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
-        
-        boolean result = interceptor.preHandle(request, response, handlerMethod);
-        
-        assertThat(result).isTrue();
+        when(request.getRemoteAddr()).thenReturn("203.0.113.20");
+        StringWriter body = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(body));
+
+        assertThat(limited.preHandle(request, response, handlerMethod)).isTrue();
+        assertThat(limited.preHandle(request, response, handlerMethod)).isFalse();
+
+        verify(response).setStatus(429);
+        verify(response).setHeader("Retry-After", "12");
+        assertThat(body.toString()).contains("\"code\":429").contains("登录请求过于频繁");
     }
 
     @Test
@@ -0,0 +1,124 @@
+package com.interceptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqlMetricsInterceptorTest {
+
+    private static final String STATEMENT_ID = "com.dao.YonghuDao.selectListView";
+
+    private final Configuration configuration = new Configuration();
+    private SimpleMeterRegistry meterRegistry;
+    private Executor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = mock(Executor.class);
+    }
+
+    @Test
+    void shouldTimeQueriesByStatementIdAndRecordRows() throws Throwable {
+        SqlMetricsInterceptor interceptor = new SqlMetricsInterceptor(meterRegistry, 500, 60_000);
+        when(executor.query(any(), any(), any(), any())).thenReturn(List.of("a", "b", "c"));
+
+        interceptor.intercept(queryInvocation(select()));
+        interceptor.intercept(queryInvocation(select()));
+
+        assertThat(meterRegistry.get(SqlMetricsInterceptor.TIMER_NAME)
+                .tags("statement", STATEMENT_ID, "command", "SELECT", "outcome", "success")
+                .timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(SqlMetricsInterceptor.ROWS_NAME)
+                .tag("statement", STATEMENT_ID).summary().totalAmount()).isEqualTo(6.0);
+    }
+
+    @Test
+    void shouldRecordAffectedRowsForUpdates() throws Throwable {
+        SqlMetricsInterceptor interceptor = new SqlMetricsInterceptor(meterRegistry, 500, 60_000);
+        MappedStatement update = statement("com.dao.YonghuDao.updateById", "update yonghu set mima = ? where id = ?",
+                SqlCommandType.UPDATE);
+        when(executor.update(any(), any())).thenReturn(1);
+        Method method = Executor.class.getMethod("update", MappedStatement.class, Object.class);
+
+        interceptor.intercept(new Invocation(executor, method, new Object[]{update, null}));
+
+        assertThat(meterRegistry.get(SqlMetricsInterceptor.ROWS_NAME)
+                .tags("statement", "com.dao.YonghuDao.updateById", "command", "UPDATE")
+                .summary().totalAmount()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldTagFailuresAndRethrow() throws Exception {
+        SqlMetricsInterceptor interceptor = new SqlMetricsInterceptor(meterRegistry, 500, 60_000);
+        when(executor.query(any(), any(), any(), any())).thenThrow(new SQLException("boom"));
+
+        assertThatThrownBy(() -> interceptor.intercept(queryInvocation(select())))
+                .hasRootCauseInstanceOf(SQLException.class);
+        assertThat(meterRegistry.get(SqlMetricsInterceptor.TIMER_NAME)
+                .tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountSlowStatements() throws Throwable {
+        // 阈值为0时每条语句都视为慢查询
+        SqlMetricsInterceptor interceptor = new SqlMetricsInterceptor(meterRegistry, 0, 60_000);
+        when(executor.query(any(), any(), any(), any())).thenReturn(List.of());
+
+        interceptor.intercept(queryInvocation(select()));
+        interceptor.intercept(queryInvocation(select()));
+
+        assertThat(meterRegistry.get(SqlMetricsInterceptor.SLOW_NAME)
+                .tag("statement", STATEMENT_ID).counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void boundSqlShouldCollapseWhitespace() {
+        MappedStatement statement = statement(STATEMENT_ID, "select *\n   from yonghu\n where id = ?",
+                SqlCommandType.SELECT);
+
+        assertThat(SqlMetricsInterceptor.boundSql(statement, new Object[]{statement, null}))
+                .isEqualTo("select * from yonghu where id = ?");
+    }
+
+    @Test
+    void shouldWorkWithoutMeterRegistry() throws Throwable {
+        SqlMetricsInterceptor interceptor = new SqlMetricsInterceptor(null, 500, 60_000);
+        when(executor.query(any(), any(), any(), any())).thenReturn(List.of("a"));
+
+        assertThat(interceptor.intercept(queryInvocation(select()))).isEqualTo(List.of("a"));
+    }
+
+    private MappedStatement select() {
+        return statement(STATEMENT_ID, "select * from yonghu", SqlCommandType.SELECT);
+    }
+
+    private MappedStatement statement(String id, String sql, SqlCommandType type) {
+        return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, sql), type).build();
+    }
+
+    private Invocation queryInvocation(MappedStatement statement) throws NoSuchMethodException {
+        Method method = Executor.class.getMethod("query", MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class);
+        return new Invocation(executor, method,
+                new Object[]{statement, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER});
+    }
+}
@@ -11,8 +11,10 @@ import org.springframework.test.context.ActiveProfiles;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -301,5 +303,46 @@ class AssetsServiceImplTest {
         PageUtils result = assetsService.queryPage(params, null);
         assertThat(result).isNotNull();
     }
-}
 
+    @Test
+    void shouldCountReferencesForContentAddressedUploads() {
+        String hash = "ab".repeat(32);
+
+        AssetsEntity first = assetsService.acquireContent(hash, com.utils.TestUtils.createAssetRecord("cas", "image"));
+        AssetsEntity second = assetsService.acquireContent(hash, com.utils.TestUtils.createAssetRecord("cas", "image"));
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getRefCount()).isEqualTo(2);
+
+        assertThat(assetsService.releaseContent(hash)).isEqualTo(1);
+        assertThat(assetsService.releaseContent(hash)).isZero();
+        assertThat(assetsService.count(new QueryWrapper<AssetsEntity>().eq("content_hash", hash))).isZero();
+        assertThat(assetsService.releaseContent(hash)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldDeleteStoredContentOnlyWithLastReference() {
+        String hash = "cd".repeat(32);
+        assetsService.acquireContent(hash, com.utils.TestUtils.createAssetRecord("cas", "image"));
+        assetsService.acquireContent(hash, com.utils.TestUtils.createAssetRecord("cas", "image"));
+        AtomicInteger deletions = new AtomicInteger();
+
+        assertThat(assetsService.releaseContent(hash, deletions::incrementAndGet)).isEqualTo(1);
+        assertThat(deletions).hasValue(0);
+
+        // 存储删除在提交后执行，失败时引用已释放，只留下无人引用的文件
+        assertThatThrownBy(() -> assetsService.releaseContent(hash, () -> {
+            throw new IllegalStateException("storage unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(assetsService.count(new QueryWrapper<AssetsEntity>().eq("content_hash", hash))).isZero();
+        assertThat(assetsService.releaseContent(hash, deletions::incrementAndGet)).isEqualTo(-1);
+        assertThat(deletions).hasValue(0);
+
+        AssetsEntity revived = assetsService.acquireContent(hash, com.utils.TestUtils.createAssetRecord("cas", "image"));
+        assertThat(revived.getId()).isNotNull();
+        assertThat(revived.getRefCount()).isEqualTo(1);
+        assertThat(assetsService.releaseContent(hash, deletions::incrementAndGet)).isZero();
+        assertThat(deletions).hasValue(1);
+        assertThat(assetsService.count(new QueryWrapper<AssetsEntity>().eq("content_hash", hash))).isZero();
+    }
+}
@@ -0,0 +1,79 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.KechengyuyueEntity;
+import com.utils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchReviewServiceImplTest {
+
+    @Autowired
+    private BatchReviewService batchReviewService;
+
+    @Autowired
+    private KechengyuyueService kechengyuyueService;
+
+    @AfterEach
+    void cleanupTestData() {
+        kechengyuyueService.remove(new QueryWrapper<KechengyuyueEntity>().likeRight("yuyuebianhao", "REVIEW-"));
+        ReflectionTestUtils.setField(AopTestUtils.getUltimateTargetObject(batchReviewService), "chunkSize", 1000);
+    }
+
+    @Test
+    void shouldReviewAllIdsAcrossChunks() {
+        // 每块2个id，5条记录分3块执行
+        ReflectionTestUtils.setField(AopTestUtils.getUltimateTargetObject(batchReviewService), "chunkSize", 2);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            KechengyuyueEntity reservation = TestUtils.createReservationTemplate("REVIEW-" + i, "member001");
+            reservation.setSfsh("待审核");
+            kechengyuyueService.save(reservation);
+            ids.add(reservation.getId());
+        }
+
+        BatchReviewService.ReviewResult result = batchReviewService.review(
+                BatchReviewService.Target.KECHENGYUYUE, ids.toArray(new Long[0]), "是", "审核通过");
+
+        assertThat(result.getUpdated()).containsExactlyElementsOf(ids);
+        assertThat(result.getNotFound()).isEmpty();
+        assertThat(kechengyuyueService.listByIds(ids))
+                .allMatch(row -> "是".equals(row.getSfsh()) && "审核通过".equals(row.getShhf()));
+    }
+
+    @Test
+    void shouldReportMissingAndIgnoreDuplicateIds() {
+        KechengyuyueEntity reservation = TestUtils.createReservationTemplate("REVIEW-MISSING", "member001");
+        reservation.setSfsh("待审核");
+        kechengyuyueService.save(reservation);
+        Long missingId = Long.MAX_VALUE;
+
+        BatchReviewService.ReviewResult result = batchReviewService.review(BatchReviewService.Target.KECHENGYUYUE,
+                new Long[]{reservation.getId(), missingId, reservation.getId(), null}, "否", "名额不足");
+
+        assertThat(result.getUpdated()).containsExactly(reservation.getId());
+        assertThat(result.getNotFound()).containsExactly(missingId);
+        assertThat(kechengyuyueService.getById(reservation.getId()).getShhf()).isEqualTo("名额不足");
+    }
+
+    @Test
+    void shouldHandleEmptyIds() {
+        BatchReviewService.ReviewResult result = batchReviewService.review(
+                BatchReviewService.Target.KECHENGTUIKE, new Long[0], "是", "");
+
+        assertThat(result.getUpdatedCount()).isZero();
+        assertThat(result.getNotFound()).isEmpty();
+    }
+}
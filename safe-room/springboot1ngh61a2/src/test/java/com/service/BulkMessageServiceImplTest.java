@@ -0,0 +1,168 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.EIException;
+import com.entity.KechengyuyueEntity;
+import com.entity.MessageEntity;
+import com.entity.SijiaoyuyueEntity;
+import com.entity.YonghuEntity;
+import com.utils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkMessageServiceImplTest {
+
+    private static final String PREFIX = "bulk-message-";
+
+    @Autowired
+    private BulkMessageService bulkMessageService;
+
+    @Autowired
+    private YonghuService yonghuService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private KechengyuyueService kechengyuyueService;
+
+    @Autowired
+    private SijiaoyuyueService sijiaoyuyueService;
+
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanupTestData() {
+        if (!memberIds.isEmpty()) {
+            messageService.remove(new QueryWrapper<MessageEntity>().in("userid", memberIds));
+        }
+        kechengyuyueService.remove(new QueryWrapper<KechengyuyueEntity>().likeRight("yonghuzhanghao", PREFIX));
+        sijiaoyuyueService.remove(new QueryWrapper<SijiaoyuyueEntity>().likeRight("yonghuzhanghao", PREFIX));
+        yonghuService.remove(new QueryWrapper<YonghuEntity>().likeRight("yonghuzhanghao", PREFIX));
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(bulkMessageService), "batchSize", 1000);
+    }
+
+    @Test
+    void shouldSendToCardHoldersInBatches() throws Exception {
+        // 每批2条，3个收件人跨2批
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(bulkMessageService), "batchSize", 2);
+        String card = PREFIX + "card-" + System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            member(PREFIX + "holder-" + i, card);
+        }
+        YonghuEntity other = member(PREFIX + "other", "普通卡");
+
+        Map<String, Object> progress = await(bulkMessageService.submit(
+                BulkMessageService.Audience.CARD, card, "会员日公告", "本周六会员日全场八折"));
+
+        assertThat(progress.get("status")).isEqualTo("completed");
+        assertThat(progress.get("resolved")).isEqualTo(3L);
+        assertThat(progress.get("sent")).isEqualTo(3L);
+        List<MessageEntity> messages = messageService.list(new QueryWrapper<MessageEntity>().in("userid", memberIds));
+        assertThat(messages).hasSize(3);
+        assertThat(messages).noneMatch(message -> other.getId().equals(message.getUserid()));
+        assertThat(messages).allMatch(message -> "announcement".equals(message.getType())
+                && "broadcast".equals(message.getRelatedType())
+                && Integer.valueOf(0).equals(message.getIsread())
+                && "会员日公告".equals(message.getTitle()));
+    }
+
+    @Test
+    void shouldSendOncePerCourseAttendeeExcludingCancelled() throws Exception {
+        long courseId = System.nanoTime();
+        YonghuEntity twice = member(PREFIX + "twice", null);
+        YonghuEntity once = member(PREFIX + "once", null);
+        YonghuEntity cancelled = member(PREFIX + "cancelled", null);
+        reservation(twice, courseId, "已支付");
+        reservation(twice, courseId, "已支付");
+        reservation(once, courseId, "未支付");
+        reservation(cancelled, courseId, "已取消");
+
+        Map<String, Object> progress = await(bulkMessageService.submit(
+                BulkMessageService.Audience.COURSE, String.valueOf(courseId), "课程调整", "本周课程改至二号教室"));
+
+        assertThat(progress.get("sent")).isEqualTo(2L);
+        assertThat(messageService.list(new QueryWrapper<MessageEntity>().in("userid", memberIds)))
+                .extracting(MessageEntity::getUserid)
+                .containsExactlyInAnyOrder(twice.getId(), once.getId());
+    }
+
+    @Test
+    void shouldSendToCoachClientsFromBothBookingTables() throws Exception {
+        String coach = PREFIX + "coach-" + System.nanoTime();
+        YonghuEntity privateClient = member(PREFIX + "private", null);
+        YonghuEntity courseClient = member(PREFIX + "course", null);
+        member(PREFIX + "stranger", null);
+        SijiaoyuyueEntity session = TestUtils.createPrivateReservation(privateClient.getYonghuzhanghao());
+        session.setJiaoliangonghao(coach);
+        sijiaoyuyueService.save(session);
+        KechengyuyueEntity booking = reservation(courseClient, System.nanoTime(), "已支付");
+        booking.setJiaoliangonghao(coach);
+        kechengyuyueService.updateById(booking);
+
+        Map<String, Object> progress = await(bulkMessageService.submit(
+                BulkMessageService.Audience.COACH, coach, "教练请假", "下周一私教课顺延"));
+
+        assertThat(progress.get("sent")).isEqualTo(2L);
+        assertThat(messageService.list(new QueryWrapper<MessageEntity>().in("userid", memberIds)))
+                .extracting(MessageEntity::getUserid)
+                .containsExactlyInAnyOrder(privateClient.getId(), courseClient.getId());
+    }
+
+    @Test
+    void shouldRejectInvalidRequests() {
+        assertThatThrownBy(() -> bulkMessageService.submit(BulkMessageService.Audience.CARD, " ", "标题", "内容"))
+                .isInstanceOf(EIException.class);
+        assertThatThrownBy(() -> bulkMessageService.submit(BulkMessageService.Audience.COURSE, "abc", "标题", "内容"))
+                .isInstanceOf(EIException.class);
+        assertThatThrownBy(() -> bulkMessageService.submit(BulkMessageService.Audience.ALL, null, "", "内容"))
+                .isInstanceOf(EIException.class);
+        assertThat(BulkMessageService.Audience.parse("Coach")).isEqualTo(BulkMessageService.Audience.COACH);
+        assertThat(BulkMessageService.Audience.parse("members")).isNull();
+        assertThat(bulkMessageService.getProgress("missing")).isNull();
+    }
+
+    private Map<String, Object> await(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            Map<String, Object> progress = bulkMessageService.getProgress(jobId);
+            String status = String.valueOf(progress.get("status"));
+            if ("completed".equals(status) || "failed".equals(status) || System.currentTimeMillis() > deadline) {
+                return progress;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private YonghuEntity member(String account, String card) {
+        YonghuEntity member = TestUtils.createMemberEntity(account);
+        member.setHuiyuankamingcheng(card);
+        yonghuService.save(member);
+        memberIds.add(member.getId());
+        return member;
+    }
+
+    private KechengyuyueEntity reservation(YonghuEntity member, long courseId, String ispay) {
+        KechengyuyueEntity reservation = TestUtils.createReservationTemplate(
+                "BM-" + System.nanoTime(), member.getYonghuzhanghao());
+        reservation.setCrossuserid(member.getId());
+        reservation.setCrossrefid(courseId);
+        reservation.setIspay(ispay);
+        kechengyuyueService.save(reservation);
+        return reservation;
+    }
+}
@@ -0,0 +1,137 @@
+package com.service;
+
+import com.service.impl.CoachSlotIndex;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoachSlotIndexTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void shouldDetectOverlapWithinSameCoachOnly() {
+        CoachSlotIndex index = new CoachSlotIndex();
+        index.add("coach001", 1L, 10 * HOUR, 11 * HOUR);
+
+        assertThat(index.findConflict("coach001", 10 * HOUR + HOUR / 2, 11 * HOUR + HOUR / 2, null)).isEqualTo(1L);
+        assertThat(index.findConflict("coach001", 9 * HOUR + HOUR / 2, 10 * HOUR + HOUR / 2, null)).isEqualTo(1L);
+        assertThat(index.findConflict("coach001", 10 * HOUR, 11 * HOUR, null)).isEqualTo(1L);
+        assertThat(index.findConflict("coach002", 10 * HOUR, 11 * HOUR, null)).isNull();
+    }
+
+    @Test
+    void shouldAllowAdjacentSlots() {
+        CoachSlotIndex index = new CoachSlotIndex();
+        index.add("coach001", 1L, 10 * HOUR, 11 * HOUR);
+
+        assertThat(index.findConflict("coach001", 11 * HOUR, 12 * HOUR, null)).isNull();
+        assertThat(index.findConflict("coach001", 9 * HOUR, 10 * HOUR, null)).isNull();
+    }
+
+    @Test
+    void shouldIgnoreExcludedBooking() {
+        CoachSlotIndex index = new CoachSlotIndex();
+        index.add("coach001", 1L, 10 * HOUR, 11 * HOUR);
+
+        assertThat(index.findConflict("coach001", 10 * HOUR + HOUR / 2, 11 * HOUR + HOUR / 2, 1L)).isNull();
+    }
+
+    @Test
+    void shouldFindLongSlotStartingWellBeforeQuery() {
+        CoachSlotIndex index = new CoachSlotIndex();
+        index.add("coach001", 1L, 8 * HOUR, 12 * HOUR);
+        index.add("coach001", 2L, 13 * HOUR, 14 * HOUR);
+
+        assertThat(index.findConflict("coach001", 11 * HOUR, 11 * HOUR + HOUR / 2, null)).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldListBusySlotsInRangeOrderedByStart() {
+        CoachSlotIndex index = new CoachSlotIndex();
+        index.add("coach001", 3L, 15 * HOUR, 16 * HOUR);
+        index.add("coach001", 1L, 9 * HOUR, 10 * HOUR);
+        index.add("coach001", 2L, 12 * HOUR, 13 * HOUR);
+
+        List<long[]> busy = index.busy("coach001", 9 * HOUR + HOUR / 2, 15 * HOUR);
+
+        assertThat(busy).extracting(slot -> slot[2]).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldMoveAndRemoveBookings() {
+        CoachSlotIndex index = new CoachSlotIndex();
+        index.add("coach001", 1L, 10 * HOUR, 11 * HOUR);
+
+        // 同一预约改到其他教练
+        index.add("coach002", 1L, 10 * HOUR, 11 * HOUR);
+        assertThat(index.findConflict("coach001", 10 * HOUR, 11 * HOUR, null)).isNull();
+        assertThat(index.findConflict("coach002", 10 * HOUR, 11 * HOUR, null)).isEqualTo(1L);
+
+        index.remove(1L);
+        assertThat(index.findConflict("coach002", 10 * HOUR, 11 * HOUR, null)).isNull();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void shouldPruneFinishedSlots() {
+        CoachSlotIndex index = new CoachSlotIndex();
+        index.add("coach001", 1L, 1 * HOUR, 2 * HOUR);
+        index.add("coach001", 2L, 5 * HOUR, 6 * HOUR);
+
+        index.pruneBefore(3 * HOUR);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.busy("coach001", 0, 10 * HOUR)).extracting(slot -> slot[2]).containsExactly(2L);
+    }
+
+    @Test
+    void shouldMaintainDailyGridOnAddAndRemove() {
+        CoachSlotIndex index = new CoachSlotIndex(ZoneOffset.UTC);
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        long midnight = index.startOfDay(day);
+        // 历史数据中的重叠预约：10:00-11:00 与 10:30-11:30
+        index.add("coach001", 1L, midnight + 10 * HOUR, midnight + 11 * HOUR);
+        index.add("coach001", 2L, midnight + 10 * HOUR + HOUR / 2, midnight + 11 * HOUR + HOUR / 2);
+
+        assertThat(busyCells(index.busyMask("coach001", day))).containsExactly(40, 41, 42, 43, 44, 45);
+
+        // 释放一条后，仍被另一条占用的格子保持占用
+        index.remove(1L);
+        assertThat(busyCells(index.busyMask("coach001", day))).containsExactly(42, 43, 44, 45);
+
+        index.remove(2L);
+        assertThat(busyCells(index.busyMask("coach001", day))).isEmpty();
+        assertThat(busyCells(index.busyMask("coach002", day))).isEmpty();
+    }
+
+    @Test
+    void shouldSplitGridAcrossMidnight() {
+        CoachSlotIndex index = new CoachSlotIndex(ZoneOffset.UTC);
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        long midnight = index.startOfDay(day.plusDays(1));
+        index.add("coach001", 1L, midnight - HOUR / 2, midnight + HOUR / 2);
+
+        assertThat(busyCells(index.busyMask("coach001", day))).containsExactly(94, 95);
+        assertThat(busyCells(index.busyMask("coach001", day.plusDays(1)))).containsExactly(0, 1);
+
+        index.pruneBefore(midnight);
+        assertThat(busyCells(index.busyMask("coach001", day))).isEmpty();
+        assertThat(busyCells(index.busyMask("coach001", day.plusDays(1)))).containsExactly(0, 1);
+    }
+
+    private static List<Integer> busyCells(long[] mask) {
+        List<Integer> cells = new ArrayList<>();
+        for (int bit = 0; bit < CoachSlotIndex.GRID_SLOTS_PER_DAY; bit++) {
+            if ((mask[bit >>> 6] & (1L << (bit & 63))) != 0) {
+                cells.add(bit);
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,162 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.KechengyuyueEntity;
+import com.service.impl.SeatLedger;
+import com.utils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CourseBookingServiceImplTest {
+
+    // test-data.sql 中的课程
+    private static final long COURSE_ID = 1L;
+    private static final long OTHER_COURSE_ID = 2L;
+
+    @Autowired
+    private CourseBookingService courseBookingService;
+
+    @Autowired
+    private KechengyuyueService kechengyuyueService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanupTestData() {
+        kechengyuyueService.remove(new QueryWrapper<KechengyuyueEntity>().likeRight("yuyuebianhao", "SEAT-"));
+        jdbcTemplate.update("DELETE FROM kecheng_seat_inventory WHERE kecheng_id IN (?, ?)", COURSE_ID, OTHER_COURSE_ID);
+        // 名额表已直接删除，台账需同步丢弃
+        SeatLedger ledger = (SeatLedger) ReflectionTestUtils.getField(
+                AopTestUtils.getUltimateTargetObject(courseBookingService), "ledger");
+        ledger.invalidate(COURSE_ID);
+        ledger.invalidate(OTHER_COURSE_ID);
+    }
+
+    @Test
+    void shouldRejectBookingWhenSoldOut() {
+        courseBookingService.setCapacity(COURSE_ID, 2);
+
+        assertThat(courseBookingService.book(reservation("SEAT-A1", COURSE_ID)).isBooked()).isTrue();
+        CourseBookingService.BookingResult second = courseBookingService.book(reservation("SEAT-A2", COURSE_ID));
+        assertThat(second.isBooked()).isTrue();
+        assertThat(second.getRemaining()).isZero();
+        assertThat(courseBookingService.book(reservation("SEAT-A3", COURSE_ID)).isBooked()).isFalse();
+
+        assertThat(bookingCount(COURSE_ID)).isEqualTo(2);
+        assertThat(courseBookingService.getSeatStatus(COURSE_ID).get("remaining")).isEqualTo(0);
+    }
+
+    @Test
+    void shouldBookWithoutLimitWhenCapacityNotConfigured() {
+        CourseBookingService.BookingResult result = courseBookingService.book(reservation("SEAT-U1", OTHER_COURSE_ID));
+
+        assertThat(result.isBooked()).isTrue();
+        assertThat(result.getRemaining()).isNull();
+        assertThat(courseBookingService.getSeatStatus(OTHER_COURSE_ID).get("capacity")).isNull();
+    }
+
+    @Test
+    void shouldReleaseSeatAndAllowNextBooking() {
+        courseBookingService.setCapacity(COURSE_ID, 1);
+        assertThat(courseBookingService.book(reservation("SEAT-R1", COURSE_ID)).isBooked()).isTrue();
+        assertThat(courseBookingService.book(reservation("SEAT-R2", COURSE_ID)).isBooked()).isFalse();
+
+        courseBookingService.releaseSeat(COURSE_ID);
+        // 不会超过总名额
+        courseBookingService.releaseSeat(COURSE_ID);
+
+        assertThat(courseBookingService.getSeatStatus(COURSE_ID).get("remaining")).isEqualTo(1);
+        assertThat(courseBookingService.book(reservation("SEAT-R3", COURSE_ID)).isBooked()).isTrue();
+    }
+
+    @Test
+    void shouldCountExistingBookingsWhenCapacityFirstConfigured() {
+        courseBookingService.book(reservation("SEAT-E1", COURSE_ID));
+        courseBookingService.book(reservation("SEAT-E2", COURSE_ID));
+
+        courseBookingService.setCapacity(COURSE_ID, 3);
+        assertThat(courseBookingService.getSeatStatus(COURSE_ID).get("remaining")).isEqualTo(1);
+
+        // 缩减名额时剩余名额不小于0
+        courseBookingService.setCapacity(COURSE_ID, 1);
+        assertThat(courseBookingService.getSeatStatus(COURSE_ID).get("remaining")).isEqualTo(0);
+    }
+
+    @Test
+    void shouldNotOversellUnderConcurrentLoad() throws Exception {
+        int capacity = 50;
+        int attempts = 5000;
+        courseBookingService.setCapacity(COURSE_ID, capacity);
+
+        List<KechengyuyueEntity> payloads = new ArrayList<>(attempts);
+        for (int i = 0; i < attempts; i++) {
+            payloads.add(reservation("SEAT-L" + i, COURSE_ID));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(200);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>(attempts);
+        try {
+            for (KechengyuyueEntity payload : payloads) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    boolean booked = courseBookingService.book(payload).isBooked();
+                    return new long[]{booked ? 1 : 0, System.nanoTime() - begin};
+                }));
+            }
+            start.countDown();
+
+            int booked = 0;
+            long[] latencies = new long[attempts];
+            for (int i = 0; i < attempts; i++) {
+                long[] result = futures.get(i).get(60, TimeUnit.SECONDS);
+                booked += (int) result[0];
+                latencies[i] = result[1];
+            }
+            Arrays.sort(latencies);
+            long p99Millis = TimeUnit.NANOSECONDS.toMillis(latencies[(int) Math.ceil(attempts * 0.99) - 1]);
+
+            assertThat(booked).isEqualTo(capacity);
+            assertThat(bookingCount(COURSE_ID)).isEqualTo(capacity);
+            assertThat(courseBookingService.getSeatStatus(COURSE_ID).get("remaining")).isEqualTo(0);
+            // 满员后的请求由台账在内存中拒绝，尾延迟不随并发请求数增长
+            assertThat(p99Millis).isLessThan(2000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long bookingCount(long courseId) {
+        return kechengyuyueService.count(new QueryWrapper<KechengyuyueEntity>()
+                .eq("crossrefid", courseId)
+                .likeRight("yuyuebianhao", "SEAT-"));
+    }
+
+    private static KechengyuyueEntity reservation(String yuyuebianhao, long courseId) {
+        KechengyuyueEntity entity = TestUtils.createReservationTemplate(yuyuebianhao, "member001");
+        entity.setId(null);
+        entity.setCrossrefid(courseId);
+        return entity;
+    }
+}
@@ -0,0 +1,111 @@
+package com.service;
+
+import com.service.impl.ErrorReportServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorReportServiceImplTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ErrorReportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new ErrorReportServiceImpl();
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "windowMs", 60_000L);
+        ReflectionTestUtils.setField(service, "sampleRate", 0.0);
+        ReflectionTestUtils.setField(service, "maxSamplesPerWindow", 5);
+        ReflectionTestUtils.setField(service, "maxFingerprints", 2);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void fingerprintShouldIgnoreVolatileParts() {
+        String first = service.fingerprint(error("TypeError", "Cannot read id 42", "/course/17?tab=1",
+                "TypeError: x\n    at render (app.js?v=1:10:5)"));
+        String second = service.fingerprint(error("TypeError", "Cannot read id 99", "/course/23#top",
+                "TypeError: x\n    at render (app.js?v=2:10:5)"));
+
+        assertThat(first).hasSize(16).isEqualTo(second);
+    }
+
+    @Test
+    void fingerprintShouldDifferByTopFrame() {
+        String first = service.fingerprint(error("TypeError", "boom", "/a", "at render (app.js:10:5)"));
+        String second = service.fingerprint(error("TypeError", "boom", "/a", "at mount (app.js:20:5)"));
+
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    void reportShouldAggregateCountsAndExposeCounter() {
+        Map<String, Object> payload = error("TypeError", "boom", "/a", "");
+        String fingerprint = null;
+        for (int i = 0; i < 3; i++) {
+            fingerprint = service.report(payload);
+        }
+
+        assertThat(service.getWindowCount(fingerprint)).isEqualTo(3);
+        assertThat(meterRegistry.get("fitness_gym_frontend_errors_total")
+                .tag("fingerprint", fingerprint).counter().count()).isEqualTo(3.0);
+        // 首条必采样，采样率为0时其余只计数
+        assertThat(meterRegistry.get("fitness_gym_frontend_error_samples_total").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void flushWindowShouldResetWindowCounts() {
+        String fingerprint = service.report(error("TypeError", "boom", "/a", ""));
+
+        service.flushWindow();
+
+        assertThat(service.getWindowCount(fingerprint)).isZero();
+        service.report(error("TypeError", "boom", "/a", ""));
+        assertThat(meterRegistry.get("fitness_gym_frontend_error_samples_total").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void newFingerprintsBeyondLimitShouldGoToOverflowBucket() {
+        service.report(error("A", "one", "/a", ""));
+        service.report(error("B", "two", "/b", ""));
+
+        String fingerprint = service.report(error("C", "three", "/c", ""));
+
+        assertThat(fingerprint).isEqualTo("overflow");
+        assertThat(service.getWindowCount("overflow")).isEqualTo(1);
+    }
+
+    @Test
+    void reportShouldTolerateNonStringFields() {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", 500);
+        payload.put("message", null);
+
+        assertThat(service.report(payload)).isNotBlank();
+    }
+
+    private Map<String, Object> error(String type, String message, String url, String stack) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", type);
+        payload.put("message", message);
+        payload.put("url", url);
+        payload.put("stack", stack);
+        return payload;
+    }
+}
@@ -0,0 +1,109 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.DaoqitixingEntity;
+import com.entity.MessageEntity;
+import com.entity.YonghuEntity;
+import com.service.impl.ExpiryReminderGenerator;
+import com.utils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ExpiryReminderGeneratorTest {
+
+    private static final String PREFIX = "expiry-reminder-";
+
+    @Autowired
+    private ExpiryReminderGenerator expiryReminderGenerator;
+
+    @Autowired
+    private YonghuService yonghuService;
+
+    @Autowired
+    private DaoqitixingService daoqitixingService;
+
+    @Autowired
+    private MessageService messageService;
+
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanupTestData() {
+        daoqitixingService.remove(new QueryWrapper<DaoqitixingEntity>().likeRight("yonghuzhanghao", PREFIX));
+        if (!memberIds.isEmpty()) {
+            messageService.remove(new QueryWrapper<MessageEntity>().in("userid", memberIds));
+        }
+        yonghuService.remove(new QueryWrapper<YonghuEntity>().likeRight("yonghuzhanghao", PREFIX));
+        ReflectionTestUtils.setField(expiryReminderGenerator, "batchSize", 500);
+    }
+
+    @Test
+    void shouldRemindMembersInWindowOnlyOnce() {
+        // 每批2人，窗口内的5人跨3批
+        ReflectionTestUtils.setField(expiryReminderGenerator, "batchSize", 2);
+        for (int i = 0; i < 5; i++) {
+            member(PREFIX + "soon-" + i, LocalDate.now().plusDays(i));
+        }
+        member(PREFIX + "later", LocalDate.now().plusDays(30));
+        member(PREFIX + "expired", LocalDate.now().minusDays(1));
+
+        expiryReminderGenerator.generate();
+
+        List<DaoqitixingEntity> reminders = daoqitixingService.list(
+                new QueryWrapper<DaoqitixingEntity>().likeRight("yonghuzhanghao", PREFIX));
+        assertThat(reminders).extracting(DaoqitixingEntity::getYonghuzhanghao)
+                .containsExactlyInAnyOrder(PREFIX + "soon-0", PREFIX + "soon-1", PREFIX + "soon-2",
+                        PREFIX + "soon-3", PREFIX + "soon-4");
+        List<MessageEntity> messages = messageService.list(new QueryWrapper<MessageEntity>().in("userid", memberIds));
+        assertThat(messages).hasSize(5);
+        assertThat(messages).allMatch(message -> "reminder".equals(message.getType())
+                && "daoqitixing".equals(message.getRelatedType())
+                && reminders.stream().anyMatch(reminder -> reminder.getId().equals(message.getRelatedId())));
+
+        // 重复执行不会重复提醒
+        expiryReminderGenerator.generate();
+        assertThat(daoqitixingService.count(new QueryWrapper<DaoqitixingEntity>().likeRight("yonghuzhanghao", PREFIX)))
+                .isEqualTo(5);
+        assertThat(messageService.count(new QueryWrapper<MessageEntity>().in("userid", memberIds))).isEqualTo(5);
+    }
+
+    @Test
+    void shouldRemindAgainAfterRenewalChangesExpiry() {
+        YonghuEntity member = member(PREFIX + "renewed", LocalDate.now().plusDays(2));
+        expiryReminderGenerator.generate();
+
+        // 续费后到期日变化，新的到期日进入窗口时再次提醒
+        member.setYouxiaoqizhi(toDate(LocalDate.now().plusDays(5)));
+        yonghuService.updateById(member);
+        expiryReminderGenerator.generate();
+
+        assertThat(daoqitixingService.count(new QueryWrapper<DaoqitixingEntity>().eq("yonghuzhanghao", PREFIX + "renewed")))
+                .isEqualTo(2);
+    }
+
+    private YonghuEntity member(String account, LocalDate expiry) {
+        YonghuEntity member = TestUtils.createMemberEntity(account);
+        member.setYouxiaoqizhi(toDate(expiry));
+        yonghuService.save(member);
+        memberIds.add(member.getId());
+        return member;
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,41 @@
+package com.service;
+
+import com.service.impl.ImageDerivativeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageDerivativeServiceImplTest {
+
+    private ImageDerivativeServiceImpl imageDerivativeService;
+
+    @BeforeEach
+    void setUp() {
+        imageDerivativeService = new ImageDerivativeServiceImpl();
+        ReflectionTestUtils.setField(imageDerivativeService, "cacheMaxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(imageDerivativeService, "jpegQuality", 0.8f);
+        imageDerivativeService.init();
+    }
+
+    @Test
+    void shouldRoundRequestedWidthUpToBucket() {
+        assertThat(imageDerivativeService.resolveWidthBucket(1)).isEqualTo(160);
+        assertThat(imageDerivativeService.resolveWidthBucket(320)).isEqualTo(320);
+        assertThat(imageDerivativeService.resolveWidthBucket(321)).isEqualTo(640);
+        assertThat(imageDerivativeService.resolveWidthBucket(5000)).isEqualTo(1280);
+    }
+
+    @Test
+    void shouldIgnoreNonImageFiles() throws Exception {
+        assertThat(imageDerivativeService.getDerivative("upload/clip.mp4", 320, null)).isNull();
+    }
+
+    @Test
+    void shouldRejectPathTraversal() {
+        assertThatThrownBy(() -> imageDerivativeService.getDerivative("../secret.png", 320, null))
+                .hasMessageContaining("非法字符");
+    }
+}
@@ -0,0 +1,92 @@
+package com.service;
+
+import com.service.impl.LocalRateLimitBackend;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimitBackendTest {
+
+    @Test
+    void shouldAllowBurstThenReject() {
+        LocalRateLimitBackend backend = new LocalRateLimitBackend(8, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(backend.tryAcquire("login:1.1.1.1", 3, 0.01)).isTrue();
+        }
+        assertThat(backend.tryAcquire("login:1.1.1.1", 3, 0.01)).isFalse();
+        // 其他客户端的桶不受影响
+        assertThat(backend.tryAcquire("login:2.2.2.2", 3, 0.01)).isTrue();
+    }
+
+    @Test
+    void shouldRefillOverTime() throws Exception {
+        LocalRateLimitBackend backend = new LocalRateLimitBackend(8, 100);
+
+        assertThat(backend.tryAcquire("k", 1, 50)).isTrue();
+        assertThat(backend.tryAcquire("k", 1, 50)).isFalse();
+        Thread.sleep(60);
+        assertThat(backend.tryAcquire("k", 1, 50)).isTrue();
+    }
+
+    @Test
+    void shouldResetBuckets() {
+        LocalRateLimitBackend backend = new LocalRateLimitBackend(8, 100);
+        backend.tryAcquire("a", 1, 0.01);
+        backend.tryAcquire("b", 1, 0.01);
+
+        backend.reset("a");
+        assertThat(backend.tryAcquire("a", 1, 0.01)).isTrue();
+        assertThat(backend.tryAcquire("b", 1, 0.01)).isFalse();
+
+        backend.resetAll();
+        assertThat(backend.tryAcquire("b", 1, 0.01)).isTrue();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBucketsPerStripe() {
+        // 单分段、最多2个桶：第三个桶挤掉最久未用的桶，被挤掉的桶重新按满桶开始
+        LocalRateLimitBackend backend = new LocalRateLimitBackend(1, 2);
+        backend.tryAcquire("a", 1, 0.01);
+        backend.tryAcquire("b", 1, 0.01);
+        backend.tryAcquire("c", 1, 0.01);
+
+        assertThat(backend.tryAcquire("a", 1, 0.01)).isTrue();
+        assertThat(backend.tryAcquire("c", 1, 0.01)).isFalse();
+    }
+
+    @Test
+    void shouldNotOverGrantUnderConcurrency() throws Exception {
+        LocalRateLimitBackend backend = new LocalRateLimitBackend(4, 100);
+        int threads = 16;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        if (backend.tryAcquire("global:*", 10, 0.001)) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(granted.get()).isEqualTo(10);
+    }
+}
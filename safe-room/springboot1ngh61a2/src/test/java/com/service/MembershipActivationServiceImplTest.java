@@ -0,0 +1,117 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.HuiyuankaEntity;
+import com.entity.HuiyuankagoumaiEntity;
+import com.entity.HuiyuanxufeiEntity;
+import com.entity.YonghuEntity;
+import com.utils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MembershipActivationServiceImplTest {
+
+    private static final String ACCOUNT = "activation-member";
+
+    @Autowired
+    private MembershipActivationService membershipActivationService;
+
+    @Autowired
+    private HuiyuankaService huiyuankaService;
+
+    @Autowired
+    private YonghuService yonghuService;
+
+    private HuiyuankaEntity card;
+
+    @BeforeEach
+    void setUp() {
+        card = TestUtils.createMembershipCard("激活测试卡");
+        card.setYouxiaoqi("3个月");
+        huiyuankaService.save(card);
+        membershipActivationService.refreshCatalog();
+        yonghuService.save(TestUtils.createMemberEntity(ACCOUNT));
+    }
+
+    @AfterEach
+    void cleanupTestData() {
+        yonghuService.remove(new QueryWrapper<YonghuEntity>().eq("yonghuzhanghao", ACCOUNT));
+        huiyuankaService.removeById(card.getId());
+        membershipActivationService.refreshCatalog();
+    }
+
+    @Test
+    void shouldActivateCardFromCatalog() {
+        HuiyuankagoumaiEntity purchase = TestUtils.createMembershipPurchase(ACCOUNT);
+        purchase.setHuiyuankamingcheng(card.getHuiyuankamingcheng());
+
+        MembershipActivationService.ActivationResult result = membershipActivationService.activate(purchase);
+
+        LocalDate expected = LocalDate.now().plusMonths(3);
+        assertThat(result.isApplied()).isTrue();
+        assertThat(result.getExpiry()).isEqualTo(expected);
+        YonghuEntity member = member();
+        assertThat(member.getHuiyuankahao()).isEqualTo(purchase.getHuiyuankahao());
+        assertThat(member.getHuiyuankamingcheng()).isEqualTo(card.getHuiyuankamingcheng());
+        assertThat(toLocalDate(member.getYouxiaoqizhi())).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldNotActivateUnknownCardOrMember() {
+        HuiyuankagoumaiEntity unknownCard = TestUtils.createMembershipPurchase(ACCOUNT);
+        unknownCard.setHuiyuankamingcheng("不存在的会员卡");
+        assertThat(membershipActivationService.activate(unknownCard).isApplied()).isFalse();
+
+        HuiyuankagoumaiEntity unknownMember = TestUtils.createMembershipPurchase("no-such-member");
+        unknownMember.setHuiyuankamingcheng(card.getHuiyuankamingcheng());
+        assertThat(membershipActivationService.activate(unknownMember).isApplied()).isFalse();
+    }
+
+    @Test
+    void shouldStackRenewalsOnCurrentExpiry() {
+        // createMemberEntity 的到期日为30天后
+        LocalDate current = toLocalDate(member().getYouxiaoqizhi());
+        HuiyuanxufeiEntity renewal = TestUtils.createMembershipRenewal(ACCOUNT);
+        renewal.setHuiyuankamingcheng(card.getHuiyuankamingcheng());
+
+        assertThat(membershipActivationService.renew(renewal).getExpiry()).isEqualTo(current.plusMonths(3));
+        assertThat(membershipActivationService.renew(renewal).getExpiry()).isEqualTo(current.plusMonths(6));
+        assertThat(toLocalDate(member().getYouxiaoqizhi())).isEqualTo(current.plusMonths(6));
+    }
+
+    @Test
+    void shouldRenewExpiredMembershipFromToday() {
+        YonghuEntity member = member();
+        member.setYouxiaoqizhi(Date.from(LocalDate.now().minusDays(10).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        yonghuService.updateById(member);
+        HuiyuanxufeiEntity renewal = TestUtils.createMembershipRenewal(ACCOUNT);
+        renewal.setHuiyuankamingcheng("目录外的卡");
+        renewal.setYouxiaoqi("30天");
+
+        MembershipActivationService.ActivationResult result = membershipActivationService.renew(renewal);
+
+        assertThat(result.getExpiry()).isEqualTo(LocalDate.now().plusDays(30));
+    }
+
+    private YonghuEntity member() {
+        return yonghuService.getOne(new QueryWrapper<YonghuEntity>().eq("yonghuzhanghao", ACCOUNT));
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date instanceof java.sql.Date
+                ? ((java.sql.Date) date).toLocalDate()
+                : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
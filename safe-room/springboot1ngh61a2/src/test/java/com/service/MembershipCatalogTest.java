@@ -0,0 +1,49 @@
+package com.service;
+
+import com.service.impl.MembershipCatalog;
+import org.junit.jupiter.api.Test;
+
+import java.time.Period;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MembershipCatalogTest {
+
+    @Test
+    void shouldParseValidityText() {
+        assertThat(MembershipCatalog.parseValidity("12个月")).isEqualTo(Period.ofMonths(12));
+        assertThat(MembershipCatalog.parseValidity("365天")).isEqualTo(Period.ofDays(365));
+        assertThat(MembershipCatalog.parseValidity("1年")).isEqualTo(Period.ofYears(1));
+        assertThat(MembershipCatalog.parseValidity("有效期 3 月")).isEqualTo(Period.ofMonths(3));
+        assertThat(MembershipCatalog.parseValidity("2周")).isEqualTo(Period.ofWeeks(2));
+    }
+
+    @Test
+    void shouldFallBackToOneYearForUnparseableText() {
+        assertThat(MembershipCatalog.parseValidity("长期有效")).isEqualTo(Period.ofYears(1));
+        assertThat(MembershipCatalog.parseValidity("")).isNull();
+        assertThat(MembershipCatalog.parseValidity(null)).isNull();
+    }
+
+    @Test
+    void shouldReplaceAndExtendCatalog() {
+        MembershipCatalog catalog = new MembershipCatalog();
+        Map<String, String> rows = new LinkedHashMap<>();
+        rows.put("黄金会员", "12个月");
+        rows.put("体验卡", "7天");
+        catalog.replace(rows);
+
+        assertThat(catalog.get("黄金会员").getValidity()).isEqualTo(Period.ofMonths(12));
+        assertThat(catalog.get("不存在")).isNull();
+
+        catalog.put("季卡", "3个月");
+        assertThat(catalog.size()).isEqualTo(3);
+
+        rows.remove("体验卡");
+        catalog.replace(rows);
+        assertThat(catalog.get("体验卡")).isNull();
+        assertThat(catalog.get("季卡")).isNull();
+    }
+}
@@ -9,8 +9,14 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.service.impl.MessageUnreadCounter;
+
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -22,11 +28,24 @@ import static org.assertj.core.api.Assertions.assertThat;
 @ActiveProfiles("test")
 class MessageServiceImplTest {
 
+    private static final long UNREAD_USER_ID = 9_100_001L;
+
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private MessageUnreadCounter unreadCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @AfterEach
     void cleanupTestData() {
+        ReflectionTestUtils.setField(unreadCounter, "cacheTtlMs", 5000L);
+        jdbcTemplate.update("DELETE FROM message_unread_counter WHERE userid = ?", UNREAD_USER_ID);
         // 清理测试消息数据
         messageService.list().stream()
                 .filter(message -> message.getTitle() != null &&
@@ -488,4 +507,83 @@ class MessageServiceImplTest {
         assertThat(views).isNotEmpty();
         assertThat(views.get(0).getUserid()).isEqualTo(7L);
     }
+
+    @Test
+    void shouldTrackUnreadCountAcrossSaveAndMarkRead() {
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isZero();
+
+        MessageEntity first = unreadMessage(0);
+        MessageEntity second = unreadMessage(0);
+        unreadMessage(null);
+        unreadMessage(1);
+
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(3);
+        assertThat(storedCounter()).isEqualTo(3);
+
+        assertThat(messageService.markRead(UNREAD_USER_ID, Arrays.asList(first.getId(), second.getId()))).isEqualTo(2);
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(1);
+        // 已读消息重复标记不会再减
+        assertThat(messageService.markRead(UNREAD_USER_ID, Arrays.asList(first.getId(), second.getId()))).isZero();
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(1);
+        assertThat(storedCounter()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecountAfterAdminUpdateOrDelete() {
+        MessageEntity first = unreadMessage(0);
+        MessageEntity second = unreadMessage(0);
+        unreadMessage(0);
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(3);
+
+        first.setIsread(1);
+        messageService.updateById(first);
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(2);
+
+        messageService.removeById(second.getId());
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldServeUnreadCountFromCounterRow() {
+        unreadMessage(0);
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(1);
+
+        // 角标读取计数行而不是对消息表计数
+        ReflectionTestUtils.setField(unreadCounter, "cacheTtlMs", 0L);
+        jdbcTemplate.update("UPDATE message_unread_counter SET unread = 42 WHERE userid = ?", UNREAD_USER_ID);
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(42);
+    }
+
+    @Test
+    void shouldDiscardUnreadDeltaWhenSaveRollsBack() {
+        unreadMessage(0);
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            unreadMessage(0);
+            status.setRollbackOnly();
+        });
+
+        // 回滚后计数行和内存计数都不包含这条消息
+        assertThat(storedCounter()).isEqualTo(1);
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(1);
+        ReflectionTestUtils.setField(unreadCounter, "cacheTtlMs", 0L);
+        assertThat(messageService.countUnread(UNREAD_USER_ID)).isEqualTo(1);
+    }
+
+    private MessageEntity unreadMessage(Integer isread) {
+        MessageEntity message = new MessageEntity();
+        message.setTitle("test-message-unread");
+        message.setContent("Test message content");
+        message.setType("system");
+        message.setUserid(UNREAD_USER_ID);
+        message.setIsread(isread);
+        messageService.save(message);
+        return message;
+    }
+
+    private Integer storedCounter() {
+        return jdbcTemplate.queryForObject(
+                "SELECT unread FROM message_unread_counter WHERE userid = ?", Integer.class, UNREAD_USER_ID);
+    }
 }
@@ -0,0 +1,51 @@
+package com.service;
+
+import com.service.impl.OperationLogPartitionManager;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OperationLogPartitionManagerTest {
+
+    @Test
+    void partitionNameShouldUseYearAndMonth() {
+        assertThat(OperationLogPartitionManager.partitionName(YearMonth.of(2024, 3)))
+                .isEqualTo("operation_log_p202403");
+    }
+
+    @Test
+    void expiredPartitionsShouldKeepRetentionMonthsIncludingCurrent() {
+        List<String> partitions = Arrays.asList(
+                "operation_log_p202310",
+                "operation_log_p202311",
+                "operation_log_p202312",
+                "operation_log_p202410",
+                "operation_log_p202411",
+                "operation_log_default");
+
+        List<String> expired = OperationLogPartitionManager.expiredPartitions(
+                partitions, YearMonth.of(2024, 10), 12);
+
+        assertThat(expired).containsExactly("operation_log_p202310");
+    }
+
+    @Test
+    void expiredPartitionsShouldNeverIncludeDefaultPartition() {
+        List<String> expired = OperationLogPartitionManager.expiredPartitions(
+                Arrays.asList("operation_log_default", "operation_log_legacy"), YearMonth.of(2024, 10), 1);
+
+        assertThat(expired).isEmpty();
+    }
+
+    @Test
+    void nonPositiveRetentionShouldDisableDropping() {
+        List<String> expired = OperationLogPartitionManager.expiredPartitions(
+                Arrays.asList("operation_log_p200001"), YearMonth.of(2024, 10), 0);
+
+        assertThat(expired).isEmpty();
+    }
+}
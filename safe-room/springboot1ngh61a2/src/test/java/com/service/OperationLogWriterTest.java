@@ -0,0 +1,214 @@
+package com.service;
+
+import com.entity.OperationLogEntity;
+import com.service.impl.OperationLogWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OperationLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OperationLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new OperationLogWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(writer, "enabled", true);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 3);
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        // 间隔足够长，由测试显式触发写入
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", OperationLogWriter.POLICY_DROP);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMs", 5_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    void submitShouldQueueWithoutWritingOnCallerThread() {
+        writer.start();
+
+        writer.submit(newLog("CREATE"));
+        writer.submit(newLog("UPDATE"));
+
+        assertThat(writer.getQueueSize()).isEqualTo(2);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushShouldWriteQueuedLogsInOneBatch() {
+        writer.start();
+        writer.submit(newLog("CREATE"));
+        writer.submit(newLog("UPDATE"));
+
+        writer.flush();
+
+        ArgumentCaptor<Collection<OperationLogEntity>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(batch.getValue()).extracting(OperationLogEntity::getOperationType)
+                .containsExactly("CREATE", "UPDATE");
+        assertThat(writer.getQueueSize()).isZero();
+        assertThat(writer.getWrittenCount()).isEqualTo(2);
+    }
+
+    @Test
+    void dropPolicyShouldCountRejectedLogsWhenQueueIsFull() {
+        writer.start();
+        for (int i = 0; i < 5; i++) {
+            writer.submit(newLog("CREATE"));
+        }
+
+        assertThat(writer.getQueueSize()).isEqualTo(3);
+        assertThat(writer.getDroppedCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("fitness_gym_audit_log_dropped_total").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("fitness_gym_audit_log_queue_size").gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    void callerRunsPolicyShouldWriteSynchronouslyWhenQueueIsFull() {
+        ReflectionTestUtils.setField(writer, "overflowPolicy", OperationLogWriter.POLICY_CALLER_RUNS);
+        writer.start();
+        for (int i = 0; i < 4; i++) {
+            writer.submit(newLog("CREATE"));
+        }
+
+        assertThat(writer.getQueueSize()).isEqualTo(3);
+        assertThat(writer.getDroppedCount()).isZero();
+        verify(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void stopShouldDrainRemainingLogs() {
+        writer.start();
+        writer.submit(newLog("CREATE"));
+        writer.submit(newLog("DELETE"));
+
+        writer.stop();
+
+        assertThat(writer.isRunning()).isFalse();
+        assertThat(writer.getQueueSize()).isZero();
+        verify(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void submitRacingStopShouldNotLoseLogs() throws Exception {
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100_000);
+        writer.start();
+        int threads = 4;
+        int perThread = 2_000;
+        CountDownLatch ready = new CountDownLatch(threads);
+        Thread[] submitters = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            submitters[t] = new Thread(() -> {
+                ready.countDown();
+                for (int i = 0; i < perThread; i++) {
+                    writer.submit(newLog("CREATE"));
+                }
+            });
+            submitters[t].start();
+        }
+        ready.await();
+        writer.stop();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        assertThat(writer.getQueueSize()).isZero();
+        assertThat(writer.getWrittenCount()).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void writtenAndFailedTotalsShouldBeCounters() {
+        writer.start();
+        writer.submit(newLog("CREATE"));
+
+        writer.flush();
+
+        assertThat(meterRegistry.get("fitness_gym_audit_log_written_total").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("fitness_gym_audit_log_failed_total").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void failedBatchShouldRetryRowsIndividually() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), eq(2),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("userid is null"));
+        writer.start();
+        writer.submit(newLog("CREATE"));
+        writer.submit(newLog("UPDATE"));
+
+        writer.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(Collection.class), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(writer.getWrittenCount()).isEqualTo(2);
+    }
+
+    @Test
+    void submitShouldWriteDirectlyWhenDisabled() {
+        ReflectionTestUtils.setField(writer, "enabled", false);
+        writer.start();
+
+        writer.submit(newLog("CREATE"));
+
+        assertThat(writer.isRunning()).isFalse();
+        verify(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private OperationLogEntity newLog(String operationType) {
+        OperationLogEntity log = new OperationLogEntity();
+        log.setUserid(1L);
+        log.setUsername("admin");
+        log.setTableName("users");
+        log.setOperationType(operationType);
+        log.setContent("content");
+        log.setIp("127.0.0.1");
+        log.setUserAgent("JUnit");
+        log.setAddtime(new Date());
+        return log;
+    }
+}
@@ -0,0 +1,76 @@
+package com.service;
+
+import com.service.impl.PostgresRateLimitBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostgresRateLimitBackendTest {
+
+    @Test
+    void shouldFollowFailOpenSettingWhenDatabaseUnavailable() {
+        JdbcTemplate jdbcTemplate = unavailableJdbcTemplate();
+
+        assertThat(new PostgresRateLimitBackend(jdbcTemplate, true, 3600).tryAcquire("login:1.1.1.1", 5, 0.1)).isTrue();
+        assertThat(new PostgresRateLimitBackend(jdbcTemplate, false, 3600).tryAcquire("login:1.1.1.1", 5, 0.1)).isFalse();
+    }
+
+    @Test
+    void shouldNotThrowFromResetWhenDatabaseUnavailable() {
+        PostgresRateLimitBackend backend = new PostgresRateLimitBackend(unavailableJdbcTemplate(), false, 3600);
+
+        assertThatCode(() -> backend.reset("login:1.1.1.1")).doesNotThrowAnyException();
+        assertThatCode(backend::resetAll).doesNotThrowAnyException();
+    }
+
+    /**
+     * 两个实例共用同一张表，模拟多节点部署；需要Docker，-Dtest.containers.enabled=true 时运行
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "test.containers.enabled", matches = "true")
+    void shouldShareBucketsAcrossInstances() throws Exception {
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")) {
+            postgres.start();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+            jdbcTemplate.execute(new ClassPathResource("migration-create-rate-limit-bucket.sql")
+                    .getContentAsString(StandardCharsets.UTF_8));
+
+            PostgresRateLimitBackend first = new PostgresRateLimitBackend(jdbcTemplate, false, 3600);
+            PostgresRateLimitBackend second = new PostgresRateLimitBackend(jdbcTemplate, false, 3600);
+
+            assertThat(first.tryAcquire("login:1.1.1.1", 2, 0.001)).isTrue();
+            assertThat(second.tryAcquire("login:1.1.1.1", 2, 0.001)).isTrue();
+            assertThat(first.tryAcquire("login:1.1.1.1", 2, 0.001)).isFalse();
+            assertThat(second.tryAcquire("login:1.1.1.1", 2, 0.001)).isFalse();
+            assertThat(second.tryAcquire("login:2.2.2.2", 2, 0.001)).isTrue();
+
+            first.reset("login:1.1.1.1");
+            assertThat(second.tryAcquire("login:1.1.1.1", 2, 0.001)).isTrue();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JdbcTemplate unavailableJdbcTemplate() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection refused");
+        when(jdbcTemplate.query(anyString(), any(ResultSetExtractor.class), any(Object[].class))).thenThrow(failure);
+        when(jdbcTemplate.update(anyString())).thenThrow(failure);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenThrow(failure);
+        return jdbcTemplate;
+    }
+}
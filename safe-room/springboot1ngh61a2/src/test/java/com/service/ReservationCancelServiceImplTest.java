@@ -0,0 +1,121 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.entity.KechengtuikeEntity;
+import com.entity.KechengyuyueEntity;
+import com.service.impl.SeatLedger;
+import com.utils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationCancelServiceImplTest {
+
+    // test-data.sql 中的课程
+    private static final long COURSE_ID = 2L;
+    private static final long USER_ID = 880_001L;
+
+    @Autowired
+    private ReservationCancelService reservationCancelService;
+
+    @Autowired
+    private CourseBookingService courseBookingService;
+
+    @Autowired
+    private KechengyuyueService kechengyuyueService;
+
+    @Autowired
+    private KechengtuikeService kechengtuikeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanupTestData() {
+        kechengyuyueService.remove(new QueryWrapper<KechengyuyueEntity>().eq("crossuserid", USER_ID));
+        kechengtuikeService.remove(new QueryWrapper<KechengtuikeEntity>().eq("crossuserid", USER_ID));
+        jdbcTemplate.update("DELETE FROM kechengyuyue_cancel_request WHERE crossuserid = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM kecheng_seat_inventory WHERE kecheng_id = ?", COURSE_ID);
+        SeatLedger ledger = (SeatLedger) ReflectionTestUtils.getField(
+                AopTestUtils.getUltimateTargetObject(courseBookingService), "ledger");
+        ledger.invalidate(COURSE_ID);
+    }
+
+    @Test
+    void shouldCancelReleaseSeatAndCreateRefund() {
+        KechengyuyueEntity reservation = paidReservation("CANCEL-1");
+        courseBookingService.setCapacity(COURSE_ID, 50);
+        int remaining = ((Number) courseBookingService.getSeatStatus(COURSE_ID).get("remaining")).intValue();
+
+        ReservationCancelService.CancelResult result = reservationCancelService.cancel(USER_ID, COURSE_ID, null, "临时有事");
+
+        assertThat(result.getStatus()).isEqualTo(ReservationCancelService.CancelResult.Status.CANCELLED);
+        assertThat(result.getReservationId()).isEqualTo(reservation.getId());
+        assertThat(kechengyuyueService.getById(reservation.getId()).getIspay()).isEqualTo("已取消");
+        assertThat(((Number) courseBookingService.getSeatStatus(COURSE_ID).get("remaining")).intValue())
+                .isEqualTo(remaining + 1);
+
+        KechengtuikeEntity refund = kechengtuikeService.getById(result.getRefundId());
+        assertThat(refund.getCrossrefid()).isEqualTo(COURSE_ID);
+        assertThat(refund.getTuikeyuanyin()).isEqualTo("临时有事");
+        assertThat(refund.getSfsh()).isEqualTo("待审核");
+
+        // 已取消的预约不能再次取消
+        assertThat(reservationCancelService.cancel(USER_ID, COURSE_ID, null, null).isCancelled()).isFalse();
+    }
+
+    @Test
+    void shouldReplayRepeatedRequestKey() {
+        paidReservation("CANCEL-2A");
+        paidReservation("CANCEL-2B");
+
+        ReservationCancelService.CancelResult first = reservationCancelService.cancel(USER_ID, COURSE_ID, "req-1", null);
+        ReservationCancelService.CancelResult retry = reservationCancelService.cancel(USER_ID, COURSE_ID, "req-1", null);
+
+        assertThat(retry.getStatus()).isEqualTo(ReservationCancelService.CancelResult.Status.REPLAYED);
+        assertThat(retry.getReservationId()).isEqualTo(first.getReservationId());
+        assertThat(retry.getRefundId()).isEqualTo(first.getRefundId());
+        // 重复提交没有取消第二条预约，也没有多生成退课记录
+        assertThat(kechengyuyueService.count(new QueryWrapper<KechengyuyueEntity>()
+                .eq("crossuserid", USER_ID).eq("ispay", "已支付"))).isEqualTo(1);
+        assertThat(kechengtuikeService.count(new QueryWrapper<KechengtuikeEntity>().eq("crossuserid", USER_ID)))
+                .isEqualTo(1);
+
+        // 新的请求键取消下一条
+        assertThat(reservationCancelService.cancel(USER_ID, COURSE_ID, "req-2", null).getStatus())
+                .isEqualTo(ReservationCancelService.CancelResult.Status.CANCELLED);
+    }
+
+    @Test
+    void shouldReturnNotFoundWithoutPaidReservation() {
+        KechengyuyueEntity unpaid = TestUtils.createReservationTemplate("CANCEL-3", "member001");
+        unpaid.setCrossuserid(USER_ID);
+        unpaid.setCrossrefid(COURSE_ID);
+        unpaid.setIspay("未支付");
+        kechengyuyueService.save(unpaid);
+
+        ReservationCancelService.CancelResult result = reservationCancelService.cancel(USER_ID, COURSE_ID, "req-3", null);
+
+        assertThat(result.getStatus()).isEqualTo(ReservationCancelService.CancelResult.Status.NOT_FOUND);
+        assertThat(kechengyuyueService.getById(unpaid.getId()).getIspay()).isEqualTo("未支付");
+        assertThat(reservationCancelService.cancel(USER_ID, COURSE_ID, "req-3", null).isCancelled()).isFalse();
+    }
+
+    private KechengyuyueEntity paidReservation(String yuyuebianhao) {
+        KechengyuyueEntity reservation = TestUtils.createReservationTemplate(yuyuebianhao, "member001");
+        reservation.setCrossuserid(USER_ID);
+        reservation.setCrossrefid(COURSE_ID);
+        reservation.setIspay("已支付");
+        kechengyuyueService.save(reservation);
+        return reservation;
+    }
+}
@@ -0,0 +1,62 @@
+package com.service;
+
+import com.service.impl.StorageUsageTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StorageUsageTrackerTest {
+
+    private StorageUsageTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new StorageUsageTracker();
+    }
+
+    @Test
+    void shouldTrackStoredAndRemovedFiles() {
+        tracker.recordStored(100);
+        tracker.recordStored(50);
+        tracker.recordRemoved(100);
+
+        assertThat(tracker.getObjectCount()).isEqualTo(1);
+        assertThat(tracker.getUsedBytes()).isEqualTo(50);
+    }
+
+    @Test
+    void shouldRecordOnlySizeDeltaWhenOverwriting() {
+        tracker.recordStored(100);
+        tracker.recordStored(120, 100);
+        tracker.recordStored(30, 120);
+
+        assertThat(tracker.getObjectCount()).isEqualTo(1);
+        assertThat(tracker.getUsedBytes()).isEqualTo(30);
+    }
+
+    @Test
+    void shouldNeverDropBelowZero() {
+        tracker.recordStored(10);
+        tracker.recordRemoved(500);
+        tracker.recordRemoved(500);
+
+        assertThat(tracker.getObjectCount()).isZero();
+        assertThat(tracker.getUsedBytes()).isZero();
+    }
+
+    @Test
+    void shouldPreferConfiguredCapacity() {
+        ReflectionTestUtils.setField(tracker, "capacityBytes", 1024L);
+
+        assertThat(tracker.getTotalBytes()).isEqualTo(1024L);
+    }
+
+    @Test
+    void shouldReportUnknownCapacityForMinioWithoutConfiguration() {
+        ReflectionTestUtils.setField(tracker, "minioEnabled", true);
+
+        assertThat(tracker.getTotalBytes()).isZero();
+    }
+}
@@ -3,6 +3,10 @@ package com.utils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -167,4 +171,21 @@ class FileUtilTest {
         boolean deleted = FileUtil.deleteFile(relativePath);
         assertThat(deleted).isTrue();
     }
+
+    @Test
+    void readImageDimensionsShouldParseHeaderWithoutConsumingSource() throws IOException {
+        BufferedImage image = new BufferedImage(7, 3, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+
+        int[] size = FileUtil.readImageDimensions(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(size).containsExactly(7, 3);
+    }
+
+    @Test
+    void readImageDimensionsShouldReturnNullForUnknownFormat() throws IOException {
+        assertThat(FileUtil.readImageDimensions(new ByteArrayInputStream(new byte[]{1, 2, 3}))).isNull();
+        assertThat(FileUtil.readImageDimensions(null)).isNull();
+    }
 }
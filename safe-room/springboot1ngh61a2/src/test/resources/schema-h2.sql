@@ -32,6 +32,8 @@ CREATE TABLE daoqitixing (
   beizhu VARCHAR(200)
 );
 
+CREATE INDEX idx_daoqitixing_account_expiry ON daoqitixing(yonghuzhanghao, youxiaoqizhi);
+
 DROP TABLE IF EXISTS discussjianshenkecheng CASCADE;
 CREATE TABLE discussjianshenkecheng (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -229,6 +231,26 @@ CREATE TABLE kechengyuyue (
   ispay VARCHAR(200)
 );
 
+DROP TABLE IF EXISTS kecheng_seat_inventory CASCADE;
+CREATE TABLE kecheng_seat_inventory (
+  kecheng_id BIGINT PRIMARY KEY,
+  capacity INT NOT NULL,
+  remaining INT NOT NULL,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT ck_kecheng_seat_remaining CHECK (remaining >= 0 AND remaining <= capacity)
+);
+
+CREATE INDEX idx_kechengyuyue_user_course ON kechengyuyue(crossuserid, crossrefid, ispay);
+
+DROP TABLE IF EXISTS kechengyuyue_cancel_request CASCADE;
+CREATE TABLE kechengyuyue_cancel_request (
+  request_key VARCHAR(200) PRIMARY KEY,
+  crossuserid BIGINT NOT NULL,
+  yuyue_id BIGINT,
+  tuike_id BIGINT,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 DROP TABLE IF EXISTS membership_card CASCADE;
 CREATE TABLE membership_card (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -267,6 +289,15 @@ CREATE TABLE messages (
   addtime_str VARCHAR(50)
 );
 
+CREATE INDEX idx_messages_userid_isread ON messages(userid, isread);
+
+DROP TABLE IF EXISTS message_unread_counter CASCADE;
+CREATE TABLE message_unread_counter (
+  userid BIGINT PRIMARY KEY,
+  unread INTEGER NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 DROP TABLE IF EXISTS news CASCADE;
 CREATE TABLE news (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -292,6 +323,32 @@ CREATE TABLE newstype (
   storeupnum INTEGER DEFAULT 0
 );
 
+DROP TABLE IF EXISTS assets CASCADE;
+CREATE TABLE assets (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  addtime TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updatetime TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  asset_name VARCHAR(200) NOT NULL,
+  asset_type VARCHAR(50) NOT NULL,
+  file_path TEXT NOT NULL,
+  file_size BIGINT,
+  file_format VARCHAR(50),
+  module VARCHAR(100),
+  usage VARCHAR(100),
+  dimensions VARCHAR(50),
+  width INT,
+  height INT,
+  version VARCHAR(50),
+  description TEXT,
+  tags TEXT,
+  category VARCHAR(50) DEFAULT 'static',
+  status VARCHAR(50) DEFAULT 'active',
+  upload_user VARCHAR(100),
+  content_hash VARCHAR(64),
+  ref_count INT DEFAULT 1
+);
+CREATE UNIQUE INDEX uk_assets_content_hash ON assets(content_hash);
+
 DROP TABLE IF EXISTS operation_log CASCADE;
 CREATE TABLE operation_log (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -392,6 +449,8 @@ CREATE TABLE yonghu (
   status INTEGER DEFAULT 0
 );
 
+CREATE INDEX idx_yonghu_youxiaoqizhi_id ON yonghu(youxiaoqizhi, id);
+
 DROP TABLE IF EXISTS legal_terms CASCADE;
 CREATE TABLE legal_terms (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,